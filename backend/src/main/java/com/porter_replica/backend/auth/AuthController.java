@@ -10,7 +10,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.porter_replica.backend.auth.dto.LoginRequest;
 import com.porter_replica.backend.auth.dto.LoginResponse;
+import com.porter_replica.backend.auth.dto.RefreshRequest;
 import com.porter_replica.backend.auth.dto.RegisterRequest;
+import com.porter_replica.backend.auth.jwt.VerifiedToken;
 
 import jakarta.validation.Valid;
 
@@ -38,6 +40,20 @@ public class AuthController {
 		return ResponseEntity.ok(authService.login(request));
 	}
 	
+	@PostMapping("/refresh")
+	public ResponseEntity<LoginResponse> refresh(
+			@Valid @RequestBody RefreshRequest request) {
+
+		return ResponseEntity.ok(authService.refresh(request));
+	}
+
+	@PostMapping("/logout")
+	public ResponseEntity<Void> logout(Authentication authentication) {
+
+		authService.logout((VerifiedToken) authentication.getDetails());
+		return ResponseEntity.noContent().build();
+	}
+	
 	//test method for JWT token testing, to be removed later
 	@GetMapping("/me")
 	public ResponseEntity<String> me(Authentication authentication) {
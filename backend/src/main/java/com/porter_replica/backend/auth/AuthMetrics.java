@@ -0,0 +1,65 @@
+package com.porter_replica.backend.auth;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Timers for the auth flows, split by phase so a latency spike can be pinned
+ * on the database, hashing or token issuing:
+ * <ul>
+ * <li>{@code auth.login.phase{phase}} / {@code auth.register.phase{phase}}</li>
+ * <li>{@code auth.login{outcome}} / {@code auth.register{outcome}}, end to end,
+ * where a failure's outcome is its reason (bad_password, duplicate_email, ...)</li>
+ * <li>{@code auth.refresh{outcome}}</li>
+ * <li>{@code auth.token.verification{result}} for JwtAuthenticationFilter</li>
+ * </ul>
+ */
+@Component
+public class AuthMetrics {
+
+	private final MeterRegistry meterRegistry;
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	public AuthMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	/** Records the phase that started at {@code startNanos} and returns now, the start of the next phase. */
+	public long loginPhase(String phase, long startNanos) {
+		return record("auth.login.phase", "phase", phase, startNanos);
+	}
+
+	public long registerPhase(String phase, long startNanos) {
+		return record("auth.register.phase", "phase", phase, startNanos);
+	}
+
+	public void login(String outcome, long startNanos) {
+		record("auth.login", "outcome", outcome, startNanos);
+	}
+
+	public void register(String outcome, long startNanos) {
+		record("auth.register", "outcome", outcome, startNanos);
+	}
+
+	public void refresh(String outcome, long startNanos) {
+		record("auth.refresh", "outcome", outcome, startNanos);
+	}
+
+	public void tokenVerification(String result, long startNanos) {
+		record("auth.token.verification", "result", result, startNanos);
+	}
+
+	private long record(String name, String tagKey, String tagValue, long startNanos) {
+		long now = System.nanoTime();
+		timers.computeIfAbsent(name + '|' + tagValue,
+				key -> Timer.builder(name).tag(tagKey, tagValue).register(meterRegistry))
+				.record(now - startNanos, TimeUnit.NANOSECONDS);
+		return now;
+	}
+}
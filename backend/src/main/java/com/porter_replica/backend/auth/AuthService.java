@@ -1,68 +1,274 @@
 package com.porter_replica.backend.auth;
 
+import java.time.LocalDateTime;
+import java.util.UUID;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.porter_replica.backend.auth.dto.LoginRequest;
 import com.porter_replica.backend.auth.dto.LoginResponse;
+import com.porter_replica.backend.auth.dto.RefreshRequest;
 import com.porter_replica.backend.auth.dto.RegisterRequest;
 import com.porter_replica.backend.auth.jwt.JwtUtil;
+import com.porter_replica.backend.auth.jwt.TokenDenyList;
+import com.porter_replica.backend.auth.jwt.VerifiedToken;
+import com.porter_replica.backend.auth.password.PasswordHashingBusyException;
+import com.porter_replica.backend.auth.password.PasswordHashingExecutor;
+import com.porter_replica.backend.auth.ratelimit.AuthRateLimits;
+import com.porter_replica.backend.common.DomainException;
+import com.porter_replica.backend.common.ErrorCode;
+import com.porter_replica.backend.common.RateLimitedException;
+import com.porter_replica.backend.datasource.ReadReplicas;
+import com.porter_replica.backend.outbox.Outbox;
+import com.porter_replica.backend.user.Role;
 import com.porter_replica.backend.user.User;
+import com.porter_replica.backend.user.UserCache;
+import com.porter_replica.backend.user.UserCredentials;
+import com.porter_replica.backend.user.UserExistenceIndex;
+import com.porter_replica.backend.user.UserProfile;
+import com.porter_replica.backend.user.UserRegistered;
 import com.porter_replica.backend.user.UserRepository;
+import com.porter_replica.backend.user.VehicleType;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 
 @Service
 public class AuthService {
 
 	private final UserRepository userRepository;
-	private final BCryptPasswordEncoder passwordEncoder;
+	private final PasswordHashingExecutor passwordHashing;
+	private final UserExistenceIndex existenceIndex;
+	private final TokenDenyList denyList;
+	private final AuthRateLimits rateLimits;
+	private final ReadReplicas readReplicas;
+	private final UserCache userCache;
+	private final AuthMetrics authMetrics;
+	private final Outbox outbox;
+	private final TransactionTemplate transactionTemplate;
 	
 	@Autowired
 	JwtUtil jwtUtil;
 
 	public AuthService(UserRepository userRepository,
-			BCryptPasswordEncoder passwordEncoder) {
+			PasswordHashingExecutor passwordHashing,
+			UserExistenceIndex existenceIndex,
+			TokenDenyList denyList,
+			AuthRateLimits rateLimits,
+			ReadReplicas readReplicas,
+			UserCache userCache,
+			AuthMetrics authMetrics,
+			Outbox outbox,
+			TransactionTemplate transactionTemplate) {
 		this.userRepository = userRepository;
-		this.passwordEncoder = passwordEncoder;
+		this.passwordHashing = passwordHashing;
+		this.existenceIndex = existenceIndex;
+		this.denyList = denyList;
+		this.rateLimits = rateLimits;
+		this.readReplicas = readReplicas;
+		this.userCache = userCache;
+		this.authMetrics = authMetrics;
+		this.outbox = outbox;
+		this.transactionTemplate = transactionTemplate;
 	}
 
 	public void register(RegisterRequest request) {
+		long start = System.nanoTime();
+		String outcome = "error";
 
-		if (request.getEmail() == null && request.getPhone() == null) {
-			throw new IllegalArgumentException("Email or phone is required");
-		}
+		try {
+			if (request.getEmail() == null && request.getPhone() == null) {
+				outcome = "missing_contact";
+				throw ErrorCode.CONTACT_REQUIRED.exception();
+			}
+			rateLimits.checkAccount(AuthRateLimits.REGISTER,
+					request.getEmail() != null ? request.getEmail() : request.getPhone());
 
-		if (request.getEmail() != null &&
-				userRepository.findByEmail(request.getEmail()).isPresent()) {
-			throw new IllegalArgumentException("Email is already registered");
-		}
+			// The index rules out most new contacts without a read. A possible duplicate is
+			// confirmed here so we don't spend a hash on it; anything the index misses
+			// (e.g. a concurrent signup) is caught by the unique constraints on insert.
+			if (request.getEmail() != null &&
+					existenceIndex.mightContainEmail(request.getEmail()) &&
+					userRepository.existsByEmail(request.getEmail())) {
+				outcome = "duplicate_email";
+				throw ErrorCode.EMAIL_TAKEN.exception();
+			}
+
+			if (request.getPhone() != null &&
+					existenceIndex.mightContainPhone(request.getPhone()) &&
+					userRepository.existsByPhone(request.getPhone())) {
+				outcome = "duplicate_phone";
+				throw ErrorCode.PHONE_TAKEN.exception();
+			}
+			long phase = authMetrics.registerPhase("existence_check", start);
+
+			User user = new User();
+			user.setName(request.getName());
+			user.setEmail(request.getEmail());
+			user.setPhone(request.getPhone());
+			user.setRole(request.getRole());
+			if (request.getRole() == Role.DRIVER) {
+				user.setVehicleType(request.getVehicleType());
+			}
+			user.setPassword(passwordHashing.encode(request.getPassword()));
+			phase = authMetrics.registerPhase("hash", phase);
+
+			try {
+				// downstream work (notifications, indexing) picks the account up from the outbox
+				transactionTemplate.executeWithoutResult(status -> {
+					userRepository.saveAndFlush(user);
+					outbox.append(UserRegistered.TYPE, user.getId(),
+							new UserRegistered(user.getId(), user.getRole(), user.getVehicleType()));
+				});
+			} catch (DataIntegrityViolationException e) {
+				RuntimeException failure = duplicateContact(request, e);
+				if (failure instanceof DomainException domain) {
+					outcome = domain.getCode() == ErrorCode.EMAIL_TAKEN ? "duplicate_email" : "duplicate_phone";
+				}
+				throw failure;
+			}
+			authMetrics.registerPhase("insert", phase);
 
-		if (request.getPhone() != null &&
-				userRepository.findByPhone(request.getPhone()).isPresent()) {
-			throw new IllegalArgumentException("Phone is already registered");
+			existenceIndex.add(request.getEmail(), request.getPhone());
+			outcome = "success";
+		} catch (RateLimitedException e) {
+			outcome = "rate_limited";
+			throw e;
+		} catch (PasswordHashingBusyException e) {
+			outcome = "hashing_busy";
+			throw e;
+		} finally {
+			authMetrics.register(outcome, start);
 		}
+	}
 
-		User user = new User();
-		user.setName(request.getName());
-		user.setEmail(request.getEmail());
-		user.setPhone(request.getPhone());
-		user.setRole(request.getRole());
-		user.setPassword(passwordEncoder.encode(request.getPassword()));
+	// Only reached when an insert hits a unique constraint, so the extra reads are rare.
+	// They go to the primary: the conflicting row may not have reached a replica yet.
+	private RuntimeException duplicateContact(RegisterRequest request, DataIntegrityViolationException cause) {
+		existenceIndex.add(request.getEmail(), request.getPhone());
 
-		userRepository.save(user);
+		return readReplicas.onPrimary(() -> {
+			if (request.getEmail() != null && userRepository.existsByEmail(request.getEmail())) {
+				return ErrorCode.EMAIL_TAKEN.exception();
+			}
+			if (request.getPhone() != null && userRepository.existsByPhone(request.getPhone())) {
+				return ErrorCode.PHONE_TAKEN.exception();
+			}
+			return cause;
+		});
 	}
 	
 	public LoginResponse login(LoginRequest request) {
+		long start = System.nanoTime();
+		String outcome = "error";
+
+		try {
+			rateLimits.checkAccount(AuthRateLimits.LOGIN, request.getEmail());
+
+			UserCredentials user = userCache.credentialsByEmail(request.getEmail()).orElse(null);
+			long phase = authMetrics.loginPhase("lookup", start);
+			if (user == null) {
+				outcome = "unknown_user";
+				throw ErrorCode.INVALID_CREDENTIALS.exception();
+			}
+
+			boolean matches = passwordHashing.matches(request.getPassword(), user.password());
+			phase = authMetrics.loginPhase("verify_password", phase);
+			if (!matches) {
+				outcome = "bad_password";
+				throw ErrorCode.INVALID_CREDENTIALS.exception();
+			}
+
+			if (passwordHashing.needsRehash(user.password())) {
+				rehash(user, request.getPassword());
+				phase = authMetrics.loginPhase("rehash", phase);
+			}
+
+			LoginResponse tokens = issueTokens(user.id(), user.role(), user.vehicleType(), UUID.randomUUID(), 0);
+			authMetrics.loginPhase("issue_token", phase);
+
+			outcome = "success";
+			return tokens;
+		} catch (RateLimitedException e) {
+			outcome = "rate_limited";
+			throw e;
+		} catch (PasswordHashingBusyException e) {
+			outcome = "hashing_busy";
+			throw e;
+		} finally {
+			authMetrics.login(outcome, start);
+		}
+	}
+
+	/**
+	 * Exchanges a refresh token for a new access/refresh pair in the same
+	 * session. The presented refresh token cannot be used again.
+	 */
+	public LoginResponse refresh(RefreshRequest request) {
+		long start = System.nanoTime();
+		String outcome = "error";
+
+		try {
+			Claims claims;
+			try {
+				claims = jwtUtil.validateRefreshToken(request.getRefreshToken());
+			} catch (JwtException | IllegalArgumentException e) {
+				outcome = e instanceof ExpiredJwtException ? "expired" : "invalid";
+				throw ErrorCode.INVALID_REFRESH_TOKEN.exception();
+			}
+
+			UUID sessionId = JwtUtil.sessionId(claims);
+			int generation = JwtUtil.generation(claims);
+			long sessionExpiresAt = System.currentTimeMillis() + jwtUtil.getRefreshExpiration();
+			if (!denyList.rotate(sessionId, generation, sessionExpiresAt)) {
+				outcome = "revoked";
+				throw ErrorCode.INVALID_REFRESH_TOKEN.exception();
+			}
+
+			UserProfile user = userCache.profileById(Long.valueOf(claims.getSubject())).orElse(null);
+			if (user == null) {
+				outcome = "unknown_user";
+				throw ErrorCode.INVALID_REFRESH_TOKEN.exception();
+			}
+
+			outcome = "success";
+			return issueTokens(user.id(), user.role(), user.vehicleType(), sessionId, generation + 1);
+		} finally {
+			authMetrics.refresh(outcome, start);
+		}
+	}
 
-	    User user = userRepository.findByEmail(request.getEmail())
-	            .orElseThrow(() -> new IllegalArgumentException("Invalid credentials"));
+	/**
+	 * Ends the session the access token belongs to: its access tokens stop
+	 * working immediately and its refresh token can no longer be exchanged.
+	 */
+	public void logout(VerifiedToken token) {
+		if (token.sessionId() == null) {
+			return; // issued before sessions existed; it expires on its own
+		}
+		// no refresh token of this session was issued after now, so none outlives this
+		denyList.revoke(token.sessionId(), System.currentTimeMillis() + jwtUtil.getRefreshExpiration());
+	}
 
-	    if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-	        throw new IllegalArgumentException("Invalid credentials");
-	    }
-	    
-	    String token = jwtUtil.generateToken(user);
-	    return new LoginResponse(token);
+	private LoginResponse issueTokens(Long userId, Role role, VehicleType vehicleType, UUID sessionId, int generation) {
+		return new LoginResponse(
+				jwtUtil.generateToken(userId, role, vehicleType, sessionId),
+				jwtUtil.generateRefreshToken(userId, sessionId, generation),
+				jwtUtil.getExpiration() / 1000);
+	}
+
+	// Moves the stored hash to the current algorithm/cost; login still succeeds if this is skipped
+	private void rehash(UserCredentials user, String rawPassword) {
+		try {
+			userRepository.updatePassword(user.id(), passwordHashing.encode(rawPassword), LocalDateTime.now());
+			userCache.invalidate(user.id(), user.email());
+		} catch (PasswordHashingBusyException e) {
+			// pool is saturated; try again on the next login
+		}
 	}
 
 }
@@ -3,17 +3,30 @@ package com.porter_replica.backend.auth.dto;
 public class LoginResponse {
 
 	private String accessToken;
+	private String refreshToken;
 	private String tokenType = "Bearer";
+	private long expiresIn;
 
-	public LoginResponse(String accessToken) {
+	public LoginResponse(String accessToken, String refreshToken, long expiresIn) {
 		this.accessToken = accessToken;
+		this.refreshToken = refreshToken;
+		this.expiresIn = expiresIn;
 	}
 
 	public String getAccessToken() {
 		return accessToken;
 	}
 
+	public String getRefreshToken() {
+		return refreshToken;
+	}
+
 	public String getTokenType() {
 		return tokenType;
 	}
+
+	// access token lifetime in seconds
+	public long getExpiresIn() {
+		return expiresIn;
+	}
 }
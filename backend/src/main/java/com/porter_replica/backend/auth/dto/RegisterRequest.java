@@ -1,6 +1,7 @@
 package com.porter_replica.backend.auth.dto;
 
 import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.VehicleType;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;	
@@ -19,6 +20,9 @@ public class RegisterRequest {
 	@NotNull(message = "Role is required")
 	private Role role;
 
+	// drivers only; ignored for customers
+	private VehicleType vehicleType;
+
 	public String getName() {
 		return name;
 	}
@@ -59,4 +63,12 @@ public class RegisterRequest {
 		this.role = role;
 	}
 
+	public VehicleType getVehicleType() {
+		return vehicleType;
+	}
+
+	public void setVehicleType(VehicleType vehicleType) {
+		this.vehicleType = vehicleType;
+	}
+
 }
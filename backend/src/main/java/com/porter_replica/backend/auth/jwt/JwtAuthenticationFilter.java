@@ -1,24 +1,28 @@
 package com.porter_replica.backend.auth.jwt;
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
+import io.jsonwebtoken.ExpiredJwtException;
+import com.porter_replica.backend.auth.AuthMetrics;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenDenyList denyList;
+    private final AuthMetrics authMetrics;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
-        this.jwtUtil = jwtUtil;
+    public JwtAuthenticationFilter(VerifiedTokenCache tokenCache, TokenDenyList denyList,
+            AuthMetrics authMetrics) {
+        this.tokenCache = tokenCache;
+        this.denyList = denyList;
+        this.authMetrics = authMetrics;
     }
 
     @Override
@@ -32,22 +36,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
+            long start = System.nanoTime();
 
             try {
-                Claims claims = jwtUtil.validateToken(token);
-                String userId = claims.getSubject();
-                String role = claims.get("role", String.class);
-
-                UsernamePasswordAuthenticationToken auth =
-                        new UsernamePasswordAuthenticationToken(
-                                userId,
-                                null,
-                                List.of(new SimpleGrantedAuthority("ROLE_" + role))
-                        );
-
-                SecurityContextHolder.getContext().setAuthentication(auth);
+                VerifiedToken verified = tokenCache.verify(token);
+
+                // checked after the cache: a logout must take effect for tokens already cached
+                if (denyList.isRevoked(verified.sessionId())) {
+                    authMetrics.tokenVerification("revoked", start);
+                } else {
+                    UsernamePasswordAuthenticationToken auth =
+                            new UsernamePasswordAuthenticationToken(
+                                    verified.userId(),
+                                    null,
+                                    verified.authorities()
+                            );
+                    auth.setDetails(verified);
+
+                    SecurityContextHolder.getContext().setAuthentication(auth);
+                    authMetrics.tokenVerification("valid", start);
+                }
+            } catch (ExpiredJwtException e) {
+                authMetrics.tokenVerification("expired", start);
             } catch (Exception ignored) {
                 // Invalid token → request will be rejected
+                authMetrics.tokenVerification("invalid", start);
             }
         }
 
@@ -0,0 +1,268 @@
+package com.porter_replica.backend.auth.jwt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Signing and verification keys by key id ({@code kid} header).
+ *
+ * Without {@code jwt.keys.file} the ring holds one HS256 key derived from
+ * {@code jwt.secret}. With it, keys come from a properties file that is
+ * re-read whenever it changes:
+ * <pre>
+ * active=2026-10
+ * keys.2026-10.alg=ES256
+ * keys.2026-10.public=&lt;base64 X.509 SubjectPublicKeyInfo&gt;
+ * keys.2026-10.private=&lt;base64 PKCS#8&gt;   (signing nodes only)
+ * keys.2026-04.alg=HS256
+ * keys.2026-04.secret=&lt;base64&gt;
+ * </pre>
+ * A node whose file has no private key for the active kid only verifies.
+ * To rotate: ship the new public key everywhere, then switch {@code active}
+ * on the signing nodes, and drop the old key once its last refresh token
+ * has expired.
+ *
+ * Tokens without a kid were issued before the ring existed. Without a key
+ * file they verify against {@code jwt.secret}. With one they verify against
+ * it only until {@code jwt.keys.legacy-accepted-until}, a fixed instant
+ * (ISO-8601) that restarts do not move; set it to the switch to the key file
+ * plus {@code jwt.refresh-expiration} so the last of those sessions can still
+ * refresh. Left empty, a node with a key file rejects every token without a kid.
+ */
+@Component
+public class JwtKeyRing extends SigningKeyResolverAdapter implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+	public record SigningKey(String kid, SignatureAlgorithm algorithm, Key key) {
+	}
+
+	private record VerificationKey(SignatureAlgorithm algorithm, Key key) {
+	}
+
+	private record Snapshot(Map<String, VerificationKey> verification, SigningKey signing) {
+	}
+
+	private final Key legacyKey;
+	private final long legacyAcceptedUntil;
+	private final Path keyFile;
+	private final List<Runnable> removalListeners = new CopyOnWriteArrayList<>();
+	private final ScheduledExecutorService reloader;
+
+	private volatile Snapshot snapshot;
+	private FileTime loadedModifiedTime;
+
+	public static JwtKeyRing ofSecret(String secret) {
+		return new JwtKeyRing(secret, "", 0, "");
+	}
+
+	@Autowired
+	public JwtKeyRing(
+			@Value("${jwt.secret:}") String secret,
+			@Value("${jwt.keys.file:}") String keyFile,
+			@Value("${jwt.keys.reload-interval-millis:10000}") long reloadIntervalMillis,
+			@Value("${jwt.keys.legacy-accepted-until:}") String legacyAcceptedUntil) {
+
+		this.legacyKey = secret.isBlank() ? null : Keys.hmacShaKeyFor(Base64.getDecoder().decode(secret));
+
+		if (keyFile.isBlank()) {
+			if (legacyKey == null) {
+				throw new IllegalStateException("Either jwt.secret or jwt.keys.file must be set");
+			}
+			this.legacyAcceptedUntil = Long.MAX_VALUE;
+			this.keyFile = null;
+			this.reloader = null;
+			String kid = "hs-" + fingerprint(legacyKey);
+			this.snapshot = new Snapshot(
+					Map.of(kid, new VerificationKey(SignatureAlgorithm.HS256, legacyKey)),
+					new SigningKey(kid, SignatureAlgorithm.HS256, legacyKey));
+			return;
+		}
+
+		this.legacyAcceptedUntil = legacyKey == null || legacyAcceptedUntil.isBlank()
+				? Long.MIN_VALUE
+				: Instant.parse(legacyAcceptedUntil.trim()).toEpochMilli();
+		this.keyFile = Path.of(keyFile);
+		try {
+			this.loadedModifiedTime = Files.getLastModifiedTime(this.keyFile);
+			this.snapshot = load(this.keyFile);
+		} catch (IOException | GeneralSecurityException | RuntimeException e) {
+			throw new IllegalStateException("Cannot load JWT keys from " + keyFile, e);
+		}
+		log.info("Loaded JWT keys {} from {} (signing: {})", snapshot.verification().keySet(), keyFile,
+				snapshot.signing() == null ? "none, verify only" : snapshot.signing().kid());
+
+		if (reloadIntervalMillis > 0) {
+			this.reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "jwt-key-ring-reloader");
+				thread.setDaemon(true);
+				return thread;
+			});
+			reloader.scheduleWithFixedDelay(this::reloadIfChanged,
+					reloadIntervalMillis, reloadIntervalMillis, TimeUnit.MILLISECONDS);
+		} else {
+			this.reloader = null;
+		}
+	}
+
+	/** The key new tokens are signed with; verify-only nodes have none. */
+	public SigningKey signingKey() {
+		SigningKey signing = snapshot.signing();
+		if (signing == null) {
+			throw new IllegalStateException("This node has no private key for the active JWT key id");
+		}
+		return signing;
+	}
+
+	/** Runs after a reload that dropped a key, so anything verified with it can be forgotten. */
+	public void onKeysRemoved(Runnable listener) {
+		removalListeners.add(listener);
+	}
+
+	@Override
+	public Key resolveSigningKey(JwsHeader header, Claims claims) {
+		String kid = header.getKeyId();
+		if (kid == null) {
+			if (legacyKey == null || System.currentTimeMillis() > legacyAcceptedUntil) {
+				throw new UnsupportedJwtException("Token has no key id");
+			}
+			return legacyKey;
+		}
+
+		VerificationKey key = snapshot.verification().get(kid);
+		if (key == null) {
+			throw new UnsupportedJwtException("Unknown key id " + kid);
+		}
+		// the header's alg must be the one configured for the kid, never the other way round
+		if (!key.algorithm().getValue().equals(header.getAlgorithm())) {
+			throw new UnsupportedJwtException("Algorithm " + header.getAlgorithm() + " does not match key id " + kid);
+		}
+		return key.key();
+	}
+
+	synchronized void reloadIfChanged() {
+		try {
+			FileTime modified = Files.getLastModifiedTime(keyFile);
+			if (modified.equals(loadedModifiedTime)) {
+				return;
+			}
+			Snapshot previous = snapshot;
+			snapshot = load(keyFile);
+			loadedModifiedTime = modified;
+			log.info("Reloaded JWT keys {} (signing: {})", snapshot.verification().keySet(),
+					snapshot.signing() == null ? "none, verify only" : snapshot.signing().kid());
+
+			if (!snapshot.verification().keySet().containsAll(previous.verification().keySet())) {
+				removalListeners.forEach(Runnable::run);
+			}
+		} catch (IOException | GeneralSecurityException | RuntimeException e) {
+			// keep serving with the keys we have
+			log.error("Cannot reload JWT keys from {}", keyFile, e);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (reloader != null) {
+			reloader.shutdownNow();
+		}
+	}
+
+	private static Snapshot load(Path file) throws IOException, GeneralSecurityException {
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(file)) {
+			properties.load(in);
+		}
+
+		String active = properties.getProperty("active");
+		if (active == null || active.isBlank()) {
+			throw new IllegalArgumentException("'active' key id is missing");
+		}
+
+		Map<String, VerificationKey> verification = new HashMap<>();
+		SigningKey signing = null;
+		for (String name : properties.stringPropertyNames()) {
+			if (!name.startsWith("keys.") || !name.endsWith(".alg")) {
+				continue;
+			}
+			String kid = name.substring("keys.".length(), name.length() - ".alg".length());
+			SignatureAlgorithm algorithm = SignatureAlgorithm.forName(properties.getProperty(name).trim());
+			String prefix = "keys." + kid + ".";
+
+			Key verifyWith;
+			Key signWith;
+			if (algorithm.isHmac()) {
+				verifyWith = Keys.hmacShaKeyFor(decode(properties, prefix + "secret"));
+				signWith = verifyWith;
+			} else {
+				KeyFactory factory = KeyFactory.getInstance(algorithm.isEllipticCurve() ? "EC" : "RSA");
+				verifyWith = factory.generatePublic(new X509EncodedKeySpec(decode(properties, prefix + "public")));
+				signWith = properties.containsKey(prefix + "private")
+						? factory.generatePrivate(new PKCS8EncodedKeySpec(decode(properties, prefix + "private")))
+						: null;
+			}
+
+			verification.put(kid, new VerificationKey(algorithm, verifyWith));
+			if (kid.equals(active) && signWith != null) {
+				signing = new SigningKey(kid, algorithm, signWith);
+			}
+		}
+
+		if (!verification.containsKey(active)) {
+			throw new IllegalArgumentException("Active key id " + active + " has no keys." + active + ".alg entry");
+		}
+		return new Snapshot(Map.copyOf(verification), signing);
+	}
+
+	private static byte[] decode(Properties properties, String name) {
+		String value = properties.getProperty(name);
+		if (value == null) {
+			throw new IllegalArgumentException(name + " is missing");
+		}
+		return Base64.getDecoder().decode(value.trim());
+	}
+
+	private static String fingerprint(Key key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getEncoded());
+			return HexFormat.of().formatHex(digest, 0, 4);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
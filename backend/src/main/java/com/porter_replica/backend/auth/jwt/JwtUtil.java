@@ -1,48 +1,157 @@
 package com.porter_replica.backend.auth.jwt;
 
+import com.porter_replica.backend.user.Role;
 import com.porter_replica.backend.user.User;
+import com.porter_replica.backend.user.VehicleType;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 
-import java.util.Base64;
 import java.util.Date;
-
-import javax.crypto.SecretKey;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
-	private final SecretKey key;
+	static final String SESSION_CLAIM = "sid";
+	static final String TYPE_CLAIM = "typ";
+	static final String GENERATION_CLAIM = "gen";
+	static final String VEHICLE_CLAIM = "vt";
+	private static final String REFRESH_TYPE = "refresh";
+
+	private static final long DEFAULT_REFRESH_EXPIRATION = 14L * 24 * 60 * 60 * 1000;
+
+	private final JwtKeyRing keyRing;
+	private final JwtParser parser;
 
-    @Value("${jwt.expiration}")
-    private long expiration;
-    
+    private final long expiration;
+    private final long refreshExpiration;
+
+    public JwtUtil(String secret, long expiration) {
+        this(JwtKeyRing.ofSecret(secret), expiration, DEFAULT_REFRESH_EXPIRATION);
+    }
+
+    @Autowired
     public JwtUtil(
-            @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration}") long expiration
+            JwtKeyRing keyRing,
+            @Value("${jwt.expiration}") long expiration,
+            @Value("${jwt.refresh-expiration:1209600000}") long refreshExpiration
     ) {
-        byte[] decodedKey = Base64.getDecoder().decode(secret);
-        this.key = Keys.hmacShaKeyFor(decodedKey);
+        this.keyRing = keyRing;
+        // the key for each token is picked by its kid header from the ring's current keys
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyRing)
+                .build();
         this.expiration = expiration;
+        this.refreshExpiration = refreshExpiration;
     }
 
+    /** Access token for a new session. */
     public String generateToken(User user) {
-        return Jwts.builder()
-                .setSubject(String.valueOf(user.getId()))
-                .claim("role", user.getRole().name())
+        return generateToken(user, UUID.randomUUID());
+    }
+
+    public String generateToken(User user, UUID sessionId) {
+        return generateToken(user.getId(), user.getRole(), user.getVehicleType(), sessionId);
+    }
+
+    public String generateToken(Long userId, Role role, UUID sessionId) {
+        return generateToken(userId, role, null, sessionId);
+    }
+
+    /** {@code vehicleType} rides along for drivers so location pings need no lookup. */
+    public String generateToken(Long userId, Role role, VehicleType vehicleType, UUID sessionId) {
+        JwtKeyRing.SigningKey signing = keyRing.signingKey();
+        JwtBuilder builder = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signing.kid())
+                .setSubject(String.valueOf(userId))
+                .claim("role", role.name());
+        if (vehicleType != null) {
+            builder.claim(VEHICLE_CLAIM, vehicleType.name());
+        }
+        return builder
+                .claim(SESSION_CLAIM, sessionId.toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(key, SignatureAlgorithm.HS256)
+                .signWith(signing.key(), signing.algorithm())
                 .compact();
     }
 
+    /**
+     * Refresh token for the session. {@code generation} counts rotations; each
+     * generation can be exchanged once (see {@link TokenDenyList#rotate}).
+     */
+    public String generateRefreshToken(User user, UUID sessionId, int generation) {
+        return generateRefreshToken(user.getId(), sessionId, generation);
+    }
+
+    public String generateRefreshToken(Long userId, UUID sessionId, int generation) {
+        JwtKeyRing.SigningKey signing = keyRing.signingKey();
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signing.kid())
+                .setSubject(String.valueOf(userId))
+                .claim(TYPE_CLAIM, REFRESH_TYPE)
+                .claim(SESSION_CLAIM, sessionId.toString())
+                .claim(GENERATION_CLAIM, generation)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + refreshExpiration))
+                .signWith(signing.key(), signing.algorithm())
+                .compact();
+    }
+
+    /** Verifies an access token; a refresh token is rejected here. */
     public Claims validateToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
+        // parser is immutable and thread-safe, so it is built once and shared
+        Claims claims = parser.parseClaimsJws(token)
+                .getBody();
+        if (REFRESH_TYPE.equals(claims.get(TYPE_CLAIM))) {
+            throw new UnsupportedJwtException("Refresh token used as an access token");
+        }
+        return claims;
+    }
+
+    public Claims validateRefreshToken(String token) {
+        Claims claims = parser.parseClaimsJws(token)
                 .getBody();
+        if (!REFRESH_TYPE.equals(claims.get(TYPE_CLAIM))) {
+            throw new UnsupportedJwtException("Not a refresh token");
+        }
+        return claims;
+    }
+
+    /** The session id of verified claims, or null for tokens issued before sessions existed. */
+    public static UUID sessionId(Claims claims) {
+        String sessionId = claims.get(SESSION_CLAIM, String.class);
+        return sessionId == null ? null : UUID.fromString(sessionId);
+    }
+
+    /** Null for customers, older tokens, and a type this build does not know. */
+    public static VehicleType vehicleType(Claims claims) {
+        String vehicleType = claims.get(VEHICLE_CLAIM, String.class);
+        if (vehicleType == null) {
+            return null;
+        }
+        try {
+            return VehicleType.valueOf(vehicleType);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static int generation(Claims claims) {
+        return claims.get(GENERATION_CLAIM, Integer.class);
+    }
+
+    public JwtKeyRing getKeyRing() {
+        return keyRing;
+    }
+
+    public long getExpiration() {
+        return expiration;
+    }
+
+    public long getRefreshExpiration() {
+        return refreshExpiration;
     }
 }
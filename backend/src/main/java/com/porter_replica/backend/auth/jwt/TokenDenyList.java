@@ -0,0 +1,244 @@
+package com.porter_replica.backend.auth.jwt;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * In-memory revocation state, keyed by session id (the {@code sid} claim shared
+ * by every access and refresh token of one login). Per session it remembers
+ * the next refresh-token generation it will accept, or that the session was
+ * logged out, until the session's last token would have expired anyway.
+ *
+ * Sessions that never rotated or logged out have no entry, so the table only
+ * grows with revocations and each entry is dropped by the sweeper once it is
+ * past its expiry. Each shard is an open-addressing table of primitive arrays
+ * (about 28 bytes per slot) behind its own lock.
+ *
+ * The state is local to this node. With more than one instance a revoked or
+ * rotated session is still accepted by the others.
+ */
+@Component
+public class TokenDenyList implements MeterBinder, DisposableBean {
+
+	static final int REVOKED = -1;
+
+	private final Shard[] shards;
+	private final ScheduledExecutorService sweeper;
+	private int nextSweep;
+
+	public TokenDenyList(
+			@Value("${jwt.deny-list.shards:64}") int shardCount,
+			@Value("${jwt.deny-list.sweep-interval-millis:1000}") long sweepIntervalMillis) {
+
+		int count = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+		this.shards = new Shard[count];
+		for (int i = 0; i < count; i++) {
+			shards[i] = new Shard();
+		}
+
+		// one shard per tick, so a sweep never stalls more than 1/shards of the lookups
+		this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "token-deny-list-sweeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sweeper.scheduleWithFixedDelay(this::sweepNext,
+				sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/** True when the session was logged out, or its refresh token was replayed. */
+	public boolean isRevoked(UUID sessionId) {
+		if (sessionId == null) {
+			return false;
+		}
+		return shardFor(sessionId).generation(sessionId, System.currentTimeMillis()) == REVOKED;
+	}
+
+	/** Denies every token of the session until {@code untilMillis}. */
+	public void revoke(UUID sessionId, long untilMillis) {
+		shardFor(sessionId).revoke(sessionId, untilMillis);
+	}
+
+	/**
+	 * Consumes refresh-token generation {@code generation} of the session and
+	 * keeps the entry until {@code untilMillis}. Returns false if the session
+	 * is revoked or the generation was already used; presenting a used
+	 * generation is treated as a stolen token and revokes the session.
+	 */
+	public boolean rotate(UUID sessionId, int generation, long untilMillis) {
+		return shardFor(sessionId).rotate(sessionId, generation, untilMillis, System.currentTimeMillis());
+	}
+
+	public int size() {
+		int size = 0;
+		for (Shard shard : shards) {
+			size += shard.size();
+		}
+		return size;
+	}
+
+	void sweepNext() {
+		shards[nextSweep++ & (shards.length - 1)].sweep(System.currentTimeMillis());
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("jwt.deny-list.size", this, TokenDenyList::size)
+				.register(registry);
+	}
+
+	@Override
+	public void destroy() {
+		sweeper.shutdownNow();
+	}
+
+	private Shard shardFor(UUID id) {
+		long h = id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+		return shards[(int) (h ^ (h >>> 32)) & (shards.length - 1)];
+	}
+
+	/**
+	 * Linear-probing table. Slots with both key halves zero are empty (a random
+	 * UUID is never all zeros); expired entries are skipped on lookup and
+	 * removed by rebuilding the table during a sweep or a resize.
+	 */
+	private static final class Shard {
+
+		private static final int INITIAL_CAPACITY = 16;
+
+		private long[] keyHi = new long[INITIAL_CAPACITY];
+		private long[] keyLo = new long[INITIAL_CAPACITY];
+		private long[] expiresAt = new long[INITIAL_CAPACITY];
+		private int[] generation = new int[INITIAL_CAPACITY];
+		private int size;
+
+		synchronized int generation(UUID id, long now) {
+			int slot = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+			if (slot < 0 || expiresAt[slot] < now) {
+				return 0;
+			}
+			return generation[slot];
+		}
+
+		synchronized void revoke(UUID id, long untilMillis) {
+			int slot = slotFor(id);
+			generation[slot] = REVOKED;
+			expiresAt[slot] = Math.max(expiresAt[slot], untilMillis);
+		}
+
+		synchronized boolean rotate(UUID id, int presented, long untilMillis, long now) {
+			int slot = slotFor(id);
+			int expected = expiresAt[slot] < now ? 0 : generation[slot];
+
+			if (expected == REVOKED) {
+				return false;
+			}
+			if (presented < expected) {
+				generation[slot] = REVOKED;
+				return false;
+			}
+			generation[slot] = presented + 1;
+			expiresAt[slot] = Math.max(expiresAt[slot], untilMillis);
+			return true;
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		synchronized void sweep(long now) {
+			rebuild(keyHi.length, now);
+		}
+
+		private int find(long hi, long lo) {
+			int mask = keyHi.length - 1;
+			for (int slot = index(hi, lo, mask); ; slot = (slot + 1) & mask) {
+				if (keyHi[slot] == hi && keyLo[slot] == lo) {
+					return slot;
+				}
+				if (keyHi[slot] == 0 && keyLo[slot] == 0) {
+					return -1;
+				}
+			}
+		}
+
+		// slot for the id, inserting an empty (generation 0, already expired) entry if needed
+		private int slotFor(UUID id) {
+			long hi = id.getMostSignificantBits();
+			long lo = id.getLeastSignificantBits();
+			int slot = find(hi, lo);
+			if (slot >= 0) {
+				return slot;
+			}
+			if ((size + 1) * 4 > keyHi.length * 3) {
+				rebuild(keyHi.length * 2, System.currentTimeMillis());
+			}
+			slot = insert(hi, lo);
+			size++;
+			return slot;
+		}
+
+		private int insert(long hi, long lo) {
+			int mask = keyHi.length - 1;
+			int slot = index(hi, lo, mask);
+			while (keyHi[slot] != 0 || keyLo[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			keyHi[slot] = hi;
+			keyLo[slot] = lo;
+			expiresAt[slot] = 0;
+			generation[slot] = 0;
+			return slot;
+		}
+
+		// copies the live entries into fresh arrays, shrinking when most entries have expired
+		private void rebuild(int capacity, long now) {
+			long[] oldHi = keyHi;
+			long[] oldLo = keyLo;
+			long[] oldExpiresAt = expiresAt;
+			int[] oldGeneration = generation;
+
+			int live = 0;
+			for (int i = 0; i < oldHi.length; i++) {
+				if ((oldHi[i] != 0 || oldLo[i] != 0) && oldExpiresAt[i] >= now) {
+					live++;
+				}
+			}
+			while (capacity > INITIAL_CAPACITY && live * 4 < capacity) {
+				capacity >>>= 1;
+			}
+			while ((live + 1) * 4 > capacity * 3) {
+				capacity <<= 1;
+			}
+
+			keyHi = new long[capacity];
+			keyLo = new long[capacity];
+			expiresAt = new long[capacity];
+			generation = new int[capacity];
+			size = 0;
+			for (int i = 0; i < oldHi.length; i++) {
+				if ((oldHi[i] != 0 || oldLo[i] != 0) && oldExpiresAt[i] >= now) {
+					int slot = insert(oldHi[i], oldLo[i]);
+					expiresAt[slot] = oldExpiresAt[i];
+					generation[slot] = oldGeneration[i];
+					size++;
+				}
+			}
+		}
+
+		private static int index(long hi, long lo, int mask) {
+			long h = (hi ^ lo) * 0x9E3779B97F4A7C15L;
+			return (int) (h >>> 32) & mask;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.porter_replica.backend.auth.jwt;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.VehicleType;
+
+/**
+ * Result of a successful signature and claims check, kept by
+ * {@link VerifiedTokenCache} so repeat requests skip the HMAC.
+ * {@code sessionId} is null for tokens issued before sessions existed;
+ * {@code vehicleType} is null except for drivers.
+ */
+public record VerifiedToken(
+		String userId,
+		Role role,
+		VehicleType vehicleType,
+		List<GrantedAuthority> authorities,
+		UUID sessionId,
+		long expiresAtMillis) {
+
+	boolean isExpired(long nowMillis) {
+		// same rule as the JJWT parser: a token is still valid at exactly its exp
+		return nowMillis > expiresAtMillis;
+	}
+}
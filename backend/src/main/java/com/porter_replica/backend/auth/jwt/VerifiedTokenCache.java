@@ -0,0 +1,136 @@
+package com.porter_replica.backend.auth.jwt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.porter_replica.backend.user.Role;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of tokens that already passed {@link JwtUtil#validateToken}.
+ * Entries are keyed by the SHA-256 of the token (raw bearer tokens are never
+ * kept on the heap) and disappear once the token itself expires.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+	private static final Map<Role, List<GrantedAuthority>> AUTHORITIES = new EnumMap<>(Role.class);
+
+	static {
+		for (Role role : Role.values()) {
+			AUTHORITIES.put(role, List.of(new SimpleGrantedAuthority("ROLE_" + role.name())));
+		}
+	}
+
+	private final JwtUtil jwtUtil;
+	private final Cache<TokenKey, VerifiedToken> cache;
+
+	public VerifiedTokenCache(JwtUtil jwtUtil,
+			@Value("${jwt.cache.max-entries:100000}") long maxEntries) {
+		this.jwtUtil = jwtUtil;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxEntries)
+				.expireAfter(new UntilTokenExpiry())
+				// run eviction bookkeeping inline; handing it to the common pool costs an unpark per drain
+				.executor(Runnable::run)
+				.recordStats()
+				.build();
+		jwtUtil.getKeyRing().onKeysRemoved(cache::invalidateAll);
+	}
+
+	/**
+	 * Returns the verified principal for the token, checking the signature only
+	 * on a cache miss. Throws the same {@code JwtException}s as
+	 * {@link JwtUtil#validateToken} for invalid or expired tokens.
+	 */
+	public VerifiedToken verify(String token) {
+		TokenKey key = TokenKey.of(token);
+
+		VerifiedToken cached = cache.getIfPresent(key);
+		if (cached != null) {
+			if (!cached.isExpired(System.currentTimeMillis())) {
+				return cached;
+			}
+			// Caffeine evicts lazily; fall through so the parser reports the expiry
+			cache.invalidate(key);
+		}
+
+		Claims claims = jwtUtil.validateToken(token);
+		Role role = Role.valueOf(claims.get("role", String.class));
+		VerifiedToken verified = new VerifiedToken(
+				claims.getSubject(),
+				role,
+				JwtUtil.vehicleType(claims),
+				AUTHORITIES.get(role),
+				JwtUtil.sessionId(claims),
+				claims.getExpiration().getTime());
+
+		cache.put(key, verified);
+		return verified;
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "jwt.verified");
+	}
+
+	private static final class UntilTokenExpiry implements Expiry<TokenKey, VerifiedToken> {
+
+		@Override
+		public long expireAfterCreate(TokenKey key, VerifiedToken value, long currentTime) {
+			long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+		}
+
+		@Override
+		public long expireAfterUpdate(TokenKey key, VerifiedToken value,
+				long currentTime, long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(TokenKey key, VerifiedToken value,
+				long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+
+	private record TokenKey(long a, long b, long c, long d) {
+
+		static TokenKey of(String token) {
+			ByteBuffer digest = ByteBuffer.wrap(sha256().digest(token.getBytes(StandardCharsets.US_ASCII)));
+			return new TokenKey(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+		}
+
+		private static MessageDigest sha256() {
+			try {
+				return MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 is not available", e);
+			}
+		}
+	}
+}
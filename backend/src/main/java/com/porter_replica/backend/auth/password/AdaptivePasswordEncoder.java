@@ -0,0 +1,88 @@
+package com.porter_replica.backend.auth.password;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+/**
+ * Encodes new passwords with the configured algorithm and BCrypt cost, and
+ * reports any stored hash that was produced with something else so that
+ * {@code AuthService.login} can rehash it while the raw password is at hand.
+ *
+ * New hashes carry a {@code {id}} prefix. Hashes without one predate this
+ * class and are treated as plain BCrypt.
+ */
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+
+	public static final String BCRYPT = "bcrypt";
+	public static final String PBKDF2 = "pbkdf2";
+
+	private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+
+	private final String algorithm;
+	private final int bcryptStrength;
+	private final DelegatingPasswordEncoder delegate;
+
+	public AdaptivePasswordEncoder(String algorithm, int bcryptStrength) {
+		BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+		Map<String, PasswordEncoder> encoders = Map.of(
+				BCRYPT, bcrypt,
+				PBKDF2, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+		if (!encoders.containsKey(algorithm)) {
+			throw new IllegalArgumentException("Unsupported password hashing algorithm: " + algorithm);
+		}
+
+		this.algorithm = algorithm;
+		this.bcryptStrength = bcryptStrength;
+		this.delegate = new DelegatingPasswordEncoder(algorithm, encoders);
+		this.delegate.setDefaultPasswordEncoderForMatches(bcrypt);
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return delegate.encode(rawPassword);
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return delegate.matches(rawPassword, encodedPassword);
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		if (encodedPassword == null) {
+			return false;
+		}
+
+		String id = BCRYPT;
+		String hash = encodedPassword;
+		if (encodedPassword.startsWith("{")) {
+			int end = encodedPassword.indexOf('}');
+			if (end < 0) {
+				return true;
+			}
+			id = encodedPassword.substring(1, end);
+			hash = encodedPassword.substring(end + 1);
+		}
+
+		if (!algorithm.equals(id)) {
+			return true;
+		}
+		if (BCRYPT.equals(id)) {
+			// only ever upward: nodes calibrated to different costs must not bounce a hash between them
+			Matcher matcher = BCRYPT_COST.matcher(hash);
+			return !matcher.find() || Integer.parseInt(matcher.group(1)) < bcryptStrength;
+		}
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+
+	public int getBcryptStrength() {
+		return bcryptStrength;
+	}
+}
@@ -0,0 +1,46 @@
+package com.porter_replica.backend.auth.password;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Picks the highest BCrypt cost that stays within a target time per hash on
+ * the machine we are running on. Each +1 of cost doubles the work, so one
+ * measurement at the minimum cost is enough to extrapolate. The result is
+ * per node; a fleet of mixed hardware should pin password-hashing.bcrypt-strength.
+ */
+public final class BCryptCostCalibrator {
+
+	private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+	private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int MEASURED_ROUNDS = 3;
+
+	private BCryptCostCalibrator() {
+	}
+
+	public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+		BCryptPasswordEncoder warmup = new BCryptPasswordEncoder(4);
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			warmup.encode(SAMPLE_PASSWORD);
+		}
+
+		BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+		long bestNanos = Long.MAX_VALUE;
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			long start = System.nanoTime();
+			probe.encode(SAMPLE_PASSWORD);
+			bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+		}
+
+		double ratio = (targetMillis * 1_000_000d) / bestNanos;
+		int extra = ratio > 1 ? (int) Math.floor(Math.log(ratio) / Math.log(2)) : 0;
+		int strength = Math.min(maxStrength, minStrength + extra);
+
+		log.info("BCrypt calibration: cost {} took {} ms, using cost {} for a {} ms target",
+				minStrength, bestNanos / 1_000_000, strength, targetMillis);
+		return strength;
+	}
+}
@@ -0,0 +1,22 @@
+package com.porter_replica.backend.auth.password;
+
+import com.porter_replica.backend.common.ErrorCode;
+
+/**
+ * Thrown when the password hashing pool and its queue are full, so the
+ * caller can be told to retry instead of waiting behind the backlog.
+ * Stackless: it is thrown at its highest rate exactly when the server is overloaded.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+	private final long retryAfterSeconds;
+
+	public PasswordHashingBusyException(long retryAfterSeconds) {
+		super(ErrorCode.SERVER_BUSY.message(), null, false, false);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
@@ -0,0 +1,130 @@
+package com.porter_replica.backend.auth.password;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Runs password hashing on its own bounded pool so a login storm cannot
+ * occupy every servlet thread. Work beyond the queue capacity is rejected
+ * immediately with {@link PasswordHashingBusyException}.
+ *
+ * The pool deliberately stays on platform threads even when requests run on
+ * virtual threads: hashing is CPU-bound, and a waiting virtual thread parks
+ * on the future without holding a carrier.
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+	private final PasswordEncoder passwordEncoder;
+	private final ThreadPoolExecutor pool;
+	private final ExecutorService executor;
+	private final long retryAfterSeconds;
+
+	private final Timer matchesTimer;
+	private final Timer encodeTimer;
+	private final Counter rejected;
+
+	public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+			MeterRegistry meterRegistry,
+			@Value("${password-hashing.threads:0}") int threads,
+			@Value("${password-hashing.queue-capacity:64}") int queueCapacity,
+			@Value("${password-hashing.retry-after-seconds:2}") long retryAfterSeconds) {
+
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+		this.passwordEncoder = passwordEncoder;
+		this.retryAfterSeconds = retryAfterSeconds;
+		this.pool = new ThreadPoolExecutor(
+				poolSize, poolSize,
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				new HashingThreadFactory(),
+				new ThreadPoolExecutor.AbortPolicy());
+
+		// publishes executor.queued / executor.active and the time tasks spend waiting in the queue
+		this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password.hashing");
+		this.matchesTimer = Timer.builder("password.hashing.duration")
+				.tag("operation", "matches")
+				.register(meterRegistry);
+		this.encodeTimer = Timer.builder("password.hashing.duration")
+				.tag("operation", "encode")
+				.register(meterRegistry);
+		this.rejected = Counter.builder("password.hashing.rejected")
+				.register(meterRegistry);
+	}
+
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return run(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+	}
+
+	public String encode(CharSequence rawPassword) {
+		return run(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+	}
+
+	// only parses the stored hash, so it runs on the caller's thread
+	public boolean needsRehash(String encodedPassword) {
+		return passwordEncoder.upgradeEncoding(encodedPassword);
+	}
+
+	public int getQueueDepth() {
+		return pool.getQueue().size();
+	}
+
+	private <T> T run(Callable<T> task) {
+		Future<T> future;
+		try {
+			future = executor.submit(task);
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw new PasswordHashingBusyException(retryAfterSeconds);
+		}
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new IllegalStateException("Password hashing failed", e.getCause());
+		}
+	}
+
+	@Override
+	public void destroy() {
+		pool.shutdownNow();
+	}
+
+	private static final class HashingThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
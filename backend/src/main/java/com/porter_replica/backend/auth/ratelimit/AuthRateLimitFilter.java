@@ -0,0 +1,58 @@
+package com.porter_replica.backend.auth.ratelimit;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.porter_replica.backend.common.ErrorCode;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Per-client-address limit on login and registration, applied before the
+ * request body is parsed or a token is looked at. Behind a proxy the
+ * address is only the real client's when server.forward-headers-strategy
+ * is configured.
+ */
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+	private static final String LOGIN_PATH = "/api/auth/login";
+	private static final String REGISTER_PATH = "/api/auth/register";
+
+	private final AuthRateLimits rateLimits;
+
+	public AuthRateLimitFilter(AuthRateLimits rateLimits) {
+		this.rateLimits = rateLimits;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		String path = request.getRequestURI();
+		return !"POST".equals(request.getMethod())
+				|| !(LOGIN_PATH.equals(path) || REGISTER_PATH.equals(path));
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+			FilterChain filterChain) throws ServletException, IOException {
+
+		String endpoint = LOGIN_PATH.equals(request.getRequestURI()) ? AuthRateLimits.LOGIN : AuthRateLimits.REGISTER;
+		long retryAfterSeconds = rateLimits.checkClient(endpoint, request.getRemoteAddr());
+		if (retryAfterSeconds > 0) {
+			response.setStatus(ErrorCode.TOO_MANY_REQUESTS.status().value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+			response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+			response.getOutputStream().write(ErrorCode.TOO_MANY_REQUESTS.body());
+			return;
+		}
+
+		filterChain.doFilter(request, response);
+	}
+}
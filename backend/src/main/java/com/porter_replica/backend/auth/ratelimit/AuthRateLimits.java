@@ -0,0 +1,121 @@
+package com.porter_replica.backend.auth.ratelimit;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.porter_replica.backend.common.RateLimitedException;
+import com.porter_replica.backend.common.RateLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rate limits for the unauthenticated auth endpoints, which are the ones
+ * that spend BCrypt time: one bucket per client address (checked in
+ * {@link AuthRateLimitFilter} before the body is read) and one per account
+ * identifier (checked by AuthService, so spreading an attack over many
+ * addresses still cannot hammer one account). Rejections are counted in
+ * {@code auth.rate_limit.rejected{scope,endpoint}}.
+ */
+@Component
+public class AuthRateLimits implements DisposableBean {
+
+	public static final String LOGIN = "login";
+	public static final String REGISTER = "register";
+
+	private final boolean enabled;
+	private final RateLimiter perClient;
+	private final RateLimiter perAccount;
+	private final ScheduledExecutorService sweeper;
+	private int nextSweep;
+
+	private final Counter clientLogin;
+	private final Counter clientRegister;
+	private final Counter accountLogin;
+	private final Counter accountRegister;
+
+	public AuthRateLimits(MeterRegistry meterRegistry,
+			@Value("${rate-limit.enabled:true}") boolean enabled,
+			@Value("${rate-limit.client.requests-per-minute:60}") double clientPerMinute,
+			@Value("${rate-limit.client.burst:20}") int clientBurst,
+			@Value("${rate-limit.account.requests-per-minute:10}") double accountPerMinute,
+			@Value("${rate-limit.account.burst:5}") int accountBurst,
+			@Value("${rate-limit.stripes:16}") int stripes,
+			@Value("${rate-limit.sweep-interval-millis:1000}") long sweepIntervalMillis) {
+
+		this.enabled = enabled;
+		this.perClient = new RateLimiter(clientPerMinute, clientBurst, stripes);
+		this.perAccount = new RateLimiter(accountPerMinute, accountBurst, stripes);
+
+		this.clientLogin = rejectedCounter(meterRegistry, "client", LOGIN);
+		this.clientRegister = rejectedCounter(meterRegistry, "client", REGISTER);
+		this.accountLogin = rejectedCounter(meterRegistry, "account", LOGIN);
+		this.accountRegister = rejectedCounter(meterRegistry, "account", REGISTER);
+		Gauge.builder("auth.rate_limit.keys", perClient, RateLimiter::size).tag("scope", "client").register(meterRegistry);
+		Gauge.builder("auth.rate_limit.keys", perAccount, RateLimiter::size).tag("scope", "account").register(meterRegistry);
+
+		// idle buckets are dropped one stripe per tick
+		this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "auth-rate-limit-sweeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sweeper.scheduleWithFixedDelay(this::sweepNext,
+				sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/** Returns 0 if the client may proceed, otherwise the seconds to wait. */
+	public long checkClient(String endpoint, String clientAddress) {
+		if (!enabled) {
+			return 0;
+		}
+		long waitNanos = perClient.tryAcquire(clientAddress, System.nanoTime());
+		if (waitNanos == 0) {
+			return 0;
+		}
+		(LOGIN.equals(endpoint) ? clientLogin : clientRegister).increment();
+		return toRetryAfterSeconds(waitNanos);
+	}
+
+	/** Throws {@link RateLimitedException} when the account has had too many attempts. */
+	public void checkAccount(String endpoint, String identifier) {
+		if (!enabled || identifier == null) {
+			return;
+		}
+		long waitNanos = perAccount.tryAcquire(identifier.toLowerCase(Locale.ROOT), System.nanoTime());
+		if (waitNanos != 0) {
+			(LOGIN.equals(endpoint) ? accountLogin : accountRegister).increment();
+			throw new RateLimitedException(toRetryAfterSeconds(waitNanos));
+		}
+	}
+
+	void sweepNext() {
+		long now = System.nanoTime();
+		perClient.evictIdle(nextSweep, now);
+		perAccount.evictIdle(nextSweep, now);
+		nextSweep++;
+	}
+
+	@Override
+	public void destroy() {
+		sweeper.shutdownNow();
+	}
+
+	private static long toRetryAfterSeconds(long waitNanos) {
+		return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+	}
+
+	private static Counter rejectedCounter(MeterRegistry meterRegistry, String scope, String endpoint) {
+		return Counter.builder("auth.rate_limit.rejected")
+				.tag("scope", scope)
+				.tag("endpoint", endpoint)
+				.register(meterRegistry);
+	}
+}
@@ -0,0 +1,183 @@
+package com.porter_replica.backend.booking;
+
+import java.time.LocalDateTime;
+
+import com.porter_replica.backend.user.VehicleType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+
+/**
+ * A customer's request for a vehicle. Created through JPA; the dispatch
+ * engine moves it out of SEARCHING with plain JDBC batch updates, and
+ * {@link com.porter_replica.backend.trip.journal.TripProjector} copies the
+ * later trip changes here from the trip journal.
+ */
+@Entity
+@Table(name = "bookings", indexes = {
+		@Index(name = "idx_bookings_customer", columnList = "customer_id"),
+		@Index(name = "idx_bookings_driver", columnList = "driver_id") })
+public class Booking {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "customer_id", nullable = false)
+	private Long customerId;
+
+	@Column(name = "pickup_lat", nullable = false)
+	private double pickupLat;
+
+	@Column(name = "pickup_lng", nullable = false)
+	private double pickupLng;
+
+	@Column(name = "drop_lat", nullable = false)
+	private double dropLat;
+
+	@Column(name = "drop_lng", nullable = false)
+	private double dropLng;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "vehicle_type", nullable = false)
+	private VehicleType vehicleType;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private BookingStatus status;
+
+	@Column(name = "driver_id")
+	private Long driverId;
+
+	@Column(name = "pickup_distance_km")
+	private Double pickupDistanceKm;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	@Column(name = "assigned_at")
+	private LocalDateTime assignedAt;
+
+	// from here on written by the trip journal's projection
+	@Column(name = "arrived_at")
+	private LocalDateTime arrivedAt;
+
+	@Column(name = "picked_up_at")
+	private LocalDateTime pickedUpAt;
+
+	@Column(name = "delivered_at")
+	private LocalDateTime deliveredAt;
+
+	@Column(name = "cancelled_at")
+	private LocalDateTime cancelledAt;
+
+	public Long getId() {
+		return id;
+	}
+
+	public Long getCustomerId() {
+		return customerId;
+	}
+
+	public void setCustomerId(Long customerId) {
+		this.customerId = customerId;
+	}
+
+	public double getPickupLat() {
+		return pickupLat;
+	}
+
+	public void setPickupLat(double pickupLat) {
+		this.pickupLat = pickupLat;
+	}
+
+	public double getPickupLng() {
+		return pickupLng;
+	}
+
+	public void setPickupLng(double pickupLng) {
+		this.pickupLng = pickupLng;
+	}
+
+	public double getDropLat() {
+		return dropLat;
+	}
+
+	public void setDropLat(double dropLat) {
+		this.dropLat = dropLat;
+	}
+
+	public double getDropLng() {
+		return dropLng;
+	}
+
+	public void setDropLng(double dropLng) {
+		this.dropLng = dropLng;
+	}
+
+	public VehicleType getVehicleType() {
+		return vehicleType;
+	}
+
+	public void setVehicleType(VehicleType vehicleType) {
+		this.vehicleType = vehicleType;
+	}
+
+	public BookingStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(BookingStatus status) {
+		this.status = status;
+	}
+
+	public Long getDriverId() {
+		return driverId;
+	}
+
+	public Double getPickupDistanceKm() {
+		return pickupDistanceKm;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public LocalDateTime getAssignedAt() {
+		return assignedAt;
+	}
+
+	public LocalDateTime getArrivedAt() {
+		return arrivedAt;
+	}
+
+	public LocalDateTime getPickedUpAt() {
+		return pickedUpAt;
+	}
+
+	public LocalDateTime getDeliveredAt() {
+		return deliveredAt;
+	}
+
+	public LocalDateTime getCancelledAt() {
+		return cancelledAt;
+	}
+
+	@PrePersist
+	protected void onCreate() {
+		if (createdAt == null) {
+			createdAt = LocalDateTime.now();
+		}
+		if (status == null) {
+			status = BookingStatus.SEARCHING;
+		}
+	}
+}
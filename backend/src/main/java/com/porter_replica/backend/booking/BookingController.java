@@ -0,0 +1,75 @@
+package com.porter_replica.backend.booking;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.porter_replica.backend.auth.jwt.VerifiedToken;
+import com.porter_replica.backend.booking.dto.BookingResponse;
+import com.porter_replica.backend.booking.dto.CreateBookingRequest;
+import com.porter_replica.backend.booking.dto.TripStatusResponse;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/bookings")
+public class BookingController {
+
+	private final BookingService bookingService;
+
+	public BookingController(BookingService bookingService) {
+		this.bookingService = bookingService;
+	}
+
+	// 201 with status SEARCHING; poll GET /api/bookings/{id} for the driver
+	@PostMapping
+	public ResponseEntity<BookingResponse> create(
+			@Valid @RequestBody CreateBookingRequest request, Authentication authentication) {
+
+		return ResponseEntity.status(HttpStatus.CREATED)
+				.body(bookingService.create(userId(authentication), request));
+	}
+
+	@GetMapping("/{id}")
+	public ResponseEntity<BookingResponse> get(@PathVariable long id, Authentication authentication) {
+		return ResponseEntity.ok(bookingService.get(id, userId(authentication)));
+	}
+
+	// the driver's steps, in order; 409 when out of order
+	@PostMapping("/{id}/arrived")
+	public ResponseEntity<TripStatusResponse> arrived(@PathVariable long id, Authentication authentication) {
+		return transition(id, BookingStatus.ARRIVED, authentication);
+	}
+
+	@PostMapping("/{id}/picked-up")
+	public ResponseEntity<TripStatusResponse> pickedUp(@PathVariable long id, Authentication authentication) {
+		return transition(id, BookingStatus.PICKED_UP, authentication);
+	}
+
+	@PostMapping("/{id}/delivered")
+	public ResponseEntity<TripStatusResponse> delivered(@PathVariable long id, Authentication authentication) {
+		return transition(id, BookingStatus.DELIVERED, authentication);
+	}
+
+	// the customer's, until the goods are picked up
+	@PostMapping("/{id}/cancel")
+	public ResponseEntity<TripStatusResponse> cancel(@PathVariable long id, Authentication authentication) {
+		return transition(id, BookingStatus.CANCELLED, authentication);
+	}
+
+	private ResponseEntity<TripStatusResponse> transition(long id, BookingStatus status,
+			Authentication authentication) {
+		return ResponseEntity.ok(new TripStatusResponse(id,
+				bookingService.transition(id, status, userId(authentication))));
+	}
+
+	private static long userId(Authentication authentication) {
+		return Long.parseLong(((VerifiedToken) authentication.getDetails()).userId());
+	}
+}
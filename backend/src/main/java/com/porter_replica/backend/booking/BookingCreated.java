@@ -0,0 +1,10 @@
+package com.porter_replica.backend.booking;
+
+import com.porter_replica.backend.user.VehicleType;
+
+/** Outbox payload of a new booking. */
+public record BookingCreated(long bookingId, long customerId, VehicleType vehicleType, double pickupLat,
+		double pickupLng, double dropLat, double dropLng) {
+
+	public static final String TYPE = "booking.created";
+}
@@ -0,0 +1,6 @@
+package com.porter_replica.backend.booking;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BookingRepository extends JpaRepository<Booking, Long> {
+}
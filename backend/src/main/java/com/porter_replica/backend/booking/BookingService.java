@@ -0,0 +1,87 @@
+package com.porter_replica.backend.booking;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.porter_replica.backend.booking.dispatch.DispatchEngine;
+import com.porter_replica.backend.booking.dispatch.PendingBooking;
+import com.porter_replica.backend.booking.dto.BookingResponse;
+import com.porter_replica.backend.booking.dto.CreateBookingRequest;
+import com.porter_replica.backend.common.ErrorCode;
+import com.porter_replica.backend.datasource.ReadReplicas;
+import com.porter_replica.backend.outbox.Outbox;
+import com.porter_replica.backend.quote.surge.SurgeEngine;
+import com.porter_replica.backend.trip.journal.TripStore;
+
+@Service
+public class BookingService {
+
+	private final BookingRepository bookingRepository;
+	private final DispatchEngine dispatchEngine;
+	private final ReadReplicas readReplicas;
+	private final SurgeEngine surgeEngine;
+	private final TripStore tripStore;
+	private final Outbox outbox;
+	private final TransactionTemplate transactionTemplate;
+
+	public BookingService(BookingRepository bookingRepository, DispatchEngine dispatchEngine,
+			ReadReplicas readReplicas, SurgeEngine surgeEngine, TripStore tripStore, Outbox outbox,
+			TransactionTemplate transactionTemplate) {
+		this.bookingRepository = bookingRepository;
+		this.dispatchEngine = dispatchEngine;
+		this.readReplicas = readReplicas;
+		this.surgeEngine = surgeEngine;
+		this.tripStore = tripStore;
+		this.outbox = outbox;
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	/**
+	 * Stores the booking as SEARCHING with its outbox event, hands it to the next
+	 * dispatch window and counts it towards surge.
+	 */
+	public BookingResponse create(long customerId, CreateBookingRequest request) {
+		Booking booking = new Booking();
+		booking.setCustomerId(customerId);
+		booking.setPickupLat(request.getPickupLat());
+		booking.setPickupLng(request.getPickupLng());
+		booking.setDropLat(request.getDropLat());
+		booking.setDropLng(request.getDropLng());
+		booking.setVehicleType(request.getVehicleType());
+		transactionTemplate.executeWithoutResult(status -> {
+			bookingRepository.save(booking);
+			outbox.append(BookingCreated.TYPE, booking.getId(), new BookingCreated(booking.getId(), customerId,
+					booking.getVehicleType(), booking.getPickupLat(), booking.getPickupLng(), booking.getDropLat(),
+					booking.getDropLng()));
+		});
+
+		long now = System.currentTimeMillis();
+		tripStore.requested(booking.getId(), customerId);
+		dispatchEngine.submit(new PendingBooking(booking.getId(), booking.getPickupLat(), booking.getPickupLng(),
+				booking.getVehicleType(), now));
+		surgeEngine.recordDemand(booking.getPickupLat(), booking.getPickupLng(), now);
+		return BookingResponse.of(booking);
+	}
+
+	/** Visible to its customer and its driver; anyone else gets the same answer as for a missing booking. */
+	public BookingResponse get(long bookingId, long userId) {
+		Booking booking = bookingRepository.findById(bookingId)
+				// created a moment ago and not on the replica yet
+				.or(() -> readReplicas.onPrimary(() -> bookingRepository.findById(bookingId)))
+				.orElseThrow(ErrorCode.BOOKING_NOT_FOUND::exception);
+		if (booking.getCustomerId() != userId
+				&& (booking.getDriverId() == null || booking.getDriverId() != userId)) {
+			throw ErrorCode.BOOKING_NOT_FOUND.exception();
+		}
+		BookingResponse response = BookingResponse.of(booking);
+		// the row trails the journal by up to a projection interval
+		return tripStore.state(bookingId)
+				.map(trip -> response.withStatus(trip.status()))
+				.orElse(response);
+	}
+
+	/** Driver and customer steps of a trip; the journal checks who may make them and in what order. */
+	public BookingStatus transition(long bookingId, BookingStatus status, long userId) {
+		return tripStore.transition(bookingId, status, userId).status();
+	}
+}
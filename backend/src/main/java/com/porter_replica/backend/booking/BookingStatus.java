@@ -0,0 +1,20 @@
+package com.porter_replica.backend.booking;
+
+/** The trip journal stores ordinals: add new values at the end only. */
+public enum BookingStatus {
+	// waiting for the dispatch engine to find a driver
+	SEARCHING,
+	ASSIGNED,
+	// no driver found within dispatch.max-wait-seconds
+	EXPIRED,
+	// the driver is at the pickup
+	ARRIVED,
+	PICKED_UP,
+	DELIVERED,
+	CANCELLED;
+
+	/** No further status change is possible. */
+	public boolean isFinal() {
+		return this == EXPIRED || this == DELIVERED || this == CANCELLED;
+	}
+}
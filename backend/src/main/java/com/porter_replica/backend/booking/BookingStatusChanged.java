@@ -0,0 +1,13 @@
+package com.porter_replica.backend.booking;
+
+/** Published once a booking's new status is stored; {@code driverId} and the distance are null unless ASSIGNED. */
+public record BookingStatusChanged(long bookingId, BookingStatus status, Long driverId, Double pickupDistanceKm) {
+
+	public static BookingStatusChanged assigned(long bookingId, long driverId, double pickupDistanceKm) {
+		return new BookingStatusChanged(bookingId, BookingStatus.ASSIGNED, driverId, pickupDistanceKm);
+	}
+
+	public static BookingStatusChanged expired(long bookingId) {
+		return new BookingStatusChanged(bookingId, BookingStatus.EXPIRED, null, null);
+	}
+}
@@ -0,0 +1,503 @@
+package com.porter_replica.backend.booking.dispatch;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.porter_replica.backend.booking.BookingStatus;
+import com.porter_replica.backend.booking.BookingStatusChanged;
+import com.porter_replica.backend.booking.history.BookingHistory;
+import com.porter_replica.backend.driver.geo.DriverGeoIndex;
+import com.porter_replica.backend.driver.geo.NearbyDriver;
+import com.porter_replica.backend.user.VehicleType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Matches bookings to drivers in batches. Bookings collect for
+ * {@code dispatch.window-millis}; each window splits the waiting ones into
+ * geographic partitions ({@code partition-size-km} squares, at most
+ * {@code max-partition-bookings} each) and solves the partitions in parallel
+ * on a fork/join pool, each as a minimum total pickup distance assignment
+ * over every booking's nearest available drivers ({@link Hungarian}).
+ *
+ * A booking left without a driver tries again next window until it has
+ * waited {@code max-wait-seconds}, then expires, or until its customer
+ * cancels it. Where drivers are too few,
+ * each booking's costs are lowered in proportion to how long it has waited:
+ * the same amount for all of its drivers, so it changes which bookings win
+ * but never which driver a booking gets.
+ *
+ * Neighbouring partitions can pick the same driver; the first to claim it
+ * in {@link DriverGeoIndex} gets it and the other booking tries again next
+ * window.
+ *
+ * Every assignment and expiry is published as a {@link BookingStatusChanged}
+ * event once it is stored; expired bookings are also copied into
+ * {@link BookingHistory}.
+ *
+ * Metrics, to tune the window against:
+ * <ul>
+ * <li>{@code dispatch.match.latency}, booking request to assignment</li>
+ * <li>{@code dispatch.pickup.distance} (km) per assignment</li>
+ * <li>{@code dispatch.window.pickup.km{solver}} and
+ * {@code dispatch.window.matches{solver}}: per window, the batch solution
+ * against taking each booking's nearest free driver in arrival order</li>
+ * <li>{@code dispatch.bookings{result}}: assigned, expired, conflict</li>
+ * <li>{@code dispatch.window.duration}, {@code dispatch.window.bookings},
+ * {@code dispatch.pending}</li>
+ * </ul>
+ */
+@Component
+public class DispatchEngine implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(DispatchEngine.class);
+
+	private static final double KM_PER_DEGREE = 6371.0088 * Math.PI / 180;
+	// priced far above any real pickup, so the solver only pairs an infeasible booking when nothing else is left
+	private static final double INFEASIBLE = 1e9;
+
+	private static final String ASSIGN_SQL = "update bookings set status = 'ASSIGNED', driver_id = ?, "
+			+ "pickup_distance_km = ?, assigned_at = ? where id = ? and status = 'SEARCHING'";
+	private static final String EXPIRE_SQL = "update bookings set status = 'EXPIRED' where id = ? and status = 'SEARCHING'";
+	private static final String SEARCHING_SQL = "select id, pickup_lat, pickup_lng, vehicle_type, created_at "
+			+ "from bookings where status = 'SEARCHING'";
+
+	private final DriverGeoIndex geoIndex;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final BookingHistory history;
+	private final ApplicationEventPublisher events;
+	private final long maxWaitMillis;
+	private final double maxPickupKm;
+	private final int candidatesPerBooking;
+	private final double partitionDegrees;
+	private final int maxPartitionBookings;
+
+	private final ConcurrentLinkedQueue<PendingBooking> incoming = new ConcurrentLinkedQueue<>();
+	private final Set<Long> withdrawn = ConcurrentHashMap.newKeySet();
+	// dispatch() only
+	private final List<PendingBooking> waiting = new ArrayList<>();
+	private volatile int waitingCount;
+
+	private final ForkJoinPool solverPool;
+	private final ScheduledExecutorService scheduler;
+
+	private final Timer matchLatency;
+	private final DistributionSummary pickupDistance;
+	private final Counter assigned;
+	private final Counter expired;
+	private final Counter conflicts;
+	private final Timer windowDuration;
+	private final DistributionSummary windowBookings;
+	private final Counter batchKm;
+	private final Counter batchMatches;
+	private final Counter greedyKm;
+	private final Counter greedyMatches;
+
+	public DispatchEngine(DriverGeoIndex geoIndex,
+			JdbcTemplate jdbcTemplate,
+			TransactionTemplate transactionTemplate,
+			BookingHistory history,
+			ApplicationEventPublisher events,
+			MeterRegistry meterRegistry,
+			@Value("${dispatch.window-millis:2000}") long windowMillis,
+			@Value("${dispatch.max-wait-seconds:120}") long maxWaitSeconds,
+			@Value("${dispatch.max-pickup-km:5}") double maxPickupKm,
+			@Value("${dispatch.candidates-per-booking:8}") int candidatesPerBooking,
+			@Value("${dispatch.partition-size-km:10}") double partitionSizeKm,
+			@Value("${dispatch.max-partition-bookings:256}") int maxPartitionBookings,
+			@Value("${dispatch.parallelism:0}") int parallelism) {
+
+		this.geoIndex = geoIndex;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.history = history;
+		this.events = events;
+		this.maxWaitMillis = TimeUnit.SECONDS.toMillis(maxWaitSeconds);
+		this.maxPickupKm = maxPickupKm;
+		this.candidatesPerBooking = candidatesPerBooking;
+		this.partitionDegrees = partitionSizeKm / KM_PER_DEGREE;
+		this.maxPartitionBookings = maxPartitionBookings;
+
+		ForkJoinPool.ForkJoinWorkerThreadFactory threads = pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("dispatch-solver-" + thread.getPoolIndex());
+			return thread;
+		};
+		this.solverPool = new ForkJoinPool(
+				parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(), threads, null, false);
+
+		this.matchLatency = Timer.builder("dispatch.match.latency")
+				.register(meterRegistry);
+		this.pickupDistance = DistributionSummary.builder("dispatch.pickup.distance")
+				.baseUnit("km")
+				.register(meterRegistry);
+		this.assigned = Counter.builder("dispatch.bookings")
+				.tag("result", "assigned")
+				.register(meterRegistry);
+		this.expired = Counter.builder("dispatch.bookings")
+				.tag("result", "expired")
+				.register(meterRegistry);
+		this.conflicts = Counter.builder("dispatch.bookings")
+				.tag("result", "conflict")
+				.register(meterRegistry);
+		this.windowDuration = Timer.builder("dispatch.window.duration")
+				.register(meterRegistry);
+		this.windowBookings = DistributionSummary.builder("dispatch.window.bookings")
+				.register(meterRegistry);
+		this.batchKm = Counter.builder("dispatch.window.pickup.km")
+				.tag("solver", "batch")
+				.register(meterRegistry);
+		this.batchMatches = Counter.builder("dispatch.window.matches")
+				.tag("solver", "batch")
+				.register(meterRegistry);
+		this.greedyKm = Counter.builder("dispatch.window.pickup.km")
+				.tag("solver", "greedy")
+				.register(meterRegistry);
+		this.greedyMatches = Counter.builder("dispatch.window.matches")
+				.tag("solver", "greedy")
+				.register(meterRegistry);
+		Gauge.builder("dispatch.pending", this, DispatchEngine::pending)
+				.register(meterRegistry);
+
+		// window-millis 0 leaves dispatch() to be called by hand (tests)
+		if (windowMillis > 0) {
+			this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "dispatch-window");
+				thread.setDaemon(true);
+				return thread;
+			});
+			scheduler.scheduleWithFixedDelay(this::runWindow, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+		} else {
+			this.scheduler = null;
+		}
+	}
+
+	public void submit(PendingBooking booking) {
+		incoming.add(booking);
+	}
+
+	public int pending() {
+		return incoming.size() + waitingCount;
+	}
+
+	// bookings still searching when the last process stopped
+	@EventListener(ApplicationReadyEvent.class)
+	public void resumeSearching() {
+		jdbcTemplate.query(SEARCHING_SQL, rs -> {
+			submit(new PendingBooking(rs.getLong("id"), rs.getDouble("pickup_lat"), rs.getDouble("pickup_lng"),
+					VehicleType.valueOf(rs.getString("vehicle_type")), rs.getTimestamp("created_at").getTime()));
+		});
+	}
+
+	// a cancel racing a window in progress can still be assigned; the trip journal then frees the driver
+	@EventListener
+	public void onStatusChanged(BookingStatusChanged event) {
+		if (event.status() == BookingStatus.CANCELLED) {
+			withdrawn.add(event.bookingId());
+		}
+	}
+
+	private void runWindow() {
+		try {
+			dispatch(System.currentTimeMillis());
+		} catch (RuntimeException e) {
+			log.error("Dispatch window failed", e);
+		}
+	}
+
+	/** Runs one window; the scheduler calls this every {@code window-millis}. */
+	public synchronized void dispatch(long nowMillis) {
+		long start = System.nanoTime();
+		PendingBooking next;
+		while ((next = incoming.poll()) != null) {
+			waiting.add(next);
+		}
+		if (!withdrawn.isEmpty()) {
+			Set<Long> cancelled = new HashSet<>();
+			for (Iterator<Long> it = withdrawn.iterator(); it.hasNext();) {
+				cancelled.add(it.next());
+				it.remove();
+			}
+			waiting.removeIf(booking -> cancelled.contains(booking.bookingId()));
+		}
+		if (waiting.isEmpty()) {
+			waitingCount = 0;
+			return;
+		}
+		windowBookings.record(waiting.size());
+
+		List<PendingBooking> timedOut = new ArrayList<>();
+		waiting.removeIf(booking -> {
+			if (nowMillis - booking.createdAtMillis() >= maxWaitMillis) {
+				timedOut.add(booking);
+				return true;
+			}
+			return false;
+		});
+		expire(timedOut);
+
+		List<Partition> partitions = partition(nowMillis);
+		if (!partitions.isEmpty()) {
+			solverPool.invoke(new SolveTask(partitions, 0, partitions.size()));
+		}
+
+		List<Partition.Match> claimed = new ArrayList<>();
+		for (Partition partition : partitions) {
+			batchKm.increment(partition.batchKm);
+			batchMatches.increment(partition.batchMatches);
+			greedyKm.increment(partition.greedyKm);
+			greedyMatches.increment(partition.greedyMatches);
+			for (Partition.Match match : partition.matches) {
+				if (geoIndex.claim(match.driverId())) {
+					claimed.add(match);
+				} else {
+					conflicts.increment();
+				}
+			}
+		}
+		assign(claimed, nowMillis);
+
+		waitingCount = waiting.size();
+		windowDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	private List<Partition> partition(long nowMillis) {
+		Map<Long, List<PendingBooking>> byArea = new LinkedHashMap<>();
+		for (PendingBooking booking : waiting) {
+			long row = (long) Math.floor(booking.pickupLat() / partitionDegrees);
+			long column = (long) Math.floor(booking.pickupLng() / partitionDegrees);
+			byArea.computeIfAbsent(row << 32 | (column & 0xffffffffL), key -> new ArrayList<>()).add(booking);
+		}
+
+		List<Partition> partitions = new ArrayList<>();
+		for (List<PendingBooking> area : byArea.values()) {
+			if (area.size() <= maxPartitionBookings) {
+				partitions.add(new Partition(area, nowMillis));
+				continue;
+			}
+			// the solver is cubic, so a crowded area is cut into north-to-south strips
+			area.sort(Comparator.comparingDouble(PendingBooking::pickupLat));
+			for (int from = 0; from < area.size(); from += maxPartitionBookings) {
+				List<PendingBooking> strip = new ArrayList<>(
+						area.subList(from, Math.min(area.size(), from + maxPartitionBookings)));
+				strip.sort(Comparator.comparingLong(PendingBooking::createdAtMillis));
+				partitions.add(new Partition(strip, nowMillis));
+			}
+		}
+		return partitions;
+	}
+
+	private void expire(List<PendingBooking> timedOut) {
+		if (timedOut.isEmpty()) {
+			return;
+		}
+		List<Object[]> args = new ArrayList<>(timedOut.size());
+		for (PendingBooking booking : timedOut) {
+			args.add(new Object[] { booking.bookingId() });
+		}
+		int[] updated;
+		try {
+			// expired bookings go into history with the update that ends them
+			updated = transactionTemplate.execute(status -> {
+				int[] rows = jdbcTemplate.batchUpdate(EXPIRE_SQL, args);
+				List<Long> ended = new ArrayList<>(timedOut.size());
+				for (int i = 0; i < rows.length; i++) {
+					if (rows[i] != 0) {
+						ended.add(timedOut.get(i).bookingId());
+					}
+				}
+				history.archive(ended);
+				return rows;
+			});
+		} catch (DataAccessException e) {
+			// retried next window
+			log.warn("Cannot expire {} bookings: {}", timedOut.size(), e.getMessage());
+			waiting.addAll(timedOut);
+			return;
+		}
+		// a booking cancelled or assigned meanwhile matches nothing and did not expire
+		for (int i = 0; i < timedOut.size(); i++) {
+			if (updated[i] != 0) {
+				expired.increment();
+				events.publishEvent(BookingStatusChanged.expired(timedOut.get(i).bookingId()));
+			}
+		}
+	}
+
+	private void assign(List<Partition.Match> claimed, long nowMillis) {
+		if (claimed.isEmpty()) {
+			return;
+		}
+		Timestamp assignedAt = new Timestamp(nowMillis);
+		List<Object[]> args = new ArrayList<>(claimed.size());
+		for (Partition.Match match : claimed) {
+			args.add(new Object[] { match.driverId(), match.distanceKm(), assignedAt, match.booking().bookingId() });
+		}
+
+		int[] updated;
+		try {
+			updated = jdbcTemplate.batchUpdate(ASSIGN_SQL, args);
+		} catch (DataAccessException e) {
+			// the bookings stay waiting and the drivers go back to the pool
+			log.warn("Cannot record {} assignments: {}", claimed.size(), e.getMessage());
+			claimed.forEach(match -> geoIndex.release(match.driverId()));
+			return;
+		}
+
+		Set<Long> done = new HashSet<>();
+		for (int i = 0; i < claimed.size(); i++) {
+			Partition.Match match = claimed.get(i);
+			done.add(match.booking().bookingId());
+			if (updated[i] == 0) {
+				// no longer searching (another node got to it)
+				geoIndex.release(match.driverId());
+				continue;
+			}
+			assigned.increment();
+			pickupDistance.record(match.distanceKm());
+			matchLatency.record(nowMillis - match.booking().createdAtMillis(), TimeUnit.MILLISECONDS);
+			events.publishEvent(BookingStatusChanged.assigned(match.booking().bookingId(), match.driverId(),
+					match.distanceKm()));
+		}
+		waiting.removeIf(booking -> done.contains(booking.bookingId()));
+	}
+
+	@Override
+	public void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		solverPool.shutdownNow();
+	}
+
+	private static final class SolveTask extends RecursiveAction {
+
+		private final List<Partition> partitions;
+		private final int from;
+		private final int to;
+
+		SolveTask(List<Partition> partitions, int from, int to) {
+			this.partitions = partitions;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				partitions.get(from).solve();
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new SolveTask(partitions, from, middle), new SolveTask(partitions, middle, to));
+		}
+	}
+
+	// one area's bookings for one window; written by a solver thread, read by dispatch() after invoke() returns
+	private final class Partition {
+
+		record Match(PendingBooking booking, long driverId, double distanceKm) {
+		}
+
+		private final List<PendingBooking> bookings;
+		private final long nowMillis;
+		private final List<Match> matches = new ArrayList<>();
+		private double batchKm;
+		private int batchMatches;
+		private double greedyKm;
+		private int greedyMatches;
+
+		Partition(List<PendingBooking> bookings, long nowMillis) {
+			this.bookings = bookings;
+			this.nowMillis = nowMillis;
+		}
+
+		void solve() {
+			int n = bookings.size();
+			List<List<NearbyDriver>> candidates = new ArrayList<>(n);
+			Map<Long, Integer> columnOf = new HashMap<>();
+			for (PendingBooking booking : bookings) {
+				List<NearbyDriver> nearby = geoIndex.nearest(booking.pickupLat(), booking.pickupLng(),
+						maxPickupKm, candidatesPerBooking, booking.vehicleType());
+				candidates.add(nearby);
+				for (NearbyDriver driver : nearby) {
+					columnOf.putIfAbsent(driver.driverId(), columnOf.size());
+				}
+			}
+			if (columnOf.isEmpty()) {
+				return;
+			}
+
+			double[][] cost = new double[n][columnOf.size()];
+			double[] urgency = new double[n];
+			for (int i = 0; i < n; i++) {
+				Arrays.fill(cost[i], INFEASIBLE);
+				double waited = nowMillis - bookings.get(i).createdAtMillis();
+				urgency[i] = maxPickupKm * Math.min(1, waited / maxWaitMillis);
+				for (NearbyDriver driver : candidates.get(i)) {
+					cost[i][columnOf.get(driver.driverId())] = driver.distanceKm() - urgency[i];
+				}
+			}
+			long[] driverAt = new long[columnOf.size()];
+			columnOf.forEach((driverId, column) -> driverAt[column] = driverId);
+
+			int[] assignment = Hungarian.assign(cost);
+			for (int i = 0; i < n; i++) {
+				int column = assignment[i];
+				if (column < 0 || cost[i][column] >= INFEASIBLE / 2) {
+					continue;
+				}
+				double distanceKm = cost[i][column] + urgency[i];
+				matches.add(new Match(bookings.get(i), driverAt[column], distanceKm));
+				batchKm += distanceKm;
+				batchMatches++;
+			}
+
+			// what matching each booking on arrival would have done, for comparison
+			Set<Long> taken = new HashSet<>();
+			for (List<NearbyDriver> nearby : candidates) {
+				for (NearbyDriver driver : nearby) {
+					if (taken.add(driver.driverId())) {
+						greedyKm += driver.distanceKm();
+						greedyMatches++;
+						break;
+					}
+				}
+			}
+		}
+	}
+}
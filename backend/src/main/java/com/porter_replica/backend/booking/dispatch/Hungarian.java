@@ -0,0 +1,100 @@
+package com.porter_replica.backend.booking.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment (Hungarian algorithm with potentials, O(n² m) for
+ * n ≤ m). Every row of the smaller side is assigned; callers price
+ * infeasible pairs high and drop them afterwards.
+ */
+final class Hungarian {
+
+	private Hungarian() {
+	}
+
+	/** The column assigned to each row of {@code cost}, -1 for rows left over when rows outnumber columns. */
+	static int[] assign(double[][] cost) {
+		int rows = cost.length;
+		int columns = rows == 0 ? 0 : cost[0].length;
+		int[] assignment = new int[rows];
+		Arrays.fill(assignment, -1);
+		if (rows == 0 || columns == 0) {
+			return assignment;
+		}
+		if (rows <= columns) {
+			int[] rowOf = solve(cost, rows, columns, false);
+			for (int column = 0; column < columns; column++) {
+				if (rowOf[column] >= 0) {
+					assignment[rowOf[column]] = column;
+				}
+			}
+		} else {
+			// solved transposed, so the smaller side is the one fully assigned
+			int[] columnOf = solve(cost, columns, rows, true);
+			for (int row = 0; row < rows; row++) {
+				if (columnOf[row] >= 0) {
+					assignment[row] = columnOf[row];
+				}
+			}
+		}
+		return assignment;
+	}
+
+	// n ≤ m; returns, for each of the m columns, its row or -1
+	private static int[] solve(double[][] cost, int n, int m, boolean transposed) {
+		double[] u = new double[n + 1];
+		double[] v = new double[m + 1];
+		int[] p = new int[m + 1];
+		int[] way = new int[m + 1];
+		double[] minv = new double[m + 1];
+		boolean[] used = new boolean[m + 1];
+
+		for (int i = 1; i <= n; i++) {
+			p[0] = i;
+			int j0 = 0;
+			Arrays.fill(minv, Double.POSITIVE_INFINITY);
+			Arrays.fill(used, false);
+			do {
+				used[j0] = true;
+				int i0 = p[j0];
+				double delta = Double.POSITIVE_INFINITY;
+				int j1 = 0;
+				for (int j = 1; j <= m; j++) {
+					if (used[j]) {
+						continue;
+					}
+					double c = transposed ? cost[j - 1][i0 - 1] : cost[i0 - 1][j - 1];
+					double current = c - u[i0] - v[j];
+					if (current < minv[j]) {
+						minv[j] = current;
+						way[j] = j0;
+					}
+					if (minv[j] < delta) {
+						delta = minv[j];
+						j1 = j;
+					}
+				}
+				for (int j = 0; j <= m; j++) {
+					if (used[j]) {
+						u[p[j]] += delta;
+						v[j] -= delta;
+					} else {
+						minv[j] -= delta;
+					}
+				}
+				j0 = j1;
+			} while (p[j0] != 0);
+			do {
+				int j1 = way[j0];
+				p[j0] = p[j1];
+				j0 = j1;
+			} while (j0 != 0);
+		}
+
+		int[] rowOf = new int[m];
+		for (int j = 1; j <= m; j++) {
+			rowOf[j - 1] = p[j] - 1;
+		}
+		return rowOf;
+	}
+}
@@ -0,0 +1,8 @@
+package com.porter_replica.backend.booking.dispatch;
+
+import com.porter_replica.backend.user.VehicleType;
+
+/** A booking still waiting for a driver, as the dispatch engine sees it. */
+public record PendingBooking(long bookingId, double pickupLat, double pickupLng, VehicleType vehicleType,
+		long createdAtMillis) {
+}
@@ -0,0 +1,33 @@
+package com.porter_replica.backend.booking.dto;
+
+import java.time.LocalDateTime;
+
+import com.porter_replica.backend.booking.Booking;
+import com.porter_replica.backend.booking.BookingStatus;
+import com.porter_replica.backend.user.VehicleType;
+
+public record BookingResponse(
+		Long id,
+		BookingStatus status,
+		double pickupLat,
+		double pickupLng,
+		double dropLat,
+		double dropLng,
+		VehicleType vehicleType,
+		Long driverId,
+		Double pickupDistanceKm,
+		LocalDateTime createdAt,
+		LocalDateTime assignedAt) {
+
+	public static BookingResponse of(Booking booking) {
+		return new BookingResponse(booking.getId(), booking.getStatus(),
+				booking.getPickupLat(), booking.getPickupLng(), booking.getDropLat(), booking.getDropLng(),
+				booking.getVehicleType(), booking.getDriverId(), booking.getPickupDistanceKm(),
+				booking.getCreatedAt(), booking.getAssignedAt());
+	}
+
+	public BookingResponse withStatus(BookingStatus status) {
+		return new BookingResponse(id, status, pickupLat, pickupLng, dropLat, dropLng, vehicleType, driverId,
+				pickupDistanceKm, createdAt, assignedAt);
+	}
+}
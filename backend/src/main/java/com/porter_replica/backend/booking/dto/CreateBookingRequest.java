@@ -0,0 +1,73 @@
+package com.porter_replica.backend.booking.dto;
+
+import com.porter_replica.backend.user.VehicleType;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+public class CreateBookingRequest {
+
+	@NotNull(message = "pickupLat is required")
+	@DecimalMin(value = "-90", message = "pickupLat must be between -90 and 90")
+	@DecimalMax(value = "90", message = "pickupLat must be between -90 and 90")
+	private Double pickupLat;
+
+	@NotNull(message = "pickupLng is required")
+	@DecimalMin(value = "-180", message = "pickupLng must be between -180 and 180")
+	@DecimalMax(value = "180", message = "pickupLng must be between -180 and 180")
+	private Double pickupLng;
+
+	@NotNull(message = "dropLat is required")
+	@DecimalMin(value = "-90", message = "dropLat must be between -90 and 90")
+	@DecimalMax(value = "90", message = "dropLat must be between -90 and 90")
+	private Double dropLat;
+
+	@NotNull(message = "dropLng is required")
+	@DecimalMin(value = "-180", message = "dropLng must be between -180 and 180")
+	@DecimalMax(value = "180", message = "dropLng must be between -180 and 180")
+	private Double dropLng;
+
+	@NotNull(message = "vehicleType is required")
+	private VehicleType vehicleType;
+
+	public Double getPickupLat() {
+		return pickupLat;
+	}
+
+	public void setPickupLat(Double pickupLat) {
+		this.pickupLat = pickupLat;
+	}
+
+	public Double getPickupLng() {
+		return pickupLng;
+	}
+
+	public void setPickupLng(Double pickupLng) {
+		this.pickupLng = pickupLng;
+	}
+
+	public Double getDropLat() {
+		return dropLat;
+	}
+
+	public void setDropLat(Double dropLat) {
+		this.dropLat = dropLat;
+	}
+
+	public Double getDropLng() {
+		return dropLng;
+	}
+
+	public void setDropLng(Double dropLng) {
+		this.dropLng = dropLng;
+	}
+
+	public VehicleType getVehicleType() {
+		return vehicleType;
+	}
+
+	public void setVehicleType(VehicleType vehicleType) {
+		this.vehicleType = vehicleType;
+	}
+}
@@ -0,0 +1,6 @@
+package com.porter_replica.backend.booking.dto;
+
+import com.porter_replica.backend.booking.BookingStatus;
+
+public record TripStatusResponse(long bookingId, BookingStatus status) {
+}
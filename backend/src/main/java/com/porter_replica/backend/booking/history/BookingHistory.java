@@ -0,0 +1,211 @@
+package com.porter_replica.backend.booking.history;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.porter_replica.backend.booking.BookingStatus;
+import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.VehicleType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Ended bookings (delivered, cancelled, expired), copied out of
+ * {@code bookings} into monthly tables ({@link HistoryPartitions}) by
+ * whoever ends them, in the same transaction.
+ *
+ * Pages are keyset-paged on {@code (created_at, booking_id)}, newest first:
+ * the cursor is the last entry's key, so a page seeks straight to it in the
+ * cursor's month and carries on into older months only to fill up. A page
+ * costs the same at any depth, plus one index probe per month the user has
+ * no trips in. Reads run in read-only transactions, so they go to the
+ * replicas.
+ */
+@Component
+public class BookingHistory {
+
+	private static final String ENDED_SQL = "select id, customer_id, driver_id, status, vehicle_type, pickup_lat, "
+			+ "pickup_lng, drop_lat, drop_lng, pickup_distance_km, created_at, delivered_at, cancelled_at "
+			+ "from bookings where status in ('DELIVERED', 'CANCELLED', 'EXPIRED') and id in (%s)";
+	private static final String INSERT_SQL = "insert into %s (" + HistoryPartitions.COLUMNS + ") "
+			+ "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) on conflict do nothing";
+	private static final String PAGE_SQL = "select " + HistoryPartitions.COLUMNS + " from %s where %s = ?%s "
+			+ "order by created_at desc, booking_id desc limit ?";
+	private static final String AFTER_CURSOR = " and (created_at, booking_id) < (?, ?)";
+	private static final String EXPORT_SQL = "select " + HistoryPartitions.COLUMNS + " from %s where %s = ? "
+			+ "order by created_at desc, booking_id desc";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final JdbcTemplate exportTemplate;
+	private final TransactionTemplate readOnly;
+	private final HistoryPartitions partitions;
+	private final int maxPageSize;
+
+	private final Counter archived;
+	private final Timer pageDuration;
+
+	public BookingHistory(JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry,
+			@Value("${booking-history.max-page-size:100}") int maxPageSize,
+			@Value("${booking-history.export-fetch-size:500}") int exportFetchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.exportTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+		exportTemplate.setFetchSize(exportFetchSize);
+		this.readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		this.partitions = new HistoryPartitions(jdbcTemplate, transactionManager);
+		this.maxPageSize = maxPageSize;
+
+		this.archived = Counter.builder("booking.history.archived")
+				.register(meterRegistry);
+		this.pageDuration = Timer.builder("booking.history.page.duration")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Copies the bookings among {@code bookingIds} that have ended into
+	 * history. Meant for the caller's transaction, next to the update that
+	 * ended them; bookings already copied are skipped.
+	 */
+	public void archive(Collection<Long> bookingIds) {
+		if (bookingIds.isEmpty()) {
+			return;
+		}
+		LocalDateTime now = LocalDateTime.now();
+		Map<Integer, List<Object[]>> byMonth = new HashMap<>();
+		jdbcTemplate.query(String.format(ENDED_SQL, placeholders(bookingIds.size())), rs -> {
+			LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
+			Timestamp endedAt = rs.getTimestamp("delivered_at");
+			if (endedAt == null) {
+				endedAt = rs.getTimestamp("cancelled_at");
+			}
+			byMonth.computeIfAbsent(HistoryPartitions.month(createdAt), month -> new ArrayList<>()).add(new Object[] {
+					rs.getLong("id"), rs.getLong("customer_id"), rs.getObject("driver_id"), rs.getString("status"),
+					rs.getString("vehicle_type"), rs.getDouble("pickup_lat"), rs.getDouble("pickup_lng"),
+					rs.getDouble("drop_lat"), rs.getDouble("drop_lng"), rs.getObject("pickup_distance_km"),
+					Timestamp.valueOf(createdAt), endedAt != null ? endedAt : Timestamp.valueOf(now) });
+		}, bookingIds.toArray());
+
+		for (Map.Entry<Integer, List<Object[]>> month : byMonth.entrySet()) {
+			partitions.ensure(month.getKey());
+			jdbcTemplate.batchUpdate(String.format(INSERT_SQL, HistoryPartitions.table(month.getKey())),
+					month.getValue());
+			archived.increment(month.getValue().size());
+		}
+	}
+
+	/** A page of the bookings {@code userId} made (customers) or drove (drivers); {@code cursor} null for the first. */
+	public HistoryPage page(long userId, Role role, String cursor, int limit) {
+		if (limit < 1 || limit > maxPageSize) {
+			throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+		}
+		Key after = cursor == null ? null : Key.decode(cursor);
+		long start = System.nanoTime();
+		List<HistoryEntry> entries = readOnly.execute(status -> {
+			List<HistoryEntry> found = new ArrayList<>(limit + 1);
+			Iterable<Integer> months = after == null
+					? partitions.all()
+					: partitions.atOrBefore(HistoryPartitions.month(after.createdAt()));
+			for (int month : months) {
+				boolean first = after != null && month == HistoryPartitions.month(after.createdAt());
+				String sql = String.format(PAGE_SQL, HistoryPartitions.table(month), column(role),
+						first ? AFTER_CURSOR : "");
+				// one more than asked for, to tell whether there is a next page
+				int wanted = limit + 1 - found.size();
+				found.addAll(first
+						? jdbcTemplate.query(sql, BookingHistory::entry, userId, Timestamp.valueOf(after.createdAt()),
+								after.bookingId(), wanted)
+						: jdbcTemplate.query(sql, BookingHistory::entry, userId, wanted));
+				if (found.size() > limit) {
+					break;
+				}
+			}
+			return found;
+		});
+		pageDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		if (entries.size() <= limit) {
+			return new HistoryPage(entries, null);
+		}
+		List<HistoryEntry> page = entries.subList(0, limit);
+		HistoryEntry last = page.get(limit - 1);
+		return new HistoryPage(List.copyOf(page), new Key(last.createdAt(), last.bookingId()).encode());
+	}
+
+	/** Hands every history entry of {@code userId} to {@code sink}, newest first, streaming from the database. */
+	public void export(long userId, Role role, Consumer<HistoryEntry> sink) {
+		readOnly.executeWithoutResult(status -> {
+			for (int month : partitions.all()) {
+				exportTemplate.query(String.format(EXPORT_SQL, HistoryPartitions.table(month), column(role)),
+						rs -> {
+							sink.accept(entry(rs, 0));
+						}, userId);
+			}
+		});
+	}
+
+	private static String column(Role role) {
+		return role == Role.DRIVER ? "driver_id" : "customer_id";
+	}
+
+	private static HistoryEntry entry(ResultSet rs, int row) throws SQLException {
+		long driverId = rs.getLong("driver_id");
+		Long driver = rs.wasNull() ? null : driverId;
+		double pickupDistanceKm = rs.getDouble("pickup_distance_km");
+		Double distance = rs.wasNull() ? null : pickupDistanceKm;
+		return new HistoryEntry(rs.getLong("booking_id"), rs.getLong("customer_id"), driver,
+				BookingStatus.valueOf(rs.getString("status")), VehicleType.valueOf(rs.getString("vehicle_type")),
+				rs.getDouble("pickup_lat"), rs.getDouble("pickup_lng"), rs.getDouble("drop_lat"),
+				rs.getDouble("drop_lng"), distance, rs.getTimestamp("created_at").toLocalDateTime(),
+				rs.getTimestamp("ended_at").toLocalDateTime());
+	}
+
+	private static String placeholders(int count) {
+		StringBuilder sql = new StringBuilder(count * 2);
+		for (int i = 0; i < count; i++) {
+			sql.append(i == 0 ? "?" : ",?");
+		}
+		return sql.toString();
+	}
+
+	// full precision: a cursor cut to millis would skip bookings created in the same millisecond
+	private record Key(LocalDateTime createdAt, long bookingId) {
+
+		String encode() {
+			return Base64.getUrlEncoder().withoutPadding()
+					.encodeToString((createdAt + "|" + bookingId).getBytes(StandardCharsets.UTF_8));
+		}
+
+		static Key decode(String cursor) {
+			try {
+				String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+				int separator = key.indexOf('|');
+				return new Key(LocalDateTime.parse(key.substring(0, separator)),
+						Long.parseLong(key.substring(separator + 1)));
+			} catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+				throw new IllegalArgumentException("cursor is not valid");
+			}
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.porter_replica.backend.booking.history;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.porter_replica.backend.auth.jwt.VerifiedToken;
+
+import tools.jackson.databind.ObjectMapper;
+
+/** A customer's bookings or a driver's trips, once ended. */
+@RestController
+@RequestMapping("/api/bookings/history")
+public class BookingHistoryController {
+
+	private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	private final BookingHistory history;
+	private final ObjectMapper objectMapper;
+
+	public BookingHistoryController(BookingHistory history, ObjectMapper objectMapper) {
+		this.history = history;
+		this.objectMapper = objectMapper;
+	}
+
+	@GetMapping
+	public ResponseEntity<HistoryPage> page(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "20") int limit, Authentication authentication) {
+		VerifiedToken token = (VerifiedToken) authentication.getDetails();
+		return ResponseEntity.ok(history.page(Long.parseLong(token.userId()), token.role(), cursor, limit));
+	}
+
+	// all of it, one JSON object per line, written as it is read
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> export(Authentication authentication) {
+		VerifiedToken token = (VerifiedToken) authentication.getDetails();
+		long userId = Long.parseLong(token.userId());
+		StreamingResponseBody body = out -> history.export(userId, token.role(), entry -> write(out, entry));
+		return ResponseEntity.ok()
+				.contentType(NDJSON)
+				.body(body);
+	}
+
+	private void write(OutputStream out, HistoryEntry entry) {
+		try {
+			out.write(objectMapper.writeValueAsBytes(entry));
+			out.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.porter_replica.backend.booking.history;
+
+import java.time.LocalDateTime;
+
+import com.porter_replica.backend.booking.BookingStatus;
+import com.porter_replica.backend.user.VehicleType;
+
+/** An ended booking as kept in history; {@code driverId} is null when none was assigned. */
+public record HistoryEntry(
+		long bookingId,
+		long customerId,
+		Long driverId,
+		BookingStatus status,
+		VehicleType vehicleType,
+		double pickupLat,
+		double pickupLng,
+		double dropLat,
+		double dropLng,
+		Double pickupDistanceKm,
+		LocalDateTime createdAt,
+		LocalDateTime endedAt) {
+}
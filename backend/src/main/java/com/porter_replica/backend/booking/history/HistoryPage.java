@@ -0,0 +1,7 @@
+package com.porter_replica.backend.booking.history;
+
+import java.util.List;
+
+/** Newest first; pass {@code nextCursor} back for the page after this one, null on the last page. */
+public record HistoryPage(List<HistoryEntry> items, String nextCursor) {
+}
@@ -0,0 +1,123 @@
+package com.porter_replica.backend.booking.history;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The monthly history tables, {@code booking_history_YYYYMM} by the month a
+ * booking was created in. A table is created the first time a booking of its
+ * month ends, in a transaction of its own so the caller's stays open (some
+ * databases commit on DDL). Each has two indexes leading with the customer
+ * or driver and then {@code (created_at, booking_id)}, the keyset order; on
+ * PostgreSQL they also include the listed columns, so a page is read from
+ * the index alone. Tables other nodes created are picked up when the list
+ * is older than {@code REDISCOVER_MILLIS}.
+ */
+class HistoryPartitions {
+
+	static final String PREFIX = "booking_history_";
+	static final String COLUMNS = "booking_id, customer_id, driver_id, status, vehicle_type, pickup_lat, pickup_lng, "
+			+ "drop_lat, drop_lng, pickup_distance_km, created_at, ended_at";
+	private static final String LISTED = "status, vehicle_type, pickup_lat, pickup_lng, drop_lat, drop_lng, "
+			+ "pickup_distance_km, ended_at";
+
+	private static final long REDISCOVER_MILLIS = 60_000;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate ddl;
+	private final boolean postgres;
+	// yyyymm
+	private final ConcurrentSkipListSet<Integer> months = new ConcurrentSkipListSet<>();
+	private volatile long discoveredAtMillis;
+
+	HistoryPartitions(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.ddl = new TransactionTemplate(transactionManager);
+		ddl.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+			discover(connection);
+			return connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+		}));
+	}
+
+	static int month(LocalDateTime at) {
+		return at.getYear() * 100 + at.getMonthValue();
+	}
+
+	static String table(int month) {
+		return PREFIX + month;
+	}
+
+	/** Existing months, newest first, from {@code month} back. */
+	NavigableSet<Integer> atOrBefore(int month) {
+		rediscoverIfStale();
+		return months.headSet(month, true).descendingSet();
+	}
+
+	NavigableSet<Integer> all() {
+		rediscoverIfStale();
+		return months.descendingSet();
+	}
+
+	void ensure(int month) {
+		if (months.contains(month)) {
+			return;
+		}
+		synchronized (this) {
+			if (months.contains(month)) {
+				return;
+			}
+			String table = table(month);
+			String include = postgres ? " include (" + LISTED + ")" : "";
+			ddl.executeWithoutResult(status -> {
+				jdbcTemplate.execute("create table if not exists " + table + " ("
+						+ "booking_id bigint primary key, customer_id bigint not null, driver_id bigint, "
+						+ "status varchar(16) not null, vehicle_type varchar(16) not null, "
+						+ "pickup_lat double precision not null, pickup_lng double precision not null, "
+						+ "drop_lat double precision not null, drop_lng double precision not null, "
+						+ "pickup_distance_km double precision, "
+						+ "created_at timestamp not null, ended_at timestamp not null)");
+				jdbcTemplate.execute("create index if not exists idx_" + table + "_customer on " + table
+						+ " (customer_id, created_at, booking_id)" + include);
+				jdbcTemplate.execute("create index if not exists idx_" + table + "_driver on " + table
+						+ " (driver_id, created_at, booking_id)" + include);
+			});
+			months.add(month);
+		}
+	}
+
+	private void rediscoverIfStale() {
+		if (System.currentTimeMillis() - discoveredAtMillis > REDISCOVER_MILLIS) {
+			jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+				discover(connection);
+				return null;
+			});
+		}
+	}
+
+	private void discover(Connection connection) throws SQLException {
+		discoveredAtMillis = System.currentTimeMillis();
+		DatabaseMetaData metaData = connection.getMetaData();
+		try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, PREFIX + "%",
+				new String[] { "TABLE" })) {
+			while (tables.next()) {
+				String name = tables.getString("TABLE_NAME").toLowerCase();
+				String suffix = name.substring(PREFIX.length());
+				if (suffix.length() == 6 && suffix.chars().allMatch(Character::isDigit)) {
+					months.add(Integer.parseInt(suffix));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.porter_replica.backend.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings. {@link #mightContain} never returns
+ * false for a value that was added; it returns true for a value that was not
+ * added with roughly the configured false-positive rate.
+ */
+public class BloomFilter {
+
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+		long n = Math.max(1, expectedInsertions);
+		long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		int words = (int) Math.max(1, (m + 63) >>> 6);
+
+		this.bits = new AtomicLongArray(words);
+		this.bitCount = (long) words << 6;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+	}
+
+	public void put(String value) {
+		long h1 = hash(value);
+		long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(h1 + i * h2, bitCount);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+
+			long current = bits.get(word);
+			while ((current & mask) == 0) {
+				long witness = bits.compareAndExchange(word, current, current | mask);
+				if (witness == current) {
+					break;
+				}
+				current = witness;
+			}
+		}
+	}
+
+	public boolean mightContain(String value) {
+		long h1 = hash(value);
+		long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(h1 + i * h2, bitCount);
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public long bitSize() {
+		return bitCount;
+	}
+
+	// FNV-1a over the UTF-16 chars, finished with the MurmurHash3 64-bit mixer
+	private static long hash(String value) {
+		long h = 0xCBF29CE484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			h ^= value.charAt(i);
+			h *= 0x100000001B3L;
+		}
+		return mix(h);
+	}
+
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
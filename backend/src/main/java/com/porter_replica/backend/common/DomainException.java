@@ -0,0 +1,20 @@
+package com.porter_replica.backend.common;
+
+/**
+ * An expected, client-caused failure (bad credentials, duplicate contact, ...).
+ * Carries no stack trace and no suppressed exceptions: it says what went wrong,
+ * not where, and there is exactly one instance per {@link ErrorCode}.
+ */
+public final class DomainException extends RuntimeException {
+
+	private final ErrorCode code;
+
+	DomainException(ErrorCode code) {
+		super(code.message(), null, false, false);
+		this.code = code;
+	}
+
+	public ErrorCode getCode() {
+		return code;
+	}
+}
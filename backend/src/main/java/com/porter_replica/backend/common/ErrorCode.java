@@ -0,0 +1,94 @@
+package com.porter_replica.backend.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Failures with a fixed message. Each one has a single shared
+ * {@link DomainException} and a response body serialized up front, so
+ * rejecting a request allocates little more than the timestamp.
+ */
+public enum ErrorCode {
+
+	INVALID_CREDENTIALS(HttpStatus.BAD_REQUEST, "Invalid credentials"),
+	INVALID_REFRESH_TOKEN(HttpStatus.UNAUTHORIZED, "Invalid refresh token"),
+	CONTACT_REQUIRED(HttpStatus.BAD_REQUEST, "Email or phone is required"),
+	EMAIL_TAKEN(HttpStatus.BAD_REQUEST, "Email is already registered"),
+	PHONE_TAKEN(HttpStatus.BAD_REQUEST, "Phone is already registered"),
+	INVALID_REQUEST_BODY(HttpStatus.BAD_REQUEST, "Invalid request body"),
+	INVALID_ROLE(HttpStatus.BAD_REQUEST, "Invalid role value"),
+	IMPORT_KEY_INVALID(HttpStatus.FORBIDDEN, "Import key is missing or invalid"),
+	RECORDED_AT_IN_FUTURE(HttpStatus.BAD_REQUEST, "recordedAt is ahead of server time; check the device clock"),
+	BOOKING_NOT_FOUND(HttpStatus.NOT_FOUND, "Booking not found"),
+	INVALID_TRIP_TRANSITION(HttpStatus.CONFLICT, "Booking cannot make that status change"),
+	TOO_MANY_REQUESTS(HttpStatus.TOO_MANY_REQUESTS, "Too many attempts. Please try again later."),
+	SERVER_BUSY(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy. Please try again shortly."),
+	INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "Something went wrong. Please try again.");
+
+	private static final byte[] BODY_SUFFIX = "\"}".getBytes(StandardCharsets.US_ASCII);
+
+	// error bodies carry second precision, so the formatted timestamp is shared for a second
+	private static volatile Timestamp timestamp = Timestamp.of(System.currentTimeMillis() / 1000);
+
+	private final HttpStatus status;
+	private final String message;
+	private final DomainException exception;
+	// {"status":400,"message":"...","timestamp":" -- same shape ErrorResponse serializes to
+	private final byte[] bodyPrefix;
+
+	ErrorCode(HttpStatus status, String message) {
+		this.status = status;
+		this.message = message;
+		this.exception = new DomainException(this);
+		this.bodyPrefix = ("{\"status\":" + status.value()
+				+ ",\"message\":\"" + message
+				+ "\",\"timestamp\":\"").getBytes(StandardCharsets.UTF_8);
+	}
+
+	public HttpStatus status() {
+		return status;
+	}
+
+	public String message() {
+		return message;
+	}
+
+	/** The shared, stackless exception for this code; throwing it allocates nothing. */
+	public DomainException exception() {
+		return exception;
+	}
+
+	public byte[] body() {
+		byte[] timestamp = currentTimestamp();
+
+		byte[] body = new byte[bodyPrefix.length + timestamp.length + BODY_SUFFIX.length];
+		System.arraycopy(bodyPrefix, 0, body, 0, bodyPrefix.length);
+		System.arraycopy(timestamp, 0, body, bodyPrefix.length, timestamp.length);
+		System.arraycopy(BODY_SUFFIX, 0, body, bodyPrefix.length + timestamp.length, BODY_SUFFIX.length);
+		return body;
+	}
+
+	private static byte[] currentTimestamp() {
+		long second = System.currentTimeMillis() / 1000;
+		Timestamp current = timestamp;
+		if (current.epochSecond() != second) {
+			current = Timestamp.of(second);
+			timestamp = current;
+		}
+		return current.bytes();
+	}
+
+	private record Timestamp(long epochSecond, byte[] bytes) {
+
+		static Timestamp of(long epochSecond) {
+			LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+			return new Timestamp(epochSecond,
+					DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(time).getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+}
@@ -1,29 +1,48 @@
 package com.porter_replica.backend.common;
 
-import org.springframework.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import com.porter_replica.backend.auth.password.PasswordHashingBusyException;
+
+/**
+ * 4xx: the client sent something we reject (or too often); the body says what. 503: a
+ * temporary shortage on our side, with Retry-After. 500: a bug or an outage,
+ * logged with its stack trace and never described to the client.
+ */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+
+	private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
+	private static final long DATABASE_RETRY_AFTER_SECONDS = 1;
+
+	// Expected business failures (bad credentials, duplicate contact, ...)
+	@ExceptionHandler(DomainException.class)
+	public ResponseEntity<byte[]> handleDomain(DomainException ex) {
+		return fixed(ex.getCode());
+	}
 	
 	// Invalid JSON errors
 	@ExceptionHandler(HttpMessageNotReadableException.class)
-	public ResponseEntity<ErrorResponse> handleInvalidJson(
+	public ResponseEntity<byte[]> handleInvalidJson(
 	        HttpMessageNotReadableException ex) {
 
-	    String message = "Invalid request body";
-
-	    // Optional: more specific message for enum errors
+	    // more specific message for enum errors
 	    if (ex.getMessage() != null && ex.getMessage().contains("Role")) {
-	        message = "Invalid role value";
+	        return fixed(ErrorCode.INVALID_ROLE);
 	    }
 
-	    return ResponseEntity.badRequest()
-	            .body(new ErrorResponse(400, message));
+	    return fixed(ErrorCode.INVALID_REQUEST_BODY);
 	}
 	
 	// DTO validation errors
@@ -40,7 +59,7 @@ public class GlobalExceptionHandler {
 				.body(new ErrorResponse(400, message));
 	}
 
-	// Business validation errors
+	// Other business validation errors with a dynamic message
 	@ExceptionHandler(IllegalArgumentException.class)
 	public ResponseEntity<ErrorResponse> handleIllegalArgument(
 			IllegalArgumentException ex) {
@@ -49,14 +68,58 @@ public class GlobalExceptionHandler {
 				.body(new ErrorResponse(400, ex.getMessage()));
 	}
 
+	// Caller over its login/registration rate limit
+	@ExceptionHandler(RateLimitedException.class)
+	public ResponseEntity<byte[]> handleRateLimited(RateLimitedException ex) {
+		return withRetryAfter(ErrorCode.TOO_MANY_REQUESTS, ex.getRetryAfterSeconds());
+	}
+
+	// Password hashing pool saturated (login/registration storm)
+	@ExceptionHandler(PasswordHashingBusyException.class)
+	public ResponseEntity<byte[]> handleHashingBusy(
+			PasswordHashingBusyException ex) {
+
+		return retryLater(ex.getRetryAfterSeconds());
+	}
+
+	// Connection pool exhausted, lock or query timeout: worth retrying
+	@ExceptionHandler({ TransientDataAccessException.class, CannotCreateTransactionException.class })
+	public ResponseEntity<byte[]> handleTransientDatabaseFailure(Exception ex) {
+
+		log.warn("Transient database failure: {}", ex.getMessage());
+		return retryLater(DATABASE_RETRY_AFTER_SECONDS);
+	}
+
 	// Fallback (unexpected errors)
 	@ExceptionHandler(Exception.class)
-	public ResponseEntity<ErrorResponse> handleGeneric(Exception ex) {
+	public ResponseEntity<?> handleGeneric(Exception ex) {
+
+		// Spring MVC's own client errors (unknown path, wrong method, ...) keep their status
+		if (ex instanceof org.springframework.web.ErrorResponse mvcError
+				&& mvcError.getStatusCode().is4xxClientError()) {
+			int status = mvcError.getStatusCode().value();
+			return ResponseEntity.status(status)
+					.body(new ErrorResponse(status, mvcError.getBody().getTitle()));
+		}
+
+		log.error("Unhandled exception", ex);
+		return fixed(ErrorCode.INTERNAL_ERROR);
+	}
+
+	private static ResponseEntity<byte[]> retryLater(long seconds) {
+		return withRetryAfter(ErrorCode.SERVER_BUSY, seconds);
+	}
+
+	private static ResponseEntity<byte[]> withRetryAfter(ErrorCode code, long seconds) {
+		return ResponseEntity.status(code.status())
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(code.body());
+	}
 
-		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-				.body(new ErrorResponse(
-						500,
-						"Something went wrong. Please try again."
-						));
+	private static ResponseEntity<byte[]> fixed(ErrorCode code) {
+		return ResponseEntity.status(code.status())
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(code.body());
 	}
 }
@@ -0,0 +1,20 @@
+package com.porter_replica.backend.common;
+
+/**
+ * Thrown when a caller is over its rate limit. Stackless, like
+ * {@link DomainException}: under an attack it is thrown far more often than
+ * anything succeeds.
+ */
+public class RateLimitedException extends RuntimeException {
+
+	private final long retryAfterSeconds;
+
+	public RateLimitedException(long retryAfterSeconds) {
+		super(ErrorCode.TOO_MANY_REQUESTS.message(), null, false, false);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
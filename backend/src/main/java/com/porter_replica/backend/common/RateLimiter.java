@@ -0,0 +1,84 @@
+package com.porter_replica.backend.common;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per key, implemented as GCRA: each key holds a single
+ * "theoretical arrival time" that admitted requests push forward, updated
+ * with a CAS loop, so the hot path takes no lock and allocates nothing for a
+ * key that already exists. Keys are spread over independent stripes so
+ * {@link #evictIdle} can sweep one stripe at a time.
+ */
+public class RateLimiter {
+
+	private final long emissionIntervalNanos;
+	private final long burstToleranceNanos;
+	private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+
+	@SuppressWarnings("unchecked")
+	public RateLimiter(double permitsPerMinute, int burst, int stripeCount) {
+		if (permitsPerMinute <= 0 || burst < 1) {
+			throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+		}
+		this.emissionIntervalNanos = (long) (TimeUnit.MINUTES.toNanos(1) / permitsPerMinute);
+		this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+
+		int count = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+		this.stripes = new ConcurrentHashMap[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new ConcurrentHashMap<>();
+		}
+	}
+
+	/**
+	 * Takes one permit for {@code key}. Returns 0 when admitted, otherwise the
+	 * nanoseconds until a permit would be available (nothing is consumed).
+	 */
+	public long tryAcquire(String key, long nowNanos) {
+		ConcurrentHashMap<String, AtomicLong> stripe = stripeFor(key);
+		AtomicLong arrival = stripe.get(key);
+		if (arrival == null) {
+			arrival = stripe.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+		}
+
+		while (true) {
+			long tat = arrival.get();
+			long base = Math.max(tat, nowNanos);
+			long waitNanos = base - burstToleranceNanos - nowNanos;
+			if (waitNanos > 0) {
+				return waitNanos;
+			}
+			if (arrival.compareAndSet(tat, base + emissionIntervalNanos)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Drops keys whose bucket has refilled completely, which behave exactly
+	 * like a key never seen before. A request racing with the removal can at
+	 * worst be admitted against a fresh bucket.
+	 */
+	public void evictIdle(int stripe, long nowNanos) {
+		stripes[stripe & (stripes.length - 1)].values().removeIf(arrival -> arrival.get() <= nowNanos);
+	}
+
+	public int stripeCount() {
+		return stripes.length;
+	}
+
+	public int size() {
+		int size = 0;
+		for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	private ConcurrentHashMap<String, AtomicLong> stripeFor(String key) {
+		int h = key.hashCode();
+		return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+	}
+}
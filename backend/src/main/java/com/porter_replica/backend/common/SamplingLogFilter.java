@@ -0,0 +1,29 @@
+package com.porter_replica.backend.common;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Logback filter that lets through roughly {@code rate} of the events it sees
+ * (1.0 = all, 0.0 = none). Used on the slow-query appender so a database
+ * stall doesn't turn into a flood of log lines.
+ */
+public class SamplingLogFilter extends Filter<ILoggingEvent> {
+
+	private double rate = 1.0;
+
+	public void setRate(double rate) {
+		this.rate = Math.max(0.0, Math.min(1.0, rate));
+	}
+
+	@Override
+	public FilterReply decide(ILoggingEvent event) {
+		if (rate >= 1.0) {
+			return FilterReply.NEUTRAL;
+		}
+		return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+	}
+}
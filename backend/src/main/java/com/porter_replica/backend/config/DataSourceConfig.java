@@ -0,0 +1,80 @@
+package com.porter_replica.backend.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.porter_replica.backend.datasource.ReadReplicas;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Read-only transactions (Spring Data finders, {@code @Transactional(readOnly = true)})
+ * run on a replica from {@code datasource.replicas.urls}; everything else on
+ * {@code spring.datasource}. The lazy proxy only fetches a physical connection
+ * at the first statement, by which time the transaction has marked it read-only.
+ */
+@Configuration
+public class DataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder()
+				.type(HikariDataSource.class)
+				.build();
+	}
+
+	// replicas share the primary's pool settings and, unless overridden, its credentials
+	@Bean
+	public ReadReplicas readReplicas(HikariDataSource primaryDataSource,
+			MeterRegistry meterRegistry,
+			@Value("${datasource.replicas.urls:}") List<String> urls,
+			@Value("${datasource.replicas.username:}") String username,
+			@Value("${datasource.replicas.password:}") String password,
+			@Value("${datasource.replicas.connection-timeout-millis:1000}") long connectionTimeoutMillis,
+			@Value("${datasource.replicas.health-check-interval-millis:2000}") long healthCheckIntervalMillis) {
+
+		List<DataSource> replicas = new ArrayList<>();
+		for (String url : urls) {
+			if (url.isBlank()) {
+				continue;
+			}
+			HikariConfig config = new HikariConfig();
+			primaryDataSource.copyStateTo(config);
+			String poolName = primaryDataSource.getPoolName() != null ? primaryDataSource.getPoolName() : "HikariPool";
+			config.setPoolName(poolName + "-replica-" + (replicas.size() + 1));
+			config.setJdbcUrl(url.trim());
+			if (!username.isBlank()) {
+				config.setUsername(username);
+				config.setPassword(password);
+			}
+			// a replica that is down must neither block startup nor hold a read for the full primary timeout
+			config.setInitializationFailTimeout(-1);
+			config.setConnectionTimeout(connectionTimeoutMillis);
+			replicas.add(new HikariDataSource(config));
+		}
+		return new ReadReplicas(primaryDataSource, replicas, healthCheckIntervalMillis, meterRegistry);
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(HikariDataSource primaryDataSource, ReadReplicas readReplicas) {
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+		if (!readReplicas.isEmpty()) {
+			dataSource.setReadOnlyDataSource(readReplicas.dataSource());
+		}
+		return dataSource;
+	}
+}
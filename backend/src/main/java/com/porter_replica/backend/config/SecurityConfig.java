@@ -1,14 +1,21 @@
 package com.porter_replica.backend.config;
 
 import com.porter_replica.backend.auth.jwt.JwtAuthenticationFilter;
+import com.porter_replica.backend.auth.ratelimit.AuthRateLimitFilter;
+import com.porter_replica.backend.auth.password.AdaptivePasswordEncoder;
+import com.porter_replica.backend.auth.password.BCryptCostCalibrator;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.security.autoconfigure.actuate.web.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -16,14 +23,28 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final AuthRateLimitFilter authRateLimitFilter;
 
-    SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter,
+            AuthRateLimitFilter authRateLimitFilter) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.authRateLimitFilter = authRateLimitFilter;
     }
 
+	// bcrypt-strength 0 means: measure this machine and pick the highest cost within target-millis
 	@Bean
-	public BCryptPasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	public PasswordEncoder passwordEncoder(
+			@Value("${password-hashing.algorithm:bcrypt}") String algorithm,
+			@Value("${password-hashing.bcrypt-strength:0}") int bcryptStrength,
+			@Value("${password-hashing.target-millis:200}") long targetMillis,
+			@Value("${password-hashing.min-strength:10}") int minStrength,
+			@Value("${password-hashing.max-strength:14}") int maxStrength) {
+
+		int strength = bcryptStrength > 0
+				? bcryptStrength
+				: BCryptCostCalibrator.calibrate(targetMillis, minStrength, maxStrength);
+
+		return new AdaptivePasswordEncoder(algorithm, strength);
 	}
 
 	@Bean
@@ -32,7 +53,20 @@ public class SecurityConfig {
 		http
         .csrf(csrf -> csrf.disable())
         .authorizeHttpRequests(auth -> auth
-            .requestMatchers("/api/auth/register", "/api/auth/login").permitAll()
+            .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/refresh").permitAll()
+            // checked against driver-import.api-key by the controller
+            .requestMatchers(HttpMethod.POST, "/api/drivers/import").permitAll()
+            .requestMatchers(HttpMethod.POST, "/api/drivers/location").hasRole("DRIVER")
+            .requestMatchers(HttpMethod.POST, "/api/bookings").hasRole("CUSTOMER")
+            .requestMatchers(HttpMethod.POST, "/api/bookings/*/arrived", "/api/bookings/*/picked-up",
+                    "/api/bookings/*/delivered").hasRole("DRIVER")
+            .requestMatchers(HttpMethod.POST, "/api/bookings/*/cancel").hasRole("CUSTOMER")
+            // TripEventServlet checks the token itself: EventSource clients send it as a parameter
+            .requestMatchers(HttpMethod.GET, "/api/trips/*/events").permitAll()
+            // served only on management.server.port
+            .requestMatchers(EndpointRequest.toAnyEndpoint()).permitAll()
+            // the rest of a streamed response (history export); the request was authorized when it came in
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
             .anyRequest().authenticated()
         )
         .exceptionHandling(exception -> exception
@@ -43,6 +77,9 @@ public class SecurityConfig {
         	    )
         .addFilterBefore(jwtAuthenticationFilter,
                 UsernamePasswordAuthenticationFilter.class)
+        // cheapest rejection first: over-limit clients never reach token parsing or BCrypt
+        .addFilterBefore(authRateLimitFilter,
+                JwtAuthenticationFilter.class)
         .sessionManagement(session ->
             session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
         );
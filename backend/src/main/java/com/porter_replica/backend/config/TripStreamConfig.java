@@ -0,0 +1,34 @@
+package com.porter_replica.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.porter_replica.backend.auth.jwt.TokenDenyList;
+import com.porter_replica.backend.auth.jwt.VerifiedTokenCache;
+import com.porter_replica.backend.booking.BookingService;
+import com.porter_replica.backend.driver.location.DriverLocationPipeline;
+import com.porter_replica.backend.trip.TripChannel;
+import com.porter_replica.backend.trip.TripEventServlet;
+
+/** Live trip streams are served by their own async servlet, next to the DispatcherServlet. */
+@Configuration
+public class TripStreamConfig {
+
+	@Bean
+	public ServletRegistrationBean<TripEventServlet> tripEventServlet(VerifiedTokenCache tokenCache,
+			TokenDenyList denyList,
+			BookingService bookingService,
+			DriverLocationPipeline locationPipeline,
+			TripChannel channel,
+			@Value("${trip-channel.max-stream-minutes:60}") long maxStreamMinutes) {
+
+		ServletRegistrationBean<TripEventServlet> registration = new ServletRegistrationBean<>(
+				new TripEventServlet(tokenCache, denyList, bookingService, locationPipeline, channel, maxStreamMinutes),
+				"/api/trips/*");
+		registration.setName("tripEvents");
+		registration.setAsyncSupported(true);
+		return registration;
+	}
+}
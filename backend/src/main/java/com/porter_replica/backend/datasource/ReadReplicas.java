@@ -0,0 +1,193 @@
+package com.porter_replica.backend.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Connections for read-only transactions. They go round-robin to the
+ * replicas that passed their last health check; a replica that fails to hand
+ * out a connection is marked down on the spot and retried by the next check.
+ * With no healthy replica, or inside {@link #onPrimary}, reads use the primary.
+ */
+public class ReadReplicas implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(ReadReplicas.class);
+
+	private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+	private final DataSource primary;
+	private final Replica[] replicas;
+	private final AtomicInteger next = new AtomicInteger();
+	private final ScheduledExecutorService healthChecker;
+	private final DataSource dataSource = new RoutingView();
+
+	private final Counter replicaReads;
+	private final Counter primaryReads;
+
+	public ReadReplicas(DataSource primary, List<DataSource> replicas, long healthCheckIntervalMillis,
+			MeterRegistry meterRegistry) {
+		this.primary = primary;
+		this.replicas = new Replica[replicas.size()];
+		for (int i = 0; i < this.replicas.length; i++) {
+			this.replicas[i] = new Replica("replica-" + (i + 1), replicas.get(i));
+		}
+
+		Gauge.builder("datasource.replicas.healthy", this, ReadReplicas::healthyCount)
+				.register(meterRegistry);
+		this.replicaReads = Counter.builder("datasource.reads")
+				.tag("target", "replica")
+				.register(meterRegistry);
+		this.primaryReads = Counter.builder("datasource.reads")
+				.tag("target", "primary")
+				.register(meterRegistry);
+
+		if (this.replicas.length > 0 && healthCheckIntervalMillis > 0) {
+			this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "read-replica-health");
+				thread.setDaemon(true);
+				return thread;
+			});
+			healthChecker.scheduleWithFixedDelay(this::checkHealth,
+					0, healthCheckIntervalMillis, TimeUnit.MILLISECONDS);
+		} else {
+			this.healthChecker = null;
+		}
+	}
+
+	public boolean isEmpty() {
+		return replicas.length == 0;
+	}
+
+	/**
+	 * Runs {@code reads} against the primary, for data that may not have
+	 * reached the replicas yet (read-your-writes).
+	 */
+	public <T> T onPrimary(Supplier<T> reads) {
+		if (PINNED_TO_PRIMARY.get() != null) {
+			return reads.get();
+		}
+		PINNED_TO_PRIMARY.set(Boolean.TRUE);
+		try {
+			return reads.get();
+		} finally {
+			PINNED_TO_PRIMARY.remove();
+		}
+	}
+
+	/** The DataSource read-only transactions take their connection from. */
+	public DataSource dataSource() {
+		return dataSource;
+	}
+
+	public int healthyCount() {
+		int healthy = 0;
+		for (Replica replica : replicas) {
+			if (replica.healthy) {
+				healthy++;
+			}
+		}
+		return healthy;
+	}
+
+	Connection getConnection() throws SQLException {
+		if (PINNED_TO_PRIMARY.get() == null) {
+			int start = next.getAndIncrement();
+			for (int i = 0; i < replicas.length; i++) {
+				Replica replica = replicas[Math.floorMod(start + i, replicas.length)];
+				if (!replica.healthy) {
+					continue;
+				}
+				try {
+					Connection connection = replica.dataSource.getConnection();
+					replicaReads.increment();
+					return connection;
+				} catch (SQLException e) {
+					replica.markDown(e);
+				}
+			}
+		}
+		primaryReads.increment();
+		return primary.getConnection();
+	}
+
+	void checkHealth() {
+		for (Replica replica : replicas) {
+			boolean healthy;
+			try (Connection connection = replica.dataSource.getConnection()) {
+				healthy = connection.isValid(1);
+			} catch (SQLException e) {
+				healthy = false;
+			}
+			if (healthy && !replica.healthy) {
+				log.info("Read replica {} is back, routing reads to it", replica.name);
+			} else if (!healthy && replica.healthy) {
+				log.warn("Read replica {} failed its health check, routing its reads elsewhere", replica.name);
+			}
+			replica.healthy = healthy;
+		}
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		if (healthChecker != null) {
+			healthChecker.shutdownNow();
+		}
+		for (Replica replica : replicas) {
+			if (replica.dataSource instanceof Closeable closeable) {
+				closeable.close();
+			}
+		}
+	}
+
+	private static final class Replica {
+
+		private final String name;
+		private final DataSource dataSource;
+		// optimistic until the first check says otherwise
+		private volatile boolean healthy = true;
+
+		Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+
+		void markDown(SQLException cause) {
+			if (healthy) {
+				healthy = false;
+				log.warn("Read replica {} refused a connection, routing its reads elsewhere: {}", name, cause.getMessage());
+			}
+		}
+	}
+
+	private final class RoutingView extends AbstractDataSource {
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return ReadReplicas.this.getConnection();
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			throw new UnsupportedOperationException("Read replicas use the configured credentials");
+		}
+	}
+}
@@ -0,0 +1,530 @@
+package com.porter_replica.backend.driver.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.porter_replica.backend.driver.location.DriverPosition;
+import com.porter_replica.backend.driver.presence.DriverPresenceChanged;
+import com.porter_replica.backend.user.VehicleType;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Online drivers on a grid of cells {@code cell-size-km} tall (and as wide in
+ * degrees of longitude). Each cell keeps its drivers in parallel arrays behind
+ * its own lock, so an update locks one cell (two when the driver crosses into
+ * another) and a query only the cells it reads; a move within a cell is an
+ * in-place overwrite, a move across cells a swap-remove plus an append.
+ *
+ * {@link #nearest} scans rings of cells outwards from the query point and
+ * stops once no unscanned cell can hold anything closer than what it has.
+ * Distances are equirectangular, well within a metre of great-circle
+ * distance at city scale. A driver crossing cells is briefly in neither, so a
+ * query running at that moment can miss it.
+ *
+ * Drivers with an open trip are kept apart from the entries, which go away
+ * when a driver falls silent: from {@link #claim} until {@link #release} a
+ * driver is busy whatever its pings say, including after it drops out of the
+ * index and comes back.
+ */
+@Component
+public class DriverGeoIndex implements MeterBinder {
+
+	private static final double EARTH_RADIUS_KM = 6371.0088;
+	private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+	private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+	private static final byte NO_VEHICLE = -1;
+
+	private final double cellDegrees;
+	private final int rows;
+	private final int columns;
+	private final long maxAgeMillis;
+	private final ConcurrentHashMap<Long, Cell> cells = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Long, Driver> drivers = new ConcurrentHashMap<>();
+	private final Set<Long> onTrip = ConcurrentHashMap.newKeySet();
+
+	public DriverGeoIndex(
+			@Value("${driver-geo.cell-size-km:1.0}") double cellSizeKm,
+			@Value("${driver-geo.max-position-age-seconds:60}") long maxPositionAgeSeconds) {
+		if (cellSizeKm <= 0) {
+			throw new IllegalArgumentException("driver-geo.cell-size-km must be positive");
+		}
+		this.cellDegrees = cellSizeKm / KM_PER_DEGREE;
+		this.rows = (int) Math.ceil(180 / cellDegrees);
+		this.columns = (int) Math.ceil(360 / cellDegrees);
+		this.maxAgeMillis = TimeUnit.SECONDS.toMillis(maxPositionAgeSeconds);
+	}
+
+	/**
+	 * Moves the driver, adding it if new. A null {@code vehicleType} or
+	 * {@code available} keeps the current value; a new driver starts out
+	 * available. A driver on a trip stays busy either way. Returns false,
+	 * changing nothing, for a ping older than the driver's current position.
+	 */
+	public boolean update(long driverId, double lat, double lng, float heading, float speed,
+			long recordedAtMillis, VehicleType vehicleType, Boolean available) {
+		long now = System.currentTimeMillis();
+		while (true) {
+			Driver driver = drivers.computeIfAbsent(driverId, Driver::new);
+			synchronized (driver) {
+				if (driver.removed) {
+					continue;
+				}
+				if (driver.cell != null && recordedAtMillis < driver.recordedAtMillis) {
+					return false;
+				}
+				driver.lat = lat;
+				driver.lng = lng;
+				driver.heading = heading;
+				driver.speed = speed;
+				driver.recordedAtMillis = recordedAtMillis;
+				driver.seenAtMillis = now;
+				if (vehicleType != null) {
+					driver.vehicle = (byte) vehicleType.ordinal();
+				}
+				if (available != null) {
+					driver.available = available;
+				}
+				driver.onTrip = onTrip.contains(driverId);
+
+				Cell target = cells.computeIfAbsent(cellKey(row(lat), column(lng)), key -> new Cell());
+				if (driver.cell == target) {
+					target.write(driver);
+				} else {
+					if (driver.cell != null) {
+						driver.cell.remove(driver);
+					}
+					target.add(driver);
+					driver.cell = target;
+				}
+				return true;
+			}
+		}
+	}
+
+	/** Puts the driver on a trip if it is available; false when someone else got there first. */
+	public boolean claim(long driverId) {
+		Driver driver = drivers.get(driverId);
+		if (driver == null) {
+			return false;
+		}
+		synchronized (driver) {
+			// the set decides between claims racing on a driver that was dropped and re-added meanwhile
+			if (driver.removed || driver.cell == null || !driver.available || !onTrip.add(driverId)) {
+				return false;
+			}
+			driver.onTrip = true;
+			driver.cell.write(driver);
+			return true;
+		}
+	}
+
+	/** Marks the driver busy on a trip found at startup, before it has pinged. */
+	public void markOnTrip(long driverId) {
+		onTrip.add(driverId);
+	}
+
+	/**
+	 * Ends the driver's trip (or a claim that did not become one) and makes it
+	 * available; false when the driver is not in the index, which then only
+	 * forgets the trip.
+	 */
+	public boolean release(long driverId) {
+		onTrip.remove(driverId);
+		Driver driver = drivers.get(driverId);
+		if (driver == null) {
+			return false;
+		}
+		synchronized (driver) {
+			if (driver.removed || driver.cell == null) {
+				return false;
+			}
+			driver.available = true;
+			// claimed again since the removal above
+			driver.onTrip = onTrip.contains(driverId);
+			driver.cell.write(driver);
+			return true;
+		}
+	}
+
+	public boolean remove(long driverId) {
+		Driver driver = drivers.remove(driverId);
+		return driver != null && detach(driver);
+	}
+
+	/** Drops a driver that went offline, unless it has pinged again since. */
+	@EventListener
+	public void onPresenceChanged(DriverPresenceChanged event) {
+		if (!event.online()) {
+			removeIfSilentSince(event.driverId(), event.lastSeenMillis());
+		}
+	}
+
+	/** Removes the driver if no ping has reached the index after {@code lastSeenMillis}. */
+	public boolean removeIfSilentSince(long driverId, long lastSeenMillis) {
+		Driver driver = drivers.get(driverId);
+		if (driver == null) {
+			return false;
+		}
+		synchronized (driver) {
+			// under the driver's monitor, so a ping cannot land between the check and the removal
+			if (driver.removed || driver.seenAtMillis > lastSeenMillis) {
+				return false;
+			}
+			drivers.remove(driverId, driver);
+			return detach(driver);
+		}
+	}
+
+	/** Whether the driver is in the index and available; a cheaper {@link #position} for callers that need nothing else. */
+	public boolean isAvailable(long driverId) {
+		Driver driver = drivers.get(driverId);
+		if (driver == null) {
+			return false;
+		}
+		synchronized (driver) {
+			return !driver.removed && driver.cell != null && driver.isAvailable();
+		}
+	}
+
+	public Optional<DriverPosition> position(long driverId) {
+		Driver driver = drivers.get(driverId);
+		if (driver == null) {
+			return Optional.empty();
+		}
+		synchronized (driver) {
+			if (driver.removed || driver.cell == null) {
+				return Optional.empty();
+			}
+			return Optional.of(new DriverPosition(driverId, driver.lat, driver.lng, driver.heading, driver.speed,
+					driver.recordedAtMillis, vehicleType(driver.vehicle), driver.isAvailable()));
+		}
+	}
+
+	/**
+	 * Up to {@code limit} available drivers within {@code radiusKm}, nearest
+	 * first, whose last ping arrived within {@code max-position-age-seconds}.
+	 * A null {@code vehicleType} matches any driver.
+	 */
+	public List<NearbyDriver> nearest(double lat, double lng, double radiusKm, int limit, VehicleType vehicleType) {
+		if (limit <= 0 || radiusKm < 0) {
+			return List.of();
+		}
+		// every distance is measured at the query's latitude, which is what makes the ring bound below exact
+		double cosLat = Math.max(Math.cos(Math.toRadians(lat)), 1e-3);
+		double ringKm = cellDegrees * KM_PER_DEGREE * cosLat;
+		// past half the columns a ring would wrap around and meet itself
+		int maxRing = (int) Math.min((columns - 1) / 2, Math.ceil(radiusKm / ringKm) + 1);
+
+		Candidates candidates = new Candidates(limit);
+		int vehicle = vehicleType == null ? NO_VEHICLE : vehicleType.ordinal();
+		Scan scan = new Scan(lat, lng, cosLat, radiusKm, vehicle,
+				System.currentTimeMillis() - maxAgeMillis, candidates);
+		int row = row(lat);
+		// not wrapped, so the cell bounds in scan() line up with lng
+		int column = (int) Math.floor((lng + 180) / cellDegrees);
+
+		scan(row, column, scan);
+		for (int ring = 1; ring <= maxRing; ring++) {
+			// the query point can sit anywhere in its own cell, so ring r is at least r - 1 cells away
+			double closest = (ring - 1) * ringKm;
+			if (closest > radiusKm || (candidates.full() && closest > candidates.worst())) {
+				break;
+			}
+			for (int d = -ring; d <= ring; d++) {
+				scan(row - ring, column + d, scan);
+				scan(row + ring, column + d, scan);
+			}
+			for (int d = -ring + 1; d < ring; d++) {
+				scan(row + d, column - ring, scan);
+				scan(row + d, column + ring, scan);
+			}
+		}
+		return candidates.sorted();
+	}
+
+	public int size() {
+		return drivers.size();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("driver.geo.drivers", drivers, ConcurrentHashMap::size)
+				.register(registry);
+		Gauge.builder("driver.geo.cells", cells, ConcurrentHashMap::size)
+				.register(registry);
+		Gauge.builder("driver.geo.on-trip", onTrip, Set::size)
+				.register(registry);
+	}
+
+	private void scan(int row, int column, Scan scan) {
+		if (row < 0 || row >= rows) {
+			return;
+		}
+		// skip the cell when even its nearest edge is out of reach
+		double south = row * cellDegrees - 90;
+		double west = column * cellDegrees - 180;
+		double dLat = Math.max(0, Math.max(south - scan.lat(), scan.lat() - (south + cellDegrees)));
+		double dLng = Math.max(0, Math.max(west - scan.lng(), scan.lng() - (west + cellDegrees))) * scan.cosLat();
+		double closest = KM_PER_DEGREE * Math.sqrt(dLat * dLat + dLng * dLng);
+		if (closest > scan.radiusKm() || (scan.candidates().full() && closest > scan.candidates().worst())) {
+			return;
+		}
+		Cell cell = cells.get(cellKey(row, Math.floorMod(column, columns)));
+		if (cell != null) {
+			cell.scan(scan);
+		}
+	}
+
+	private int row(double lat) {
+		return Math.min(rows - 1, (int) ((lat + 90) / cellDegrees));
+	}
+
+	private int column(double lng) {
+		return Math.floorMod((int) Math.floor((lng + 180) / cellDegrees), columns);
+	}
+
+	private long cellKey(int row, int column) {
+		return (long) row * columns + column;
+	}
+
+	private static boolean detach(Driver driver) {
+		synchronized (driver) {
+			driver.removed = true;
+			if (driver.cell != null) {
+				driver.cell.remove(driver);
+				driver.cell = null;
+			}
+		}
+		return true;
+	}
+
+	private static VehicleType vehicleType(byte ordinal) {
+		return ordinal == NO_VEHICLE ? null : VEHICLE_TYPES[ordinal];
+	}
+
+	// one driver's state; fields are guarded by the object's monitor, except index, which its cell's lock guards
+	private static final class Driver {
+		final long id;
+		Cell cell;
+		int index;
+		boolean removed;
+		double lat;
+		double lng;
+		float heading;
+		float speed;
+		long recordedAtMillis;
+		long seenAtMillis;
+		byte vehicle = NO_VEHICLE;
+		// as last reported by the driver
+		boolean available = true;
+		// mirrors the index's onTrip set, read again under the monitor on every change
+		boolean onTrip;
+
+		Driver(long id) {
+			this.id = id;
+		}
+
+		boolean isAvailable() {
+			return available && !onTrip;
+		}
+	}
+
+	private record Scan(double lat, double lng, double cosLat, double radiusKm, int vehicle, long seenAfter,
+			Candidates candidates) {
+	}
+
+	private static final class Cell {
+		private final StampedLock lock = new StampedLock();
+		private Driver[] members = new Driver[8];
+		private long[] ids = new long[8];
+		private double[] lat = new double[8];
+		private double[] lng = new double[8];
+		private long[] seenAtMillis = new long[8];
+		private byte[] vehicle = new byte[8];
+		private boolean[] available = new boolean[8];
+		private int size;
+
+		void add(Driver driver) {
+			long stamp = lock.writeLock();
+			try {
+				if (size == members.length) {
+					grow();
+				}
+				driver.index = size++;
+				members[driver.index] = driver;
+				ids[driver.index] = driver.id;
+				copy(driver);
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		void write(Driver driver) {
+			long stamp = lock.writeLock();
+			try {
+				copy(driver);
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		void remove(Driver driver) {
+			long stamp = lock.writeLock();
+			try {
+				int index = driver.index;
+				int last = --size;
+				if (index != last) {
+					Driver moved = members[last];
+					members[index] = moved;
+					ids[index] = ids[last];
+					lat[index] = lat[last];
+					lng[index] = lng[last];
+					seenAtMillis[index] = seenAtMillis[last];
+					vehicle[index] = vehicle[last];
+					available[index] = available[last];
+					moved.index = index;
+				}
+				members[last] = null;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		void scan(Scan scan) {
+			long stamp = lock.readLock();
+			try {
+				for (int i = 0; i < size; i++) {
+					// cheapest checks first; most entries fail on distance, so the age is read last
+					if (!available[i] || (scan.vehicle() != NO_VEHICLE && vehicle[i] != scan.vehicle())) {
+						continue;
+					}
+					double dLat = lat[i] - scan.lat();
+					double dLng = lng[i] - scan.lng();
+					if (dLng > 180) {
+						dLng -= 360;
+					} else if (dLng < -180) {
+						dLng += 360;
+					}
+					double x = dLng * scan.cosLat();
+					double km = KM_PER_DEGREE * Math.sqrt(dLat * dLat + x * x);
+					if (km <= scan.radiusKm() && seenAtMillis[i] >= scan.seenAfter()) {
+						scan.candidates().offer(km, ids[i], lat[i], lng[i], vehicle[i]);
+					}
+				}
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		private void copy(Driver driver) {
+			int index = driver.index;
+			lat[index] = driver.lat;
+			lng[index] = driver.lng;
+			seenAtMillis[index] = driver.seenAtMillis;
+			vehicle[index] = driver.vehicle;
+			available[index] = driver.isAvailable();
+		}
+
+		private void grow() {
+			int capacity = members.length * 2;
+			members = Arrays.copyOf(members, capacity);
+			ids = Arrays.copyOf(ids, capacity);
+			lat = Arrays.copyOf(lat, capacity);
+			lng = Arrays.copyOf(lng, capacity);
+			seenAtMillis = Arrays.copyOf(seenAtMillis, capacity);
+			vehicle = Arrays.copyOf(vehicle, capacity);
+			available = Arrays.copyOf(available, capacity);
+		}
+	}
+
+	// bounded max-heap on distance, so the worst of the best k is at the root
+	private static final class Candidates {
+		private final double[] distance;
+		private final long[] ids;
+		private final double[] lat;
+		private final double[] lng;
+		private final byte[] vehicle;
+		private int size;
+
+		Candidates(int limit) {
+			this.distance = new double[limit];
+			this.ids = new long[limit];
+			this.lat = new double[limit];
+			this.lng = new double[limit];
+			this.vehicle = new byte[limit];
+		}
+
+		boolean full() {
+			return size == distance.length;
+		}
+
+		double worst() {
+			return distance[0];
+		}
+
+		void offer(double km, long id, double lat, double lng, byte vehicle) {
+			int i;
+			if (!full()) {
+				i = size++;
+				while (i > 0 && distance[(i - 1) / 2] < km) {
+					move((i - 1) / 2, i);
+					i = (i - 1) / 2;
+				}
+			} else if (km < distance[0]) {
+				i = 0;
+				while (true) {
+					int child = 2 * i + 1;
+					if (child >= size) {
+						break;
+					}
+					if (child + 1 < size && distance[child + 1] > distance[child]) {
+						child++;
+					}
+					if (distance[child] <= km) {
+						break;
+					}
+					move(child, i);
+					i = child;
+				}
+			} else {
+				return;
+			}
+			distance[i] = km;
+			ids[i] = id;
+			this.lat[i] = lat;
+			this.lng[i] = lng;
+			this.vehicle[i] = vehicle;
+		}
+
+		List<NearbyDriver> sorted() {
+			List<NearbyDriver> result = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				result.add(new NearbyDriver(ids[i], lat[i], lng[i], distance[i], vehicleType(vehicle[i])));
+			}
+			result.sort(Comparator.comparingDouble(NearbyDriver::distanceKm));
+			return result;
+		}
+
+		private void move(int from, int to) {
+			distance[to] = distance[from];
+			ids[to] = ids[from];
+			lat[to] = lat[from];
+			lng[to] = lng[from];
+			vehicle[to] = vehicle[from];
+		}
+	}
+}
@@ -0,0 +1,6 @@
+package com.porter_replica.backend.driver.geo;
+
+import com.porter_replica.backend.user.VehicleType;
+
+public record NearbyDriver(long driverId, double lat, double lng, double distanceKm, VehicleType vehicleType) {
+}
@@ -0,0 +1,48 @@
+package com.porter_replica.backend.driver.geo;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.porter_replica.backend.user.VehicleType;
+
+@RestController
+@RequestMapping("/api/drivers")
+public class NearbyDriversController {
+
+	private final DriverGeoIndex geoIndex;
+	private final double maxRadiusKm;
+	private final int maxResults;
+
+	public NearbyDriversController(DriverGeoIndex geoIndex,
+			@Value("${driver-geo.max-radius-km:25}") double maxRadiusKm,
+			@Value("${driver-geo.max-results:50}") int maxResults) {
+		this.geoIndex = geoIndex;
+		this.maxRadiusKm = maxRadiusKm;
+		this.maxResults = maxResults;
+	}
+
+	@GetMapping("/nearby")
+	public List<NearbyDriver> nearby(
+			@RequestParam double lat,
+			@RequestParam double lng,
+			@RequestParam(defaultValue = "5") double radiusKm,
+			@RequestParam(defaultValue = "10") int limit,
+			@RequestParam(required = false) VehicleType vehicleType) {
+
+		if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+			throw new IllegalArgumentException("lat must be between -90 and 90 and lng between -180 and 180");
+		}
+		if (radiusKm <= 0 || radiusKm > maxRadiusKm) {
+			throw new IllegalArgumentException("radiusKm must be positive and at most " + maxRadiusKm);
+		}
+		if (limit < 1 || limit > maxResults) {
+			throw new IllegalArgumentException("limit must be between 1 and " + maxResults);
+		}
+		return geoIndex.nearest(lat, lng, radiusKm, limit, vehicleType);
+	}
+}
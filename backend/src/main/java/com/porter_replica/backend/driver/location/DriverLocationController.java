@@ -0,0 +1,61 @@
+package com.porter_replica.backend.driver.location;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.porter_replica.backend.auth.jwt.VerifiedToken;
+import com.porter_replica.backend.common.ErrorCode;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/drivers")
+public class DriverLocationController {
+
+	private final DriverLocationPipeline pipeline;
+	private final String retryAfterSeconds;
+	private final long maxClockSkewMillis;
+
+	public DriverLocationController(DriverLocationPipeline pipeline,
+			@Value("${driver-location.retry-after-seconds:1}") long retryAfterSeconds,
+			@Value("${driver-location.max-clock-skew-millis:30000}") long maxClockSkewMillis) {
+		this.pipeline = pipeline;
+		this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+		this.maxClockSkewMillis = maxClockSkewMillis;
+	}
+
+	// 202: the ping is queued, not yet stored
+	@PostMapping("/location")
+	public ResponseEntity<?> ping(@Valid @RequestBody LocationPing ping, Authentication authentication) {
+
+		// the vehicle type comes from the token, so a ping never costs a user lookup
+		VerifiedToken token = (VerifiedToken) authentication.getDetails();
+		long driverId = Long.parseLong(token.userId());
+		long now = System.currentTimeMillis();
+		long recordedAt = ping.getRecordedAt() != null ? ping.getRecordedAt() : now;
+		// newer pings win, so one from the future would hide every real one until it is reached
+		if (recordedAt > now + maxClockSkewMillis) {
+			throw ErrorCode.RECORDED_AT_IN_FUTURE.exception();
+		}
+
+		boolean queued = pipeline.submit(driverId, ping.getLat(), ping.getLng(),
+				ping.getHeading() != null ? ping.getHeading() : Float.NaN,
+				ping.getSpeed() != null ? ping.getSpeed() : Float.NaN,
+				recordedAt, token.vehicleType(), ping.getAvailable());
+
+		if (!queued) {
+			return ResponseEntity.status(ErrorCode.SERVER_BUSY.status())
+					.header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+					.contentType(MediaType.APPLICATION_JSON)
+					.body(ErrorCode.SERVER_BUSY.body());
+		}
+		return ResponseEntity.accepted().build();
+	}
+}
@@ -0,0 +1,166 @@
+package com.porter_replica.backend.driver.location;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.porter_replica.backend.driver.geo.DriverGeoIndex;
+import com.porter_replica.backend.user.VehicleType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Request threads drop pings into a {@link LocationRingBuffer}; one drain
+ * thread takes them out, moves the driver in {@link DriverGeoIndex} and feeds
+ * {@link LocationHistoryWriter}. Request threads never touch a lock or the
+ * database, and a late ping never replaces a newer position. Positions
+ * that are applied go on to every registered {@link PositionListener}.
+ *
+ * {@code driver.location.visible.latency} measures from a ping reaching the
+ * server to its position being readable through {@link #latest}.
+ */
+@Component
+public class DriverLocationPipeline implements DisposableBean {
+
+	private final LocationRingBuffer ring;
+	private final OverflowPolicy overflowPolicy;
+	private final LocationHistoryWriter history;
+	private final DriverGeoIndex geoIndex;
+	private final long idleParkNanos;
+	private final Thread drainer;
+	private volatile boolean running = true;
+	// an array, so the drain loop does not allocate an iterator per ping
+	private volatile PositionListener[] listeners = new PositionListener[0];
+
+	// a field, so the drain loop does not allocate a method reference per poll
+	private final LocationRingBuffer.Sink apply = this::apply;
+
+	private final Counter accepted;
+	private final Counter rejected;
+	private final Counter droppedOldest;
+	private final Timer visibleLatency;
+
+	// vehicle type and availability travel through the ring packed into one int
+	private static final int AVAILABILITY_SHIFT = 8;
+	private static final int VEHICLE_MASK = (1 << AVAILABILITY_SHIFT) - 1;
+	private static final int BUSY = 1;
+	private static final int AVAILABLE = 2;
+	private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+	public DriverLocationPipeline(LocationHistoryWriter history,
+			DriverGeoIndex geoIndex,
+			MeterRegistry meterRegistry,
+			@Value("${driver-location.ring-capacity:262144}") int ringCapacity,
+			@Value("${driver-location.overflow:drop-oldest}") OverflowPolicy overflowPolicy,
+			@Value("${driver-location.idle-park-micros:100}") long idleParkMicros) {
+
+		this.ring = new LocationRingBuffer(ringCapacity);
+		this.overflowPolicy = overflowPolicy;
+		this.history = history;
+		this.geoIndex = geoIndex;
+		this.idleParkNanos = TimeUnit.MICROSECONDS.toNanos(idleParkMicros);
+
+		this.accepted = Counter.builder("driver.location.pings")
+				.tag("result", "accepted")
+				.register(meterRegistry);
+		this.rejected = Counter.builder("driver.location.pings")
+				.tag("result", "rejected")
+				.register(meterRegistry);
+		this.droppedOldest = Counter.builder("driver.location.pings")
+				.tag("result", "dropped_oldest")
+				.register(meterRegistry);
+		this.visibleLatency = Timer.builder("driver.location.visible.latency")
+				.register(meterRegistry);
+		Gauge.builder("driver.location.buffered", ring, LocationRingBuffer::size)
+				.register(meterRegistry);
+
+		this.drainer = new Thread(this::drainLoop, "driver-location-drain");
+		drainer.setDaemon(true);
+		drainer.start();
+	}
+
+	/**
+	 * Queues a ping. Returns false only under {@link OverflowPolicy#REJECT}
+	 * when the buffer is full; heading and speed may be NaN, and a null
+	 * {@code vehicleType} or {@code available} leaves the driver's as it was.
+	 */
+	public boolean submit(long driverId, double lat, double lng, float heading, float speed, long recordedAtMillis,
+			VehicleType vehicleType, Boolean available) {
+		long receivedNanos = System.nanoTime();
+		long receivedAtMillis = System.currentTimeMillis();
+		int attributes = (vehicleType == null ? 0 : vehicleType.ordinal() + 1)
+				| (available == null ? 0 : available ? AVAILABLE : BUSY) << AVAILABILITY_SHIFT;
+
+		while (!ring.offer(driverId, lat, lng, heading, speed, attributes,
+				recordedAtMillis, receivedAtMillis, receivedNanos)) {
+			if (overflowPolicy == OverflowPolicy.REJECT) {
+				rejected.increment();
+				return false;
+			}
+			if (ring.dropOldest()) {
+				droppedOldest.increment();
+			}
+		}
+		accepted.increment();
+		return true;
+	}
+
+	public synchronized void addListener(PositionListener listener) {
+		PositionListener[] current = listeners;
+		PositionListener[] next = Arrays.copyOf(current, current.length + 1);
+		next[current.length] = listener;
+		listeners = next;
+	}
+
+	public Optional<DriverPosition> latest(long driverId) {
+		return geoIndex.position(driverId);
+	}
+
+	private void drainLoop() {
+		while (running) {
+			boolean drained = false;
+			while (ring.poll(apply)) {
+				drained = true;
+			}
+			history.flushIfDue(System.nanoTime());
+			if (!drained) {
+				LockSupport.parkNanos(idleParkNanos);
+			}
+		}
+		while (ring.poll(apply)) {
+			// what was accepted before shutdown still reaches history
+		}
+		history.flushNow();
+	}
+
+	private void apply(long driverId, double lat, double lng, float heading, float speed, int attributes,
+			long recordedAtMillis, long receivedAtMillis, long receivedNanos) {
+		int vehicle = attributes & VEHICLE_MASK;
+		int availability = attributes >>> AVAILABILITY_SHIFT;
+		boolean moved = geoIndex.update(driverId, lat, lng, heading, speed, recordedAtMillis,
+				vehicle == 0 ? null : VEHICLE_TYPES[vehicle - 1],
+				availability == 0 ? null : availability == AVAILABLE);
+		if (moved) {
+			for (PositionListener listener : listeners) {
+				listener.moved(driverId, lat, lng, heading, speed, recordedAtMillis);
+			}
+		}
+		visibleLatency.record(System.nanoTime() - receivedNanos, TimeUnit.NANOSECONDS);
+
+		history.append(driverId, lat, lng, heading, speed, recordedAtMillis, receivedAtMillis, receivedNanos);
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		running = false;
+		drainer.join(TimeUnit.SECONDS.toMillis(5));
+	}
+}
@@ -0,0 +1,75 @@
+package com.porter_replica.backend.driver.location;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Location history row. Written in bulk by {@link LocationHistoryWriter},
+ * never through JPA; mapped so the schema is declared (and validated) with
+ * the rest of the entities. Times are epoch milliseconds.
+ */
+@Entity
+@Table(name = "driver_locations",
+		indexes = @Index(name = "idx_driver_locations_driver_time", columnList = "driver_id, recorded_at_ms"))
+public class DriverLocationRecord {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "driver_id", nullable = false)
+	private long driverId;
+
+	@Column(nullable = false)
+	private double lat;
+
+	@Column(nullable = false)
+	private double lng;
+
+	private Float heading;
+
+	private Float speed;
+
+	@Column(name = "recorded_at_ms", nullable = false)
+	private long recordedAtMs;
+
+	@Column(name = "received_at_ms", nullable = false)
+	private long receivedAtMs;
+
+	public Long getId() {
+		return id;
+	}
+
+	public long getDriverId() {
+		return driverId;
+	}
+
+	public double getLat() {
+		return lat;
+	}
+
+	public double getLng() {
+		return lng;
+	}
+
+	public Float getHeading() {
+		return heading;
+	}
+
+	public Float getSpeed() {
+		return speed;
+	}
+
+	public long getRecordedAtMs() {
+		return recordedAtMs;
+	}
+
+	public long getReceivedAtMs() {
+		return receivedAtMs;
+	}
+}
@@ -0,0 +1,11 @@
+package com.porter_replica.backend.driver.location;
+
+import com.porter_replica.backend.user.VehicleType;
+
+/**
+ * Latest known position of a driver. Heading and speed are NaN when the device
+ * did not send them; {@code vehicleType} is null when the driver has none on record.
+ */
+public record DriverPosition(long driverId, double lat, double lng, float heading, float speed,
+		long recordedAtMillis, VehicleType vehicleType, boolean available) {
+}
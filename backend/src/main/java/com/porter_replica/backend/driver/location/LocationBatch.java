@@ -0,0 +1,46 @@
+package com.porter_replica.backend.driver.location;
+
+/** Reusable column buffers for one history write. Owned by one thread at a time. */
+final class LocationBatch {
+
+	final long[] driverId;
+	final double[] lat;
+	final double[] lng;
+	final float[] heading;
+	final float[] speed;
+	final long[] recordedAtMillis;
+	final long[] receivedAtMillis;
+	int size;
+	long firstAppendNanos;
+	long oldestReceivedNanos;
+
+	LocationBatch(int capacity) {
+		this.driverId = new long[capacity];
+		this.lat = new double[capacity];
+		this.lng = new double[capacity];
+		this.heading = new float[capacity];
+		this.speed = new float[capacity];
+		this.recordedAtMillis = new long[capacity];
+		this.receivedAtMillis = new long[capacity];
+	}
+
+	void add(long driverId, double lat, double lng, float heading, float speed,
+			long recordedAtMillis, long receivedAtMillis, long receivedNanos) {
+		if (size == 0) {
+			firstAppendNanos = System.nanoTime();
+			oldestReceivedNanos = receivedNanos;
+		}
+		this.driverId[size] = driverId;
+		this.lat[size] = lat;
+		this.lng[size] = lng;
+		this.heading[size] = heading;
+		this.speed[size] = speed;
+		this.recordedAtMillis[size] = recordedAtMillis;
+		this.receivedAtMillis[size] = receivedAtMillis;
+		size++;
+	}
+
+	boolean isFull() {
+		return size == driverId.length;
+	}
+}
@@ -0,0 +1,234 @@
+package com.porter_replica.backend.driver.location;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Write-behind for location history. The pipeline's drain thread fills one
+ * batch at a time and hands it over when it is full or {@code flush-interval-millis}
+ * old; a writer thread streams it into {@code driver_locations} with COPY
+ * (a JDBC batch on databases other than Postgres) and returns the buffer.
+ *
+ * History is best effort: if every buffer is waiting on the database, new
+ * pings skip history (counted as dropped) while latest positions stay live.
+ */
+@Component
+public class LocationHistoryWriter implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(LocationHistoryWriter.class);
+
+	private static final String COPY_SQL = "COPY driver_locations "
+			+ "(driver_id, lat, lng, heading, speed, recorded_at_ms, received_at_ms) FROM STDIN";
+	private static final String INSERT_SQL = "insert into driver_locations "
+			+ "(driver_id, lat, lng, heading, speed, recorded_at_ms, received_at_ms) values (?, ?, ?, ?, ?, ?, ?)";
+
+	private final DataSource dataSource;
+	private final long flushIntervalNanos;
+	private final BlockingQueue<LocationBatch> free;
+	private final BlockingQueue<LocationBatch> full;
+	private final Thread writer;
+	private volatile boolean running = true;
+
+	// touched only by the drain thread
+	private LocationBatch current;
+
+	private final Counter written;
+	private final Counter dropped;
+	private final Counter failed;
+	private final Timer flushTimer;
+	private final Timer persistLatency;
+
+	public LocationHistoryWriter(DataSource dataSource,
+			MeterRegistry meterRegistry,
+			@Value("${driver-location.history.batch-size:5000}") int batchSize,
+			@Value("${driver-location.history.flush-interval-millis:500}") long flushIntervalMillis,
+			@Value("${driver-location.history.buffers:4}") int buffers) {
+
+		this.dataSource = dataSource;
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+		this.free = new ArrayBlockingQueue<>(buffers);
+		this.full = new ArrayBlockingQueue<>(buffers);
+		for (int i = 0; i < buffers; i++) {
+			free.add(new LocationBatch(batchSize));
+		}
+
+		this.written = Counter.builder("driver.location.history.rows")
+				.tag("result", "written")
+				.register(meterRegistry);
+		this.dropped = Counter.builder("driver.location.history.rows")
+				.tag("result", "dropped")
+				.register(meterRegistry);
+		this.failed = Counter.builder("driver.location.history.rows")
+				.tag("result", "failed")
+				.register(meterRegistry);
+		this.flushTimer = Timer.builder("driver.location.history.flush")
+				.register(meterRegistry);
+		// from the oldest ping of a batch reaching the server to the batch being committed
+		this.persistLatency = Timer.builder("driver.location.persist.latency")
+				.register(meterRegistry);
+
+		this.writer = new Thread(this::writeLoop, "location-history-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/** Drain thread only. */
+	void append(long driverId, double lat, double lng, float heading, float speed,
+			long recordedAtMillis, long receivedAtMillis, long receivedNanos) {
+		if (current == null) {
+			current = free.poll();
+			if (current == null) {
+				dropped.increment();
+				return;
+			}
+		}
+		current.add(driverId, lat, lng, heading, speed, recordedAtMillis, receivedAtMillis, receivedNanos);
+		if (current.isFull()) {
+			handOff();
+		}
+	}
+
+	/** Drain thread only: hands over a partial batch once it has waited long enough. */
+	void flushIfDue(long nowNanos) {
+		if (current != null && current.size > 0 && nowNanos - current.firstAppendNanos >= flushIntervalNanos) {
+			handOff();
+		}
+	}
+
+	/** Drain thread only, on shutdown. */
+	void flushNow() {
+		if (current != null && current.size > 0) {
+			handOff();
+		}
+	}
+
+	private void handOff() {
+		// never blocks: a batch is either free, being filled, or queued here
+		full.add(current);
+		current = null;
+	}
+
+	// after shutdown, keeps going until the queued batches are written
+	private void writeLoop() {
+		while (true) {
+			LocationBatch batch;
+			try {
+				batch = full.poll(100, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			if (batch == null) {
+				if (!running) {
+					return;
+				}
+				continue;
+			}
+			write(batch);
+			batch.size = 0;
+			free.add(batch);
+		}
+	}
+
+	void write(LocationBatch batch) {
+		long start = System.nanoTime();
+		try (Connection connection = dataSource.getConnection()) {
+			if (connection.isWrapperFor(PGConnection.class)) {
+				copy(connection.unwrap(PGConnection.class), batch);
+			} else {
+				insert(connection, batch);
+			}
+			long now = System.nanoTime();
+			flushTimer.record(now - start, TimeUnit.NANOSECONDS);
+			persistLatency.record(now - batch.oldestReceivedNanos, TimeUnit.NANOSECONDS);
+			written.increment(batch.size);
+		} catch (SQLException | IOException | RuntimeException e) {
+			failed.increment(batch.size);
+			log.warn("Could not write {} location history rows: {}", batch.size, e.getMessage());
+		}
+	}
+
+	// text format: tab-separated columns, \N for null
+	private static void copy(PGConnection connection, LocationBatch batch) throws SQLException, IOException {
+		CopyIn copy = connection.getCopyAPI().copyIn(COPY_SQL);
+		try {
+			StringBuilder row = new StringBuilder(128);
+			byte[] bytes = new byte[256];
+			for (int i = 0; i < batch.size; i++) {
+				row.setLength(0);
+				row.append(batch.driverId[i]).append('\t')
+						.append(batch.lat[i]).append('\t')
+						.append(batch.lng[i]).append('\t');
+				appendNullable(row, batch.heading[i]).append('\t');
+				appendNullable(row, batch.speed[i]).append('\t');
+				row.append(batch.recordedAtMillis[i]).append('\t')
+						.append(batch.receivedAtMillis[i]).append('\n');
+
+				int length = row.length();
+				for (int c = 0; c < length; c++) {
+					bytes[c] = (byte) row.charAt(c); // only ASCII digits, signs, dots and tabs
+				}
+				copy.writeToCopy(bytes, 0, length);
+			}
+			copy.endCopy();
+		} finally {
+			if (copy.isActive()) {
+				copy.cancelCopy();
+			}
+		}
+	}
+
+	private static StringBuilder appendNullable(StringBuilder row, float value) {
+		return Float.isNaN(value) ? row.append("\\N") : row.append(value);
+	}
+
+	private static void insert(Connection connection, LocationBatch batch) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+			for (int i = 0; i < batch.size; i++) {
+				statement.setLong(1, batch.driverId[i]);
+				statement.setDouble(2, batch.lat[i]);
+				statement.setDouble(3, batch.lng[i]);
+				setNullable(statement, 4, batch.heading[i]);
+				setNullable(statement, 5, batch.speed[i]);
+				statement.setLong(6, batch.recordedAtMillis[i]);
+				statement.setLong(7, batch.receivedAtMillis[i]);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		}
+	}
+
+	private static void setNullable(PreparedStatement statement, int index, float value) throws SQLException {
+		if (Float.isNaN(value)) {
+			statement.setNull(index, Types.REAL);
+		} else {
+			statement.setFloat(index, value);
+		}
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		running = false;
+		writer.join(TimeUnit.SECONDS.toMillis(10));
+	}
+}
@@ -0,0 +1,82 @@
+package com.porter_replica.backend.driver.location;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+public class LocationPing {
+
+	@NotNull(message = "lat is required")
+	@DecimalMin(value = "-90", message = "lat must be between -90 and 90")
+	@DecimalMax(value = "90", message = "lat must be between -90 and 90")
+	private Double lat;
+
+	@NotNull(message = "lng is required")
+	@DecimalMin(value = "-180", message = "lng must be between -180 and 180")
+	@DecimalMax(value = "180", message = "lng must be between -180 and 180")
+	private Double lng;
+
+	// degrees clockwise from north
+	@DecimalMin(value = "0", message = "heading must be between 0 and 360")
+	@DecimalMax(value = "360", message = "heading must be between 0 and 360")
+	private Float heading;
+
+	// metres per second
+	@PositiveOrZero(message = "speed must not be negative")
+	private Float speed;
+
+	// device clock, epoch milliseconds; the server's clock when absent
+	private Long recordedAt;
+
+	// false while on a job or taking a break; absent leaves it unchanged
+	private Boolean available;
+
+	public Double getLat() {
+		return lat;
+	}
+
+	public void setLat(Double lat) {
+		this.lat = lat;
+	}
+
+	public Double getLng() {
+		return lng;
+	}
+
+	public void setLng(Double lng) {
+		this.lng = lng;
+	}
+
+	public Float getHeading() {
+		return heading;
+	}
+
+	public void setHeading(Float heading) {
+		this.heading = heading;
+	}
+
+	public Float getSpeed() {
+		return speed;
+	}
+
+	public void setSpeed(Float speed) {
+		this.speed = speed;
+	}
+
+	public Long getRecordedAt() {
+		return recordedAt;
+	}
+
+	public void setRecordedAt(Long recordedAt) {
+		this.recordedAt = recordedAt;
+	}
+
+	public Boolean getAvailable() {
+		return available;
+	}
+
+	public void setAvailable(Boolean available) {
+		this.available = available;
+	}
+}
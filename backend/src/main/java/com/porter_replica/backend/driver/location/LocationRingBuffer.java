@@ -0,0 +1,125 @@
+package com.porter_replica.backend.driver.location;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of GPS pings (Vyukov's MPMC array queue). Fields
+ * live in parallel primitive arrays, so a ping costs no allocation on either
+ * side. Each slot's sequence number says whose turn it is: {@code pos} when
+ * free for the producer at {@code pos}, {@code pos + 1} once written, and
+ * {@code pos + capacity} after it has been read.
+ */
+public final class LocationRingBuffer {
+
+	/** Receives one ping; called on the polling thread while the slot is held. */
+	@FunctionalInterface
+	public interface Sink {
+		void accept(long driverId, double lat, double lng, float heading, float speed, int attributes,
+				long recordedAtMillis, long receivedAtMillis, long receivedNanos);
+	}
+
+	private static final Sink DISCARD = (driverId, lat, lng, heading, speed, attributes, recordedAt, receivedAt,
+			receivedNanos) -> {
+	};
+
+	private final int mask;
+	private final AtomicLongArray sequence;
+	private final long[] driverId;
+	private final double[] lat;
+	private final double[] lng;
+	private final float[] heading;
+	private final float[] speed;
+	private final int[] attributes;
+	private final long[] recordedAtMillis;
+	private final long[] receivedAtMillis;
+	private final long[] receivedNanos;
+
+	private final AtomicLong enqueuePos = new AtomicLong();
+	private final AtomicLong dequeuePos = new AtomicLong();
+
+	public LocationRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.mask = size - 1;
+		this.sequence = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequence.set(i, i);
+		}
+		this.driverId = new long[size];
+		this.lat = new double[size];
+		this.lng = new double[size];
+		this.heading = new float[size];
+		this.speed = new float[size];
+		this.attributes = new int[size];
+		this.recordedAtMillis = new long[size];
+		this.receivedAtMillis = new long[size];
+		this.receivedNanos = new long[size];
+	}
+
+	/** Adds a ping; false when the buffer is full. {@code attributes} is opaque to the buffer. */
+	public boolean offer(long driverId, double lat, double lng, float heading, float speed, int attributes,
+			long recordedAtMillis, long receivedAtMillis, long receivedNanos) {
+		long pos = enqueuePos.get();
+		while (true) {
+			int slot = (int) pos & mask;
+			long diff = sequence.getAcquire(slot) - pos;
+			if (diff == 0) {
+				if (enqueuePos.compareAndSet(pos, pos + 1)) {
+					this.driverId[slot] = driverId;
+					this.lat[slot] = lat;
+					this.lng[slot] = lng;
+					this.heading[slot] = heading;
+					this.speed[slot] = speed;
+					this.attributes[slot] = attributes;
+					this.recordedAtMillis[slot] = recordedAtMillis;
+					this.receivedAtMillis[slot] = receivedAtMillis;
+					this.receivedNanos[slot] = receivedNanos;
+					sequence.setRelease(slot, pos + 1);
+					return true;
+				}
+				pos = enqueuePos.get();
+			} else if (diff < 0) {
+				return false;
+			} else {
+				pos = enqueuePos.get();
+			}
+		}
+	}
+
+	/** Hands the oldest ping to {@code sink}; false when the buffer is empty. */
+	public boolean poll(Sink sink) {
+		long pos = dequeuePos.get();
+		while (true) {
+			int slot = (int) pos & mask;
+			long diff = sequence.getAcquire(slot) - (pos + 1);
+			if (diff == 0) {
+				if (dequeuePos.compareAndSet(pos, pos + 1)) {
+					sink.accept(driverId[slot], lat[slot], lng[slot], heading[slot], speed[slot], attributes[slot],
+							recordedAtMillis[slot], receivedAtMillis[slot], receivedNanos[slot]);
+					sequence.setRelease(slot, pos + mask + 1);
+					return true;
+				}
+				pos = dequeuePos.get();
+			} else if (diff < 0) {
+				return false;
+			} else {
+				pos = dequeuePos.get();
+			}
+		}
+	}
+
+	/** Drops the oldest ping to make room; false when another thread emptied the buffer first. */
+	public boolean dropOldest() {
+		return poll(DISCARD);
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/** Approximate while producers or consumers are active. */
+	public int size() {
+		long size = enqueuePos.get() - dequeuePos.get();
+		return (int) Math.max(0, Math.min(size, capacity()));
+	}
+}
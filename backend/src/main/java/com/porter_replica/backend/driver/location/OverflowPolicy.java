@@ -0,0 +1,9 @@
+package com.porter_replica.backend.driver.location;
+
+/** What a full ping buffer does with a new ping. */
+public enum OverflowPolicy {
+	/** Refuse it; the driver app gets 503 with Retry-After and backs off. */
+	REJECT,
+	/** Discard the oldest buffered ping: a newer position beats an older one. */
+	DROP_OLDEST
+}
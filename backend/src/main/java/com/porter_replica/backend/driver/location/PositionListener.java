@@ -0,0 +1,12 @@
+package com.porter_replica.backend.driver.location;
+
+/**
+ * Told about every position {@link DriverLocationPipeline} applies, on its
+ * drain thread: implementations must return quickly, never block and never
+ * throw. Heading and speed may be NaN.
+ */
+@FunctionalInterface
+public interface PositionListener {
+
+	void moved(long driverId, double lat, double lng, float heading, float speed, long recordedAtMillis);
+}
@@ -0,0 +1,95 @@
+package com.porter_replica.backend.driver.onboarding;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 4180 fields ({@code "a ""quoted"", field"}) on single lines; a quoted
+ * field cannot span lines.
+ */
+class CsvDriverRowReader extends LineDriverRowReader {
+
+	private int nameColumn = -1;
+	private int emailColumn = -1;
+	private int phoneColumn = -1;
+	private int passwordColumn = -1;
+	private int vehicleTypeColumn = -1;
+	private boolean headerRead;
+
+	CsvDriverRowReader(InputStream in, int maxLineLength) {
+		super(in, maxLineLength);
+	}
+
+	@Override
+	DriverRow parse(long lineNumber, String line) {
+		List<String> fields = split(line);
+		if (!headerRead) {
+			readHeader(fields);
+			return null;
+		}
+		if (fields == null) {
+			return DriverRow.malformed(lineNumber, "Unterminated quoted field");
+		}
+		return DriverRow.of(lineNumber,
+				field(fields, nameColumn), field(fields, emailColumn),
+				field(fields, phoneColumn), field(fields, passwordColumn), field(fields, vehicleTypeColumn));
+	}
+
+	private void readHeader(List<String> columns) {
+		if (columns == null) {
+			throw new IllegalArgumentException("CSV header has an unterminated quoted field");
+		}
+		for (int i = 0; i < columns.size(); i++) {
+			switch (columns.get(i).trim().toLowerCase(Locale.ROOT)) {
+				case "name" -> nameColumn = i;
+				case "email" -> emailColumn = i;
+				case "phone" -> phoneColumn = i;
+				case "password" -> passwordColumn = i;
+				case "vehicle_type" -> vehicleTypeColumn = i;
+				default -> { } // extra columns are ignored
+			}
+		}
+		if (nameColumn < 0 || passwordColumn < 0 || (emailColumn < 0 && phoneColumn < 0)) {
+			throw new IllegalArgumentException("CSV header must name the name, password and email and/or phone columns");
+		}
+		headerRead = true;
+	}
+
+	private static String field(List<String> fields, int column) {
+		return column >= 0 && column < fields.size() ? fields.get(column) : null;
+	}
+
+	// null when a quote is left open
+	static List<String> split(String line) {
+		List<String> fields = new ArrayList<>(4);
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		if (quoted) {
+			return null;
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+}
@@ -0,0 +1,73 @@
+package com.porter_replica.backend.driver.onboarding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.porter_replica.backend.common.ErrorCode;
+
+import jakarta.servlet.http.HttpServletRequest;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Bulk onboarding for fleet operators. The body is streamed straight from
+ * the request, never buffered. Callers authenticate with the
+ * {@code X-Import-Key} header; the endpoint is off while
+ * {@code driver-import.api-key} is blank.
+ */
+@RestController
+@RequestMapping("/api/drivers")
+public class DriverImportController {
+
+	static final String KEY_HEADER = "X-Import-Key";
+	static final String TEXT_CSV_VALUE = "text/csv";
+
+	private final DriverImportService importService;
+	private final ObjectMapper objectMapper;
+	private final byte[] apiKey;
+	private final int maxLineLength;
+
+	public DriverImportController(DriverImportService importService,
+			ObjectMapper objectMapper,
+			@Value("${driver-import.api-key:}") String apiKey,
+			@Value("${driver-import.max-line-length:8192}") int maxLineLength) {
+		this.importService = importService;
+		this.objectMapper = objectMapper;
+		this.apiKey = apiKey.getBytes(StandardCharsets.UTF_8);
+		this.maxLineLength = maxLineLength;
+	}
+
+	@PostMapping(value = "/import", consumes = { MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE })
+	public ResponseEntity<DriverImportResult> importDrivers(
+			@RequestHeader(value = KEY_HEADER, required = false) String key,
+			HttpServletRequest request) throws IOException {
+
+		if (!authorized(key)) {
+			throw ErrorCode.IMPORT_KEY_INVALID.exception();
+		}
+
+		InputStream body = request.getInputStream();
+		boolean csv = MediaType.parseMediaType(request.getContentType())
+				.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE));
+
+		try (DriverRowReader reader = csv
+				? DriverRowReader.csv(body, maxLineLength)
+				: DriverRowReader.ndjson(body, objectMapper, maxLineLength)) {
+			return ResponseEntity.ok(importService.importDrivers(reader));
+		}
+	}
+
+	private boolean authorized(String key) {
+		return apiKey.length > 0 && key != null
+				&& MessageDigest.isEqual(apiKey, key.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,13 @@
+package com.porter_replica.backend.driver.onboarding;
+
+import java.util.List;
+
+/**
+ * Outcome of one import. {@code errors} lists rejected rows by line, up to
+ * the configured limit; {@code errorsTruncated} says more were rejected.
+ */
+public record DriverImportResult(long imported, long rejected, List<RowError> errors, boolean errorsTruncated) {
+
+	public record RowError(long line, String reason) {
+	}
+}
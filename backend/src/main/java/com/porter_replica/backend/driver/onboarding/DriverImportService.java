@@ -0,0 +1,338 @@
+package com.porter_replica.backend.driver.onboarding;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.porter_replica.backend.common.ErrorCode;
+import com.porter_replica.backend.outbox.Outbox;
+import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.UserExistenceIndex;
+import com.porter_replica.backend.user.UserRegistered;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Imports drivers in batches of {@code batch-size} rows: validate, drop rows
+ * whose contact is taken (in the batch or in the database), hash the
+ * passwords in parallel, then insert the batch with one JDBC batch statement
+ * in its own transaction. Memory stays at one batch whatever the file size.
+ *
+ * Rows go straight through JDBC rather than JPA, so the inserts batch even
+ * though Hibernate cannot batch {@code GenerationType.IDENTITY} entities. The
+ * batch hands back the generated ids, and the same transaction appends a
+ * {@link UserRegistered} event per driver to the outbox with one more batch
+ * statement, as a registration through the API does.
+ */
+@Service
+public class DriverImportService implements DisposableBean {
+
+	static final String CONTACT_TAKEN = "Email or phone is already registered";
+
+	private static final String INSERT_SQL =
+			"insert into users (name, email, phone, password, role, vehicle_type, created_at) values (?, ?, ?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedJdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final PasswordEncoder passwordEncoder;
+	private final UserExistenceIndex existenceIndex;
+	private final Outbox outbox;
+	private final ExecutorService hashingPool;
+	// one import at a time: a second one would only compete for the same hashing threads
+	private final Semaphore running = new Semaphore(1);
+	private final int batchSize;
+	private final int maxReportedErrors;
+
+	private final Counter importedRows;
+	private final Counter rejectedRows;
+	private final Timer batchTimer;
+
+	public DriverImportService(JdbcTemplate jdbcTemplate,
+			TransactionTemplate transactionTemplate,
+			PasswordEncoder passwordEncoder,
+			UserExistenceIndex existenceIndex,
+			Outbox outbox,
+			MeterRegistry meterRegistry,
+			@Value("${driver-import.batch-size:500}") int batchSize,
+			@Value("${driver-import.hash-threads:0}") int hashThreads,
+			@Value("${driver-import.max-reported-errors:1000}") int maxReportedErrors) {
+
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		this.transactionTemplate = transactionTemplate;
+		this.passwordEncoder = passwordEncoder;
+		this.existenceIndex = existenceIndex;
+		this.outbox = outbox;
+		this.batchSize = batchSize;
+		this.maxReportedErrors = maxReportedErrors;
+
+		// half the cores by default, so logins still get CPU for their own hashes during an import
+		int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		AtomicInteger counter = new AtomicInteger();
+		this.hashingPool = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "driver-import-hash-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		this.importedRows = Counter.builder("driver.import.rows")
+				.tag("result", "imported")
+				.register(meterRegistry);
+		this.rejectedRows = Counter.builder("driver.import.rows")
+				.tag("result", "rejected")
+				.register(meterRegistry);
+		this.batchTimer = Timer.builder("driver.import.batch")
+				.register(meterRegistry);
+	}
+
+	public DriverImportResult importDrivers(DriverRowReader reader) throws IOException {
+		if (!running.tryAcquire()) {
+			throw ErrorCode.SERVER_BUSY.exception();
+		}
+		try {
+			Progress progress = new Progress(maxReportedErrors);
+			List<DriverRow> batch = new ArrayList<>(batchSize);
+
+			for (DriverRow row = reader.next(); row != null; row = reader.next()) {
+				String problem = validate(row);
+				if (problem != null) {
+					progress.reject(row.line(), problem);
+					continue;
+				}
+				batch.add(row);
+				if (batch.size() == batchSize) {
+					writeBatch(batch, progress);
+					batch.clear();
+				}
+			}
+			if (!batch.isEmpty()) {
+				writeBatch(batch, progress);
+			}
+			return progress.result();
+		} finally {
+			running.release();
+		}
+	}
+
+	// same rules as /api/auth/register
+	private static String validate(DriverRow row) {
+		if (row.parseError() != null) {
+			return row.parseError();
+		}
+		if (row.name() == null) {
+			return "Name is required";
+		}
+		if (row.email() == null && row.phone() == null) {
+			return ErrorCode.CONTACT_REQUIRED.message();
+		}
+		if (row.password() == null || row.password().isBlank()) {
+			return "Password is required";
+		}
+		return null;
+	}
+
+	private void writeBatch(List<DriverRow> batch, Progress progress) {
+		long start = System.nanoTime();
+
+		List<DriverRow> fresh = withoutTakenContacts(batch, progress);
+		if (fresh.isEmpty()) {
+			return;
+		}
+		String[] hashes = hashAll(fresh);
+		Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+
+		try {
+			transactionTemplate.executeWithoutResult(status -> insert(fresh, hashes, createdAt));
+			fresh.forEach(row -> existenceIndex.add(row.email(), row.phone()));
+			progress.imported(fresh.size());
+		} catch (DataIntegrityViolationException e) {
+			// someone registered one of these contacts after the check; find out which row, one at a time
+			for (int i = 0; i < fresh.size(); i++) {
+				DriverRow row = fresh.get(i);
+				List<DriverRow> single = List.of(row);
+				String[] hash = { hashes[i] };
+				try {
+					transactionTemplate.executeWithoutResult(status -> insert(single, hash, createdAt));
+					progress.imported(1);
+				} catch (DataIntegrityViolationException duplicate) {
+					progress.reject(row.line(), CONTACT_TAKEN);
+				}
+				existenceIndex.add(row.email(), row.phone());
+			}
+		}
+		batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Drops rows that repeat a contact earlier in the batch or one already in
+	 * the database. Earlier batches are committed by now, so this also catches
+	 * repeats across the whole file. Only contacts the existence index cannot
+	 * rule out are looked up, with one query per column.
+	 */
+	private List<DriverRow> withoutTakenContacts(List<DriverRow> batch, Progress progress) {
+		Set<String> emails = new HashSet<>();
+		Set<String> phones = new HashSet<>();
+		List<String> emailsToCheck = new ArrayList<>();
+		List<String> phonesToCheck = new ArrayList<>();
+		List<DriverRow> unique = new ArrayList<>(batch.size());
+
+		for (DriverRow row : batch) {
+			// non-short-circuit so both contacts are remembered
+			boolean repeated = (row.email() != null && !emails.add(row.email()))
+					| (row.phone() != null && !phones.add(row.phone()));
+			if (repeated) {
+				progress.reject(row.line(), CONTACT_TAKEN);
+				continue;
+			}
+			unique.add(row);
+			if (row.email() != null && existenceIndex.mightContainEmail(row.email())) {
+				emailsToCheck.add(row.email());
+			}
+			if (row.phone() != null && existenceIndex.mightContainPhone(row.phone())) {
+				phonesToCheck.add(row.phone());
+			}
+		}
+
+		Set<String> takenEmails = existing("email", emailsToCheck);
+		Set<String> takenPhones = existing("phone", phonesToCheck);
+		if (takenEmails.isEmpty() && takenPhones.isEmpty()) {
+			return unique;
+		}
+
+		List<DriverRow> fresh = new ArrayList<>(unique.size());
+		for (DriverRow row : unique) {
+			if (takenEmails.contains(row.email()) || takenPhones.contains(row.phone())) {
+				progress.reject(row.line(), CONTACT_TAKEN);
+			} else {
+				fresh.add(row);
+			}
+		}
+		return fresh;
+	}
+
+	private Set<String> existing(String column, List<String> values) {
+		if (values.isEmpty()) {
+			return Set.of();
+		}
+		return new HashSet<>(namedJdbcTemplate.queryForList(
+				"select " + column + " from users where " + column + " in (:values)",
+				Map.of("values", values), String.class));
+	}
+
+	private String[] hashAll(List<DriverRow> rows) {
+		List<Callable<String>> tasks = new ArrayList<>(rows.size());
+		for (DriverRow row : rows) {
+			tasks.add(() -> passwordEncoder.encode(row.password()));
+		}
+
+		String[] hashes = new String[rows.size()];
+		try {
+			List<Future<String>> futures = hashingPool.invokeAll(tasks);
+			for (int i = 0; i < hashes.length; i++) {
+				hashes[i] = futures.get(i).get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while hashing imported passwords", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Password hashing failed", e.getCause());
+		}
+		return hashes;
+	}
+
+	private void insert(List<DriverRow> rows, String[] hashes, Timestamp createdAt) {
+		GeneratedKeyHolder keys = new GeneratedKeyHolder();
+		jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[] { "id" }),
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						DriverRow row = rows.get(i);
+						ps.setString(1, row.name());
+						ps.setString(2, row.email());
+						ps.setString(3, row.phone());
+						ps.setString(4, hashes[i]);
+						ps.setString(5, Role.DRIVER.name());
+						ps.setString(6, row.vehicleType() == null ? null : row.vehicleType().name());
+						ps.setTimestamp(7, createdAt);
+					}
+
+					@Override
+					public int getBatchSize() {
+						return rows.size();
+					}
+				}, keys);
+
+		List<Map<String, Object>> generated = keys.getKeyList();
+		long[] ids = new long[rows.size()];
+		UserRegistered[] events = new UserRegistered[rows.size()];
+		for (int i = 0; i < ids.length; i++) {
+			// only the id column was asked for, whatever case the driver names it in
+			ids[i] = ((Number) generated.get(i).values().iterator().next()).longValue();
+			events[i] = new UserRegistered(ids[i], Role.DRIVER, rows.get(i).vehicleType());
+		}
+		outbox.appendAll(UserRegistered.TYPE, ids, events);
+	}
+
+	@Override
+	public void destroy() {
+		hashingPool.shutdownNow();
+	}
+
+	private final class Progress {
+
+		private final int maxErrors;
+		private final List<DriverImportResult.RowError> errors = new ArrayList<>();
+		private long imported;
+		private long rejected;
+
+		Progress(int maxErrors) {
+			this.maxErrors = maxErrors;
+		}
+
+		void imported(int rows) {
+			imported += rows;
+			importedRows.increment(rows);
+		}
+
+		void reject(long line, String reason) {
+			rejected++;
+			rejectedRows.increment();
+			if (errors.size() < maxErrors) {
+				errors.add(new DriverImportResult.RowError(line, reason));
+			}
+		}
+
+		DriverImportResult result() {
+			return new DriverImportResult(imported, rejected, errors, rejected > errors.size());
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.porter_replica.backend.driver.onboarding;
+
+import java.util.Locale;
+
+import com.porter_replica.backend.user.VehicleType;
+
+/**
+ * One driver read from an import file. {@code line} is the 1-based line in
+ * the file; a row that could not be parsed carries only its {@code parseError}.
+ */
+public record DriverRow(long line, String name, String email, String phone, String password,
+		VehicleType vehicleType, String parseError) {
+
+	static DriverRow of(long line, String name, String email, String phone, String password, String vehicleType) {
+		String type = trimToNull(vehicleType);
+		VehicleType parsed = null;
+		if (type != null) {
+			try {
+				parsed = VehicleType.valueOf(type.toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				return malformed(line, "Unknown vehicle type " + type);
+			}
+		}
+		return new DriverRow(line, trimToNull(name), trimToNull(email), trimToNull(phone), password, parsed, null);
+	}
+
+	static DriverRow malformed(long line, String parseError) {
+		return new DriverRow(line, null, null, null, null, null, parseError);
+	}
+
+	private static String trimToNull(String value) {
+		if (value == null) {
+			return null;
+		}
+		String trimmed = value.trim();
+		return trimmed.isEmpty() ? null : trimmed;
+	}
+}
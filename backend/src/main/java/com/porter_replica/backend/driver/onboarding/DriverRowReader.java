@@ -0,0 +1,27 @@
+package com.porter_replica.backend.driver.onboarding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Pulls one row at a time from an import file, so only the current line is
+ * ever held in memory.
+ */
+public interface DriverRowReader extends Closeable {
+
+	/** The next row, or null at the end of the file. Blank lines are skipped. */
+	DriverRow next() throws IOException;
+
+	/** One JSON object per line: {@code {"name":..,"email":..,"phone":..,"password":..}}. */
+	static DriverRowReader ndjson(InputStream in, ObjectMapper objectMapper, int maxLineLength) {
+		return new NdjsonDriverRowReader(in, objectMapper, maxLineLength);
+	}
+
+	/** A header line naming the columns (name, email, phone, password, in any order), then one row per line. */
+	static DriverRowReader csv(InputStream in, int maxLineLength) {
+		return new CsvDriverRowReader(in, maxLineLength);
+	}
+}
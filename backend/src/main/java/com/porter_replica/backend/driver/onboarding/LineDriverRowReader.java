@@ -0,0 +1,83 @@
+package com.porter_replica.backend.driver.onboarding;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits the input into lines of at most {@code maxLineLength} characters;
+ * a longer line is skipped and reported instead of being buffered whole.
+ */
+abstract class LineDriverRowReader implements DriverRowReader {
+
+	private static final int EOF = -1;
+	private static final int OK = 0;
+	private static final int TOO_LONG = 1;
+
+	private final BufferedReader reader;
+	private final int maxLineLength;
+	private final StringBuilder line;
+	private long lineNumber;
+
+	LineDriverRowReader(InputStream in, int maxLineLength) {
+		this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		this.maxLineLength = maxLineLength;
+		this.line = new StringBuilder(Math.min(maxLineLength, 256));
+	}
+
+	@Override
+	public DriverRow next() throws IOException {
+		while (true) {
+			int status = readLine();
+			if (status == EOF) {
+				return null;
+			}
+			lineNumber++;
+			if (status == TOO_LONG) {
+				return DriverRow.malformed(lineNumber, "Line is longer than " + maxLineLength + " characters");
+			}
+			if (line.toString().isBlank()) {
+				continue;
+			}
+			DriverRow row = parse(lineNumber, line.toString());
+			if (row != null) {
+				return row;
+			}
+		}
+	}
+
+	/** The row on this line, or null when the line holds no row (e.g. a header). */
+	abstract DriverRow parse(long lineNumber, String line);
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private int readLine() throws IOException {
+		line.setLength(0);
+		boolean tooLong = false;
+		int c = reader.read();
+		if (c < 0) {
+			return EOF;
+		}
+		for (; c >= 0 && c != '\n'; c = reader.read()) {
+			if (tooLong) {
+				continue;
+			}
+			if (line.length() == maxLineLength) {
+				tooLong = true;
+				line.setLength(0);
+				continue;
+			}
+			line.append((char) c);
+		}
+		int end = line.length();
+		if (end > 0 && line.charAt(end - 1) == '\r') {
+			line.setLength(end - 1);
+		}
+		return tooLong ? TOO_LONG : OK;
+	}
+}
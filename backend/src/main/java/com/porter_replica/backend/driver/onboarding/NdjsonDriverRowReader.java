@@ -0,0 +1,39 @@
+package com.porter_replica.backend.driver.onboarding;
+
+import java.io.InputStream;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+// each line is parsed on its own, so one broken line is reported and the rest still import
+class NdjsonDriverRowReader extends LineDriverRowReader {
+
+	private final ObjectMapper objectMapper;
+
+	NdjsonDriverRowReader(InputStream in, ObjectMapper objectMapper, int maxLineLength) {
+		super(in, maxLineLength);
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	DriverRow parse(long lineNumber, String line) {
+		JsonNode node;
+		try {
+			node = objectMapper.readTree(line);
+		} catch (JacksonException e) {
+			return DriverRow.malformed(lineNumber, "Invalid JSON");
+		}
+		if (!node.isObject()) {
+			return DriverRow.malformed(lineNumber, "Expected a JSON object");
+		}
+		return DriverRow.of(lineNumber,
+				text(node, "name"), text(node, "email"), text(node, "phone"), text(node, "password"),
+				text(node, "vehicleType"));
+	}
+
+	private static String text(JsonNode node, String field) {
+		JsonNode value = node.get(field);
+		return value != null && value.isString() ? value.stringValue() : null;
+	}
+}
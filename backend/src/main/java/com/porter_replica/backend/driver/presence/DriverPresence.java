@@ -0,0 +1,481 @@
+package com.porter_replica.backend.driver.presence;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.porter_replica.backend.driver.location.DriverLocationPipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Which drivers are online, from their location pings used as heartbeats.
+ * A driver goes online with its first heartbeat and offline after
+ * {@code timeout-seconds} without one; both changes are published as
+ * {@link DriverPresenceChanged}.
+ *
+ * Expiry runs on a hierarchical timing wheel (four levels of 64 slots of
+ * {@code tick-millis}), so nothing ever scans the fleet: each tick touches
+ * only the drivers due in its slot, and a far deadline waits in a coarse
+ * slot until it cascades down. A heartbeat from an online driver only
+ * overwrites its last-seen tick and leaves its wheel entry where it is; the
+ * entry is rescheduled from the last-seen tick when its slot comes up, so
+ * a steady heartbeat costs one hash lookup and an array write.
+ *
+ * State lives in parallel primitive arrays indexed by a slot per driver
+ * (id, last seen, wheel link, city and position in the city's member array).
+ * Drivers are found by id through an open-addressing table holding only
+ * slot numbers, the ids being read from the slots, which is what keeps the
+ * total under 40 bytes a driver (see {@link #memoryBytes}). Everything is
+ * guarded by this object's monitor.
+ */
+@Component
+@EnableConfigurationProperties(PresenceCities.class)
+public class DriverPresence implements DisposableBean {
+
+	private static final double EARTH_RADIUS_KM = 6371.0088;
+	private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+	private static final int LEVELS = 4;
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final byte NO_CITY = -1;
+	private static final int NONE = -1;
+
+	private final long tickMillis;
+	private final int timeoutTicks;
+	// ticks are counted from here, so they fit in an int
+	private final long baseTick;
+	private final ApplicationEventPublisher events;
+
+	private final String[] cityNames;
+	private final double[] cityLat;
+	private final double[] cityLng;
+	private final double[] cityCosLat;
+	private final double[] cityRadiusKm;
+
+	// per slot
+	private long[] ids;
+	private int[] lastSeen;
+	// next entry in the same wheel slot, or in the free list
+	private int[] next;
+	private byte[] city;
+	private int[] cityPosition;
+	private int used;
+	private int free = NONE;
+	// open addressing over slot numbers, NONE when empty; at most three quarters full
+	private int[] table;
+	private int tableMask;
+	private int online;
+
+	private final int[][] wheel = new int[LEVELS][SLOTS];
+	private int currentTick;
+
+	private final int[][] members;
+	private final int[] memberCount;
+
+	// heartbeats that brought a driver online, published on the next tick
+	private long[] cameOnline = new long[64];
+	private int cameOnlineCount;
+
+	private final Counter wentOnlineCount;
+	private final Counter wentOfflineCount;
+	private ScheduledExecutorService scheduler;
+
+	@Autowired
+	public DriverPresence(DriverLocationPipeline locationPipeline,
+			PresenceCities cities,
+			ApplicationEventPublisher events,
+			MeterRegistry meterRegistry,
+			@Value("${presence.timeout-seconds:30}") long timeoutSeconds,
+			@Value("${presence.tick-millis:1000}") long tickMillis,
+			@Value("${presence.expected-drivers:100000}") int expectedDrivers) {
+
+		this(cities.cities() == null ? Map.of() : cities.cities(), timeoutSeconds, tickMillis, expectedDrivers,
+				System.currentTimeMillis(), events, meterRegistry);
+		locationPipeline.addListener((driverId, lat, lng, heading, speed, recordedAtMillis) ->
+				heartbeat(driverId, lat, lng, System.currentTimeMillis()));
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "driver-presence");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleAtFixedRate(() -> advance(System.currentTimeMillis()), tickMillis, tickMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	public DriverPresence(Map<String, PresenceCities.Area> cities, long timeoutSeconds, long tickMillis,
+			int expectedDrivers, long startMillis, ApplicationEventPublisher events, MeterRegistry meterRegistry) {
+		if (tickMillis <= 0 || TimeUnit.SECONDS.toMillis(timeoutSeconds) < tickMillis) {
+			throw new IllegalArgumentException("presence.timeout-seconds must be at least presence.tick-millis > 0");
+		}
+		if (cities.size() > Byte.MAX_VALUE) {
+			throw new IllegalArgumentException("presence.cities holds at most " + Byte.MAX_VALUE + " cities");
+		}
+		this.tickMillis = tickMillis;
+		this.timeoutTicks = (int) Math.min(Integer.MAX_VALUE, TimeUnit.SECONDS.toMillis(timeoutSeconds) / tickMillis);
+		if (timeoutTicks >= 1 << (SLOT_BITS * LEVELS)) {
+			throw new IllegalArgumentException("presence.timeout-seconds is beyond the timing wheel");
+		}
+		this.baseTick = startMillis / tickMillis;
+		this.events = events;
+
+		int count = cities.size();
+		this.cityNames = new String[count];
+		this.cityLat = new double[count];
+		this.cityLng = new double[count];
+		this.cityCosLat = new double[count];
+		this.cityRadiusKm = new double[count];
+		int index = 0;
+		for (Map.Entry<String, PresenceCities.Area> entry : cities.entrySet()) {
+			PresenceCities.Area area = entry.getValue();
+			cityNames[index] = entry.getKey();
+			cityLat[index] = area.lat();
+			cityLng[index] = area.lng();
+			cityCosLat[index] = Math.cos(Math.toRadians(area.lat()));
+			cityRadiusKm[index] = area.radiusKm();
+			index++;
+		}
+		this.members = new int[count][16];
+		this.memberCount = new int[count];
+
+		int capacity = Math.max(16, expectedDrivers);
+		this.ids = new long[capacity];
+		this.lastSeen = new int[capacity];
+		this.next = new int[capacity];
+		this.city = new byte[capacity];
+		this.cityPosition = new int[capacity];
+		allocateTable(Integer.highestOneBit(Math.max(16, capacity + capacity / 3 - 1)) << 1);
+		for (int[] level : wheel) {
+			Arrays.fill(level, NONE);
+		}
+
+		this.wentOnlineCount = Counter.builder("driver.presence.transitions")
+				.tag("to", "online")
+				.register(meterRegistry);
+		this.wentOfflineCount = Counter.builder("driver.presence.transitions")
+				.tag("to", "offline")
+				.register(meterRegistry);
+		Gauge.builder("driver.presence.online", this, DriverPresence::onlineCount)
+				.register(meterRegistry);
+		Gauge.builder("driver.presence.memory", this, DriverPresence::memoryBytes)
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+
+	/** Records a heartbeat; the driver comes online if it was not. */
+	public void heartbeat(long driverId, double lat, double lng, long nowMillis) {
+		int tick = (int) (nowMillis / tickMillis - baseTick);
+		byte cityIndex = cityAt(lat, lng);
+		synchronized (this) {
+			int slot = find(driverId);
+			if (slot != NONE) {
+				if (tick > lastSeen[slot]) {
+					lastSeen[slot] = tick;
+				}
+				if (city[slot] != cityIndex) {
+					leaveCity(slot);
+					joinCity(slot, cityIndex);
+				}
+				return;
+			}
+			slot = allocate();
+			ids[slot] = driverId;
+			lastSeen[slot] = tick;
+			joinCity(slot, cityIndex);
+			insert(slot);
+			// never into a slot the wheel has already passed
+			schedule(slot, Math.max(tick + timeoutTicks, currentTick + 1));
+			if (cameOnlineCount == cameOnline.length) {
+				cameOnline = Arrays.copyOf(cameOnline, cameOnlineCount * 2);
+			}
+			cameOnline[cameOnlineCount++] = driverId;
+		}
+	}
+
+	public synchronized boolean isOnline(long driverId) {
+		return find(driverId) != NONE;
+	}
+
+	public synchronized int onlineCount() {
+		return online;
+	}
+
+	/** Ids of the drivers online in {@code cityName}, in no particular order. */
+	public long[] onlineIn(String cityName) {
+		int index = cityIndex(cityName);
+		synchronized (this) {
+			int count = memberCount[index];
+			int[] slots = members[index];
+			long[] result = new long[count];
+			for (int i = 0; i < count; i++) {
+				result[i] = ids[slots[i]];
+			}
+			return result;
+		}
+	}
+
+	public int onlineCountIn(String cityName) {
+		int index = cityIndex(cityName);
+		synchronized (this) {
+			return memberCount[index];
+		}
+	}
+
+	/** Bytes held by the presence tables, counting spare capacity; divide by {@link #onlineCount} for a per-driver figure. */
+	public synchronized long memoryBytes() {
+		long bytes = (long) ids.length * (Long.BYTES + Integer.BYTES + Integer.BYTES + Byte.BYTES + Integer.BYTES);
+		bytes += (long) table.length * Integer.BYTES;
+		for (int[] cityMembers : members) {
+			bytes += (long) cityMembers.length * Integer.BYTES;
+		}
+		return bytes + (long) LEVELS * SLOTS * Integer.BYTES;
+	}
+
+	/**
+	 * Runs every tick up to {@code nowMillis}, expiring the drivers whose
+	 * timeout has passed, then publishes the changes since the last call.
+	 */
+	public void advance(long nowMillis) {
+		int target = (int) (nowMillis / tickMillis - baseTick);
+		long[] wentOnline;
+		long[] expired;
+		int expiredCount = 0;
+		synchronized (this) {
+			wentOnline = Arrays.copyOf(cameOnline, cameOnlineCount);
+			cameOnlineCount = 0;
+			expired = new long[8];
+			while (currentTick < target) {
+				currentTick++;
+				for (int level = LEVELS - 1; level > 0; level--) {
+					int shift = SLOT_BITS * level;
+					if ((currentTick & ((1 << shift) - 1)) == 0) {
+						cascade(level, (currentTick >>> shift) & SLOT_MASK);
+					}
+				}
+				int slot = take(0, currentTick & SLOT_MASK);
+				while (slot != NONE) {
+					int following = next[slot];
+					int deadline = lastSeen[slot] + timeoutTicks;
+					if (deadline > currentTick) {
+						schedule(slot, deadline);
+					} else {
+						if (expiredCount + 3 > expired.length) {
+							expired = Arrays.copyOf(expired, expired.length * 2);
+						}
+						// id, city, last seen: enough to publish after the slot is reused
+						expired[expiredCount++] = ids[slot];
+						expired[expiredCount++] = city[slot];
+						expired[expiredCount++] = lastSeen[slot];
+						release(slot);
+					}
+					slot = following;
+				}
+			}
+		}
+
+		for (long driverId : wentOnline) {
+			String cityName;
+			long lastSeenMillis;
+			synchronized (this) {
+				int slot = find(driverId);
+				if (slot == NONE) {
+					// went offline again before this tick
+					continue;
+				}
+				cityName = cityName(city[slot]);
+				lastSeenMillis = lastSeenMillis(lastSeen[slot]);
+			}
+			wentOnlineCount.increment();
+			events.publishEvent(new DriverPresenceChanged(driverId, true, cityName, lastSeenMillis));
+		}
+		for (int i = 0; i < expiredCount; i += 3) {
+			wentOfflineCount.increment();
+			events.publishEvent(new DriverPresenceChanged(expired[i], false, cityName((byte) expired[i + 1]),
+					lastSeenMillis((int) expired[i + 2])));
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	// a deadline of currentTick is only valid before the tick's own slot has run
+	private void schedule(int slot, int deadline) {
+		int delta = Math.max(0, deadline - currentTick);
+		int at = currentTick + delta;
+		int level = 0;
+		while (level < LEVELS - 1 && delta >= 1 << (SLOT_BITS * (level + 1))) {
+			level++;
+		}
+		int index = (at >>> (SLOT_BITS * level)) & SLOT_MASK;
+		next[slot] = wheel[level][index];
+		wheel[level][index] = slot;
+	}
+
+	private void cascade(int level, int index) {
+		int slot = take(level, index);
+		while (slot != NONE) {
+			int following = next[slot];
+			schedule(slot, lastSeen[slot] + timeoutTicks);
+			slot = following;
+		}
+	}
+
+	private int take(int level, int index) {
+		int head = wheel[level][index];
+		wheel[level][index] = NONE;
+		return head;
+	}
+
+	private int allocate() {
+		if (free != NONE) {
+			int slot = free;
+			free = next[slot];
+			return slot;
+		}
+		if (used == ids.length) {
+			int capacity = used + (used >> 1);
+			ids = Arrays.copyOf(ids, capacity);
+			lastSeen = Arrays.copyOf(lastSeen, capacity);
+			next = Arrays.copyOf(next, capacity);
+			city = Arrays.copyOf(city, capacity);
+			cityPosition = Arrays.copyOf(cityPosition, capacity);
+		}
+		return used++;
+	}
+
+	private void release(int slot) {
+		leaveCity(slot);
+		delete(slot);
+		next[slot] = free;
+		free = slot;
+	}
+
+	private int find(long driverId) {
+		for (int i = hash(driverId);; i = (i + 1) & tableMask) {
+			int slot = table[i];
+			if (slot == NONE || ids[slot] == driverId) {
+				return slot;
+			}
+		}
+	}
+
+	private void insert(int slot) {
+		if ((online + 1) * 4 > table.length * 3) {
+			int[] old = table;
+			allocateTable(old.length * 2);
+			for (int existing : old) {
+				if (existing != NONE) {
+					place(existing);
+				}
+			}
+		}
+		place(slot);
+		online++;
+	}
+
+	private void place(int slot) {
+		int i = hash(ids[slot]);
+		while (table[i] != NONE) {
+			i = (i + 1) & tableMask;
+		}
+		table[i] = slot;
+	}
+
+	// backward-shift deletion, so the table never fills with tombstones
+	private void delete(int slot) {
+		int hole = hash(ids[slot]);
+		while (table[hole] != slot) {
+			hole = (hole + 1) & tableMask;
+		}
+		for (int i = (hole + 1) & tableMask; table[i] != NONE; i = (i + 1) & tableMask) {
+			int home = hash(ids[table[i]]);
+			if (((i - home) & tableMask) >= ((i - hole) & tableMask)) {
+				table[hole] = table[i];
+				hole = i;
+			}
+		}
+		table[hole] = NONE;
+		online--;
+	}
+
+	private void allocateTable(int capacity) {
+		table = new int[capacity];
+		Arrays.fill(table, NONE);
+		tableMask = capacity - 1;
+	}
+
+	private int hash(long driverId) {
+		long h = driverId * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & tableMask;
+	}
+
+	private void joinCity(int slot, byte index) {
+		city[slot] = index;
+		if (index == NO_CITY) {
+			return;
+		}
+		int count = memberCount[index];
+		if (count == members[index].length) {
+			members[index] = Arrays.copyOf(members[index], count * 2);
+		}
+		members[index][count] = slot;
+		cityPosition[slot] = count;
+		memberCount[index] = count + 1;
+	}
+
+	private void leaveCity(int slot) {
+		byte index = city[slot];
+		if (index == NO_CITY) {
+			return;
+		}
+		int last = members[index][--memberCount[index]];
+		members[index][cityPosition[slot]] = last;
+		cityPosition[last] = cityPosition[slot];
+		city[slot] = NO_CITY;
+	}
+
+	private byte cityAt(double lat, double lng) {
+		for (int i = 0; i < cityNames.length; i++) {
+			double dLat = (lat - cityLat[i]) * KM_PER_DEGREE;
+			double dLng = (lng - cityLng[i]) * KM_PER_DEGREE * cityCosLat[i];
+			if (dLat * dLat + dLng * dLng <= cityRadiusKm[i] * cityRadiusKm[i]) {
+				return (byte) i;
+			}
+		}
+		return NO_CITY;
+	}
+
+	private int cityIndex(String cityName) {
+		for (int i = 0; i < cityNames.length; i++) {
+			if (cityNames[i].equals(cityName)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("unknown city: " + cityName);
+	}
+
+	private String cityName(byte index) {
+		return index == NO_CITY ? null : cityNames[index];
+	}
+
+	// the end of the tick, so it is never earlier than the heartbeat itself
+	private long lastSeenMillis(int tick) {
+		return (baseTick + tick + 1) * tickMillis - 1;
+	}
+}
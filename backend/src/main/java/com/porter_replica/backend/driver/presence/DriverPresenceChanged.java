@@ -0,0 +1,10 @@
+package com.porter_replica.backend.driver.presence;
+
+/**
+ * A driver came online (first heartbeat after being unknown or offline) or
+ * went offline (silent for {@code presence.timeout-seconds}). {@code city} is
+ * null outside every configured city. Published on the presence tick thread,
+ * at most one tick after the change.
+ */
+public record DriverPresenceChanged(long driverId, boolean online, String city, long lastSeenMillis) {
+}
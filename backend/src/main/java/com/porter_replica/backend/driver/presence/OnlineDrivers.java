@@ -0,0 +1,4 @@
+package com.porter_replica.backend.driver.presence;
+
+public record OnlineDrivers(String city, int count, long[] driverIds) {
+}
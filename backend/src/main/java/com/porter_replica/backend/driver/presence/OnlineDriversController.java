@@ -0,0 +1,23 @@
+package com.porter_replica.backend.driver.presence;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/drivers")
+public class OnlineDriversController {
+
+	private final DriverPresence presence;
+
+	public OnlineDriversController(DriverPresence presence) {
+		this.presence = presence;
+	}
+
+	@GetMapping("/online")
+	public OnlineDrivers online(@RequestParam String city) {
+		long[] driverIds = presence.onlineIn(city);
+		return new OnlineDrivers(city, driverIds.length, driverIds);
+	}
+}
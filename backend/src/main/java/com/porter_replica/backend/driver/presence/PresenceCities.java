@@ -0,0 +1,13 @@
+package com.porter_replica.backend.driver.presence;
+
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** The areas {@link DriverPresence} counts online drivers in: a centre and a radius per city name. */
+@ConfigurationProperties("presence")
+public record PresenceCities(Map<String, Area> cities) {
+
+	public record Area(double lat, double lng, double radiusKm) {
+	}
+}
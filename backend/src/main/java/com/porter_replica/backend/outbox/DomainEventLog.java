@@ -0,0 +1,32 @@
+package com.porter_replica.backend.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stand-in for a message broker until one is deployed: writes every event of
+ * {@code outbox.event-log.types} as one line to the {@code domain-events}
+ * logger, which log shipping can route to analytics. Without it those events
+ * would wait in the outbox for a handler.
+ */
+@Component
+public class DomainEventLog implements OutboxHandler {
+
+	private static final Logger events = LoggerFactory.getLogger("domain-events");
+
+	public DomainEventLog(OutboxPublisher publisher,
+			@Value("${outbox.event-log.types:}") String types) {
+		for (String type : types.split(",")) {
+			if (!type.isBlank()) {
+				publisher.subscribe(type.trim(), this);
+			}
+		}
+	}
+
+	@Override
+	public void handle(OutboxMessage message) {
+		events.info("{} {} {}", message.type(), message.aggregateId(), message.payload());
+	}
+}
@@ -0,0 +1,53 @@
+package com.porter_replica.backend.outbox;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Records domain events in the outbox table as part of the caller's
+ * transaction, so an event exists exactly when the change it describes
+ * committed. {@link OutboxPublisher} delivers them afterwards.
+ */
+@Component
+public class Outbox {
+
+	private static final String INSERT_SQL = "insert into outbox_events (type, aggregate_id, payload, attempts, "
+			+ "created_at, next_attempt_at) values (?, ?, ?, 0, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectMapper objectMapper;
+
+	public Outbox(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.objectMapper = objectMapper;
+	}
+
+	/** Appends {@code payload}, as JSON; fails outside a transaction. */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void append(String type, long aggregateId, Object payload) {
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		jdbcTemplate.update(INSERT_SQL, type, aggregateId, objectMapper.writeValueAsString(payload), now, now);
+	}
+
+	/** Appends one event per {@code aggregateIds[i]} and {@code payloads[i]} with one batch statement. */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void appendAll(String type, long[] aggregateIds, Object[] payloads) {
+		if (aggregateIds.length != payloads.length) {
+			throw new IllegalArgumentException("one payload per aggregate id");
+		}
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		List<Object[]> args = new ArrayList<>(payloads.length);
+		for (int i = 0; i < payloads.length; i++) {
+			args.add(new Object[] { type, aggregateIds[i], objectMapper.writeValueAsString(payloads[i]), now, now });
+		}
+		jdbcTemplate.batchUpdate(INSERT_SQL, args);
+	}
+}
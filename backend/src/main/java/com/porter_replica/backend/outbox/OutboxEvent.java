@@ -0,0 +1,71 @@
+package com.porter_replica.backend.outbox;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A row of the outbox table. Only mapped so the schema is declared (and
+ * validated) with the others: {@link Outbox} and {@link OutboxPublisher}
+ * read and write it with plain JDBC.
+ */
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false, length = 64)
+	private String type;
+
+	@Column(name = "aggregate_id", nullable = false)
+	private long aggregateId;
+
+	@Column(nullable = false, length = 4000)
+	private String payload;
+
+	@Column(nullable = false)
+	private int attempts;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	// not claimed before this; pushed back on every failed delivery
+	@Column(name = "next_attempt_at", nullable = false)
+	private LocalDateTime nextAttemptAt;
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public long getAggregateId() {
+		return aggregateId;
+	}
+
+	public String getPayload() {
+		return payload;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public LocalDateTime getNextAttemptAt() {
+		return nextAttemptAt;
+	}
+}
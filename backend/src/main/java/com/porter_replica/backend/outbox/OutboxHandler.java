@@ -0,0 +1,13 @@
+package com.porter_replica.backend.outbox;
+
+/**
+ * Downstream work for one type of outbox event, run on a publisher thread
+ * while the event's row is locked. Delivery is at least once: a handler that
+ * throws sees the event again on a later poll, and so do the other handlers
+ * of the same type, so handlers must be idempotent.
+ */
+@FunctionalInterface
+public interface OutboxHandler {
+
+	void handle(OutboxMessage message) throws Exception;
+}
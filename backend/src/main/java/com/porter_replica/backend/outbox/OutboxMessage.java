@@ -0,0 +1,6 @@
+package com.porter_replica.backend.outbox;
+
+/** An outbox row as handed to an {@link OutboxHandler}; {@code payload} is JSON. */
+public record OutboxMessage(long id, String type, long aggregateId, String payload, long createdAtMillis,
+		int attempts) {
+}
@@ -0,0 +1,229 @@
+package com.porter_replica.backend.outbox;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Delivers outbox events to the handlers {@link #subscribe subscribed} to
+ * their type, oldest first but not strictly in order: an event that is
+ * backing off is overtaken by later ones, later events of the same
+ * aggregate included, and several publishers run their batches side by
+ * side, so handlers must not depend on the order. A node only claims the
+ * types it has handlers for, so events wait in the table for a node that
+ * handles them (during a rolling deploy, say) rather than being lost.
+ * Each of {@code publishers} threads polls every
+ * {@code poll-interval-millis}: in one transaction it claims up to
+ * {@code batch-size} rows with {@code FOR UPDATE SKIP LOCKED}, so threads and
+ * nodes never wait on each other's rows, runs the handlers and deletes the
+ * delivered rows in one statement. A full batch is followed at once by the
+ * next.
+ *
+ * An event whose handler throws stays in the table with its attempts counted
+ * and is not claimed again before its {@code next_attempt_at}, which backs off
+ * exponentially from {@code retry.initial-backoff-millis} up to
+ * {@code retry.max-backoff-millis}. Only claims count as attempts, so an outage
+ * costs a few attempts rather than one per poll; after {@code max-attempts}
+ * failed deliveries the event is logged and dropped.
+ *
+ * Metrics: {@code outbox.events{result}} (delivered, retried, dropped) for
+ * throughput, {@code outbox.lag} from commit to delivery, and
+ * {@code outbox.batch.size}.
+ */
+@Component
+public class OutboxPublisher implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(OutboxPublisher.class);
+
+	private static final String CLAIM_SQL = "select id, type, aggregate_id, payload, created_at, attempts "
+			+ "from outbox_events where type in (%s) and next_attempt_at <= ? order by id limit ? "
+			+ "for update skip locked";
+	private static final String RETRY_SQL = "update outbox_events set attempts = ?, next_attempt_at = ? where id = ?";
+	private static final OutboxHandler[] NONE = new OutboxHandler[0];
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+	private final int maxAttempts;
+	private final long initialBackoffMillis;
+	private final long maxBackoffMillis;
+	private final Map<String, OutboxHandler[]> handlers = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler;
+
+	private final Counter delivered;
+	private final Counter retried;
+	private final Counter dropped;
+	private final Timer lag;
+	private final DistributionSummary batchSizes;
+
+	public OutboxPublisher(JdbcTemplate jdbcTemplate,
+			TransactionTemplate transactionTemplate,
+			MeterRegistry meterRegistry,
+			@Value("${outbox.poll-interval-millis:100}") long pollIntervalMillis,
+			@Value("${outbox.batch-size:500}") int batchSize,
+			@Value("${outbox.publishers:1}") int publishers,
+			@Value("${outbox.max-attempts:20}") int maxAttempts,
+			@Value("${outbox.retry.initial-backoff-millis:1000}") long initialBackoffMillis,
+			@Value("${outbox.retry.max-backoff-millis:300000}") long maxBackoffMillis) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("outbox.batch-size must be positive");
+		}
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.batchSize = batchSize;
+		this.maxAttempts = maxAttempts;
+		this.initialBackoffMillis = initialBackoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+
+		this.delivered = Counter.builder("outbox.events")
+				.tag("result", "delivered")
+				.register(meterRegistry);
+		this.retried = Counter.builder("outbox.events")
+				.tag("result", "retried")
+				.register(meterRegistry);
+		this.dropped = Counter.builder("outbox.events")
+				.tag("result", "dropped")
+				.register(meterRegistry);
+		this.lag = Timer.builder("outbox.lag")
+				.register(meterRegistry);
+		this.batchSizes = DistributionSummary.builder("outbox.batch.size")
+				.register(meterRegistry);
+
+		// poll-interval-millis 0 leaves publish() to be called by hand (tests)
+		if (pollIntervalMillis > 0) {
+			AtomicInteger threads = new AtomicInteger();
+			this.scheduler = Executors.newScheduledThreadPool(publishers, r -> {
+				Thread thread = new Thread(r, "outbox-publisher-" + threads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			for (int i = 0; i < publishers; i++) {
+				scheduler.scheduleWithFixedDelay(this::runPublisher, pollIntervalMillis, pollIntervalMillis,
+						TimeUnit.MILLISECONDS);
+			}
+		} else {
+			this.scheduler = null;
+		}
+	}
+
+	public synchronized void subscribe(String type, OutboxHandler handler) {
+		OutboxHandler[] current = handlers.getOrDefault(type, NONE);
+		OutboxHandler[] next = Arrays.copyOf(current, current.length + 1);
+		next[current.length] = handler;
+		handlers.put(type, next);
+	}
+
+	/** Claims and delivers one batch; returns how many events it claimed. */
+	public int publish() {
+		Object[] types = handlers.keySet().toArray();
+		if (types.length == 0) {
+			return 0;
+		}
+		long now = System.currentTimeMillis();
+		Object[] args = Arrays.copyOf(types, types.length + 2);
+		args[types.length] = new Timestamp(now);
+		args[types.length + 1] = batchSize;
+		String claimSql = String.format(CLAIM_SQL, placeholders(types.length));
+		Integer claimed = transactionTemplate.execute(status -> {
+			List<OutboxMessage> batch = jdbcTemplate.query(claimSql, (rs, row) -> new OutboxMessage(
+					rs.getLong("id"), rs.getString("type"), rs.getLong("aggregate_id"), rs.getString("payload"),
+					rs.getTimestamp("created_at").getTime(), rs.getInt("attempts")), args);
+			if (batch.isEmpty()) {
+				return 0;
+			}
+			List<Long> done = new ArrayList<>(batch.size());
+			List<Object[]> failed = new ArrayList<>();
+			for (OutboxMessage message : batch) {
+				if (deliver(message)) {
+					done.add(message.id());
+					lag.record(System.currentTimeMillis() - message.createdAtMillis(), TimeUnit.MILLISECONDS);
+					delivered.increment();
+				} else if (message.attempts() + 1 >= maxAttempts) {
+					log.error("Dropping outbox event {} ({} for {}) after {} attempts: {}", message.id(),
+							message.type(), message.aggregateId(), maxAttempts, message.payload());
+					done.add(message.id());
+					dropped.increment();
+				} else {
+					int attempts = message.attempts() + 1;
+					failed.add(new Object[] { attempts, new Timestamp(now + backoffMillis(attempts)), message.id() });
+					retried.increment();
+				}
+			}
+			if (!done.isEmpty()) {
+				jdbcTemplate.update("delete from outbox_events where id in (" + placeholders(done.size()) + ")",
+						done.toArray());
+			}
+			if (!failed.isEmpty()) {
+				jdbcTemplate.batchUpdate(RETRY_SQL, failed);
+			}
+			batchSizes.record(batch.size());
+			return batch.size();
+		});
+		return claimed;
+	}
+
+	/** Delay before the next delivery of an event that has failed {@code attempts} times. */
+	long backoffMillis(int attempts) {
+		return Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempts - 1, 30));
+	}
+
+	@Override
+	public void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	private boolean deliver(OutboxMessage message) {
+		for (OutboxHandler handler : handlers.get(message.type())) {
+			try {
+				handler.handle(message);
+			} catch (Exception e) {
+				log.warn("Outbox handler failed on event {} ({}): {}", message.id(), message.type(), e.toString());
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void runPublisher() {
+		try {
+			while (publish() == batchSize) {
+			}
+		} catch (DataAccessException e) {
+			// the claimed rows were rolled back and are retried next poll
+			log.warn("Outbox poll failed: {}", e.getMessage());
+		} catch (RuntimeException e) {
+			log.error("Outbox poll failed", e);
+		}
+	}
+
+	private static String placeholders(int count) {
+		StringBuilder sql = new StringBuilder(count * 2);
+		for (int i = 0; i < count; i++) {
+			sql.append(i == 0 ? "?" : ",?");
+		}
+		return sql.toString();
+	}
+}
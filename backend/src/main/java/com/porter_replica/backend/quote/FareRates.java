@@ -0,0 +1,15 @@
+package com.porter_replica.backend.quote;
+
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.porter_replica.backend.user.VehicleType;
+
+/** Per vehicle type: {@code fare.rates.<TYPE>.base}, {@code per-km} and {@code per-minute}, in rupees. */
+@ConfigurationProperties("fare")
+public record FareRates(Map<VehicleType, Rate> rates) {
+
+	public record Rate(double base, double perKm, double perMinute) {
+	}
+}
@@ -0,0 +1,13 @@
+package com.porter_replica.backend.quote;
+
+import com.porter_replica.backend.user.VehicleType;
+
+/**
+ * Estimated trip for one vehicle type. {@code roadRoute} is false when the
+ * distance is the straight line stretched by {@code quote.detour-factor}
+ * (no routing graph, or a point off the road network). {@code fare} already
+ * includes {@code surgeMultiplier}.
+ */
+public record Quote(VehicleType vehicleType, double distanceKm, int durationMinutes, long fare,
+		double surgeMultiplier, boolean roadRoute) {
+}
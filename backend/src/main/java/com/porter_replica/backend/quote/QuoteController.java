@@ -0,0 +1,39 @@
+package com.porter_replica.backend.quote;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.porter_replica.backend.user.VehicleType;
+
+@RestController
+@RequestMapping("/api/quotes")
+public class QuoteController {
+
+	private final QuoteService quoteService;
+
+	public QuoteController(QuoteService quoteService) {
+		this.quoteService = quoteService;
+	}
+
+	@GetMapping
+	public List<Quote> quote(
+			@RequestParam double pickupLat,
+			@RequestParam double pickupLng,
+			@RequestParam double dropLat,
+			@RequestParam double dropLng,
+			@RequestParam(required = false) VehicleType vehicleType) {
+
+		if (!valid(pickupLat, pickupLng) || !valid(dropLat, dropLng)) {
+			throw new IllegalArgumentException("lat must be between -90 and 90 and lng between -180 and 180");
+		}
+		return quoteService.quote(pickupLat, pickupLng, dropLat, dropLng, vehicleType);
+	}
+
+	private static boolean valid(double lat, double lng) {
+		return lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180;
+	}
+}
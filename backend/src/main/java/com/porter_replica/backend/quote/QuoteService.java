@@ -0,0 +1,78 @@
+package com.porter_replica.backend.quote;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import com.porter_replica.backend.quote.surge.SurgeEngine;
+import com.porter_replica.backend.routing.Route;
+import com.porter_replica.backend.routing.RoutingEngine;
+import com.porter_replica.backend.user.VehicleType;
+
+/**
+ * Fare and driving time for a pickup and drop, from one route shared by every
+ * vehicle type; fares are scaled by the surge multiplier at the pickup.
+ */
+@Service
+@EnableConfigurationProperties(FareRates.class)
+public class QuoteService {
+
+	private static final double EARTH_RADIUS_KM = 6371.0088;
+
+	private final RoutingEngine routingEngine;
+	private final SurgeEngine surgeEngine;
+	private final FareRates fareRates;
+	private final double detourFactor;
+	private final double fallbackSpeedKmh;
+
+	public QuoteService(RoutingEngine routingEngine, SurgeEngine surgeEngine, FareRates fareRates,
+			@Value("${quote.detour-factor:1.35}") double detourFactor,
+			@Value("${quote.fallback-speed-kmh:22}") double fallbackSpeedKmh) {
+		this.routingEngine = routingEngine;
+		this.surgeEngine = surgeEngine;
+		this.fareRates = fareRates;
+		this.detourFactor = detourFactor;
+		this.fallbackSpeedKmh = fallbackSpeedKmh;
+	}
+
+	/** Quotes for {@code vehicleType}, or for every type with a rate when it is null. */
+	public List<Quote> quote(double pickupLat, double pickupLng, double dropLat, double dropLng,
+			VehicleType vehicleType) {
+		Optional<Route> route = routingEngine.route(pickupLat, pickupLng, dropLat, dropLng);
+		double km;
+		double minutes;
+		if (route.isPresent()) {
+			km = route.get().distanceKm();
+			minutes = route.get().seconds() / 60.0;
+		} else {
+			km = haversineKm(pickupLat, pickupLng, dropLat, dropLng) * detourFactor;
+			minutes = km / fallbackSpeedKmh * 60;
+		}
+
+		double surge = surgeEngine.multiplier(pickupLat, pickupLng);
+
+		List<Quote> quotes = new ArrayList<>();
+		for (VehicleType type : VehicleType.values()) {
+			FareRates.Rate rate = fareRates.rates() == null ? null : fareRates.rates().get(type);
+			if (rate == null || (vehicleType != null && type != vehicleType)) {
+				continue;
+			}
+			long fare = Math.round((rate.base() + rate.perKm() * km + rate.perMinute() * minutes) * surge);
+			quotes.add(new Quote(type, Math.round(km * 100) / 100.0, (int) Math.ceil(minutes), fare, surge,
+					route.isPresent()));
+		}
+		return quotes;
+	}
+
+	private static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLng = Math.toRadians(lng2 - lng1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+		return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+	}
+}
@@ -0,0 +1,68 @@
+package com.porter_replica.backend.quote.surge;
+
+import java.util.Arrays;
+
+/** Open-addressing set of longs for a single thread; {@link #clear} keeps the capacity. */
+final class LongSet {
+
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	private long[] keys;
+	private int size;
+	private int mask;
+
+	LongSet(int expected) {
+		allocate(Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1);
+	}
+
+	/** False when the key was already there. */
+	boolean add(long key) {
+		if ((size + 1) * 2 > keys.length) {
+			grow();
+		}
+		for (int slot = slot(key);; slot = (slot + 1) & mask) {
+			long current = keys[slot];
+			if (current == key) {
+				return false;
+			}
+			if (current == EMPTY) {
+				keys[slot] = key;
+				size++;
+				return true;
+			}
+		}
+	}
+
+	void clear() {
+		if (size > 0) {
+			Arrays.fill(keys, EMPTY);
+			size = 0;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	private void grow() {
+		long[] old = keys;
+		allocate(old.length * 2);
+		for (long key : old) {
+			if (key != EMPTY) {
+				add(key);
+			}
+		}
+	}
+}
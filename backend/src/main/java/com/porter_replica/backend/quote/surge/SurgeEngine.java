@@ -0,0 +1,287 @@
+package com.porter_replica.backend.quote.surge;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.porter_replica.backend.driver.geo.DriverGeoIndex;
+import com.porter_replica.backend.driver.location.DriverLocationPipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Surge multipliers per cell ({@code cell-size-km} tall, as wide in degrees
+ * of longitude), from bookings and idle drivers counted over a sliding window
+ * of {@code window-seconds} split into {@code bucket-seconds} buckets.
+ *
+ * Each cell keeps one slot per bucket holding the bucket's number and its
+ * count, bumped with a compare-and-set; a slot whose number has fallen out of
+ * the window is reused by the next bucket, so nothing ever sweeps old
+ * buckets. An idle driver counts once per bucket in the cell of its first
+ * ping in that bucket, so the idle count is the average number of idle
+ * drivers seen per bucket rather than a count of pings.
+ *
+ * Every {@code recompute-seconds} {@link #recompute} walks the cells that had
+ * events (never the bookings), moves each multiplier {@code smoothing} of the
+ * way towards {@code 1 + sensitivity * (bookings per idle driver - threshold)}
+ * within [1, {@code max-multiplier}], and publishes the surging cells as an
+ * immutable table that {@link #multiplier} reads without locking. A cell with
+ * no events in the window and no surge left is dropped, and past
+ * {@code max-cells} events for new cells are dropped and counted; an event
+ * landing on a cell at the moment it is dropped can be lost.
+ */
+@Component
+public class SurgeEngine implements DisposableBean {
+
+	private static final double EARTH_RADIUS_KM = 6371.0088;
+	private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+	private static final int COUNT_BITS = 24;
+	private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+	private final double cellDegrees;
+	private final int rows;
+	private final int columns;
+	private final long bucketMillis;
+	private final int buckets;
+	private final int maxCells;
+	private final double threshold;
+	private final double sensitivity;
+	private final double maxMultiplier;
+	private final double smoothing;
+	private final int minDemand;
+
+	private final ConcurrentHashMap<Long, Window> windows = new ConcurrentHashMap<>();
+	private volatile SurgeTable table = SurgeTable.EMPTY;
+
+	// recordIdle() only
+	private final LongSet idleCounted = new LongSet(1024);
+	private long idleCountedBucket = -1;
+
+	private final Timer recomputeDuration;
+	private final Counter droppedDemand;
+	private final Counter droppedIdle;
+	private ScheduledExecutorService scheduler;
+
+	@Autowired
+	public SurgeEngine(DriverLocationPipeline locationPipeline,
+			DriverGeoIndex geoIndex,
+			MeterRegistry meterRegistry,
+			@Value("${surge.cell-size-km:2}") double cellSizeKm,
+			@Value("${surge.window-seconds:300}") long windowSeconds,
+			@Value("${surge.bucket-seconds:30}") long bucketSeconds,
+			@Value("${surge.recompute-seconds:5}") long recomputeSeconds,
+			@Value("${surge.max-cells:50000}") int maxCells,
+			@Value("${surge.threshold:1.0}") double threshold,
+			@Value("${surge.sensitivity:0.5}") double sensitivity,
+			@Value("${surge.max-multiplier:3.0}") double maxMultiplier,
+			@Value("${surge.smoothing:0.5}") double smoothing,
+			@Value("${surge.min-demand:5}") int minDemand) {
+
+		this(cellSizeKm, windowSeconds, bucketSeconds, maxCells, threshold, sensitivity, maxMultiplier, smoothing,
+				minDemand, meterRegistry);
+		locationPipeline.addListener((driverId, lat, lng, heading, speed, recordedAtMillis) -> {
+			if (geoIndex.isAvailable(driverId)) {
+				recordIdle(driverId, lat, lng, System.currentTimeMillis());
+			}
+		});
+		// recompute-seconds 0 leaves recompute() to be called by hand (tests)
+		if (recomputeSeconds > 0) {
+			this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "surge-recompute");
+				thread.setDaemon(true);
+				return thread;
+			});
+			scheduler.scheduleWithFixedDelay(() -> recompute(System.currentTimeMillis()),
+					recomputeSeconds, recomputeSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	public SurgeEngine(double cellSizeKm, long windowSeconds, long bucketSeconds, int maxCells, double threshold,
+			double sensitivity, double maxMultiplier, double smoothing, int minDemand, MeterRegistry meterRegistry) {
+		if (cellSizeKm <= 0) {
+			throw new IllegalArgumentException("surge.cell-size-km must be positive");
+		}
+		if (bucketSeconds <= 0 || windowSeconds < bucketSeconds) {
+			throw new IllegalArgumentException("surge.window-seconds must be at least surge.bucket-seconds > 0");
+		}
+		if (maxMultiplier < 1) {
+			throw new IllegalArgumentException("surge.max-multiplier must be at least 1");
+		}
+		this.cellDegrees = cellSizeKm / KM_PER_DEGREE;
+		this.rows = (int) Math.ceil(180 / cellDegrees);
+		this.columns = (int) Math.ceil(360 / cellDegrees);
+		this.bucketMillis = TimeUnit.SECONDS.toMillis(bucketSeconds);
+		this.buckets = (int) (windowSeconds / bucketSeconds);
+		this.maxCells = maxCells;
+		this.threshold = threshold;
+		this.sensitivity = sensitivity;
+		this.maxMultiplier = maxMultiplier;
+		this.smoothing = smoothing;
+		this.minDemand = minDemand;
+
+		this.recomputeDuration = Timer.builder("surge.recompute.duration")
+				.register(meterRegistry);
+		this.droppedDemand = Counter.builder("surge.events.dropped")
+				.tag("kind", "demand")
+				.register(meterRegistry);
+		this.droppedIdle = Counter.builder("surge.events.dropped")
+				.tag("kind", "idle")
+				.register(meterRegistry);
+		Gauge.builder("surge.cells", windows, Map::size)
+				.register(meterRegistry);
+		Gauge.builder("surge.cells.surging", this, engine -> engine.table.size())
+				.register(meterRegistry);
+	}
+
+	/** The fare multiplier at a pickup point; 1 outside surging cells. */
+	public double multiplier(double lat, double lng) {
+		return table.get(cellKey(lat, lng));
+	}
+
+	public void recordDemand(double lat, double lng, long nowMillis) {
+		Window window = window(lat, lng, droppedDemand);
+		if (window != null) {
+			increment(window.slots, 0, nowMillis / bucketMillis);
+		}
+	}
+
+	/** Counts an idle driver at most once per bucket. Callers must not call this concurrently. */
+	public void recordIdle(long driverId, double lat, double lng, long nowMillis) {
+		long bucket = nowMillis / bucketMillis;
+		if (bucket != idleCountedBucket) {
+			idleCounted.clear();
+			idleCountedBucket = bucket;
+		}
+		if (!idleCounted.add(driverId)) {
+			return;
+		}
+		Window window = window(lat, lng, droppedIdle);
+		if (window != null) {
+			increment(window.slots, buckets, bucket);
+		}
+	}
+
+	/** Recomputes every cell's multiplier and publishes the new table. */
+	public synchronized void recompute(long nowMillis) {
+		long start = System.nanoTime();
+		long bucket = nowMillis / bucketMillis;
+		long[] cells = new long[16];
+		float[] values = new float[16];
+		int surging = 0;
+		for (Map.Entry<Long, Window> entry : windows.entrySet()) {
+			Window window = entry.getValue();
+			long demand = sum(window.slots, 0, bucket);
+			long idleDriverBuckets = sum(window.slots, buckets, bucket);
+			window.multiplier = next(window.multiplier, demand, (double) idleDriverBuckets / buckets);
+			if (window.multiplier > 1f) {
+				if (surging == cells.length) {
+					cells = Arrays.copyOf(cells, surging * 2);
+					values = Arrays.copyOf(values, surging * 2);
+				}
+				cells[surging] = entry.getKey();
+				values[surging] = window.multiplier;
+				surging++;
+			} else if (demand == 0 && idleDriverBuckets == 0) {
+				windows.remove(entry.getKey(), window);
+			}
+		}
+		table = SurgeTable.of(cells, values, surging);
+		recomputeDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	private float next(float current, long demand, double idle) {
+		double target = 1;
+		if (demand >= minDemand) {
+			double ratio = demand / Math.max(idle, 1);
+			target = Math.min(maxMultiplier, Math.max(1, 1 + sensitivity * (ratio - threshold)));
+		}
+		double smoothed = current + smoothing * (target - current);
+		// two decimals, and settling back to exactly 1 rather than creeping towards it
+		double rounded = Math.round(smoothed * 100) / 100.0;
+		return rounded <= 1 ? 1f : (float) rounded;
+	}
+
+	private Window window(double lat, double lng, Counter dropped) {
+		long key = cellKey(lat, lng);
+		Window window = windows.get(key);
+		if (window == null) {
+			if (windows.size() >= maxCells) {
+				dropped.increment();
+				return null;
+			}
+			window = windows.computeIfAbsent(key, k -> new Window(buckets));
+		}
+		return window;
+	}
+
+	private void increment(AtomicLongArray slots, int offset, long bucket) {
+		int index = offset + (int) (bucket % buckets);
+		while (true) {
+			long current = slots.get(index);
+			long slotBucket = current >>> COUNT_BITS;
+			long next;
+			if (slotBucket == bucket) {
+				if ((current & COUNT_MASK) == COUNT_MASK) {
+					return;
+				}
+				next = current + 1;
+			} else if (slotBucket > bucket) {
+				// a straggler for a bucket whose slot has moved on
+				return;
+			} else {
+				next = bucket << COUNT_BITS | 1;
+			}
+			if (slots.compareAndSet(index, current, next)) {
+				return;
+			}
+		}
+	}
+
+	private long sum(AtomicLongArray slots, int offset, long bucket) {
+		long total = 0;
+		for (int i = 0; i < buckets; i++) {
+			long slot = slots.get(offset + i);
+			long slotBucket = slot >>> COUNT_BITS;
+			if (slotBucket <= bucket && slotBucket > bucket - buckets) {
+				total += slot & COUNT_MASK;
+			}
+		}
+		return total;
+	}
+
+	private long cellKey(double lat, double lng) {
+		int row = Math.min(rows - 1, (int) ((lat + 90) / cellDegrees));
+		int column = Math.floorMod((int) Math.floor((lng + 180) / cellDegrees), columns);
+		return (long) row * columns + column;
+	}
+
+	private static final class Window {
+		// one slot per bucket, bucket number << COUNT_BITS | count: bookings first, then idle drivers
+		final AtomicLongArray slots;
+		// recompute() only
+		float multiplier = 1f;
+
+		Window(int buckets) {
+			this.slots = new AtomicLongArray(buckets * 2);
+		}
+	}
+}
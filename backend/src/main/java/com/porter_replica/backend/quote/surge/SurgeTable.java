@@ -0,0 +1,70 @@
+package com.porter_replica.backend.quote.surge;
+
+import java.util.Arrays;
+
+/**
+ * Immutable cell to multiplier table holding only the cells that surge; any
+ * other cell reads 1. Built once per recompute and never written after, so
+ * lookups need no locks and no retries.
+ */
+final class SurgeTable {
+
+	static final SurgeTable EMPTY = new SurgeTable(new long[0], new float[0], 0);
+
+	private final long[] keys;
+	private final float[] multipliers;
+	private final int size;
+	private final int mask;
+
+	private SurgeTable(long[] keys, float[] multipliers, int size) {
+		this.keys = keys;
+		this.multipliers = multipliers;
+		this.size = size;
+		this.mask = keys.length - 1;
+	}
+
+	/** The first {@code count} entries of {@code cells} and {@code values}; cells must be distinct. */
+	static SurgeTable of(long[] cells, float[] values, int count) {
+		if (count == 0) {
+			return EMPTY;
+		}
+		int capacity = Integer.highestOneBit(Math.max(8, count * 2 - 1)) << 1;
+		long[] keys = new long[capacity];
+		float[] multipliers = new float[capacity];
+		Arrays.fill(keys, -1L);
+		int mask = capacity - 1;
+		for (int i = 0; i < count; i++) {
+			int slot = slot(cells[i], mask);
+			while (keys[slot] != -1L) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = cells[i];
+			multipliers[slot] = values[i];
+		}
+		return new SurgeTable(keys, multipliers, count);
+	}
+
+	float get(long cell) {
+		if (size == 0) {
+			return 1f;
+		}
+		for (int slot = slot(cell, mask);; slot = (slot + 1) & mask) {
+			long current = keys[slot];
+			if (current == cell) {
+				return multipliers[slot];
+			}
+			if (current == -1L) {
+				return 1f;
+			}
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+}
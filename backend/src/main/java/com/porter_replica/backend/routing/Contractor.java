@@ -0,0 +1,290 @@
+package com.porter_replica.backend.routing;
+
+import java.util.Arrays;
+
+/**
+ * Builds a contraction hierarchy: nodes are removed least important first
+ * (fewest shortcuts added per edge removed, spread out by how many
+ * neighbours are already gone), and a shortcut replaces every u → v → w
+ * path through the removed node v that no other path (the witness) matches.
+ * Witness searches stop after {@code settleLimit} nodes and then assume
+ * there is none; that adds a few needless shortcuts but never loses a
+ * distance.
+ */
+final class Contractor {
+
+	private static final int UNREACHED = Integer.MAX_VALUE;
+	// priorities go negative; the heap wants non-negative keys
+	private static final int PRIORITY_OFFSET = 1 << 30;
+
+	private final int nodeCount;
+	private final int settleLimit;
+
+	// every edge ever added, original or shortcut; lists hold the ones between uncontracted nodes
+	private int[] from;
+	private int[] to;
+	private int[] millis;
+	private int[] meters;
+	private int edgeCount;
+	private final IntList[] out;
+	private final IntList[] in;
+
+	private final boolean[] contracted;
+	private final int[] contractedNeighbours;
+	private final int[] depth;
+	private final int[] priority;
+	private final int[] seen;
+
+	private final int[] witnessMillis;
+	private final IntList witnessTouched = new IntList(64);
+	private final LongHeap witnessHeap = new LongHeap();
+
+	// shortcuts found for the node being contracted, added once all its pairs are checked
+	private final IntList shortcutFrom = new IntList();
+	private final IntList shortcutTo = new IntList();
+	private final IntList shortcutMillis = new IntList();
+	private final IntList shortcutMeters = new IntList();
+
+	Contractor(RoadGraph graph, int settleLimit) {
+		this.nodeCount = graph.nodeCount();
+		this.settleLimit = settleLimit;
+		int capacity = Math.max(16, graph.edgeCount() * 2);
+		this.from = new int[capacity];
+		this.to = new int[capacity];
+		this.millis = new int[capacity];
+		this.meters = new int[capacity];
+		this.out = new IntList[nodeCount];
+		this.in = new IntList[nodeCount];
+		for (int node = 0; node < nodeCount; node++) {
+			out[node] = new IntList();
+			in[node] = new IntList();
+		}
+		this.contracted = new boolean[nodeCount];
+		this.contractedNeighbours = new int[nodeCount];
+		this.depth = new int[nodeCount];
+		this.priority = new int[nodeCount];
+		this.seen = new int[nodeCount];
+		this.witnessMillis = new int[nodeCount];
+		Arrays.fill(witnessMillis, UNREACHED);
+
+		for (int edge = 0; edge < graph.edgeCount(); edge++) {
+			addEdge(graph.edgeFrom(edge), graph.edgeTo(edge), graph.edgeMillis(edge), graph.edgeMeters(edge));
+		}
+	}
+
+	int edgeCount() {
+		return edgeCount;
+	}
+
+	int edgeFrom(int edge) {
+		return from[edge];
+	}
+
+	int edgeTo(int edge) {
+		return to[edge];
+	}
+
+	int edgeMillis(int edge) {
+		return millis[edge];
+	}
+
+	int edgeMeters(int edge) {
+		return meters[edge];
+	}
+
+	/** Contracts every node; returns each node's rank, 0 for the first contracted. */
+	int[] contract() {
+		LongHeap queue = new LongHeap();
+		for (int node = 0; node < nodeCount; node++) {
+			priority[node] = priority(node);
+			queue.push(LongHeap.entry(priority[node] + PRIORITY_OFFSET, node));
+		}
+
+		int[] rank = new int[nodeCount];
+		int next = 0;
+		while (!queue.isEmpty()) {
+			long entry = queue.pop();
+			int node = LongHeap.node(entry);
+			if (contracted[node] || LongHeap.key(entry) - PRIORITY_OFFSET != priority[node]) {
+				// superseded by a later priority
+				continue;
+			}
+			shortcuts(node, true);
+			contracted[node] = true;
+			rank[node] = next++;
+			for (int i = 0; i < shortcutFrom.size(); i++) {
+				addEdge(shortcutFrom.get(i), shortcutTo.get(i), shortcutMillis.get(i), shortcutMeters.get(i));
+			}
+			int[] neighbours = neighbours(node);
+			for (int neighbour : neighbours) {
+				contractedNeighbours[neighbour]++;
+				depth[neighbour] = Math.max(depth[neighbour], depth[node] + 1);
+				dropEdgesTo(out[neighbour], node, true);
+				dropEdgesTo(in[neighbour], node, false);
+			}
+			for (int neighbour : neighbours) {
+				priority[neighbour] = priority(neighbour);
+				queue.push(LongHeap.entry(priority[neighbour] + PRIORITY_OFFSET, neighbour));
+			}
+		}
+		return rank;
+	}
+
+	private int priority(int node) {
+		int shortcuts = shortcuts(node, false);
+		int edgeDifference = shortcuts - out[node].size() - in[node].size();
+		return 4 * edgeDifference + 2 * contractedNeighbours[node] + depth[node];
+	}
+
+	// the shortcuts contracting node needs; kept in the shortcut lists when record is set
+	private int shortcuts(int node, boolean record) {
+		if (record) {
+			shortcutFrom.clear();
+			shortcutTo.clear();
+			shortcutMillis.clear();
+			shortcutMeters.clear();
+		}
+		IntList ins = in[node];
+		IntList outs = out[node];
+		int count = 0;
+		for (int i = 0; i < ins.size(); i++) {
+			int inEdge = ins.get(i);
+			int source = from[inEdge];
+			int maxMillis = 0;
+			for (int j = 0; j < outs.size(); j++) {
+				int outEdge = outs.get(j);
+				if (to[outEdge] != source) {
+					maxMillis = Math.max(maxMillis, millis[inEdge] + millis[outEdge]);
+				}
+			}
+			if (maxMillis == 0) {
+				continue;
+			}
+			witnessSearch(source, node, maxMillis);
+			for (int j = 0; j < outs.size(); j++) {
+				int outEdge = outs.get(j);
+				int target = to[outEdge];
+				int via = millis[inEdge] + millis[outEdge];
+				if (target == source || witnessMillis[target] <= via) {
+					continue;
+				}
+				count++;
+				if (record) {
+					shortcutFrom.add(source);
+					shortcutTo.add(target);
+					shortcutMillis.add(via);
+					shortcutMeters.add(meters[inEdge] + meters[outEdge]);
+				}
+			}
+			resetWitness();
+		}
+		return count;
+	}
+
+	// bounded Dijkstra from source over uncontracted nodes, avoiding skip
+	private void witnessSearch(int source, int skip, int maxMillis) {
+		witnessMillis[source] = 0;
+		witnessTouched.add(source);
+		witnessHeap.push(LongHeap.entry(0, source));
+		int settled = 0;
+		while (!witnessHeap.isEmpty()) {
+			long entry = witnessHeap.pop();
+			int node = LongHeap.node(entry);
+			int cost = LongHeap.key(entry);
+			if (cost > witnessMillis[node]) {
+				continue;
+			}
+			if (cost > maxMillis || ++settled > settleLimit) {
+				break;
+			}
+			IntList edges = out[node];
+			for (int i = 0; i < edges.size(); i++) {
+				int edge = edges.get(i);
+				int next = to[edge];
+				if (next == skip) {
+					continue;
+				}
+				int reached = cost + millis[edge];
+				if (reached < witnessMillis[next]) {
+					if (witnessMillis[next] == UNREACHED) {
+						witnessTouched.add(next);
+					}
+					witnessMillis[next] = reached;
+					witnessHeap.push(LongHeap.entry(reached, next));
+				}
+			}
+		}
+	}
+
+	private void resetWitness() {
+		for (int i = 0; i < witnessTouched.size(); i++) {
+			witnessMillis[witnessTouched.get(i)] = UNREACHED;
+		}
+		witnessTouched.clear();
+		witnessHeap.clear();
+	}
+
+	// distinct uncontracted neighbours, in either direction
+	private int[] neighbours(int node) {
+		IntList result = new IntList(out[node].size() + in[node].size());
+		int mark = node + 1;
+		for (int i = 0; i < out[node].size(); i++) {
+			int neighbour = to[out[node].get(i)];
+			if (seen[neighbour] != mark) {
+				seen[neighbour] = mark;
+				result.add(neighbour);
+			}
+		}
+		for (int i = 0; i < in[node].size(); i++) {
+			int neighbour = from[in[node].get(i)];
+			if (seen[neighbour] != mark) {
+				seen[neighbour] = mark;
+				result.add(neighbour);
+			}
+		}
+		return result.toArray();
+	}
+
+	private void dropEdgesTo(IntList edges, int node, boolean outgoing) {
+		int kept = 0;
+		for (int i = 0; i < edges.size(); i++) {
+			int edge = edges.get(i);
+			if ((outgoing ? to[edge] : from[edge]) != node) {
+				edges.set(kept++, edge);
+			}
+		}
+		edges.truncate(kept);
+	}
+
+	// one edge per direction between two nodes: the faster wins
+	private void addEdge(int source, int target, int edgeMillis, int edgeMeters) {
+		if (source == target) {
+			return;
+		}
+		IntList edges = out[source];
+		for (int i = 0; i < edges.size(); i++) {
+			int edge = edges.get(i);
+			if (to[edge] == target) {
+				if (edgeMillis < millis[edge]) {
+					millis[edge] = edgeMillis;
+					meters[edge] = edgeMeters;
+				}
+				return;
+			}
+		}
+		if (edgeCount == from.length) {
+			int capacity = edgeCount * 2;
+			from = Arrays.copyOf(from, capacity);
+			to = Arrays.copyOf(to, capacity);
+			millis = Arrays.copyOf(millis, capacity);
+			meters = Arrays.copyOf(meters, capacity);
+		}
+		from[edgeCount] = source;
+		to[edgeCount] = target;
+		millis[edgeCount] = edgeMillis;
+		meters[edgeCount] = edgeMeters;
+		out[source].add(edgeCount);
+		in[target].add(edgeCount);
+		edgeCount++;
+	}
+}
@@ -0,0 +1,49 @@
+package com.porter_replica.backend.routing;
+
+import java.util.Arrays;
+
+/** Growable int array, for graph building without boxing. */
+final class IntList {
+
+	private int[] values;
+	private int size;
+
+	IntList() {
+		this(4);
+	}
+
+	IntList(int capacity) {
+		this.values = new int[Math.max(1, capacity)];
+	}
+
+	void add(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+		}
+		values[size++] = value;
+	}
+
+	int get(int index) {
+		return values[index];
+	}
+
+	void set(int index, int value) {
+		values[index] = value;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void truncate(int newSize) {
+		size = newSize;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+}
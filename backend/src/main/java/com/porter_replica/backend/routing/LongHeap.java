@@ -0,0 +1,76 @@
+package com.porter_replica.backend.routing;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of longs. Searches push {@code (long) key << 32 | node}
+ * and skip entries whose key is no longer the node's best (lazy deletion),
+ * which is cheaper than decrease-key bookkeeping on graphs this sparse.
+ */
+final class LongHeap {
+
+	private long[] heap = new long[64];
+	private int size;
+
+	static long entry(int key, int node) {
+		return (long) key << 32 | node;
+	}
+
+	static int key(long entry) {
+		return (int) (entry >>> 32);
+	}
+
+	static int node(long entry) {
+		return (int) entry;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	long peek() {
+		return heap[0];
+	}
+
+	void push(long value) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size * 2);
+		}
+		int i = size++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (heap[parent] <= value) {
+				break;
+			}
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = value;
+	}
+
+	long pop() {
+		long top = heap[0];
+		long last = heap[--size];
+		int i = 0;
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (last <= heap[child]) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		if (size > 0) {
+			heap[i] = last;
+		}
+		return top;
+	}
+}
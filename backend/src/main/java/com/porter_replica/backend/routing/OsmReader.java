@@ -0,0 +1,204 @@
+package com.porter_replica.backend.routing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the drivable roads of an OSM XML extract ({@code .osm}, nodes before
+ * ways as Osmosis and osmium write them) into a {@link RoadGraph}. Only nodes
+ * on drivable ways become graph nodes; each way segment becomes an edge per
+ * allowed direction, timed at the way's {@code maxspeed} or a default for its
+ * highway class.
+ */
+public final class OsmReader {
+
+	// free-flow km/h by highway class; classes not listed are not drivable
+	private static final Map<String, Integer> SPEEDS = Map.ofEntries(
+			Map.entry("motorway", 90), Map.entry("motorway_link", 50),
+			Map.entry("trunk", 70), Map.entry("trunk_link", 45),
+			Map.entry("primary", 55), Map.entry("primary_link", 40),
+			Map.entry("secondary", 45), Map.entry("secondary_link", 35),
+			Map.entry("tertiary", 40), Map.entry("tertiary_link", 30),
+			Map.entry("unclassified", 30), Map.entry("residential", 25),
+			Map.entry("living_street", 10), Map.entry("service", 15),
+			Map.entry("road", 25));
+	private static final Set<String> NO_ACCESS = Set.of("no", "private");
+	private static final double EARTH_RADIUS_M = 6_371_008.8;
+
+	private OsmReader() {
+	}
+
+	public static RoadGraph read(Path osmFile) throws IOException {
+		try (InputStream in = Files.newInputStream(osmFile)) {
+			return read(in);
+		}
+	}
+
+	public static RoadGraph read(InputStream in) throws IOException {
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		try {
+			XMLStreamReader xml = factory.createXMLStreamReader(in);
+			try {
+				return new Parse().run(xml);
+			} finally {
+				xml.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException("Cannot read OSM extract: " + e.getMessage(), e);
+		}
+	}
+
+	static int distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLng = Math.toRadians(lng2 - lng1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+		return (int) Math.round(2 * EARTH_RADIUS_M * Math.asin(Math.sqrt(a)));
+	}
+
+	private static final class Parse {
+
+		// every OSM node, by id; most are never on a road
+		private final LongIntMap osmNodes = new LongIntMap(1 << 16);
+		private double[] osmLat = new double[1 << 16];
+		private double[] osmLng = new double[1 << 16];
+		private int[] graphNode = new int[1 << 16];
+
+		private final RoadGraph graph = new RoadGraph();
+
+		private long[] wayNodes = new long[256];
+		private int wayNodeCount;
+		private final Map<String, String> wayTags = new HashMap<>();
+		private boolean inWay;
+
+		RoadGraph run(XMLStreamReader xml) throws XMLStreamException {
+			while (xml.hasNext()) {
+				int event = xml.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					switch (xml.getLocalName()) {
+						case "node" -> node(xml);
+						case "way" -> {
+							inWay = true;
+							wayNodeCount = 0;
+							wayTags.clear();
+						}
+						case "nd" -> {
+							if (inWay) {
+								wayNode(Long.parseLong(xml.getAttributeValue(null, "ref")));
+							}
+						}
+						case "tag" -> {
+							if (inWay) {
+								wayTags.put(xml.getAttributeValue(null, "k"), xml.getAttributeValue(null, "v"));
+							}
+						}
+						default -> {
+						}
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT && "way".equals(xml.getLocalName())) {
+					inWay = false;
+					way();
+				}
+			}
+			return graph;
+		}
+
+		private void node(XMLStreamReader xml) {
+			int index = osmNodes.size();
+			if (index == osmLat.length) {
+				osmLat = Arrays.copyOf(osmLat, index * 2);
+				osmLng = Arrays.copyOf(osmLng, index * 2);
+				graphNode = Arrays.copyOf(graphNode, index * 2);
+			}
+			osmNodes.put(Long.parseLong(xml.getAttributeValue(null, "id")), index);
+			osmLat[index] = Double.parseDouble(xml.getAttributeValue(null, "lat"));
+			osmLng[index] = Double.parseDouble(xml.getAttributeValue(null, "lon"));
+			graphNode[index] = -1;
+		}
+
+		private void wayNode(long ref) {
+			if (wayNodeCount == wayNodes.length) {
+				wayNodes = Arrays.copyOf(wayNodes, wayNodeCount * 2);
+			}
+			wayNodes[wayNodeCount++] = ref;
+		}
+
+		private void way() {
+			// Map.of and Set.of reject null lookups
+			String highway = wayTags.getOrDefault("highway", "");
+			Integer defaultSpeed = SPEEDS.get(highway);
+			if (defaultSpeed == null || wayNodeCount < 2
+					|| NO_ACCESS.contains(wayTags.getOrDefault("access", ""))
+					|| NO_ACCESS.contains(wayTags.getOrDefault("motor_vehicle", ""))
+					|| "yes".equals(wayTags.get("area"))) {
+				return;
+			}
+			double metersPerMilli = speedKmh(wayTags.get("maxspeed"), defaultSpeed) / 3_600.0;
+			String oneway = wayTags.get("oneway");
+			boolean onlyForward = "yes".equals(oneway) || "true".equals(oneway) || "1".equals(oneway)
+					|| (oneway == null && ("roundabout".equals(wayTags.get("junction"))
+							|| highway.startsWith("motorway")));
+			boolean onlyBackward = "-1".equals(oneway);
+			boolean forward = !onlyBackward;
+			boolean backward = !onlyForward;
+
+			int previous = -1;
+			for (int i = 0; i < wayNodeCount; i++) {
+				int index = osmNodes.get(wayNodes[i]);
+				if (index < 0) {
+					// clipped off the extract
+					previous = -1;
+					continue;
+				}
+				if (graphNode[index] < 0) {
+					graphNode[index] = graph.addNode(osmLat[index], osmLng[index]);
+				}
+				if (previous >= 0) {
+					int meters = distanceMeters(osmLat[previous], osmLng[previous], osmLat[index], osmLng[index]);
+					int millis = (int) Math.ceil(meters / metersPerMilli);
+					if (forward) {
+						graph.addEdge(graphNode[previous], graphNode[index], millis, meters);
+					}
+					if (backward) {
+						graph.addEdge(graphNode[index], graphNode[previous], millis, meters);
+					}
+				}
+				previous = index;
+			}
+		}
+
+		// "50", "50 km/h", "30 mph"; anything else falls back to the highway class
+		private static double speedKmh(String maxspeed, int fallback) {
+			if (maxspeed == null) {
+				return fallback;
+			}
+			String value = maxspeed.trim();
+			double factor = 1;
+			if (value.endsWith("mph")) {
+				factor = 1.609344;
+				value = value.substring(0, value.length() - 3).trim();
+			} else if (value.endsWith("km/h")) {
+				value = value.substring(0, value.length() - 4).trim();
+			}
+			try {
+				double speed = Double.parseDouble(value) * factor;
+				return speed > 0 ? speed : fallback;
+			} catch (NumberFormatException e) {
+				return fallback;
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.porter_replica.backend.routing;
+
+import java.util.Arrays;
+
+/**
+ * A directed road network as read from OSM, before contraction: nodes with
+ * coordinates and edges weighted by driving time (milliseconds) and length
+ * (metres), all in primitive arrays.
+ */
+public final class RoadGraph {
+
+	private double[] lat = new double[1024];
+	private double[] lng = new double[1024];
+	private int nodeCount;
+
+	private int[] edgeFrom = new int[1024];
+	private int[] edgeTo = new int[1024];
+	private int[] edgeMillis = new int[1024];
+	private int[] edgeMeters = new int[1024];
+	private int edgeCount;
+
+	public int addNode(double nodeLat, double nodeLng) {
+		if (nodeCount == lat.length) {
+			lat = Arrays.copyOf(lat, nodeCount * 2);
+			lng = Arrays.copyOf(lng, nodeCount * 2);
+		}
+		lat[nodeCount] = nodeLat;
+		lng[nodeCount] = nodeLng;
+		return nodeCount++;
+	}
+
+	public void addEdge(int from, int to, int millis, int meters) {
+		if (from == to) {
+			return;
+		}
+		if (edgeCount == edgeFrom.length) {
+			int capacity = edgeCount * 2;
+			edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+			edgeTo = Arrays.copyOf(edgeTo, capacity);
+			edgeMillis = Arrays.copyOf(edgeMillis, capacity);
+			edgeMeters = Arrays.copyOf(edgeMeters, capacity);
+		}
+		edgeFrom[edgeCount] = from;
+		edgeTo[edgeCount] = to;
+		edgeMillis[edgeCount] = Math.max(1, millis);
+		edgeMeters[edgeCount] = meters;
+		edgeCount++;
+	}
+
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+	public double lat(int node) {
+		return lat[node];
+	}
+
+	public double lng(int node) {
+		return lng[node];
+	}
+
+	public int edgeFrom(int edge) {
+		return edgeFrom[edge];
+	}
+
+	public int edgeTo(int edge) {
+		return edgeTo[edge];
+	}
+
+	public int edgeMillis(int edge) {
+		return edgeMillis[edge];
+	}
+
+	public int edgeMeters(int edge) {
+		return edgeMeters[edge];
+	}
+}
@@ -0,0 +1,9 @@
+package com.porter_replica.backend.routing;
+
+/** Fastest road route between two points: its length and free-flow driving time. */
+public record Route(int meters, int seconds) {
+
+	public double distanceKm() {
+		return meters / 1000.0;
+	}
+}
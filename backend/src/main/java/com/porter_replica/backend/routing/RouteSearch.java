@@ -0,0 +1,176 @@
+package com.porter_replica.backend.routing;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Working state for contraction hierarchy queries on one {@link RoutingGraph}:
+ * distance arrays as long as the graph, reset after each query through the
+ * list of nodes touched, so a query costs its search space and not the graph
+ * size. Not thread-safe; the graph pools them.
+ */
+final class RouteSearch {
+
+	private static final int UNREACHED = Integer.MAX_VALUE;
+
+	private final Direction forward;
+	private final Direction backward;
+
+	RouteSearch(RoutingGraph graph) {
+		this.forward = new Direction(graph.nodeCount(), graph.fwdFirst, graph.fwdTarget, graph.fwdMillis,
+				graph.fwdMeters);
+		this.backward = new Direction(graph.nodeCount(), graph.bwdFirst, graph.bwdTarget, graph.bwdMillis,
+				graph.bwdMeters);
+	}
+
+	Route route(int source, int target) {
+		if (source == target) {
+			return new Route(0, 0);
+		}
+		try {
+			forward.start(source);
+			backward.start(target);
+			long best = Long.MAX_VALUE;
+			int meeting = -1;
+			while (true) {
+				// a direction is done once nothing it could still settle beats the best meeting
+				boolean forwardOpen = forward.nextMillis() < best;
+				boolean backwardOpen = backward.nextMillis() < best;
+				if (!forwardOpen && !backwardOpen) {
+					break;
+				}
+				if (forwardOpen) {
+					int node = forward.settle();
+					if (node >= 0 && backward.millis[node] != UNREACHED
+							&& (long) forward.millis[node] + backward.millis[node] < best) {
+						best = (long) forward.millis[node] + backward.millis[node];
+						meeting = node;
+					}
+				}
+				if (backwardOpen) {
+					int node = backward.settle();
+					if (node >= 0 && forward.millis[node] != UNREACHED
+							&& (long) forward.millis[node] + backward.millis[node] < best) {
+						best = (long) forward.millis[node] + backward.millis[node];
+						meeting = node;
+					}
+				}
+			}
+			return meeting < 0 ? null
+					: route(best, forward.meters[meeting] + backward.meters[meeting]);
+		} finally {
+			forward.reset();
+			backward.reset();
+		}
+	}
+
+	/** One full upward search from the source, then a pruned backward search per target. */
+	Route[] routes(int source, int[] targets) {
+		Route[] routes = new Route[targets.length];
+		try {
+			forward.start(source);
+			while (forward.nextMillis() != Long.MAX_VALUE) {
+				forward.settle();
+			}
+			for (int i = 0; i < targets.length; i++) {
+				int target = targets[i];
+				if (target < 0) {
+					continue;
+				}
+				if (target == source) {
+					routes[i] = new Route(0, 0);
+					continue;
+				}
+				backward.start(target);
+				long best = Long.MAX_VALUE;
+				int meeting = -1;
+				while (backward.nextMillis() < best) {
+					int node = backward.settle();
+					if (node >= 0 && forward.millis[node] != UNREACHED
+							&& (long) forward.millis[node] + backward.millis[node] < best) {
+						best = (long) forward.millis[node] + backward.millis[node];
+						meeting = node;
+					}
+				}
+				if (meeting >= 0) {
+					routes[i] = route(best, forward.meters[meeting] + backward.meters[meeting]);
+				}
+				backward.reset();
+			}
+			return routes;
+		} finally {
+			forward.reset();
+			backward.reset();
+		}
+	}
+
+	private static Route route(long millis, int meters) {
+		return new Route(meters, (int) ((millis + 500) / 1000));
+	}
+
+	// one side of a bidirectional search, over edges that only climb in rank
+	private static final class Direction {
+
+		final int[] millis;
+		final int[] meters;
+		private final IntList touched = new IntList(256);
+		private final LongHeap heap = new LongHeap();
+		private final IntBuffer first;
+		private final IntBuffer target;
+		private final IntBuffer edgeMillis;
+		private final IntBuffer edgeMeters;
+
+		Direction(int nodes, IntBuffer first, IntBuffer target, IntBuffer edgeMillis, IntBuffer edgeMeters) {
+			this.millis = new int[nodes];
+			this.meters = new int[nodes];
+			Arrays.fill(millis, UNREACHED);
+			this.first = first;
+			this.target = target;
+			this.edgeMillis = edgeMillis;
+			this.edgeMeters = edgeMeters;
+		}
+
+		void start(int node) {
+			millis[node] = 0;
+			meters[node] = 0;
+			touched.add(node);
+			heap.push(LongHeap.entry(0, node));
+		}
+
+		long nextMillis() {
+			return heap.isEmpty() ? Long.MAX_VALUE : LongHeap.key(heap.peek());
+		}
+
+		// settles the closest queued node; -1 when the entry was stale
+		int settle() {
+			long entry = heap.pop();
+			int node = LongHeap.node(entry);
+			int cost = LongHeap.key(entry);
+			if (cost > millis[node]) {
+				return -1;
+			}
+			int end = first.get(node + 1);
+			for (int edge = first.get(node); edge < end; edge++) {
+				int next = target.get(edge);
+				int reached = cost + edgeMillis.get(edge);
+				if (reached < millis[next]) {
+					if (millis[next] == UNREACHED) {
+						touched.add(next);
+					}
+					millis[next] = reached;
+					meters[next] = meters[node] + edgeMeters.get(edge);
+					heap.push(LongHeap.entry(reached, next));
+				}
+			}
+			return node;
+		}
+
+		void reset() {
+			for (int i = 0; i < touched.size(); i++) {
+				millis[touched.get(i)] = UNREACHED;
+			}
+			touched.clear();
+			heap.clear();
+		}
+	}
+}
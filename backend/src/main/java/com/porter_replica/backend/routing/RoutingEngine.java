@@ -0,0 +1,201 @@
+package com.porter_replica.backend.routing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Road distances and driving times from a local OSM extract, without a maps
+ * API. At startup the contracted graph is memory-mapped from
+ * {@code routing.graph-file}; when {@code routing.osm-file} is set and the
+ * graph file is missing or was built from a different extract, the extract
+ * is read and contracted first (minutes for a large region) and the result
+ * written for the next start.
+ *
+ * Points snap to the nearest road node within {@code max-snap-meters}.
+ * Answers are cached by origin and destination cell
+ * ({@code cache.cell-meters} squares): a hit returns the route found for an
+ * earlier pair in the same two cells, which is as accurate as the cell size.
+ *
+ * Without a graph {@link #isAvailable()} is false and every lookup is empty.
+ */
+@Component
+public class RoutingEngine {
+
+	private static final Logger log = LoggerFactory.getLogger(RoutingEngine.class);
+
+	private static final double METERS_PER_DEGREE = 6_371_008.8 * Math.PI / 180;
+	// cached "no route", as the cache holds no nulls
+	private static final Route UNREACHABLE = new Route(-1, -1);
+
+	private final RoutingGraph graph;
+	private final int maxSnapMeters;
+	private final double cacheCellDegrees;
+	private final Cache<CellPair, Route> routes;
+	private final Timer pointLatency;
+	private final Timer manyLatency;
+
+	@Autowired
+	public RoutingEngine(MeterRegistry meterRegistry,
+			@Value("${routing.osm-file:}") String osmFile,
+			@Value("${routing.graph-file:}") String graphFile,
+			@Value("${routing.witness-settle-limit:200}") int witnessSettleLimit,
+			@Value("${routing.max-snap-meters:1000}") int maxSnapMeters,
+			@Value("${routing.cache.cell-meters:200}") double cacheCellMeters,
+			@Value("${routing.cache.max-entries:200000}") long cacheMaxEntries) throws IOException {
+
+		this(load(osmFile.isBlank() ? null : Path.of(osmFile), graphFile.isBlank() ? null : Path.of(graphFile),
+				witnessSettleLimit), maxSnapMeters, cacheCellMeters, cacheMaxEntries, meterRegistry);
+	}
+
+	public RoutingEngine(RoutingGraph graph, int maxSnapMeters, double cacheCellMeters, long cacheMaxEntries,
+			MeterRegistry meterRegistry) {
+		this.graph = graph;
+		this.maxSnapMeters = maxSnapMeters;
+		this.cacheCellDegrees = cacheCellMeters / METERS_PER_DEGREE;
+		this.routes = Caffeine.newBuilder()
+				.maximumSize(cacheMaxEntries)
+				.recordStats()
+				.build();
+
+		this.pointLatency = Timer.builder("routing.query.latency")
+				.tag("kind", "point")
+				.register(meterRegistry);
+		this.manyLatency = Timer.builder("routing.query.latency")
+				.tag("kind", "one_to_many")
+				.register(meterRegistry);
+		Gauge.builder("routing.graph.nodes", this, engine -> engine.graph == null ? 0 : engine.graph.nodeCount())
+				.register(meterRegistry);
+		CaffeineCacheMetrics.monitor(meterRegistry, routes, "routing.routes");
+	}
+
+	public boolean isAvailable() {
+		return graph != null;
+	}
+
+	/** Empty without a graph, when either point is off the road network, or when no road connects them. */
+	public Optional<Route> route(double fromLat, double fromLng, double toLat, double toLng) {
+		if (graph == null) {
+			return Optional.empty();
+		}
+		CellPair key = new CellPair(cell(fromLat, fromLng), cell(toLat, toLng));
+		Route cached = routes.getIfPresent(key);
+		if (cached == null) {
+			long start = System.nanoTime();
+			cached = search(fromLat, fromLng, toLat, toLng);
+			routes.put(key, cached);
+			pointLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+		return cached == UNREACHABLE ? Optional.empty() : Optional.of(cached);
+	}
+
+	/**
+	 * Routes from one origin to many destinations with a single search from
+	 * the origin; entries are null where {@link #route} would be empty.
+	 */
+	public Route[] routes(double fromLat, double fromLng, double[] toLat, double[] toLng) {
+		Route[] result = new Route[toLat.length];
+		if (graph == null) {
+			return result;
+		}
+		long origin = cell(fromLat, fromLng);
+		CellPair[] keys = new CellPair[toLat.length];
+		int[] targets = new int[toLat.length];
+		boolean missed = false;
+		for (int i = 0; i < toLat.length; i++) {
+			keys[i] = new CellPair(origin, cell(toLat[i], toLng[i]));
+			result[i] = routes.getIfPresent(keys[i]);
+			targets[i] = -1;
+			if (result[i] == null) {
+				targets[i] = graph.nearestNode(toLat[i], toLng[i], maxSnapMeters);
+				missed = true;
+			}
+		}
+		if (missed) {
+			long start = System.nanoTime();
+			int source = graph.nearestNode(fromLat, fromLng, maxSnapMeters);
+			Route[] found = source < 0 ? new Route[toLat.length] : graph.routes(source, targets);
+			for (int i = 0; i < result.length; i++) {
+				if (result[i] == null) {
+					result[i] = found[i] != null ? found[i] : UNREACHABLE;
+					routes.put(keys[i], result[i]);
+				}
+			}
+			manyLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+		for (int i = 0; i < result.length; i++) {
+			if (result[i] == UNREACHABLE) {
+				result[i] = null;
+			}
+		}
+		return result;
+	}
+
+	private Route search(double fromLat, double fromLng, double toLat, double toLng) {
+		int source = graph.nearestNode(fromLat, fromLng, maxSnapMeters);
+		int target = graph.nearestNode(toLat, toLng, maxSnapMeters);
+		Route route = source < 0 || target < 0 ? null : graph.route(source, target);
+		return route != null ? route : UNREACHABLE;
+	}
+
+	private long cell(double lat, double lng) {
+		return (long) Math.floor(lat / cacheCellDegrees) << 32 | ((long) Math.floor(lng / cacheCellDegrees) & 0xFFFFFFFFL);
+	}
+
+	private static RoutingGraph load(Path osmFile, Path graphFile, int witnessSettleLimit) throws IOException {
+		if (graphFile == null) {
+			log.info("Routing is off: routing.graph-file is not set");
+			return null;
+		}
+		if (osmFile == null) {
+			if (Files.exists(graphFile)) {
+				return RoutingGraph.map(graphFile);
+			}
+			log.warn("Routing is off: {} does not exist and routing.osm-file is not set", graphFile);
+			return null;
+		}
+
+		long size = Files.size(osmFile);
+		long modified = Files.getLastModifiedTime(osmFile).toMillis();
+		if (Files.exists(graphFile)) {
+			try {
+				RoutingGraph mapped = RoutingGraph.map(graphFile);
+				if (mapped.builtFrom(size, modified)) {
+					log.info("Routing graph {}: {} nodes, {} edges", graphFile, mapped.nodeCount(), mapped.edgeCount());
+					return mapped;
+				}
+				log.info("Routing graph {} is older than {}, rebuilding", graphFile, osmFile);
+			} catch (IOException | UncheckedIOException e) {
+				log.warn("Cannot use routing graph {} ({}), rebuilding", graphFile, e.getMessage());
+			}
+		}
+
+		long start = System.nanoTime();
+		RoadGraph roads = OsmReader.read(osmFile);
+		RoutingGraph built = RoutingGraph.contract(roads, witnessSettleLimit, size, modified);
+		built.write(graphFile);
+		log.info("Built routing graph {} from {} in {} s: {} nodes, {} edges with shortcuts", graphFile, osmFile,
+				TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), built.nodeCount(), built.edgeCount());
+		return RoutingGraph.map(graphFile);
+	}
+
+	private record CellPair(long origin, long destination) {
+	}
+}
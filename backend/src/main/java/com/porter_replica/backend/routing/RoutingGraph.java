@@ -0,0 +1,388 @@
+package com.porter_replica.backend.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A contracted road graph, ready for queries. Nodes are numbered by
+ * contraction rank, so every search only ever climbs to higher ids: forward
+ * searches over {@code fwd} edges, backward searches over {@code bwd} edges
+ * (stored at the lower end, pointing at the higher one, against the road's
+ * direction), and the shortest route is the best node both reach.
+ *
+ * {@link #write} stores the arrays as they are; {@link #map} memory-maps
+ * them read-only, so startup does not parse, sort or contract anything and
+ * the pages are shared with the OS cache. Each array must stay under 2 GB
+ * (about 500 million edges).
+ *
+ * Snapping uses a grid of {@value #CELL_DEGREES}° cells, built with the
+ * graph and stored with it.
+ */
+public final class RoutingGraph {
+
+	static final double CELL_DEGREES = 0.005;
+	private static final int LAT_CELLS = (int) Math.ceil(180 / CELL_DEGREES);
+	private static final int LNG_CELLS = (int) Math.ceil(360 / CELL_DEGREES);
+	private static final double METERS_PER_DEGREE = 6_371_008.8 * Math.PI / 180;
+	private static final double E7 = 1e7;
+
+	private static final int MAGIC = 0x50524348; // "PRCH"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 64;
+
+	private final int nodeCount;
+	private final IntBuffer latE7;
+	private final IntBuffer lngE7;
+	final IntBuffer fwdFirst;
+	final IntBuffer fwdTarget;
+	final IntBuffer fwdMillis;
+	final IntBuffer fwdMeters;
+	final IntBuffer bwdFirst;
+	final IntBuffer bwdTarget;
+	final IntBuffer bwdMillis;
+	final IntBuffer bwdMeters;
+	private final LongBuffer cellKeys;
+	private final IntBuffer cellFirst;
+	private final IntBuffer cellNodes;
+	private final long sourceSize;
+	private final long sourceModified;
+
+	// per-search arrays are as long as the graph, so searches are pooled rather than per thread
+	private final ArrayBlockingQueue<RouteSearch> searches =
+			new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
+	private RoutingGraph(int nodeCount, IntBuffer[] arrays, LongBuffer cellKeys, long sourceSize,
+			long sourceModified) {
+		this.nodeCount = nodeCount;
+		this.latE7 = arrays[0];
+		this.lngE7 = arrays[1];
+		this.fwdFirst = arrays[2];
+		this.fwdTarget = arrays[3];
+		this.fwdMillis = arrays[4];
+		this.fwdMeters = arrays[5];
+		this.bwdFirst = arrays[6];
+		this.bwdTarget = arrays[7];
+		this.bwdMillis = arrays[8];
+		this.bwdMeters = arrays[9];
+		this.cellFirst = arrays[10];
+		this.cellNodes = arrays[11];
+		this.cellKeys = cellKeys;
+		this.sourceSize = sourceSize;
+		this.sourceModified = sourceModified;
+	}
+
+	/**
+	 * Contracts {@code graph}. {@code sourceSize} and {@code sourceModified}
+	 * identify the extract it came from, so a stale file can be told apart.
+	 */
+	public static RoutingGraph contract(RoadGraph graph, int witnessSettleLimit, long sourceSize,
+			long sourceModified) {
+		Contractor contractor = new Contractor(graph, witnessSettleLimit);
+		int[] rank = contractor.contract();
+		int nodes = graph.nodeCount();
+
+		int[] lat = new int[nodes];
+		int[] lng = new int[nodes];
+		for (int node = 0; node < nodes; node++) {
+			lat[rank[node]] = (int) Math.round(graph.lat(node) * E7);
+			lng[rank[node]] = (int) Math.round(graph.lng(node) * E7);
+		}
+
+		// every edge goes to the lower-ranked end: forward if it leaves it, backward if it arrives there
+		int[] fwdCount = new int[nodes + 1];
+		int[] bwdCount = new int[nodes + 1];
+		for (int edge = 0; edge < contractor.edgeCount(); edge++) {
+			int from = rank[contractor.edgeFrom(edge)];
+			int to = rank[contractor.edgeTo(edge)];
+			if (from < to) {
+				fwdCount[from + 1]++;
+			} else {
+				bwdCount[to + 1]++;
+			}
+		}
+		for (int node = 0; node < nodes; node++) {
+			fwdCount[node + 1] += fwdCount[node];
+			bwdCount[node + 1] += bwdCount[node];
+		}
+		int[] fwdFirst = fwdCount.clone();
+		int[] bwdFirst = bwdCount.clone();
+		int[] fwdTarget = new int[fwdCount[nodes]];
+		int[] fwdMillis = new int[fwdCount[nodes]];
+		int[] fwdMeters = new int[fwdCount[nodes]];
+		int[] bwdTarget = new int[bwdCount[nodes]];
+		int[] bwdMillis = new int[bwdCount[nodes]];
+		int[] bwdMeters = new int[bwdCount[nodes]];
+		for (int edge = 0; edge < contractor.edgeCount(); edge++) {
+			int from = rank[contractor.edgeFrom(edge)];
+			int to = rank[contractor.edgeTo(edge)];
+			if (from < to) {
+				int slot = fwdCount[from]++;
+				fwdTarget[slot] = to;
+				fwdMillis[slot] = contractor.edgeMillis(edge);
+				fwdMeters[slot] = contractor.edgeMeters(edge);
+			} else {
+				int slot = bwdCount[to]++;
+				bwdTarget[slot] = from;
+				bwdMillis[slot] = contractor.edgeMillis(edge);
+				bwdMeters[slot] = contractor.edgeMeters(edge);
+			}
+		}
+
+		// grid: nodes sorted by cell, packed as cell << 31 | node
+		long[] byCell = new long[nodes];
+		for (int node = 0; node < nodes; node++) {
+			byCell[node] = cell(lat[node] / E7, lng[node] / E7) << 31 | node;
+		}
+		Arrays.sort(byCell);
+		IntList cellFirst = new IntList();
+		long[] cellKeys = new long[nodes];
+		int cells = 0;
+		int[] cellNodes = new int[nodes];
+		for (int i = 0; i < nodes; i++) {
+			long cell = byCell[i] >>> 31;
+			if (cells == 0 || cellKeys[cells - 1] != cell) {
+				cellKeys[cells++] = cell;
+				cellFirst.add(i);
+			}
+			cellNodes[i] = (int) (byCell[i] & Integer.MAX_VALUE);
+		}
+		cellFirst.add(nodes);
+
+		return new RoutingGraph(nodes, new IntBuffer[] {
+				IntBuffer.wrap(lat), IntBuffer.wrap(lng),
+				IntBuffer.wrap(fwdFirst), IntBuffer.wrap(fwdTarget), IntBuffer.wrap(fwdMillis), IntBuffer.wrap(fwdMeters),
+				IntBuffer.wrap(bwdFirst), IntBuffer.wrap(bwdTarget), IntBuffer.wrap(bwdMillis), IntBuffer.wrap(bwdMeters),
+				IntBuffer.wrap(cellFirst.toArray()), IntBuffer.wrap(cellNodes) },
+				LongBuffer.wrap(Arrays.copyOf(cellKeys, cells)), sourceSize, sourceModified);
+	}
+
+	/** Writes the graph to {@code file}, replacing it only once the new one is complete. */
+	public void write(Path file) throws IOException {
+		Path partial = file.resolveSibling(file.getFileName() + ".partial");
+		try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(nodeCount)
+					.putInt(fwdTarget.limit()).putInt(bwdTarget.limit()).putInt(cellKeys.limit())
+					.putLong(sourceSize).putLong(sourceModified);
+			header.rewind();
+			writeFully(channel, header);
+
+			ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+			for (IntBuffer array : intArrays()) {
+				for (int i = 0; i < array.limit(); i++) {
+					if (chunk.remaining() < Integer.BYTES) {
+						drain(channel, chunk);
+					}
+					chunk.putInt(array.get(i));
+				}
+			}
+			for (int i = 0; i < cellKeys.limit(); i++) {
+				if (chunk.remaining() < Long.BYTES) {
+					drain(channel, chunk);
+				}
+				chunk.putLong(cellKeys.get(i));
+			}
+			drain(channel, chunk);
+			channel.force(true);
+		}
+		Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/** Memory-maps a graph written by {@link #write}. */
+	public static RoutingGraph map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// until the header is in
+			}
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException(file + " is not a routing graph of version " + VERSION);
+			}
+			int nodes = header.getInt();
+			int fwdEdges = header.getInt();
+			int bwdEdges = header.getInt();
+			int cells = header.getInt();
+			long sourceSize = header.getLong();
+			long sourceModified = header.getLong();
+
+			int[] lengths = { nodes, nodes, nodes + 1, fwdEdges, fwdEdges, fwdEdges, nodes + 1, bwdEdges, bwdEdges,
+					bwdEdges, cells + 1, nodes };
+			long expected = HEADER_BYTES + (long) cells * Long.BYTES;
+			for (int length : lengths) {
+				expected += (long) length * Integer.BYTES;
+			}
+			if (channel.size() != expected) {
+				throw new IOException(file + " is truncated: " + channel.size() + " of " + expected + " bytes");
+			}
+
+			long offset = HEADER_BYTES;
+			IntBuffer[] arrays = new IntBuffer[lengths.length];
+			for (int i = 0; i < lengths.length; i++) {
+				long bytes = (long) lengths[i] * Integer.BYTES;
+				arrays[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes)
+						.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+				offset += bytes;
+			}
+			LongBuffer cellKeys = channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) cells * Long.BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+			// the mappings outlive the channel
+			return new RoutingGraph(nodes, arrays, cellKeys, sourceSize, sourceModified);
+		}
+	}
+
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	public int edgeCount() {
+		return fwdTarget.limit() + bwdTarget.limit();
+	}
+
+	/** Whether this graph was built from a file of this size and modification time. */
+	public boolean builtFrom(long size, long modified) {
+		return sourceSize == size && sourceModified == modified;
+	}
+
+	public double lat(int node) {
+		return latE7.get(node) / E7;
+	}
+
+	public double lng(int node) {
+		return lngE7.get(node) / E7;
+	}
+
+	/** The node closest to the point, or -1 when none is within {@code maxMeters}. */
+	public int nearestNode(double lat, double lng, int maxMeters) {
+		int latCell = (int) Math.floor((lat + 90) / CELL_DEGREES);
+		int lngCell = (int) Math.floor((lng + 180) / CELL_DEGREES);
+		double cosLat = Math.cos(Math.toRadians(lat));
+		double cellMeters = CELL_DEGREES * METERS_PER_DEGREE * Math.max(cosLat, 0.01);
+		int maxRing = (int) Math.ceil(maxMeters / cellMeters);
+
+		int best = -1;
+		double bestMeters = maxMeters;
+		for (int ring = 0; ring <= maxRing; ring++) {
+			for (int dLat = -ring; dLat <= ring; dLat++) {
+				boolean edgeRow = Math.abs(dLat) == ring;
+				for (int dLng = -ring; dLng <= ring; dLng += edgeRow ? 1 : 2 * ring) {
+					int found = nearestInCell(latCell + dLat, lngCell + dLng, lat, lng, cosLat, bestMeters);
+					if (found >= 0) {
+						best = found;
+						bestMeters = meters(lat, lng, cosLat, found);
+					}
+				}
+			}
+			// every cell further out is at least ring cells away
+			if (best >= 0 && bestMeters <= ring * cellMeters) {
+				break;
+			}
+		}
+		return best;
+	}
+
+	/** Fastest route from node to node, or null when the target cannot be reached. */
+	public Route route(int source, int target) {
+		RouteSearch search = acquire();
+		try {
+			return search.route(source, target);
+		} finally {
+			searches.offer(search);
+		}
+	}
+
+	/** Fastest routes from one node to each target; null entries cannot be reached (or are -1). */
+	public Route[] routes(int source, int[] targets) {
+		RouteSearch search = acquire();
+		try {
+			return search.routes(source, targets);
+		} finally {
+			searches.offer(search);
+		}
+	}
+
+	private RouteSearch acquire() {
+		RouteSearch search = searches.poll();
+		return search != null ? search : new RouteSearch(this);
+	}
+
+	private int nearestInCell(int latCell, int lngCell, double lat, double lng, double cosLat, double withinMeters) {
+		if (latCell < 0 || latCell >= LAT_CELLS) {
+			return -1;
+		}
+		long key = (long) latCell * LNG_CELLS + Math.floorMod(lngCell, LNG_CELLS);
+		int index = binarySearch(key);
+		if (index < 0) {
+			return -1;
+		}
+		int best = -1;
+		double bestMeters = withinMeters;
+		for (int i = cellFirst.get(index); i < cellFirst.get(index + 1); i++) {
+			int node = cellNodes.get(i);
+			double meters = meters(lat, lng, cosLat, node);
+			if (meters < bestMeters) {
+				bestMeters = meters;
+				best = node;
+			}
+		}
+		return best;
+	}
+
+	private int binarySearch(long key) {
+		int low = 0;
+		int high = cellKeys.limit() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long value = cellKeys.get(mid);
+			if (value < key) {
+				low = mid + 1;
+			} else if (value > key) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	// equirectangular: metres-accurate at snapping distances
+	private double meters(double lat, double lng, double cosLat, int node) {
+		double dLat = lat(node) - lat;
+		double dLng = (lng(node) - lng) * cosLat;
+		return Math.sqrt(dLat * dLat + dLng * dLng) * METERS_PER_DEGREE;
+	}
+
+	private static long cell(double lat, double lng) {
+		int latCell = (int) Math.floor((lat + 90) / CELL_DEGREES);
+		int lngCell = Math.floorMod((int) Math.floor((lng + 180) / CELL_DEGREES), LNG_CELLS);
+		return (long) latCell * LNG_CELLS + lngCell;
+	}
+
+	private IntBuffer[] intArrays() {
+		return new IntBuffer[] { latE7, lngE7, fwdFirst, fwdTarget, fwdMillis, fwdMeters, bwdFirst, bwdTarget,
+				bwdMillis, bwdMeters, cellFirst, cellNodes };
+	}
+
+	private static void drain(FileChannel channel, ByteBuffer chunk) throws IOException {
+		chunk.flip();
+		writeFully(channel, chunk);
+		chunk.clear();
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
@@ -0,0 +1,308 @@
+package com.porter_replica.backend.trip;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.ServletOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.porter_replica.backend.auth.jwt.TokenDenyList;
+import com.porter_replica.backend.booking.BookingStatus;
+import com.porter_replica.backend.booking.BookingStatusChanged;
+import com.porter_replica.backend.driver.location.DriverLocationPipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Per-trip topics for {@link TripEventServlet} streams. A booking's status
+ * changes ({@link BookingStatusChanged}) and, once it has a driver, that
+ * driver's positions from {@link DriverLocationPipeline} fan out to everyone
+ * watching the booking. Each frame is serialized once per publish, not once
+ * per subscriber.
+ *
+ * A subscriber whose queue fills up is disconnected (its client reconnects
+ * and starts again from a snapshot); positions never fill it, since each
+ * replaces the last unsent one. Every {@code heartbeat-seconds} idle streams
+ * get a comment line and streams of logged-out sessions are closed.
+ * Status changes of the last {@code recent-status.ttl-seconds} are kept, so
+ * a stream opened from a stale read still sees them.
+ *
+ * Metrics: {@code trip.channel.subscribers},
+ * {@code trip.channel.frames{type}} published,
+ * {@code trip.channel.positions.skipped} (replaced before a slow client read them),
+ * {@code trip.channel.disconnects{reason}}: slow, revoked, rejected (node full).
+ */
+@Component
+public class TripChannel implements SmartLifecycle, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(TripChannel.class);
+
+	private static final byte[] STATUS_PREFIX = "event: status\ndata: ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] POSITION_PREFIX = "event: position\ndata: ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] FRAME_END = "\n\n".getBytes(StandardCharsets.US_ASCII);
+
+	private final ObjectMapper objectMapper;
+	private final TokenDenyList denyList;
+	private final int maxSubscribers;
+	private final int bufferSize;
+
+	private final ConcurrentHashMap<Long, Set<TripSubscriber>> topics = new ConcurrentHashMap<>();
+	// driver -> the booking they are on, learned from ASSIGNED
+	private final ConcurrentHashMap<Long, Long> driverTrips = new ConcurrentHashMap<>();
+	private final AtomicInteger subscribers = new AtomicInteger();
+	private volatile boolean running;
+	private final Cache<Long, BookingStatusChanged> recentStatus;
+
+	private final ExecutorService writers;
+	private final ScheduledExecutorService heartbeats;
+
+	private final Counter statusFrames;
+	private final Counter positionFrames;
+	private final Counter positionsSkipped;
+	private final Counter slowDisconnects;
+	private final Counter revokedDisconnects;
+	private final Counter rejected;
+
+	public TripChannel(DriverLocationPipeline locationPipeline,
+			ObjectMapper objectMapper,
+			TokenDenyList denyList,
+			MeterRegistry meterRegistry,
+			@Value("${trip-channel.max-subscribers:100000}") int maxSubscribers,
+			@Value("${trip-channel.buffer-size:32}") int bufferSize,
+			@Value("${trip-channel.writer-threads:0}") int writerThreads,
+			@Value("${trip-channel.heartbeat-seconds:15}") long heartbeatSeconds,
+			@Value("${trip-channel.recent-status.max-entries:100000}") long recentStatusEntries,
+			@Value("${trip-channel.recent-status.ttl-seconds:60}") long recentStatusTtlSeconds) {
+
+		this.objectMapper = objectMapper;
+		this.denyList = denyList;
+		this.maxSubscribers = maxSubscribers;
+		this.bufferSize = bufferSize;
+		this.recentStatus = Caffeine.newBuilder()
+				.maximumSize(recentStatusEntries)
+				.expireAfterWrite(recentStatusTtlSeconds, TimeUnit.SECONDS)
+				.build();
+
+		AtomicInteger writerIndex = new AtomicInteger();
+		this.writers = Executors.newFixedThreadPool(
+				writerThreads > 0 ? writerThreads : Runtime.getRuntime().availableProcessors(), r -> {
+					Thread thread = new Thread(r, "trip-channel-writer-" + writerIndex.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "trip-channel-heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		});
+		heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+		this.statusFrames = Counter.builder("trip.channel.frames")
+				.tag("type", "status")
+				.register(meterRegistry);
+		this.positionFrames = Counter.builder("trip.channel.frames")
+				.tag("type", "position")
+				.register(meterRegistry);
+		this.positionsSkipped = Counter.builder("trip.channel.positions.skipped")
+				.register(meterRegistry);
+		this.slowDisconnects = Counter.builder("trip.channel.disconnects")
+				.tag("reason", "slow")
+				.register(meterRegistry);
+		this.revokedDisconnects = Counter.builder("trip.channel.disconnects")
+				.tag("reason", "revoked")
+				.register(meterRegistry);
+		this.rejected = Counter.builder("trip.channel.disconnects")
+				.tag("reason", "rejected")
+				.register(meterRegistry);
+		Gauge.builder("trip.channel.subscribers", subscribers, AtomicInteger::get)
+				.register(meterRegistry);
+
+		locationPipeline.addListener(this::driverMoved);
+	}
+
+	/**
+	 * Opens a stream on {@code bookingId}, starting with the booking as it is
+	 * now; null when this node already holds {@code max-subscribers} or is
+	 * shutting down.
+	 * {@code complete} ends the underlying response.
+	 */
+	TripSubscriber subscribe(BookingStatusChanged current, TripPosition lastPosition, UUID sessionId,
+			ServletOutputStream out, Runnable complete) {
+		if (!running) {
+			rejected.increment();
+			return null;
+		}
+		if (subscribers.incrementAndGet() > maxSubscribers) {
+			subscribers.decrementAndGet();
+			rejected.increment();
+			return null;
+		}
+		long bookingId = current.bookingId();
+		TripSubscriber subscriber = new TripSubscriber(bookingId, sessionId, out, bufferSize, writers, complete);
+		subscriber.offer(statusFrame(current));
+		if (lastPosition != null) {
+			subscriber.offerPosition(positionFrame(lastPosition));
+		}
+		topics.compute(bookingId, (id, topic) -> {
+			Set<TripSubscriber> members = topic != null ? topic : ConcurrentHashMap.newKeySet();
+			members.add(subscriber);
+			return members;
+		});
+
+		// a change published between the caller's read and joining the topic, or not yet on the replica it read
+		BookingStatusChanged recent = recentStatus.getIfPresent(bookingId);
+		if (recent != null && recent.status() != current.status()) {
+			subscriber.offer(statusFrame(recent));
+			current = recent;
+		}
+		if (current.status().isFinal()) {
+			subscriber.closeAfterDrain();
+		} else if (current.driverId() != null) {
+			// assigned before this node saw it (another node, or a restart)
+			driverTrips.put(current.driverId(), bookingId);
+		}
+		return subscriber;
+	}
+
+	/** Called once the response has ended, whoever ended it. */
+	void unsubscribed(TripSubscriber subscriber) {
+		subscriber.ended();
+		boolean[] removed = new boolean[1];
+		topics.computeIfPresent(subscriber.bookingId(), (id, topic) -> {
+			removed[0] = topic.remove(subscriber);
+			return topic.isEmpty() ? null : topic;
+		});
+		if (removed[0]) {
+			subscribers.decrementAndGet();
+		}
+	}
+
+	public int subscribers() {
+		return subscribers.get();
+	}
+
+	@EventListener
+	public void onStatusChanged(BookingStatusChanged event) {
+		if (event.status() == BookingStatus.ASSIGNED) {
+			driverTrips.put(event.driverId(), event.bookingId());
+		} else if (event.status().isFinal() && event.driverId() != null) {
+			driverTrips.remove(event.driverId(), event.bookingId());
+		}
+		recentStatus.put(event.bookingId(), event);
+		Set<TripSubscriber> topic = topics.get(event.bookingId());
+		if (topic == null) {
+			return;
+		}
+		byte[] frame = statusFrame(event);
+		statusFrames.increment();
+		for (TripSubscriber subscriber : topic) {
+			if (!subscriber.offer(frame)) {
+				slowDisconnects.increment();
+				subscriber.close();
+			} else if (event.status().isFinal()) {
+				subscriber.closeAfterDrain();
+			}
+		}
+	}
+
+	// on the location drain thread
+	private void driverMoved(long driverId, double lat, double lng, float heading, float speed,
+			long recordedAtMillis) {
+		Long bookingId = driverTrips.get(driverId);
+		if (bookingId == null) {
+			return;
+		}
+		Set<TripSubscriber> topic = topics.get(bookingId);
+		if (topic == null) {
+			return;
+		}
+		byte[] frame;
+		try {
+			frame = positionFrame(TripPosition.of(bookingId, driverId, lat, lng, heading, speed, recordedAtMillis));
+		} catch (RuntimeException e) {
+			log.warn("Cannot publish position of driver {}: {}", driverId, e.getMessage());
+			return;
+		}
+		positionFrames.increment();
+		for (TripSubscriber subscriber : topic) {
+			if (subscriber.offerPosition(frame)) {
+				positionsSkipped.increment();
+			}
+		}
+	}
+
+	private void heartbeat() {
+		for (Set<TripSubscriber> topic : topics.values()) {
+			for (TripSubscriber subscriber : topic) {
+				// the stream was authenticated once; a logout ends it here rather than at token expiry
+				if (subscriber.sessionId() != null && denyList.isRevoked(subscriber.sessionId())) {
+					revokedDisconnects.increment();
+					subscriber.close();
+				} else {
+					subscriber.heartbeat();
+				}
+			}
+		}
+	}
+
+	private byte[] statusFrame(BookingStatusChanged status) {
+		return frame(STATUS_PREFIX, objectMapper.writeValueAsBytes(status));
+	}
+
+	private byte[] positionFrame(TripPosition position) {
+		return frame(POSITION_PREFIX, objectMapper.writeValueAsBytes(position));
+	}
+
+	private static byte[] frame(byte[] prefix, byte[] json) {
+		byte[] frame = new byte[prefix.length + json.length + FRAME_END.length];
+		System.arraycopy(prefix, 0, frame, 0, prefix.length);
+		System.arraycopy(json, 0, frame, prefix.length, json.length);
+		System.arraycopy(FRAME_END, 0, frame, prefix.length + json.length, FRAME_END.length);
+		return frame;
+	}
+
+	@Override
+	public void start() {
+		running = true;
+	}
+
+	/**
+	 * Ends every stream before the web server's graceful shutdown, which would
+	 * otherwise wait its whole timeout on them; clients reconnect elsewhere.
+	 */
+	@Override
+	public void stop() {
+		running = false;
+		topics.values().forEach(topic -> topic.forEach(TripSubscriber::close));
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public void destroy() {
+		heartbeats.shutdownNow();
+		writers.shutdownNow();
+	}
+}
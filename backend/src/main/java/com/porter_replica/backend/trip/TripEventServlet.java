@@ -0,0 +1,174 @@
+package com.porter_replica.backend.trip;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.porter_replica.backend.auth.jwt.TokenDenyList;
+import com.porter_replica.backend.auth.jwt.VerifiedToken;
+import com.porter_replica.backend.auth.jwt.VerifiedTokenCache;
+import com.porter_replica.backend.booking.BookingService;
+import com.porter_replica.backend.booking.BookingStatusChanged;
+import com.porter_replica.backend.booking.dto.BookingResponse;
+import com.porter_replica.backend.common.DomainException;
+import com.porter_replica.backend.common.ErrorCode;
+import com.porter_replica.backend.driver.location.DriverPosition;
+import com.porter_replica.backend.driver.location.DriverLocationPipeline;
+
+/**
+ * {@code GET /api/trips/{bookingId}/events}: a {@code text/event-stream} of
+ * the booking's status and, once it has a driver, the driver's position
+ * ({@link TripChannel}). Open to the booking's customer and driver.
+ *
+ * The access token is checked once, here, from the Authorization header or
+ * an {@code access_token} parameter (browsers' EventSource cannot set
+ * headers). The stream ends when the token expires, or after
+ * {@code max-stream-minutes}; clients reconnect with a current token.
+ *
+ * A plain servlet rather than a controller: after the handshake the request
+ * goes asynchronous and is written with non-blocking I/O, so an open stream
+ * holds a connection but no thread.
+ */
+public class TripEventServlet extends HttpServlet {
+
+	private static final String EVENTS_SUFFIX = "/events";
+	private static final String TOKEN_PARAMETER = "access_token";
+	private static final long MIN_STREAM_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+	private final transient VerifiedTokenCache tokenCache;
+	private final transient TokenDenyList denyList;
+	private final transient BookingService bookingService;
+	private final transient DriverLocationPipeline locationPipeline;
+	private final transient TripChannel channel;
+	private final long maxStreamMillis;
+
+	public TripEventServlet(VerifiedTokenCache tokenCache, TokenDenyList denyList, BookingService bookingService,
+			DriverLocationPipeline locationPipeline, TripChannel channel, long maxStreamMinutes) {
+		this.tokenCache = tokenCache;
+		this.denyList = denyList;
+		this.bookingService = bookingService;
+		this.locationPipeline = locationPipeline;
+		this.channel = channel;
+		this.maxStreamMillis = TimeUnit.MINUTES.toMillis(maxStreamMinutes);
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		long bookingId = bookingId(request.getPathInfo());
+		if (bookingId < 0) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		VerifiedToken token = authenticate(request);
+		if (token == null) {
+			response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized");
+			return;
+		}
+
+		BookingResponse booking;
+		try {
+			booking = bookingService.get(bookingId, Long.parseLong(token.userId()));
+		} catch (DomainException e) {
+			writeError(response, e.getCode());
+			return;
+		}
+		TripPosition lastPosition = null;
+		if (booking.driverId() != null && !booking.status().isFinal()) {
+			Optional<DriverPosition> position = locationPipeline.latest(booking.driverId());
+			if (position.isPresent()) {
+				DriverPosition p = position.get();
+				lastPosition = TripPosition.of(bookingId, p.driverId(), p.lat(), p.lng(), p.heading(), p.speed(),
+						p.recordedAtMillis());
+			}
+		}
+
+		response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+		response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+		// reverse proxies (nginx) would otherwise hold frames back
+		response.setHeader("X-Accel-Buffering", "no");
+
+		AsyncContext async = request.startAsync();
+		async.setTimeout(Math.max(MIN_STREAM_MILLIS,
+				Math.min(maxStreamMillis, token.expiresAtMillis() - System.currentTimeMillis())));
+		TripSubscriber subscriber = channel.subscribe(
+				new BookingStatusChanged(bookingId, booking.status(), booking.driverId(), booking.pickupDistanceKm()),
+				lastPosition, token.sessionId(), response.getOutputStream(), async::complete);
+		if (subscriber == null) {
+			response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+			writeError(response, ErrorCode.SERVER_BUSY);
+			async.complete();
+			return;
+		}
+		async.addListener(new AsyncListener() {
+			@Override
+			public void onComplete(AsyncEvent event) {
+				channel.unsubscribed(subscriber);
+			}
+
+			@Override
+			public void onTimeout(AsyncEvent event) {
+				subscriber.close();
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+				subscriber.close();
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+			}
+		});
+		// the container calls onWritePossible straight away, which sends the snapshot
+		response.getOutputStream().setWriteListener(subscriber);
+	}
+
+	// "/{bookingId}/events", or -1
+	static long bookingId(String pathInfo) {
+		if (pathInfo == null || !pathInfo.endsWith(EVENTS_SUFFIX)) {
+			return -1;
+		}
+		String id = pathInfo.substring(1, pathInfo.length() - EVENTS_SUFFIX.length());
+		try {
+			long bookingId = Long.parseLong(id);
+			return bookingId > 0 ? bookingId : -1;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private VerifiedToken authenticate(HttpServletRequest request) {
+		String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+		String token = header != null && header.startsWith("Bearer ")
+				? header.substring(7)
+				: request.getParameter(TOKEN_PARAMETER);
+		if (token == null || token.isEmpty()) {
+			return null;
+		}
+		try {
+			VerifiedToken verified = tokenCache.verify(token);
+			return denyList.isRevoked(verified.sessionId()) ? null : verified;
+		} catch (RuntimeException e) {
+			// expired, bad signature or malformed
+			return null;
+		}
+	}
+
+	private static void writeError(HttpServletResponse response, ErrorCode code) throws IOException {
+		byte[] body = code.body();
+		response.setStatus(code.status().value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+}
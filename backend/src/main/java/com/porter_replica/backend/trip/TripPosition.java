@@ -0,0 +1,14 @@
+package com.porter_replica.backend.trip;
+
+/** Driver position as sent on a trip stream; heading and speed are null when the device did not report them. */
+public record TripPosition(long bookingId, long driverId, double lat, double lng, Float heading, Float speed,
+		long recordedAtMillis) {
+
+	static TripPosition of(long bookingId, long driverId, double lat, double lng, float heading, float speed,
+			long recordedAtMillis) {
+		return new TripPosition(bookingId, driverId, lat, lng,
+				Float.isNaN(heading) ? null : heading,
+				Float.isNaN(speed) ? null : speed,
+				recordedAtMillis);
+	}
+}
@@ -0,0 +1,196 @@
+package com.porter_replica.backend.trip;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+/**
+ * One open event stream. Frames wait in a bounded queue, except positions:
+ * only the newest unsent one is kept, so a slow reader skips straight to
+ * where the driver is now instead of replaying where they were.
+ *
+ * Writes are non-blocking ({@link WriteListener}): while the socket is full
+ * nothing is written and no thread waits; the container calls
+ * {@link #onWritePossible} once it drains. Publishers only queue a frame and
+ * hand the write to the writer executor, so a stalled client never holds up
+ * the thread that published.
+ */
+final class TripSubscriber implements WriteListener {
+
+	private static final byte[] HEARTBEAT = ": keep-alive\n\n".getBytes(StandardCharsets.US_ASCII);
+
+	private final long bookingId;
+	private final UUID sessionId;
+	private final ServletOutputStream out;
+	private final int capacity;
+	private final Executor writer;
+	private final Runnable complete;
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Runnable pump = this::scheduledPump;
+
+	// guarded by this
+	private final ArrayDeque<byte[]> frames;
+	private byte[] position;
+	private boolean flushPending;
+	private boolean closing;
+	private boolean closed;
+
+	// isReady() may only be called once the container has the write listener
+	private volatile boolean started;
+
+	TripSubscriber(long bookingId, UUID sessionId, ServletOutputStream out, int capacity, Executor writer,
+			Runnable complete) {
+		this.bookingId = bookingId;
+		this.sessionId = sessionId;
+		this.out = out;
+		this.capacity = capacity;
+		this.writer = writer;
+		this.complete = complete;
+		this.frames = new ArrayDeque<>(Math.min(capacity, 16));
+	}
+
+	long bookingId() {
+		return bookingId;
+	}
+
+	UUID sessionId() {
+		return sessionId;
+	}
+
+	/** Queues a frame; false when the queue is full, and the caller should close this subscriber. */
+	boolean offer(byte[] frame) {
+		synchronized (this) {
+			if (closed || closing) {
+				return true;
+			}
+			if (frames.size() >= capacity) {
+				return false;
+			}
+			frames.add(frame);
+		}
+		schedule();
+		return true;
+	}
+
+	/** Replaces the position waiting to be sent, if any; true when one was replaced unsent. */
+	boolean offerPosition(byte[] frame) {
+		boolean replaced;
+		synchronized (this) {
+			if (closed || closing) {
+				return false;
+			}
+			replaced = position != null;
+			position = frame;
+		}
+		schedule();
+		return replaced;
+	}
+
+	/** A comment line for an otherwise idle stream, so proxies keep it open and dead peers show up as write errors. */
+	void heartbeat() {
+		synchronized (this) {
+			if (closed || closing || !frames.isEmpty() || position != null) {
+				return;
+			}
+			frames.add(HEARTBEAT);
+		}
+		schedule();
+	}
+
+	/** Sends what is queued, then ends the stream. */
+	void closeAfterDrain() {
+		synchronized (this) {
+			closing = true;
+		}
+		schedule();
+	}
+
+	/** Ends the stream now, dropping anything unsent. */
+	void close() {
+		if (markClosed()) {
+			complete.run();
+		}
+	}
+
+	/** The response has ended by other means (client gone, timeout); nothing more is written. */
+	void ended() {
+		markClosed();
+	}
+
+	private synchronized boolean markClosed() {
+		if (closed) {
+			return false;
+		}
+		closed = true;
+		frames.clear();
+		position = null;
+		return true;
+	}
+
+	synchronized boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public void onWritePossible() {
+		started = true;
+		pump();
+	}
+
+	@Override
+	public void onError(Throwable t) {
+		close();
+	}
+
+	private void schedule() {
+		if (started && scheduled.compareAndSet(false, true)) {
+			writer.execute(pump);
+		}
+	}
+
+	private void scheduledPump() {
+		// cleared first: a frame queued from here on schedules another pass
+		scheduled.set(false);
+		pump();
+	}
+
+	private void pump() {
+		boolean end = false;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			try {
+				while (out.isReady()) {
+					byte[] next = frames.poll();
+					if (next == null && position != null) {
+						next = position;
+						position = null;
+					}
+					if (next != null) {
+						out.write(next);
+						flushPending = true;
+					} else if (flushPending) {
+						out.flush();
+						flushPending = false;
+					} else {
+						end = closing;
+						break;
+					}
+				}
+			} catch (IOException e) {
+				// the client went away
+				end = true;
+			}
+		}
+		if (end) {
+			close();
+		}
+	}
+}
@@ -0,0 +1,294 @@
+package com.porter_replica.backend.trip.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.porter_replica.backend.booking.BookingStatus;
+
+/**
+ * Append-only log of trip status changes in memory-mapped segment files,
+ * each named after its first sequence number. Records are fixed-size:
+ *
+ * <pre>
+ *  0 sequence      8 booking id   16 customer id   24 driver id
+ * 32 at (millis)  40 status       41 (padding)     44 CRC32C of bytes 0-43
+ * </pre>
+ *
+ * A new segment is mapped at full size, so it reads as zeros past the last
+ * record; on open the log ends at the first record whose sequence or
+ * checksum is off, which is where a crash mid-write leaves it. Appends are
+ * single-threaded and reach the disk only on {@link #force}; reads may run
+ * on other threads but must stay at or below a sequence already forced.
+ */
+public final class TripJournal implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(TripJournal.class);
+
+	public static final int RECORD_BYTES = 48;
+	private static final int CHECKSUMMED_BYTES = 44;
+	private static final String SUFFIX = ".journal";
+	private static final BookingStatus[] STATUSES = BookingStatus.values();
+
+	/** One record; customer and driver ids are 0 when the change does not carry them. */
+	@FunctionalInterface
+	public interface RecordHandler {
+		void record(long sequence, long bookingId, long customerId, long driverId, BookingStatus status, long atMillis);
+	}
+
+	// capacity in records: segments keep the size they were created with
+	private record Segment(long firstSequence, int capacity, Path path, MappedByteBuffer buffer) {
+	}
+
+	private final Path directory;
+	private final int recordsPerSegment;
+	private final CopyOnWriteArrayList<Segment> segments = new CopyOnWriteArrayList<>();
+	private final CRC32C crc = new CRC32C();
+	private final byte[] scratch = new byte[RECORD_BYTES];
+
+	// append side
+	private Segment tail;
+	private int tailRecords;
+	private int unforcedFrom;
+	private long lastSequence;
+
+	public TripJournal(Path directory, int segmentBytes) throws IOException {
+		if (segmentBytes < RECORD_BYTES) {
+			throw new IllegalArgumentException("journal segments must hold at least one record");
+		}
+		this.directory = directory;
+		this.recordsPerSegment = segmentBytes / RECORD_BYTES;
+		Files.createDirectories(directory);
+		recover();
+	}
+
+	public long lastSequence() {
+		return lastSequence;
+	}
+
+	/** Writes the next record into the mapped tail, rolling to a new segment when it is full. */
+	public long append(long bookingId, long customerId, long driverId, BookingStatus status, long atMillis) {
+		if (tailRecords == tail.capacity()) {
+			roll();
+		}
+		long sequence = lastSequence + 1;
+		int offset = tailRecords * RECORD_BYTES;
+		MappedByteBuffer buffer = tail.buffer();
+		buffer.putLong(offset, sequence);
+		buffer.putLong(offset + 8, bookingId);
+		buffer.putLong(offset + 16, customerId);
+		buffer.putLong(offset + 24, driverId);
+		buffer.putLong(offset + 32, atMillis);
+		buffer.put(offset + 40, (byte) status.ordinal());
+		buffer.putInt(offset + CHECKSUMMED_BYTES, checksum(buffer, offset));
+		tailRecords++;
+		lastSequence = sequence;
+		return sequence;
+	}
+
+	/** Flushes everything appended since the last call to the storage device. */
+	public void force() {
+		int to = tailRecords * RECORD_BYTES;
+		if (to > unforcedFrom) {
+			tail.buffer().force(unforcedFrom, to - unforcedFrom);
+			unforcedFrom = to;
+		}
+	}
+
+	/**
+	 * Drops the records after {@code sequence} for good, together with any
+	 * segment that only held such records. A roll forces the segment it
+	 * leaves, so some of them may already be on disk: they are zeroed and
+	 * forced again, or a restart would replay them.
+	 */
+	public void truncate(long sequence) {
+		if (sequence < segments.get(0).firstSequence() - 1 || sequence > lastSequence) {
+			throw new IllegalArgumentException("cannot truncate to " + sequence);
+		}
+		while (sequence < tail.firstSequence() - 1) {
+			Segment dropped = segments.remove(segments.size() - 1);
+			clearFrom(dropped.buffer(), 0);
+			try {
+				Files.deleteIfExists(dropped.path());
+			} catch (IOException e) {
+				// zeroed, so recovery ends before it and deletes it
+				log.warn("Cannot delete journal segment {}: {}", dropped.path(), e.getMessage());
+			}
+			tail = segments.get(segments.size() - 1);
+			// a segment is only left behind once full, and rolling forced it
+			tailRecords = tail.capacity();
+			unforcedFrom = tailRecords * RECORD_BYTES;
+		}
+		int keep = (int) (sequence - tail.firstSequence() + 1);
+		int end = tailRecords * RECORD_BYTES;
+		for (int offset = keep * RECORD_BYTES; offset < end; offset += 8) {
+			tail.buffer().putLong(offset, 0);
+		}
+		tailRecords = keep;
+		lastSequence = sequence;
+		if (unforcedFrom > keep * RECORD_BYTES) {
+			// some of the dropped records were forced; make the zeros durable too
+			tail.buffer().force(keep * RECORD_BYTES, unforcedFrom - keep * RECORD_BYTES);
+		}
+		unforcedFrom = Math.min(unforcedFrom, keep * RECORD_BYTES);
+	}
+
+	/** Hands records {@code from}..{@code to} (inclusive) that are still on disk to {@code handler}, in order; returns how many. */
+	public int read(long from, long to, RecordHandler handler) {
+		int count = 0;
+		List<Segment> current = segments;
+		for (int i = 0; i < current.size(); i++) {
+			Segment segment = current.get(i);
+			long segmentLast = segment.firstSequence() + segment.capacity() - 1;
+			if (segmentLast < from) {
+				continue;
+			}
+			if (segment.firstSequence() > to) {
+				break;
+			}
+			long sequence = Math.max(from, segment.firstSequence());
+			long last = Math.min(to, segmentLast);
+			for (; sequence <= last; sequence++) {
+				int offset = (int) (sequence - segment.firstSequence()) * RECORD_BYTES;
+				MappedByteBuffer buffer = segment.buffer();
+				handler.record(buffer.getLong(offset), buffer.getLong(offset + 8), buffer.getLong(offset + 16),
+						buffer.getLong(offset + 24), STATUSES[buffer.get(offset + 40)], buffer.getLong(offset + 32));
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/** Deletes the segments holding only records before {@code sequence}; never the tail. */
+	public int deleteBefore(long sequence) {
+		int deleted = 0;
+		while (segments.size() > 1 && segments.get(1).firstSequence() <= sequence) {
+			Segment oldest = segments.remove(0);
+			try {
+				Files.deleteIfExists(oldest.path());
+				deleted++;
+			} catch (IOException e) {
+				log.warn("Cannot delete journal segment {}: {}", oldest.path(), e.getMessage());
+			}
+		}
+		return deleted;
+	}
+
+	public int segmentCount() {
+		return segments.size();
+	}
+
+	@Override
+	public void close() {
+		force();
+	}
+
+	private void recover() throws IOException {
+		List<Path> files;
+		try (Stream<Path> listing = Files.list(directory)) {
+			files = listing.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+		}
+		List<Segment> found = new ArrayList<>();
+		boolean ended = false;
+		for (Path path : files) {
+			if (ended) {
+				log.warn("Deleting journal segment {}: it follows a damaged one", path);
+				Files.delete(path);
+				continue;
+			}
+			String name = path.getFileName().toString();
+			long first = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+			if (found.isEmpty()) {
+				// the segments before it were deleted once a snapshot covered them
+				lastSequence = first - 1;
+			} else if (first != lastSequence + 1) {
+				throw new IOException("journal segment " + path + " does not follow sequence " + lastSequence);
+			}
+			int capacity = (int) (Files.size(path) / RECORD_BYTES);
+			if (capacity == 0) {
+				// created but never mapped: the crash came mid-roll
+				Files.delete(path);
+				continue;
+			}
+			Segment segment = new Segment(first, capacity, path, map(path, capacity));
+			found.add(segment);
+			int valid = 0;
+			while (valid < capacity && isValid(segment.buffer(), valid, first + valid)) {
+				valid++;
+			}
+			lastSequence = first + valid - 1;
+			tail = segment;
+			tailRecords = valid;
+			if (valid < capacity) {
+				ended = true;
+				clearFrom(segment.buffer(), valid);
+			}
+		}
+		segments.addAll(found);
+		if (tail == null) {
+			roll();
+		}
+		unforcedFrom = tailRecords * RECORD_BYTES;
+	}
+
+	private boolean isValid(MappedByteBuffer buffer, int index, long expectedSequence) {
+		int offset = index * RECORD_BYTES;
+		return buffer.getLong(offset) == expectedSequence
+				&& buffer.getInt(offset + CHECKSUMMED_BYTES) == checksum(buffer, offset)
+				&& buffer.get(offset + 40) >= 0 && buffer.get(offset + 40) < STATUSES.length;
+	}
+
+	// pages reach the disk in any order, so records past a torn one can be intact; they must not come back
+	private void clearFrom(MappedByteBuffer buffer, int index) {
+		for (int offset = index * RECORD_BYTES; offset + 8 <= buffer.capacity(); offset += 8) {
+			if (buffer.getLong(offset) != 0) {
+				buffer.putLong(offset, 0);
+			}
+		}
+		buffer.force();
+	}
+
+	private int checksum(MappedByteBuffer buffer, int offset) {
+		buffer.get(offset, scratch, 0, CHECKSUMMED_BYTES);
+		crc.reset();
+		crc.update(scratch, 0, CHECKSUMMED_BYTES);
+		return (int) crc.getValue();
+	}
+
+	private void roll() {
+		if (tail != null) {
+			force();
+		}
+		long first = lastSequence + 1;
+		Path path = directory.resolve(String.format("%020d%s", first, SUFFIX));
+		try {
+			tail = new Segment(first, recordsPerSegment, path, map(path, recordsPerSegment));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot create journal segment " + path, e);
+		}
+		segments.add(tail);
+		tailRecords = 0;
+		unforcedFrom = 0;
+	}
+
+	private MappedByteBuffer map(Path path, int capacity) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			// the mapping outlives the channel
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_BYTES);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.porter_replica.backend.trip.journal;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.porter_replica.backend.booking.BookingStatus;
+import com.porter_replica.backend.booking.history.BookingHistory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Copies the journal's status changes onto booking rows, behind the
+ * journal: every {@code projection.interval-millis} it reads up to
+ * {@code projection.batch-size} committed records after the last projected
+ * one and applies them as one JDBC batch per status. Assignments, expiries
+ * and new bookings are skipped, the dispatch engine and booking service
+ * having written those rows already. Delivered and cancelled bookings are
+ * copied into {@link BookingHistory} in the same transaction. Each update
+ * only moves a booking forward, and history skips bookings it has, so
+ * re-applying records after a crash changes nothing.
+ */
+@Component
+public class TripProjector implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(TripProjector.class);
+
+	// in lifecycle order, so one booking's changes within a batch land in the order they happened
+	private static final BookingStatus[] PROJECTED = {
+			BookingStatus.ARRIVED, BookingStatus.PICKED_UP, BookingStatus.DELIVERED, BookingStatus.CANCELLED };
+	private static final String[] SQL = {
+			"update bookings set status = 'ARRIVED', arrived_at = ? where id = ? and status = 'ASSIGNED'",
+			"update bookings set status = 'PICKED_UP', picked_up_at = ? where id = ? "
+					+ "and status in ('ASSIGNED', 'ARRIVED')",
+			"update bookings set status = 'DELIVERED', delivered_at = ? where id = ? "
+					+ "and status in ('ASSIGNED', 'ARRIVED', 'PICKED_UP')",
+			"update bookings set status = 'CANCELLED', cancelled_at = ? where id = ? "
+					+ "and status in ('SEARCHING', 'ASSIGNED', 'ARRIVED')" };
+
+	private final TripStore store;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final BookingHistory history;
+	private final int batchSize;
+	private final ScheduledExecutorService scheduler;
+	private final Counter projected;
+
+	public TripProjector(TripStore store,
+			JdbcTemplate jdbcTemplate,
+			TransactionTemplate transactionTemplate,
+			BookingHistory history,
+			MeterRegistry meterRegistry,
+			@Value("${trip-journal.projection.interval-millis:200}") long intervalMillis,
+			@Value("${trip-journal.projection.batch-size:5000}") int batchSize) {
+		this.store = store;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.history = history;
+		this.batchSize = batchSize;
+		this.projected = Counter.builder("trip.journal.projected")
+				.register(meterRegistry);
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "trip-projector");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::runProjection, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/** Projects the next batch; returns how many records it read. */
+	public synchronized int project() throws IOException {
+		long from = store.projectedSequence() + 1;
+		List<List<Object[]>> updates = new ArrayList<>(PROJECTED.length);
+		for (int i = 0; i < PROJECTED.length; i++) {
+			updates.add(new ArrayList<>());
+		}
+		long[] last = { from - 1 };
+		int read = store.read(from, batchSize, (sequence, bookingId, customerId, driverId, status, atMillis) -> {
+			last[0] = sequence;
+			for (int i = 0; i < PROJECTED.length; i++) {
+				if (PROJECTED[i] == status) {
+					updates.get(i).add(new Object[] { new Timestamp(atMillis), bookingId });
+				}
+			}
+		});
+		if (read == 0) {
+			return 0;
+		}
+		int applied = transactionTemplate.execute(status -> {
+			int rows = 0;
+			List<Long> ended = new ArrayList<>();
+			for (int i = 0; i < PROJECTED.length; i++) {
+				if (updates.get(i).isEmpty()) {
+					continue;
+				}
+				jdbcTemplate.batchUpdate(SQL[i], updates.get(i));
+				rows += updates.get(i).size();
+				if (PROJECTED[i].isFinal()) {
+					updates.get(i).forEach(args -> ended.add((Long) args[1]));
+				}
+			}
+			history.archive(ended);
+			return rows;
+		});
+		store.projected(last[0]);
+		projected.increment(applied);
+		return read;
+	}
+
+	@Override
+	public void destroy() {
+		scheduler.shutdownNow();
+	}
+
+	private void runProjection() {
+		try {
+			// catch up in batches, without waiting an interval between them
+			while (project() == batchSize) {
+			}
+		} catch (DataAccessException | IOException e) {
+			// retried next interval, from the same record
+			log.warn("Trip projection failed: {}", e.getMessage());
+		} catch (RuntimeException e) {
+			log.error("Trip projection failed", e);
+		}
+	}
+}
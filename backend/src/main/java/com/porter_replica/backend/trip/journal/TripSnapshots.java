@@ -0,0 +1,141 @@
+package com.porter_replica.backend.trip.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.porter_replica.backend.booking.BookingStatus;
+
+/**
+ * Snapshot files of every trip the journal holds, named after the last
+ * sequence they include: a header, one fixed-size entry per trip and a
+ * CRC32C of everything before it. A snapshot is written beside its final
+ * name and moved into place, so a crash leaves either the old one or the
+ * new one; a damaged snapshot is skipped for the one before it.
+ */
+final class TripSnapshots {
+
+	private static final Logger log = LoggerFactory.getLogger(TripSnapshots.class);
+
+	private static final int MAGIC = 0x54524950;
+	private static final int VERSION = 1;
+	private static final String PREFIX = "snapshot-";
+	private static final String SUFFIX = ".bin";
+	private static final BookingStatus[] STATUSES = BookingStatus.values();
+	// the newest is read, the one before it is the fallback
+	private static final int KEEP = 2;
+
+	record Snapshot(long sequence, List<TripState> trips) {
+	}
+
+	private TripSnapshots() {
+	}
+
+	static void write(Path directory, long sequence, Collection<TripState> trips) throws IOException {
+		Path target = directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+		Path partial = target.resolveSibling(target.getFileName() + ".partial");
+		CRC32C crc = new CRC32C();
+		try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			OutputStream stream = new CheckedOutputStream(
+					new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc);
+			DataOutputStream out = new DataOutputStream(stream);
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(sequence);
+			out.writeInt(trips.size());
+			for (TripState trip : trips) {
+				out.writeLong(trip.bookingId());
+				out.writeLong(trip.customerId());
+				out.writeLong(trip.driverId());
+				out.writeByte(trip.status().ordinal());
+				out.writeLong(trip.updatedAtMillis());
+			}
+			out.flush();
+			// the checksum itself is left out of the checksum
+			new DataOutputStream(Channels.newOutputStream(channel)).writeLong(crc.getValue());
+			channel.force(true);
+		}
+		Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+		List<Path> all = list(directory);
+		for (int i = 0; i < all.size() - KEEP; i++) {
+			Files.deleteIfExists(all.get(i));
+		}
+	}
+
+	/** The newest readable snapshot, or null when there is none. */
+	static Snapshot latest(Path directory) throws IOException {
+		List<Path> all = list(directory);
+		for (int i = all.size() - 1; i >= 0; i--) {
+			try {
+				return read(all.get(i));
+			} catch (IOException e) {
+				log.warn("Skipping trip snapshot {}: {}", all.get(i), e.getMessage());
+			}
+		}
+		return null;
+	}
+
+	private static Snapshot read(Path path) throws IOException {
+		CRC32C crc = new CRC32C();
+		try (InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+			DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc));
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("not a trip snapshot");
+			}
+			long sequence = in.readLong();
+			int count = in.readInt();
+			if (count < 0) {
+				throw new IOException("bad trip count " + count);
+			}
+			List<TripState> trips = new ArrayList<>(Math.min(count, 1 << 20));
+			for (int i = 0; i < count; i++) {
+				long bookingId = in.readLong();
+				long customerId = in.readLong();
+				long driverId = in.readLong();
+				int status = in.readUnsignedByte();
+				long updatedAtMillis = in.readLong();
+				if (status >= STATUSES.length) {
+					throw new IOException("bad status " + status);
+				}
+				trips.add(new TripState(bookingId, customerId, driverId, STATUSES[status], updatedAtMillis));
+			}
+			long expected = crc.getValue();
+			if (new DataInputStream(file).readLong() != expected) {
+				throw new IOException("checksum mismatch");
+			}
+			return new Snapshot(sequence, trips);
+		}
+	}
+
+	private static List<Path> list(Path directory) throws IOException {
+		try (Stream<Path> listing = Files.list(directory)) {
+			return listing.filter(path -> {
+				String name = path.getFileName().toString();
+				return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+			}).sorted(Comparator.comparing(Path::getFileName)).toList();
+		}
+	}
+}
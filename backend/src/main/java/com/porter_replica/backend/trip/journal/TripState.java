@@ -0,0 +1,17 @@
+package com.porter_replica.backend.trip.journal;
+
+import com.porter_replica.backend.booking.BookingStatus;
+
+/** A trip as the journal last left it; {@code customerId} and {@code driverId} are 0 while unknown. */
+public record TripState(long bookingId, long customerId, long driverId, BookingStatus status, long updatedAtMillis) {
+
+	/** This state after a journal record; ids the record leaves at 0 are kept. */
+	TripState next(long customerId, long driverId, BookingStatus status, long atMillis) {
+		return new TripState(bookingId, customerId != 0 ? customerId : this.customerId,
+				driverId != 0 ? driverId : this.driverId, status, atMillis);
+	}
+
+	static TripState first(long bookingId, long customerId, long driverId, BookingStatus status, long atMillis) {
+		return new TripState(bookingId, customerId, driverId, status, atMillis);
+	}
+}
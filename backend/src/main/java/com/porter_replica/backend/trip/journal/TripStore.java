@@ -0,0 +1,432 @@
+package com.porter_replica.backend.trip.journal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.porter_replica.backend.booking.BookingStatus;
+import com.porter_replica.backend.booking.BookingStatusChanged;
+import com.porter_replica.backend.common.DomainException;
+import com.porter_replica.backend.common.ErrorCode;
+import com.porter_replica.backend.driver.geo.DriverGeoIndex;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Trip lifecycle state, kept in memory and made durable in a
+ * {@link TripJournal} rather than by updating booking rows.
+ *
+ * Every change goes through one writer thread: it checks the change
+ * against the trip's current status, appends a record, and after a batch of
+ * up to {@code max-batch} changes forces the journal once (group commit)
+ * before completing the callers' futures. With one thread owning the state
+ * there are no row or trip locks to contend on, however hot a trip is.
+ *
+ * Every {@code snapshot-every-events} records the writer snapshots all
+ * trips, dropping those that ended more than {@code ended-retention-seconds}
+ * ago, and deletes the segments both the snapshot and {@link TripProjector}
+ * are past. Startup loads the newest snapshot and replays the journal after
+ * it. Status changes requested here (arrived, picked up, delivered,
+ * cancelled) are published as {@link BookingStatusChanged} once durable;
+ * assignments and expiries come in from the dispatch engine's own events.
+ *
+ * {@code directory} empty puts the journal in a temporary directory, which
+ * does not survive a restart (tests, local runs).
+ */
+@Component
+public class TripStore implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(TripStore.class);
+
+	private static final String CHECKPOINT = "projected.checkpoint";
+	private static final long SYSTEM = 0;
+
+	private final Path directory;
+	private final TripJournal journal;
+	private final ConcurrentHashMap<Long, TripState> trips = new ConcurrentHashMap<>();
+	private final ArrayBlockingQueue<Command> commands;
+	private final ApplicationEventPublisher events;
+	private final DriverGeoIndex geoIndex;
+	private final boolean fsync;
+	private final int maxBatch;
+	private final long snapshotEveryEvents;
+	private final long endedRetentionMillis;
+	private final long commitTimeoutMillis;
+
+	private volatile long committedSequence;
+	private volatile long projectedSequence;
+	private volatile boolean running = true;
+	// writer thread only
+	private long snapshotSequence;
+	private final Thread writer;
+
+	private final Timer commitLatency;
+	private final DistributionSummary batchSize;
+	private final Counter rejected;
+	private final Timer snapshotDuration;
+
+	public TripStore(ApplicationEventPublisher events,
+			DriverGeoIndex geoIndex,
+			MeterRegistry meterRegistry,
+			@Value("${trip-journal.directory:}") String directory,
+			@Value("${trip-journal.temporary:false}") boolean temporary,
+			@Value("${trip-journal.segment-megabytes:64}") int segmentMegabytes,
+			@Value("${trip-journal.fsync:true}") boolean fsync,
+			@Value("${trip-journal.queue-capacity:65536}") int queueCapacity,
+			@Value("${trip-journal.max-batch:1024}") int maxBatch,
+			@Value("${trip-journal.snapshot-every-events:100000}") long snapshotEveryEvents,
+			@Value("${trip-journal.ended-retention-seconds:600}") long endedRetentionSeconds,
+			@Value("${trip-journal.commit-timeout-millis:5000}") long commitTimeoutMillis) throws IOException {
+
+		if (directory.isBlank()) {
+			if (!temporary) {
+				throw new IllegalStateException("trip-journal.directory is not set; trips would be lost on restart");
+			}
+			this.directory = Files.createTempDirectory("trip-journal");
+			log.warn("trip-journal.temporary is set; trips are journaled to {} and lost on restart", this.directory);
+		} else {
+			this.directory = Path.of(directory);
+		}
+		this.events = events;
+		this.geoIndex = geoIndex;
+		this.fsync = fsync;
+		this.maxBatch = maxBatch;
+		this.snapshotEveryEvents = snapshotEveryEvents;
+		this.endedRetentionMillis = TimeUnit.SECONDS.toMillis(endedRetentionSeconds);
+		this.commitTimeoutMillis = commitTimeoutMillis;
+		this.commands = new ArrayBlockingQueue<>(queueCapacity);
+
+		this.commitLatency = Timer.builder("trip.journal.commit.latency")
+				.register(meterRegistry);
+		this.batchSize = DistributionSummary.builder("trip.journal.batch.size")
+				.register(meterRegistry);
+		this.rejected = Counter.builder("trip.journal.rejected")
+				.register(meterRegistry);
+		this.snapshotDuration = Timer.builder("trip.journal.snapshot.duration")
+				.register(meterRegistry);
+		Timer recovery = Timer.builder("trip.journal.recovery.duration")
+				.register(meterRegistry);
+
+		long start = System.nanoTime();
+		this.journal = new TripJournal(this.directory, Math.multiplyExact(segmentMegabytes, 1 << 20));
+		int replayed = recover();
+		long elapsed = System.nanoTime() - start;
+		recovery.record(elapsed, TimeUnit.NANOSECONDS);
+		log.info("Trip journal recovered {} trips from snapshot {} and {} records in {} ms", trips.size(),
+				snapshotSequence, replayed, TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+		Gauge.builder("trip.journal.trips", trips, Map::size)
+				.register(meterRegistry);
+		Gauge.builder("trip.journal.segments", journal, TripJournal::segmentCount)
+				.register(meterRegistry);
+		Gauge.builder("trip.journal.projection.lag", this, store -> store.committedSequence - store.projectedSequence)
+				.register(meterRegistry);
+
+		this.writer = new Thread(this::writeLoop, "trip-journal-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public Optional<TripState> state(long bookingId) {
+		return Optional.ofNullable(trips.get(bookingId));
+	}
+
+	/** Journals a new booking; does not wait for it to be durable (the booking row already is). */
+	public void requested(long bookingId, long customerId) {
+		submit(bookingId, BookingStatus.SEARCHING, SYSTEM, customerId, 0);
+	}
+
+	/**
+	 * Moves the trip to {@code status} on behalf of {@code userId}, its driver
+	 * (arrived, picked up, delivered) or its customer (cancelled), and waits
+	 * until the change is durable.
+	 */
+	public TripState transition(long bookingId, BookingStatus status, long userId) {
+		CompletableFuture<TripState> result = submit(bookingId, status, userId, 0, 0);
+		try {
+			return result.get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof DomainException domain) {
+				throw domain;
+			}
+			throw new IllegalStateException("Trip journal failed", e.getCause());
+		} catch (TimeoutException e) {
+			throw ErrorCode.SERVER_BUSY.exception();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw ErrorCode.SERVER_BUSY.exception();
+		}
+	}
+
+	@EventListener
+	public void onStatusChanged(BookingStatusChanged event) {
+		if (event.status() == BookingStatus.ASSIGNED) {
+			submit(event.bookingId(), BookingStatus.ASSIGNED, SYSTEM, 0, event.driverId());
+		} else if (event.status() == BookingStatus.EXPIRED) {
+			submit(event.bookingId(), BookingStatus.EXPIRED, SYSTEM, 0, 0);
+		}
+	}
+
+	public long committedSequence() {
+		return committedSequence;
+	}
+
+	public long projectedSequence() {
+		return projectedSequence;
+	}
+
+	/** Reads committed records from {@code from} on, at most {@code limit} of them. */
+	public int read(long from, int limit, TripJournal.RecordHandler handler) {
+		long to = Math.min(committedSequence, from + limit - 1);
+		return to < from ? 0 : journal.read(from, to, handler);
+	}
+
+	/** Records that everything up to {@code sequence} is in the database, so those segments can go. */
+	public void projected(long sequence) throws IOException {
+		Path checkpoint = directory.resolve(CHECKPOINT);
+		Path partial = directory.resolve(CHECKPOINT + ".partial");
+		Files.writeString(partial, Long.toString(sequence));
+		Files.move(partial, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		projectedSequence = sequence;
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		running = false;
+		writer.join(TimeUnit.SECONDS.toMillis(5));
+	}
+
+	private CompletableFuture<TripState> submit(long bookingId, BookingStatus status, long actorId, long customerId,
+			long driverId) {
+		Command command = new Command(bookingId, status, actorId, customerId, driverId, System.nanoTime());
+		if (!running || !commands.offer(command)) {
+			command.result.completeExceptionally(ErrorCode.SERVER_BUSY.exception());
+		}
+		return command.result;
+	}
+
+	private int recover() throws IOException {
+		TripSnapshots.Snapshot snapshot = TripSnapshots.latest(directory);
+		if (snapshot != null) {
+			for (TripState trip : snapshot.trips()) {
+				trips.put(trip.bookingId(), trip);
+			}
+			snapshotSequence = snapshot.sequence();
+		}
+		Path checkpoint = directory.resolve(CHECKPOINT);
+		if (Files.exists(checkpoint)) {
+			projectedSequence = Long.parseLong(Files.readString(checkpoint).trim());
+		}
+		int replayed = journal.read(snapshotSequence + 1, journal.lastSequence(),
+				(sequence, bookingId, customerId, driverId, status, atMillis) -> {
+					TripState current = trips.get(bookingId);
+					trips.put(bookingId, current == null
+							? TripState.first(bookingId, customerId, driverId, status, atMillis)
+							: current.next(customerId, driverId, status, atMillis));
+				});
+		committedSequence = journal.lastSequence();
+		// drivers still on a trip must not be dispatched again when they next ping
+		for (TripState trip : trips.values()) {
+			if (trip.driverId() != 0 && !trip.status().isFinal()) {
+				geoIndex.markOnTrip(trip.driverId());
+			}
+		}
+		if (projectedSequence > committedSequence) {
+			// a journal lost under the checkpoint: project whatever comes next
+			projectedSequence = committedSequence;
+		}
+		return replayed;
+	}
+
+	private void writeLoop() {
+		List<Command> batch = new ArrayList<>(maxBatch);
+		// changes of this batch, seen by the checks that follow them before they are published
+		Map<Long, TripState> staged = new HashMap<>();
+		while (running || !commands.isEmpty()) {
+			try {
+				Command first = commands.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				commands.drainTo(batch, maxBatch - 1);
+				commit(batch, staged);
+				if (journal.lastSequence() - snapshotSequence >= snapshotEveryEvents) {
+					snapshot();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				log.error("Trip journal writer failed a batch of {}", batch.size(), e);
+				for (Command command : batch) {
+					command.result.completeExceptionally(ErrorCode.INTERNAL_ERROR.exception());
+				}
+			} finally {
+				batch.clear();
+				staged.clear();
+			}
+		}
+		journal.close();
+	}
+
+	private void commit(List<Command> batch, Map<Long, TripState> staged) {
+		long before = journal.lastSequence();
+		long now = System.currentTimeMillis();
+		try {
+			for (Command command : batch) {
+				TripState current = staged.containsKey(command.bookingId)
+						? staged.get(command.bookingId)
+						: trips.get(command.bookingId);
+				ErrorCode error = check(command, current);
+				if (error != null) {
+					rejected.increment();
+					command.outcome = error;
+					continue;
+				}
+				journal.append(command.bookingId, command.customerId, command.driverId, command.status, now);
+				TripState next = current == null
+						? TripState.first(command.bookingId, command.customerId, command.driverId, command.status, now)
+						: current.next(command.customerId, command.driverId, command.status, now);
+				staged.put(command.bookingId, next);
+				command.state = next;
+			}
+			if (fsync && journal.lastSequence() > before) {
+				journal.force();
+			}
+		} catch (RuntimeException e) {
+			// the whole batch fails, so none of it may be replayed; a roll mid-batch already forced part of it
+			try {
+				journal.truncate(before);
+			} catch (RuntimeException truncateFailure) {
+				e.addSuppressed(truncateFailure);
+			}
+			throw e;
+		}
+
+		trips.putAll(staged);
+		committedSequence = journal.lastSequence();
+		batchSize.record(batch.size());
+		long doneNanos = System.nanoTime();
+		for (Command command : batch) {
+			commitLatency.record(doneNanos - command.submittedNanos, TimeUnit.NANOSECONDS);
+			if (command.state == null) {
+				if (command.status == BookingStatus.ASSIGNED && command.actorId == SYSTEM) {
+					// assigned in the database, but the trip was cancelled here first: the driver is free
+					geoIndex.release(command.driverId);
+				}
+				command.result.completeExceptionally(command.outcome.exception());
+				continue;
+			}
+			TripState state = command.state;
+			if (command.actorId != SYSTEM) {
+				if ((state.status() == BookingStatus.DELIVERED || state.status() == BookingStatus.CANCELLED)
+						&& state.driverId() != 0) {
+					geoIndex.release(state.driverId());
+				}
+				events.publishEvent(new BookingStatusChanged(state.bookingId(), state.status(),
+						state.driverId() == 0 ? null : state.driverId(), null));
+			}
+			command.result.complete(state);
+		}
+	}
+
+	// null when the change is allowed
+	private static ErrorCode check(Command command, TripState current) {
+		BookingStatus from = current == null ? null : current.status();
+		switch (command.status) {
+		case SEARCHING:
+			return from == null ? null : ErrorCode.INVALID_TRIP_TRANSITION;
+		case ASSIGNED:
+		case EXPIRED:
+			// the dispatch engine's word, also for bookings made before the journal saw them
+			return from == null || from == BookingStatus.SEARCHING ? null : ErrorCode.INVALID_TRIP_TRANSITION;
+		case CANCELLED:
+			if (current == null || current.customerId() != command.actorId) {
+				return ErrorCode.BOOKING_NOT_FOUND;
+			}
+			return from == BookingStatus.SEARCHING || from == BookingStatus.ASSIGNED || from == BookingStatus.ARRIVED
+					? null : ErrorCode.INVALID_TRIP_TRANSITION;
+		case ARRIVED:
+		case PICKED_UP:
+		case DELIVERED:
+			if (current == null || current.driverId() != command.actorId) {
+				return ErrorCode.BOOKING_NOT_FOUND;
+			}
+			BookingStatus required = command.status == BookingStatus.ARRIVED ? BookingStatus.ASSIGNED
+					: command.status == BookingStatus.PICKED_UP ? BookingStatus.ARRIVED : BookingStatus.PICKED_UP;
+			return from == required ? null : ErrorCode.INVALID_TRIP_TRANSITION;
+		default:
+			return ErrorCode.INVALID_TRIP_TRANSITION;
+		}
+	}
+
+	private void snapshot() {
+		long start = System.nanoTime();
+		long cutoff = System.currentTimeMillis() - endedRetentionMillis;
+		for (Iterator<TripState> it = trips.values().iterator(); it.hasNext();) {
+			TripState trip = it.next();
+			if (trip.status().isFinal() && trip.updatedAtMillis() < cutoff) {
+				it.remove();
+			}
+		}
+		long sequence = journal.lastSequence();
+		try {
+			TripSnapshots.write(directory, sequence, trips.values());
+		} catch (IOException e) {
+			log.warn("Cannot write trip snapshot: {}", e.getMessage());
+			return;
+		}
+		snapshotSequence = sequence;
+		journal.deleteBefore(Math.min(snapshotSequence, projectedSequence) + 1);
+		snapshotDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	private static final class Command {
+		final long bookingId;
+		final BookingStatus status;
+		final long actorId;
+		final long customerId;
+		final long driverId;
+		final long submittedNanos;
+		final CompletableFuture<TripState> result = new CompletableFuture<>();
+		// writer thread only
+		TripState state;
+		ErrorCode outcome;
+
+		Command(long bookingId, BookingStatus status, long actorId, long customerId, long driverId,
+				long submittedNanos) {
+			this.bookingId = bookingId;
+			this.status = status;
+			this.actorId = actorId;
+			this.customerId = customerId;
+			this.driverId = driverId;
+			this.submittedNanos = submittedNanos;
+		}
+	}
+}
@@ -42,6 +42,11 @@ public class User {
 	@Column(nullable = false)
 	private Role role;
 
+	// drivers only
+	@Enumerated(EnumType.STRING)
+	@Column(name = "vehicle_type")
+	private VehicleType vehicleType;
+
 
 
 	public Long getId() {
@@ -108,6 +113,14 @@ public class User {
 		this.updatedAt = updatedAt;
 	}
 
+	public VehicleType getVehicleType() {
+		return vehicleType;
+	}
+
+	public void setVehicleType(VehicleType vehicleType) {
+		this.vehicleType = vehicleType;
+	}
+
 	@PrePersist
 	void onCreate() {
 		this.createdAt = LocalDateTime.now();
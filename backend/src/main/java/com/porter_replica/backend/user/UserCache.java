@@ -0,0 +1,120 @@
+package com.porter_replica.backend.user;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.porter_replica.backend.datasource.ReadReplicas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded, TTL-limited caches of users: credentials by email (login) and
+ * profiles by id (token refresh, anything keyed by the JWT subject).
+ *
+ * Concurrent misses on one key share a single query: the first caller parks
+ * a future in the cache and loads on its own thread, the others wait on that
+ * future. Unknown users are not cached, so a signup is visible at once.
+ * Writes on this node call {@link #invalidate}; other nodes see them when
+ * the entry expires.
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+	private final UserRepository userRepository;
+	private final ReadReplicas readReplicas;
+	private final AsyncCache<String, UserCredentials> credentialsByEmail;
+	private final AsyncCache<Long, UserProfile> profilesById;
+
+	public UserCache(UserRepository userRepository,
+			ReadReplicas readReplicas,
+			@Value("${user-cache.max-entries:100000}") long maxEntries,
+			@Value("${user-cache.ttl-seconds:60}") long ttlSeconds) {
+		this.userRepository = userRepository;
+		this.readReplicas = readReplicas;
+		this.credentialsByEmail = build(maxEntries, ttlSeconds);
+		this.profilesById = build(maxEntries, ttlSeconds);
+	}
+
+	private static <K, V> AsyncCache<K, V> build(long maxEntries, long ttlSeconds) {
+		return Caffeine.newBuilder()
+				.maximumSize(maxEntries)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				// same as VerifiedTokenCache: no hand-off to the common pool for bookkeeping
+				.executor(Runnable::run)
+				.recordStats()
+				.buildAsync();
+	}
+
+	public Optional<UserCredentials> credentialsByEmail(String email) {
+		return Optional.ofNullable(get(credentialsByEmail, email,
+				() -> userRepository.findCredentialsByEmail(email)));
+	}
+
+	public Optional<UserProfile> profileById(Long id) {
+		return Optional.ofNullable(get(profilesById, id,
+				() -> userRepository.findProfileById(id)));
+	}
+
+	/** Drops both entries of a user whose row just changed. */
+	public void invalidate(Long id, String email) {
+		if (id != null) {
+			profilesById.synchronous().invalidate(id);
+		}
+		if (email != null) {
+			credentialsByEmail.synchronous().invalidate(email);
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, credentialsByEmail, "user.credentials");
+		CaffeineCacheMetrics.monitor(registry, profilesById, "user.profiles");
+	}
+
+	private <K, V> V get(AsyncCache<K, V> cache, K key, Supplier<Optional<V>> query) {
+		// getIfPresent records the hit/miss; an in-flight load counts as a hit
+		CompletableFuture<V> existing = cache.getIfPresent(key);
+		if (existing == null) {
+			CompletableFuture<V> loading = new CompletableFuture<>();
+			existing = cache.asMap().putIfAbsent(key, loading);
+			if (existing == null) {
+				return load(loading, query);
+			}
+		}
+		try {
+			return existing.join();
+		} catch (CompletionException e) {
+			// the loading caller's own exception, e.g. a transient database failure
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	// a future completed with null or an exception is removed by the cache, so failures are not cached either
+	private <V> V load(CompletableFuture<V> loading, Supplier<Optional<V>> query) {
+		try {
+			V value = query.get().orElse(null);
+			if (value == null && !readReplicas.isEmpty()) {
+				// a signup a moment ago may not have reached the replica yet
+				value = readReplicas.onPrimary(query).orElse(null);
+			}
+			loading.complete(value);
+			return value;
+		} catch (RuntimeException e) {
+			loading.completeExceptionally(e);
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,5 @@
+package com.porter_replica.backend.user;
+
+/** What login needs from a user row, without loading the entity. */
+public record UserCredentials(Long id, String email, String password, Role role, VehicleType vehicleType) {
+}
@@ -0,0 +1,99 @@
+package com.porter_replica.backend.user;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.porter_replica.backend.common.BloomFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory answer to "could this email/phone already be registered?".
+ * A {@code false} is definite, so registration can skip the database read;
+ * a {@code true} only means the caller should check. Until the index has
+ * been warmed from the users table every lookup answers {@code true}.
+ */
+@Component
+public class UserExistenceIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(UserExistenceIndex.class);
+
+	private final UserRepository userRepository;
+	private final BloomFilter emails;
+	private final BloomFilter phones;
+	private volatile boolean warmed;
+
+	private final Counter definitelyNew;
+	private final Counter mightExist;
+
+	public UserExistenceIndex(UserRepository userRepository,
+			MeterRegistry meterRegistry,
+			@Value("${registration.existence-filter.expected-insertions:1000000}") long expectedInsertions,
+			@Value("${registration.existence-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+		this.userRepository = userRepository;
+		this.emails = new BloomFilter(expectedInsertions, falsePositiveRate);
+		this.phones = new BloomFilter(expectedInsertions, falsePositiveRate);
+
+		this.definitelyNew = Counter.builder("registration.existence.checks")
+				.tag("result", "definitely_new")
+				.register(meterRegistry);
+		this.mightExist = Counter.builder("registration.existence.checks")
+				.tag("result", "might_exist")
+				.register(meterRegistry);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void warm() {
+		long count = 0;
+		try (Stream<String> stream = userRepository.streamAllEmails()) {
+			count += putAll(stream, emails);
+		}
+		try (Stream<String> stream = userRepository.streamAllPhones()) {
+			count += putAll(stream, phones);
+		}
+		warmed = true;
+		log.info("User existence index warmed with {} contacts", count);
+	}
+
+	public boolean mightContainEmail(String email) {
+		return record(!warmed || emails.mightContain(email));
+	}
+
+	public boolean mightContainPhone(String phone) {
+		return record(!warmed || phones.mightContain(phone));
+	}
+
+	public void add(String email, String phone) {
+		if (email != null) {
+			emails.put(email);
+		}
+		if (phone != null) {
+			phones.put(phone);
+		}
+	}
+
+	private static long putAll(Stream<String> values, BloomFilter filter) {
+		long count = 0;
+		Iterator<String> iterator = values.iterator();
+		while (iterator.hasNext()) {
+			filter.put(iterator.next());
+			count++;
+		}
+		return count;
+	}
+
+	private boolean record(boolean mightContain) {
+		(mightContain ? mightExist : definitelyNew).increment();
+		return mightContain;
+	}
+}
@@ -0,0 +1,5 @@
+package com.porter_replica.backend.user;
+
+/** Read-only view of a user, safe to share between requests (no password hash). */
+public record UserProfile(Long id, String name, String email, String phone, Role role, VehicleType vehicleType) {
+}
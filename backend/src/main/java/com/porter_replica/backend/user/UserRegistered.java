@@ -0,0 +1,7 @@
+package com.porter_replica.backend.user;
+
+/** Outbox payload of a new account. */
+public record UserRegistered(long userId, Role role, VehicleType vehicleType) {
+
+	public static final String TYPE = "user.registered";
+}
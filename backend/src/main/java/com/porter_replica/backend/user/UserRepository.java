@@ -1,10 +1,47 @@
 package com.porter_replica.backend.user;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
 public interface UserRepository extends JpaRepository<User, Long>{
+	// read-only, so they run on a read replica when one is configured (see DataSourceConfig)
+	@Transactional(readOnly = true)
 	Optional<User> findByEmail(String email);
+	@Transactional(readOnly = true)
 	Optional<User> findByPhone(String phone);
+
+	// narrow projections for UserCache; the entity is only loaded where it is modified
+	@Transactional(readOnly = true)
+	Optional<UserCredentials> findCredentialsByEmail(String email);
+	@Transactional(readOnly = true)
+	Optional<UserProfile> findProfileById(Long id);
+
+	@Transactional
+	@Modifying
+	@Query("update User u set u.password = :password, u.updatedAt = :updatedAt where u.id = :id")
+	int updatePassword(@Param("id") Long id, @Param("password") String password, @Param("updatedAt") LocalDateTime updatedAt);
+
+	@Transactional(readOnly = true)
+	boolean existsByEmail(String email);
+	@Transactional(readOnly = true)
+	boolean existsByPhone(String phone);
+
+	// streamed with a fetch size so warming the existence index never loads the whole table
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+	@Query("select u.email from User u where u.email is not null")
+	Stream<String> streamAllEmails();
+
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+	@Query("select u.phone from User u where u.phone is not null")
+	Stream<String> streamAllPhones();
 }
@@ -0,0 +1,9 @@
+package com.porter_replica.backend.user;
+
+/** What a driver delivers with; customers have none. */
+public enum VehicleType {
+	TWO_WHEELER,
+	THREE_WHEELER,
+	MINI_TRUCK,
+	TRUCK
+}
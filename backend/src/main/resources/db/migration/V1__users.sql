@@ -0,0 +1,12 @@
+-- Schema as it existed before migrations were introduced. Databases that already
+-- have it are baselined at this version instead of running it.
+create table users (
+    id bigint generated by default as identity primary key,
+    name varchar(255) not null,
+    email varchar(255) unique,
+    phone varchar(255) unique,
+    password varchar(255) not null,
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    role varchar(255) not null
+);
@@ -0,0 +1,14 @@
+-- Location history, bulk-loaded by LocationHistoryWriter (COPY / batched insert).
+-- Times are epoch milliseconds.
+create table driver_locations (
+    id bigint generated by default as identity primary key,
+    driver_id bigint not null,
+    lat double precision not null,
+    lng double precision not null,
+    heading real,
+    speed real,
+    recorded_at_ms bigint not null,
+    received_at_ms bigint not null
+);
+
+create index idx_driver_locations_driver_time on driver_locations (driver_id, recorded_at_ms);
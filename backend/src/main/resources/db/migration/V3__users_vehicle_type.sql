@@ -0,0 +1,2 @@
+-- Set for drivers only; carried in their access token so pings need no lookup.
+alter table users add column vehicle_type varchar(255);
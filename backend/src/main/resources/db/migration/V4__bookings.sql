@@ -0,0 +1,18 @@
+-- Bookings are inserted through JPA and moved out of SEARCHING by the dispatch engine.
+create table bookings (
+    id bigint generated by default as identity primary key,
+    customer_id bigint not null,
+    pickup_lat double precision not null,
+    pickup_lng double precision not null,
+    drop_lat double precision not null,
+    drop_lng double precision not null,
+    vehicle_type varchar(255) not null,
+    status varchar(255) not null,
+    driver_id bigint,
+    pickup_distance_km double precision,
+    created_at timestamp(6) not null,
+    assigned_at timestamp(6)
+);
+
+create index idx_bookings_customer on bookings (customer_id);
+create index idx_bookings_driver on bookings (driver_id);
@@ -0,0 +1,5 @@
+-- When the trip reached each later status, copied from the trip journal by TripProjector.
+alter table bookings add column arrived_at timestamp(6);
+alter table bookings add column picked_up_at timestamp(6);
+alter table bookings add column delivered_at timestamp(6);
+alter table bookings add column cancelled_at timestamp(6);
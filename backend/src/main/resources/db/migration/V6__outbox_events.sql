@@ -0,0 +1,12 @@
+-- Transactional outbox, written with plain JDBC by Outbox and drained by OutboxPublisher.
+create table outbox_events (
+    id bigint generated by default as identity primary key,
+    type varchar(64) not null,
+    aggregate_id bigint not null,
+    payload varchar(4000) not null,
+    attempts integer not null,
+    created_at timestamp(6) not null
+);
+
+-- serves the claim: where type in (...) order by id limit ?
+create index idx_outbox_events_type_id on outbox_events (type, id);
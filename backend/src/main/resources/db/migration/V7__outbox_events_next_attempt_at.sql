@@ -0,0 +1,4 @@
+-- Failed deliveries back off: the publisher does not claim a row before its next_attempt_at.
+alter table outbox_events add column next_attempt_at timestamp(6);
+update outbox_events set next_attempt_at = created_at;
+alter table outbox_events alter column next_attempt_at set not null;
@@ -1,5 +1,6 @@
 package com.porter_replica.backend.auth;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -13,9 +14,12 @@ import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import tools.jackson.databind.ObjectMapper;
 
-@SpringBootTest
+// every test shares one client address and a few accounts; limits are covered by AuthRateLimitTest
+@SpringBootTest(properties = "rate-limit.enabled=false")
 @AutoConfigureMockMvc
 class AuthControllerTest {
 
@@ -24,6 +28,9 @@ class AuthControllerTest {
 
     @Autowired
     private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     // =======================
     // Registration tests
@@ -255,6 +262,31 @@ class AuthControllerTest {
             .andExpect(jsonPath("$.message").value("Invalid credentials"));
     }
 
+    @Test
+    void shouldRecordFailureReasonForUnknownUser() throws Exception {
+
+        long before = loginCount("unknown_user");
+
+        String requestBody = """
+            {
+              "email": "metrics-nouser@test.com",
+              "password": "password123"
+            }
+            """;
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+            .andExpect(status().isBadRequest());
+
+        assertEquals(before + 1, loginCount("unknown_user"));
+    }
+
+    private long loginCount(String outcome) {
+        Timer timer = meterRegistry.find("auth.login").tag("outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
     @Test
     void shouldFailLoginWhenPasswordMissing() throws Exception {
 
@@ -313,4 +345,82 @@ class AuthControllerTest {
             ));
     }
 
+    // =======================
+    // Refresh / logout tests
+    // =======================
+
+    @Test
+    void shouldRotateRefreshTokenAndRejectReuse() throws Exception {
+
+        String refreshToken = objectMapper.readTree(login("junit1@test.com", "password123"))
+                .get("refreshToken")
+                .asText();
+
+        String refreshed = mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\": \"" + refreshToken + "\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.accessToken").exists())
+            .andExpect(jsonPath("$.refreshToken").exists())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        // replaying the old refresh token ends the whole session
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\": \"" + refreshToken + "\"}"))
+            .andExpect(status().isUnauthorized())
+            .andExpect(jsonPath("$.message").value("Invalid refresh token"));
+
+        String newAccessToken = objectMapper.readTree(refreshed).get("accessToken").asText();
+        mockMvc.perform(get("/api/auth/me")
+                .header("Authorization", "Bearer " + newAccessToken))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void shouldRejectAccessTokenAsRefreshToken() throws Exception {
+
+        String accessToken = objectMapper.readTree(login("junit1@test.com", "password123"))
+                .get("accessToken")
+                .asText();
+
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\": \"" + accessToken + "\"}"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void shouldRevokeSessionOnLogout() throws Exception {
+
+        var tokens = objectMapper.readTree(login("junit1@test.com", "password123"));
+        String accessToken = tokens.get("accessToken").asText();
+        String refreshToken = tokens.get("refreshToken").asText();
+
+        mockMvc.perform(post("/api/auth/logout")
+                .header("Authorization", "Bearer " + accessToken))
+            .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/auth/me")
+                .header("Authorization", "Bearer " + accessToken))
+            .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\": \"" + refreshToken + "\"}"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    private String login(String email, String password) throws Exception {
+        return mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\": \"" + email + "\", \"password\": \"" + password + "\"}"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    }
+
 }
@@ -0,0 +1,138 @@
+package com.porter_replica.backend.auth.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPair;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.User;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+class JwtKeyRingTest {
+
+    private static final String SECRET = "mXK7c0QF6Lz0oT7FZpXJ3nY1G+f9G7B2c7k5R9w2X4A=";
+    private static final long EXPIRATION = 60_000;
+
+    @TempDir
+    Path dir;
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(Role.CUSTOMER);
+        return user;
+    }
+
+    private static String es256Entry(String kid, KeyPair pair, boolean withPrivateKey) {
+        Base64.Encoder base64 = Base64.getEncoder();
+        String entry = "keys." + kid + ".alg=ES256\n"
+                + "keys." + kid + ".public=" + base64.encodeToString(pair.getPublic().getEncoded()) + "\n";
+        if (withPrivateKey) {
+            entry += "keys." + kid + ".private=" + base64.encodeToString(pair.getPrivate().getEncoded()) + "\n";
+        }
+        return entry;
+    }
+
+    @Test
+    void shouldVerifyOnANodeHoldingOnlyThePublicKey() throws Exception {
+        KeyPair pair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        Path signingFile = Files.writeString(dir.resolve("signing.properties"), "active=k1\n" + es256Entry("k1", pair, true));
+        Path verifyFile = Files.writeString(dir.resolve("verify.properties"), "active=k1\n" + es256Entry("k1", pair, false));
+
+        JwtUtil signer = new JwtUtil(new JwtKeyRing("", signingFile.toString(), 0, ""), EXPIRATION, EXPIRATION);
+        JwtUtil verifier = new JwtUtil(new JwtKeyRing("", verifyFile.toString(), 0, ""), EXPIRATION, EXPIRATION);
+
+        String token = signer.generateToken(user(5));
+
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+        assertTrue(header.contains("\"kid\":\"k1\""), header);
+        assertEquals("5", verifier.validateToken(token).getSubject());
+        assertThrows(IllegalStateException.class, () -> verifier.generateToken(user(5)));
+    }
+
+    @Test
+    void shouldStillAcceptTokensWithoutKidThroughTheSecret() {
+        String legacy = Jwts.builder()
+                .setSubject("9")
+                .claim("role", "CUSTOMER")
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertEquals("9", new JwtUtil(SECRET, EXPIRATION).validateToken(legacy).getSubject());
+    }
+
+    @Test
+    void shouldOnlyAcceptTokensWithoutKidUntilTheConfiguredCutoff() throws Exception {
+        KeyPair pair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        Path file = Files.writeString(dir.resolve("keys.properties"), "active=k1\n" + es256Entry("k1", pair, true));
+        String legacy = Jwts.builder()
+                .setSubject("9")
+                .claim("role", "CUSTOMER")
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        String tomorrow = Instant.now().plus(1, ChronoUnit.DAYS).toString();
+        String yesterday = Instant.now().minus(1, ChronoUnit.DAYS).toString();
+        JwtUtil beforeCutoff = new JwtUtil(new JwtKeyRing(SECRET, file.toString(), 0, tomorrow), EXPIRATION, EXPIRATION);
+        JwtUtil afterCutoff = new JwtUtil(new JwtKeyRing(SECRET, file.toString(), 0, yesterday), EXPIRATION, EXPIRATION);
+        JwtUtil noCutoff = new JwtUtil(new JwtKeyRing(SECRET, file.toString(), 0, ""), EXPIRATION, EXPIRATION);
+
+        assertEquals("9", beforeCutoff.validateToken(legacy).getSubject());
+        assertThrows(JwtException.class, () -> afterCutoff.validateToken(legacy));
+        assertThrows(JwtException.class, () -> noCutoff.validateToken(legacy));
+    }
+
+    @Test
+    void shouldPickUpNewKeysAndDropRemovedOnesOnReload() throws Exception {
+        KeyPair first = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        KeyPair second = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        Path file = Files.writeString(dir.resolve("keys.properties"), "active=k1\n" + es256Entry("k1", first, true));
+
+        JwtKeyRing keyRing = new JwtKeyRing("", file.toString(), 0, "");
+        JwtUtil jwtUtil = new JwtUtil(keyRing, EXPIRATION, EXPIRATION);
+        int[] removals = new int[1];
+        keyRing.onKeysRemoved(() -> removals[0]++);
+        String oldToken = jwtUtil.generateToken(user(1));
+
+        Files.writeString(file, "active=k2\n" + es256Entry("k2", second, true));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+        keyRing.reloadIfChanged();
+
+        assertEquals("k2", keyRing.signingKey().kid());
+        assertEquals("2", jwtUtil.validateToken(jwtUtil.generateToken(user(2))).getSubject());
+        assertThrows(JwtException.class, () -> jwtUtil.validateToken(oldToken));
+        assertEquals(1, removals[0]);
+    }
+
+    @Test
+    void shouldRejectAlgorithmOtherThanTheKeysOwn() throws Exception {
+        KeyPair pair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        Path file = Files.writeString(dir.resolve("keys.properties"), "active=k1\n" + es256Entry("k1", pair, true));
+        JwtUtil jwtUtil = new JwtUtil(new JwtKeyRing("", file.toString(), 0, ""), EXPIRATION, EXPIRATION);
+
+        // an HMAC token claiming the EC key's kid, signed with the (public) key bytes
+        String forged = Jwts.builder()
+                .setHeaderParam("kid", "k1")
+                .setSubject("1")
+                .claim("role", "CUSTOMER")
+                .signWith(Keys.hmacShaKeyFor(pair.getPublic().getEncoded()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(JwtException.class, () -> jwtUtil.validateToken(forged));
+    }
+}
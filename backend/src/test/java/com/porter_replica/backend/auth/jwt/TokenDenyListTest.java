@@ -0,0 +1,77 @@
+package com.porter_replica.backend.auth.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TokenDenyListTest {
+
+    private final TokenDenyList denyList = new TokenDenyList(4, 60_000);
+
+    @AfterEach
+    void tearDown() {
+        denyList.destroy();
+    }
+
+    @Test
+    void shouldAcceptEachRefreshGenerationOnce() {
+        UUID session = UUID.randomUUID();
+        long until = System.currentTimeMillis() + 60_000;
+
+        assertTrue(denyList.rotate(session, 0, until));
+        assertTrue(denyList.rotate(session, 1, until));
+        assertFalse(denyList.isRevoked(session));
+    }
+
+    @Test
+    void shouldRevokeSessionWhenARefreshTokenIsReplayed() {
+        UUID session = UUID.randomUUID();
+        long until = System.currentTimeMillis() + 60_000;
+
+        assertTrue(denyList.rotate(session, 0, until));
+        assertFalse(denyList.rotate(session, 0, until));
+
+        assertTrue(denyList.isRevoked(session));
+        assertFalse(denyList.rotate(session, 1, until));
+    }
+
+    @Test
+    void shouldDenyLoggedOutSessionOnly() {
+        UUID loggedOut = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+
+        denyList.revoke(loggedOut, System.currentTimeMillis() + 60_000);
+
+        assertTrue(denyList.isRevoked(loggedOut));
+        assertFalse(denyList.isRevoked(other));
+        assertFalse(denyList.isRevoked(null));
+    }
+
+    @Test
+    void shouldDropEntriesOnceTheirTokensHaveExpired() {
+        long past = System.currentTimeMillis() - 1;
+        List<UUID> sessions = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            UUID session = UUID.randomUUID();
+            sessions.add(session);
+            denyList.revoke(session, past);
+        }
+        UUID live = UUID.randomUUID();
+        denyList.revoke(live, System.currentTimeMillis() + 60_000);
+
+        for (int i = 0; i < 4; i++) {
+            denyList.sweepNext();
+        }
+
+        assertEquals(1, denyList.size());
+        assertTrue(denyList.isRevoked(live));
+        assertFalse(denyList.isRevoked(sessions.get(0)));
+    }
+}
@@ -0,0 +1,73 @@
+package com.porter_replica.backend.auth.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.User;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET = "mXK7c0QF6Lz0oT7FZpXJ3nY1G+f9G7B2c7k5R9w2X4A=";
+
+    private static User user(long id, Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        return user;
+    }
+
+    @Test
+    void shouldServeRepeatVerificationsFromCache() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000);
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, 100);
+        String token = jwtUtil.generateToken(user(42, Role.DRIVER));
+
+        VerifiedToken first = cache.verify(token);
+        VerifiedToken second = cache.verify(token);
+
+        assertEquals("42", first.userId());
+        assertEquals(Role.DRIVER, first.role());
+        assertSame(first, second);
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void shouldShareAuthoritiesPerRole() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000);
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, 100);
+
+        VerifiedToken a = cache.verify(jwtUtil.generateToken(user(1, Role.CUSTOMER)));
+        VerifiedToken b = cache.verify(jwtUtil.generateToken(user(2, Role.CUSTOMER)));
+
+        assertSame(a.authorities(), b.authorities());
+        assertEquals("ROLE_CUSTOMER", a.authorities().get(0).getAuthority());
+    }
+
+    @Test
+    void shouldRejectExpiredToken() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, -1_000);
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, 100);
+        String token = jwtUtil.generateToken(user(7, Role.CUSTOMER));
+
+        assertThrows(ExpiredJwtException.class, () -> cache.verify(token));
+        assertThrows(ExpiredJwtException.class, () -> cache.verify(token));
+    }
+
+    @Test
+    void shouldRejectTamperedToken() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000);
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, 100);
+        String token = jwtUtil.generateToken(user(7, Role.CUSTOMER));
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertThrows(JwtException.class, () -> cache.verify(tampered));
+    }
+}
@@ -0,0 +1,42 @@
+package com.porter_replica.backend.auth.password;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class AdaptivePasswordEncoderTest {
+
+    @Test
+    void shouldMatchLegacyUnprefixedBcryptHash() {
+        String legacy = new BCryptPasswordEncoder(4).encode("password123");
+        AdaptivePasswordEncoder encoder = new AdaptivePasswordEncoder(AdaptivePasswordEncoder.BCRYPT, 4);
+
+        assertTrue(encoder.matches("password123", legacy));
+        assertFalse(encoder.upgradeEncoding(legacy));
+    }
+
+    @Test
+    void shouldOnlyUpgradeBcryptCostUpward() {
+        AdaptivePasswordEncoder encoder = new AdaptivePasswordEncoder(AdaptivePasswordEncoder.BCRYPT, 5);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password123")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password123")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password123")));
+    }
+
+    @Test
+    void shouldUpgradeWhenAlgorithmChanges() {
+        AdaptivePasswordEncoder bcrypt = new AdaptivePasswordEncoder(AdaptivePasswordEncoder.BCRYPT, 4);
+        AdaptivePasswordEncoder pbkdf2 = new AdaptivePasswordEncoder(AdaptivePasswordEncoder.PBKDF2, 4);
+        String stored = bcrypt.encode("password123");
+
+        assertTrue(pbkdf2.matches("password123", stored));
+        assertTrue(pbkdf2.upgradeEncoding(stored));
+
+        String upgraded = pbkdf2.encode("password123");
+        assertTrue(pbkdf2.matches("password123", upgraded));
+        assertFalse(pbkdf2.upgradeEncoding(upgraded));
+    }
+}
@@ -0,0 +1,77 @@
+package com.porter_replica.backend.auth.ratelimit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = {
+        "rate-limit.client.requests-per-minute=1",
+        "rate-limit.client.burst=3",
+        "rate-limit.account.requests-per-minute=1",
+        "rate-limit.account.burst=2"
+})
+@AutoConfigureMockMvc
+class AuthRateLimitTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String loginBody(String email) {
+        return """
+            {
+              "email": "%s",
+              "password": "password123"
+            }
+            """.formatted(email);
+    }
+
+    @Test
+    void shouldLimitAttemptsPerAccountAcrossClients() throws Exception {
+
+        for (int i = 0; i < 2; i++) {
+            String address = "10.0.0." + (i + 1);
+            mockMvc.perform(post("/api/auth/login")
+                    .with(request -> { request.setRemoteAddr(address); return request; })
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(loginBody("Target@limit.test")))
+                .andExpect(status().isBadRequest());
+        }
+
+        // different address, same account (case-insensitive)
+        mockMvc.perform(post("/api/auth/login")
+                .with(request -> { request.setRemoteAddr("10.0.1.1"); return request; })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(loginBody("target@limit.test")))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists("Retry-After"))
+            .andExpect(jsonPath("$.message").value("Too many attempts. Please try again later."));
+    }
+
+    @Test
+    void shouldLimitAttemptsPerClientAddress() throws Exception {
+
+        for (int i = 0; i < 3; i++) {
+            String email = "client" + i + "@limit.test";
+            mockMvc.perform(post("/api/auth/login")
+                    .with(request -> { request.setRemoteAddr("10.0.2.1"); return request; })
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(loginBody(email)))
+                .andExpect(status().isBadRequest());
+        }
+
+        mockMvc.perform(post("/api/auth/login")
+                .with(request -> { request.setRemoteAddr("10.0.2.1"); return request; })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(loginBody("client9@limit.test")))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists("Retry-After"));
+    }
+}
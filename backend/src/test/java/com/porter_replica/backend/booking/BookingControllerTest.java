@@ -0,0 +1,187 @@
+package com.porter_replica.backend.booking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.jayway.jsonpath.JsonPath;
+import com.porter_replica.backend.auth.jwt.JwtUtil;
+import com.porter_replica.backend.booking.dispatch.DispatchEngine;
+import com.porter_replica.backend.driver.geo.DriverGeoIndex;
+import com.porter_replica.backend.trip.journal.TripProjector;
+import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.VehicleType;
+
+@SpringBootTest(properties = {
+        "dispatch.window-millis=0",
+        "password-hashing.bcrypt-strength=4"
+})
+@AutoConfigureMockMvc
+class BookingControllerTest {
+
+    private static final String BOOKING = """
+        {"pickupLat": 18.5204, "pickupLng": 73.8567, "dropLat": 18.60, "dropLng": 73.90, "vehicleType": "MINI_TRUCK"}
+        """;
+    // far enough from BOOKING that the drivers of one test never serve the other
+    private static final String TRIP = """
+        {"pickupLat": 19.0760, "pickupLng": 72.8777, "dropLat": 19.10, "dropLng": 72.90, "vehicleType": "MINI_TRUCK"}
+        """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private DispatchEngine dispatchEngine;
+
+    @Autowired
+    private DriverGeoIndex geoIndex;
+
+    @Autowired
+    private TripProjector tripProjector;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private String bearer(long userId, Role role) {
+        return "Bearer " + jwtUtil.generateToken(userId, role, UUID.randomUUID());
+    }
+
+    @Test
+    void shouldCreateBookingAndShowAssignedDriver() throws Exception {
+        String customer = bearer(601L, Role.CUSTOMER);
+        String response = mockMvc.perform(post("/api/bookings")
+                .header(HttpHeaders.AUTHORIZATION, customer)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(BOOKING))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.status").value("SEARCHING"))
+            .andExpect(jsonPath("$.driverId").doesNotExist())
+            .andReturn().getResponse().getContentAsString();
+        long id = ((Number) JsonPath.read(response, "$.id")).longValue();
+
+        geoIndex.update(7201, 18.5210, 73.8570, Float.NaN, Float.NaN, 1, VehicleType.MINI_TRUCK, true);
+        dispatchEngine.dispatch(System.currentTimeMillis());
+
+        mockMvc.perform(get("/api/bookings/" + id)
+                .header(HttpHeaders.AUTHORIZATION, customer))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("ASSIGNED"))
+            .andExpect(jsonPath("$.driverId").value(7201));
+        // the assigned driver sees it too
+        mockMvc.perform(get("/api/bookings/" + id)
+                .header(HttpHeaders.AUTHORIZATION, bearer(7201L, Role.DRIVER)))
+            .andExpect(status().isOk());
+        // nobody else does
+        mockMvc.perform(get("/api/bookings/" + id)
+                .header(HttpHeaders.AUTHORIZATION, bearer(602L, Role.CUSTOMER)))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.message").value("Booking not found"));
+    }
+
+    @Test
+    void shouldWalkTheTripThroughItsDriversStepsAndProjectThem() throws Exception {
+        String customer = bearer(604L, Role.CUSTOMER);
+        long id = create(customer, TRIP);
+        geoIndex.update(7203, 19.0765, 72.8780, Float.NaN, Float.NaN, 1, VehicleType.MINI_TRUCK, true);
+        dispatchEngine.dispatch(System.currentTimeMillis());
+        String driver = bearer(7203L, Role.DRIVER);
+
+        mockMvc.perform(post("/api/bookings/" + id + "/arrived")
+                .header(HttpHeaders.AUTHORIZATION, driver))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("ARRIVED"));
+        mockMvc.perform(post("/api/bookings/" + id + "/delivered")
+                .header(HttpHeaders.AUTHORIZATION, driver))
+            .andExpect(status().isConflict());
+        // another driver's booking looks like no booking at all
+        mockMvc.perform(post("/api/bookings/" + id + "/picked-up")
+                .header(HttpHeaders.AUTHORIZATION, bearer(7204L, Role.DRIVER)))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/bookings/" + id + "/picked-up")
+                .header(HttpHeaders.AUTHORIZATION, driver))
+            .andExpect(status().isOk());
+        mockMvc.perform(post("/api/bookings/" + id + "/cancel")
+                .header(HttpHeaders.AUTHORIZATION, customer))
+            .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/bookings/" + id + "/delivered")
+                .header(HttpHeaders.AUTHORIZATION, driver))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("DELIVERED"));
+        mockMvc.perform(get("/api/bookings/" + id)
+                .header(HttpHeaders.AUTHORIZATION, customer))
+            .andExpect(jsonPath("$.status").value("DELIVERED"));
+
+        tripProjector.project();
+        Booking booking = bookingRepository.findById(id).orElseThrow();
+        assertEquals(BookingStatus.DELIVERED, booking.getStatus());
+        assertNotNull(booking.getArrivedAt());
+        assertNotNull(booking.getDeliveredAt());
+        // and it is history now
+        mockMvc.perform(get("/api/bookings/history")
+                .header(HttpHeaders.AUTHORIZATION, customer))
+            .andExpect(jsonPath("$.items[0].bookingId").value(id))
+            .andExpect(jsonPath("$.items[0].driverId").value(7203));
+    }
+
+    @Test
+    void shouldLetOnlyTheCustomerCancel() throws Exception {
+        String customer = bearer(605L, Role.CUSTOMER);
+        long id = create(customer, BOOKING);
+
+        mockMvc.perform(post("/api/bookings/" + id + "/cancel")
+                .header(HttpHeaders.AUTHORIZATION, bearer(606L, Role.CUSTOMER)))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/bookings/" + id + "/cancel")
+                .header(HttpHeaders.AUTHORIZATION, bearer(7205L, Role.DRIVER)))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/bookings/" + id + "/cancel")
+                .header(HttpHeaders.AUTHORIZATION, customer))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("CANCELLED"));
+    }
+
+    private long create(String customer, String booking) throws Exception {
+        String response = mockMvc.perform(post("/api/bookings")
+                .header(HttpHeaders.AUTHORIZATION, customer)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(booking))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        return ((Number) JsonPath.read(response, "$.id")).longValue();
+    }
+
+    @Test
+    void shouldOnlyLetCustomersBook() throws Exception {
+        mockMvc.perform(post("/api/bookings")
+                .header(HttpHeaders.AUTHORIZATION, bearer(7202L, Role.DRIVER))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(BOOKING))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldRejectBookingWithoutVehicleType() throws Exception {
+        mockMvc.perform(post("/api/bookings")
+                .header(HttpHeaders.AUTHORIZATION, bearer(603L, Role.CUSTOMER))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"pickupLat\": 1, \"pickupLng\": 2, \"dropLat\": 1, \"dropLng\": 2}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("vehicleType is required"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.porter_replica.backend.booking.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.porter_replica.backend.booking.Booking;
+import com.porter_replica.backend.booking.BookingRepository;
+import com.porter_replica.backend.booking.BookingService;
+import com.porter_replica.backend.booking.BookingStatus;
+import com.porter_replica.backend.booking.dto.CreateBookingRequest;
+import com.porter_replica.backend.driver.geo.DriverGeoIndex;
+import com.porter_replica.backend.user.VehicleType;
+
+@SpringBootTest(properties = {
+        "dispatch.window-millis=0",
+        "password-hashing.bcrypt-strength=4"
+})
+class DispatchEngineTest {
+
+    @Autowired
+    private DispatchEngine dispatchEngine;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private DriverGeoIndex geoIndex;
+
+    @Test
+    void shouldMinimiseTotalPickupDistanceAcrossTheWindow() {
+        // both pickups fall in the same 10 km partition
+        double lat = 22.4920;
+        double lng = 88.3639;
+        // 3.0 km north of A and 2.6 km south of B
+        geoIndex.update(7101, lat + 0.027, lng, Float.NaN, Float.NaN, 1, VehicleType.TRUCK, true);
+        // 4.0 km south of A, out of B's reach
+        geoIndex.update(7102, lat - 0.036, lng, Float.NaN, Float.NaN, 1, VehicleType.TRUCK, true);
+
+        long a = bookingService.create(501, request(lat, lng, VehicleType.TRUCK)).id();
+        long b = bookingService.create(502, request(lat + 0.05, lng, VehicleType.TRUCK)).id();
+        dispatchEngine.dispatch(System.currentTimeMillis());
+
+        // matching A on arrival would have given it 7101 and left B with nobody
+        Booking first = bookingRepository.findById(a).orElseThrow();
+        Booking second = bookingRepository.findById(b).orElseThrow();
+        assertEquals(BookingStatus.ASSIGNED, first.getStatus());
+        assertEquals(7102L, first.getDriverId());
+        assertEquals(4.0, first.getPickupDistanceKm(), 0.05);
+        assertEquals(BookingStatus.ASSIGNED, second.getStatus());
+        assertEquals(7101L, second.getDriverId());
+
+        // both drivers are busy now
+        assertFalse(geoIndex.claim(7101));
+        assertFalse(geoIndex.claim(7102));
+    }
+
+    @Test
+    void shouldKeepSearchingUntilMaxWaitThenExpire() {
+        double lat = 26.9124;
+        double lng = 75.7873;
+        long id = bookingService.create(503, request(lat, lng, VehicleType.TWO_WHEELER)).id();
+        // a driver of the wrong type does not count
+        geoIndex.update(7103, lat, lng, Float.NaN, Float.NaN, 1, VehicleType.TRUCK, true);
+
+        long now = System.currentTimeMillis();
+        dispatchEngine.dispatch(now);
+        assertEquals(BookingStatus.SEARCHING, bookingRepository.findById(id).orElseThrow().getStatus());
+
+        geoIndex.update(7104, lat + 0.01, lng, Float.NaN, Float.NaN, 1, VehicleType.TWO_WHEELER, false);
+        dispatchEngine.dispatch(now + TimeUnit.SECONDS.toMillis(60));
+        assertEquals(BookingStatus.SEARCHING, bookingRepository.findById(id).orElseThrow().getStatus());
+
+        dispatchEngine.dispatch(now + TimeUnit.SECONDS.toMillis(121));
+        assertEquals(BookingStatus.EXPIRED, bookingRepository.findById(id).orElseThrow().getStatus());
+    }
+
+    private static CreateBookingRequest request(double lat, double lng, VehicleType vehicleType) {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setPickupLat(lat);
+        request.setPickupLng(lng);
+        request.setDropLat(lat + 0.1);
+        request.setDropLng(lng + 0.1);
+        request.setVehicleType(vehicleType);
+        return request;
+    }
+}
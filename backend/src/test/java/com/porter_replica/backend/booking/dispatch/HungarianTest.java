@@ -0,0 +1,78 @@
+package com.porter_replica.backend.booking.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class HungarianTest {
+
+    @Test
+    void shouldPreferLowerTotalOverGreedyChoice() {
+        // row 0 alone would take column 0, but the total is lower the other way round
+        double[][] cost = {
+                { 1, 2 },
+                { 1.5, 10 } };
+
+        assertArrayEquals(new int[] { 1, 0 }, Hungarian.assign(cost));
+    }
+
+    @Test
+    void shouldLeaveRowsOverWhenColumnsRunOut() {
+        double[][] cost = { { 4 }, { 1 }, { 3 } };
+
+        assertArrayEquals(new int[] { -1, 0, -1 }, Hungarian.assign(cost));
+    }
+
+    @Test
+    void shouldMatchBruteForce() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            int rows = 1 + random.nextInt(5);
+            int columns = 1 + random.nextInt(5);
+            double[][] cost = new double[rows][columns];
+            for (double[] row : cost) {
+                for (int j = 0; j < columns; j++) {
+                    row[j] = random.nextInt(100) - 20;
+                }
+            }
+
+            int[] assignment = Hungarian.assign(cost);
+            Set<Integer> used = new HashSet<>();
+            double total = 0;
+            int assigned = 0;
+            for (int i = 0; i < rows; i++) {
+                if (assignment[i] >= 0) {
+                    assertEquals(true, used.add(assignment[i]));
+                    total += cost[i][assignment[i]];
+                    assigned++;
+                }
+            }
+            assertEquals(Math.min(rows, columns), assigned);
+            assertEquals(best(cost, 0, new boolean[columns], Math.min(rows, columns)), total, 1e-9);
+        }
+    }
+
+    // cheapest total over every way of assigning exactly `remaining` more rows from row i on
+    private static double best(double[][] cost, int i, boolean[] used, int remaining) {
+        if (remaining == 0) {
+            return 0;
+        }
+        if (cost.length - i < remaining) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double best = best(cost, i + 1, used, remaining);
+        for (int j = 0; j < used.length; j++) {
+            if (!used[j]) {
+                used[j] = true;
+                best = Math.min(best, cost[i][j] + best(cost, i + 1, used, remaining - 1));
+                used[j] = false;
+            }
+        }
+        return best;
+    }
+}
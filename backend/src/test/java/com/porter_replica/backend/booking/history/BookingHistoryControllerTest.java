@@ -0,0 +1,151 @@
+package com.porter_replica.backend.booking.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jayway.jsonpath.JsonPath;
+import com.porter_replica.backend.auth.jwt.JwtUtil;
+import com.porter_replica.backend.user.Role;
+
+@SpringBootTest(properties = {
+        "dispatch.window-millis=0",
+        "password-hashing.bcrypt-strength=4"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookingHistoryControllerTest {
+
+    private static final long CUSTOMER = 9101;
+    private static final long DRIVER = 9201;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BookingHistory history;
+
+    // newest first, across three months
+    private final List<Long> expected = new ArrayList<>();
+
+    @BeforeAll
+    void endedBookings() {
+        LocalDateTime same = LocalDateTime.of(2024, 3, 5, 9, 30, 0, 123_456_000);
+        long a = booking("DELIVERED", LocalDateTime.of(2023, 12, 31, 23, 59), DRIVER);
+        long b = booking("EXPIRED", LocalDateTime.of(2024, 1, 15, 10, 0), null);
+        long c = booking("CANCELLED", LocalDateTime.of(2024, 1, 20, 8, 0), null);
+        long d = booking("DELIVERED", same, DRIVER);
+        long e = booking("DELIVERED", same, DRIVER + 1);
+        // not ended: stays out of history
+        booking("ASSIGNED", LocalDateTime.of(2024, 3, 6, 8, 0), DRIVER);
+
+        List<Long> all = List.of(a, b, c, d, e);
+        transactionTemplate.executeWithoutResult(status -> history.archive(all));
+        // archiving twice changes nothing
+        transactionTemplate.executeWithoutResult(status -> history.archive(all));
+        expected.addAll(List.of(e, d, c, b, a));
+    }
+
+    @Test
+    void shouldWalkTheHistoryNewestFirstWithCursors() throws Exception {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            String body = mockMvc.perform(get("/api/bookings/history")
+                    .param("limit", "2")
+                    .param("cursor", cursor)
+                    .header(HttpHeaders.AUTHORIZATION, bearer(CUSTOMER, Role.CUSTOMER)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+            List<Number> ids = JsonPath.read(body, "$.items[*].bookingId");
+            ids.forEach(id -> seen.add(id.longValue()));
+            cursor = JsonPath.read(body, "$.nextCursor");
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void shouldShowDriversTheTripsTheyDrove() throws Exception {
+        mockMvc.perform(get("/api/bookings/history")
+                .header(HttpHeaders.AUTHORIZATION, bearer(DRIVER, Role.DRIVER)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(2))
+            .andExpect(jsonPath("$.items[0].bookingId").value(expected.get(1)))
+            .andExpect(jsonPath("$.items[0].status").value("DELIVERED"))
+            .andExpect(jsonPath("$.items[1].bookingId").value(expected.get(4)))
+            .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void shouldExportTheWholeHistoryAsLines() throws Exception {
+        MvcResult pending = mockMvc.perform(get("/api/bookings/history/export")
+                .header(HttpHeaders.AUTHORIZATION, bearer(CUSTOMER, Role.CUSTOMER)))
+            .andReturn();
+        String body = mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        List<Long> exported = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            exported.add(((Number) JsonPath.read(line, "$.bookingId")).longValue());
+        }
+        assertEquals(expected, exported);
+    }
+
+    @Test
+    void shouldRejectABadCursorOrLimit() throws Exception {
+        mockMvc.perform(get("/api/bookings/history")
+                .param("cursor", "not-a-cursor")
+                .header(HttpHeaders.AUTHORIZATION, bearer(CUSTOMER, Role.CUSTOMER)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("cursor is not valid"));
+        mockMvc.perform(get("/api/bookings/history")
+                .param("limit", "1000")
+                .header(HttpHeaders.AUTHORIZATION, bearer(CUSTOMER, Role.CUSTOMER)))
+            .andExpect(status().isBadRequest());
+        assertNull(history.page(CUSTOMER + 1, Role.CUSTOMER, null, 10).nextCursor());
+    }
+
+    private long booking(String status, LocalDateTime createdAt, Long driverId) {
+        jdbcTemplate.update("insert into bookings (customer_id, pickup_lat, pickup_lng, drop_lat, drop_lng, "
+                + "vehicle_type, status, driver_id, created_at) values (?, 18.52, 73.85, 18.60, 73.90, 'MINI_TRUCK', "
+                + "?, ?, ?)", CUSTOMER, status, driverId, Timestamp.valueOf(createdAt));
+        return jdbcTemplate.queryForObject("select max(id) from bookings where customer_id = ?", Long.class,
+                CUSTOMER);
+    }
+
+    private String bearer(long userId, Role role) {
+        return "Bearer " + jwtUtil.generateToken(userId, role, UUID.randomUUID());
+    }
+}
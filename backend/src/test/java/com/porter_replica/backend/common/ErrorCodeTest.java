@@ -0,0 +1,35 @@
+package com.porter_replica.backend.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+class ErrorCodeTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldSerializeToTheSameShapeAsErrorResponse() {
+        for (ErrorCode code : ErrorCode.values()) {
+            JsonNode body = objectMapper.readTree(code.body());
+
+            assertEquals(code.status().value(), body.get("status").asInt());
+            assertEquals(code.message(), body.get("message").asText());
+            assertNotNull(java.time.LocalDateTime.parse(body.get("timestamp").asText()));
+        }
+    }
+
+    @Test
+    void shouldShareOneStacklessExceptionPerCode() {
+        DomainException ex = ErrorCode.INVALID_CREDENTIALS.exception();
+
+        assertSame(ex, ErrorCode.INVALID_CREDENTIALS.exception());
+        assertEquals(0, ex.getStackTrace().length);
+        assertEquals("Invalid credentials", ex.getMessage());
+    }
+}
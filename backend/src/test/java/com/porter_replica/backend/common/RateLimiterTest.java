@@ -0,0 +1,54 @@
+package com.porter_replica.backend.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void shouldAllowBurstThenRefillAtTheConfiguredRate() {
+        RateLimiter limiter = new RateLimiter(60, 3, 4);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("a", now));
+
+        long wait = limiter.tryAcquire("a", now);
+        assertEquals(SECOND, wait);
+
+        // a rejected request consumes nothing
+        assertEquals(0, limiter.tryAcquire("a", now + wait));
+        assertTrue(limiter.tryAcquire("a", now + wait) > 0);
+    }
+
+    @Test
+    void shouldKeepKeysIndependent() {
+        RateLimiter limiter = new RateLimiter(60, 1, 4);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertTrue(limiter.tryAcquire("a", now) > 0);
+        assertEquals(0, limiter.tryAcquire("b", now));
+    }
+
+    @Test
+    void shouldEvictOnlyFullyRefilledBuckets() {
+        RateLimiter limiter = new RateLimiter(60, 2, 4);
+        long now = 1_000 * SECOND;
+
+        limiter.tryAcquire("idle", now);
+        limiter.tryAcquire("busy", now + 10 * SECOND);
+        for (int stripe = 0; stripe < limiter.stripeCount(); stripe++) {
+            limiter.evictIdle(stripe, now + 5 * SECOND);
+        }
+
+        assertEquals(1, limiter.size());
+    }
+}
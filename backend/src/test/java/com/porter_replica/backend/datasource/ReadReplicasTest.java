@@ -0,0 +1,83 @@
+package com.porter_replica.backend.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReadReplicasTest {
+
+    private final DataSource primary = h2("replicas-test-primary");
+    private final DataSource replica = h2("replicas-test-replica");
+
+    @Test
+    void shouldReadFromReplicaUnlessPinnedToPrimary() throws Exception {
+        ReadReplicas readReplicas = new ReadReplicas(primary, List.of(replica), 0, new SimpleMeterRegistry());
+
+        assertTrue(urlOf(readReplicas.dataSource()).contains("replicas-test-replica"));
+        assertTrue(readReplicas.onPrimary(() -> urlOf(readReplicas.dataSource())).contains("replicas-test-primary"));
+    }
+
+    @Test
+    void shouldFailOverToPrimaryAndRecoverAfterHealthCheck() throws Exception {
+        FlakyDataSource flaky = new FlakyDataSource(replica);
+        ReadReplicas readReplicas = new ReadReplicas(primary, List.of(flaky), 0, new SimpleMeterRegistry());
+
+        flaky.down = true;
+        assertTrue(urlOf(readReplicas.dataSource()).contains("replicas-test-primary"));
+        assertEquals(0, readReplicas.healthyCount());
+
+        // stays off the replica until a health check passes
+        flaky.down = false;
+        assertTrue(urlOf(readReplicas.dataSource()).contains("replicas-test-primary"));
+
+        readReplicas.checkHealth();
+        assertEquals(1, readReplicas.healthyCount());
+        assertTrue(urlOf(readReplicas.dataSource()).contains("replicas-test-replica"));
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static String urlOf(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class FlakyDataSource extends AbstractDataSource {
+
+        private final DataSource target;
+        private volatile boolean down;
+
+        FlakyDataSource(DataSource target) {
+            this.target = target;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Connection refused");
+            }
+            return target.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
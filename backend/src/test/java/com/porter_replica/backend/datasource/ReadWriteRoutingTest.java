@@ -0,0 +1,102 @@
+package com.porter_replica.backend.datasource;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+// two embedded databases; nothing replicates between them, so each test knows where a read went
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadWriteRoutingTest.PRIMARY_URL,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "datasource.replicas.urls=" + ReadWriteRoutingTest.REPLICA_URL,
+        "datasource.replicas.username=sa",
+        "rate-limit.enabled=false",
+        "password-hashing.bcrypt-strength=4"
+})
+@AutoConfigureMockMvc
+class ReadWriteRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeAll
+    static void createReplicaSchema() {
+        replica.execute("""
+            create table if not exists users (
+                id bigint generated by default as identity primary key,
+                name varchar(255) not null,
+                email varchar(255) unique,
+                phone varchar(255) unique,
+                password varchar(255) not null,
+                role varchar(255) not null,
+                vehicle_type varchar(255),
+                created_at timestamp,
+                updated_at timestamp
+            )
+            """);
+    }
+
+    @Test
+    void shouldServeLoginLookupsFromReplica() throws Exception {
+        replica.update("insert into users (name, email, password, role, created_at) values (?, ?, ?, ?, ?)",
+                "Replica Only", "replica-only@routing.test", passwordEncoder.encode("password123"),
+                "CUSTOMER", Timestamp.valueOf(LocalDateTime.now()));
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(loginBody("replica-only@routing.test")))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldLogInRightAfterRegisteringBeforeReplicaCatchesUp() throws Exception {
+        mockMvc.perform(post("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {
+                      "name": "Fresh User",
+                      "email": "fresh@routing.test",
+                      "password": "password123",
+                      "role": "CUSTOMER"
+                    }
+                    """))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(loginBody("fresh@routing.test")))
+            .andExpect(status().isOk());
+    }
+
+    private static String loginBody(String email) {
+        return """
+            {
+              "email": "%s",
+              "password": "password123"
+            }
+            """.formatted(email);
+    }
+}
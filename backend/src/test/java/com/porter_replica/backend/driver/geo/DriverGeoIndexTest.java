@@ -0,0 +1,167 @@
+package com.porter_replica.backend.driver.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.porter_replica.backend.driver.location.DriverPosition;
+import com.porter_replica.backend.driver.presence.DriverPresenceChanged;
+import com.porter_replica.backend.user.VehicleType;
+
+class DriverGeoIndexTest {
+
+    // Bengaluru
+    private static final double LAT = 12.9716;
+    private static final double LNG = 77.5946;
+
+    private final DriverGeoIndex index = new DriverGeoIndex(1.0, 60);
+
+    @Test
+    void shouldReturnNearestFirstWithinRadius() {
+        index.update(1, LAT + 0.02, LNG, Float.NaN, Float.NaN, 1, VehicleType.TRUCK, null);
+        index.update(2, LAT + 0.005, LNG, Float.NaN, Float.NaN, 1, VehicleType.TRUCK, null);
+        index.update(3, LAT, LNG + 0.01, Float.NaN, Float.NaN, 1, VehicleType.TRUCK, null);
+        // about 11 km north
+        index.update(4, LAT + 0.1, LNG, Float.NaN, Float.NaN, 1, VehicleType.TRUCK, null);
+
+        List<NearbyDriver> nearby = index.nearest(LAT, LNG, 5, 10, null);
+
+        assertEquals(List.of(2L, 3L, 1L), nearby.stream().map(NearbyDriver::driverId).toList());
+        assertEquals(0.556, nearby.get(0).distanceKm(), 0.01);
+        assertEquals(2, index.nearest(LAT, LNG, 5, 2, null).size());
+    }
+
+    @Test
+    void shouldFilterByVehicleTypeAndAvailability() {
+        index.update(1, LAT, LNG, Float.NaN, Float.NaN, 1, VehicleType.TWO_WHEELER, null);
+        index.update(2, LAT, LNG, Float.NaN, Float.NaN, 1, VehicleType.MINI_TRUCK, null);
+        index.update(3, LAT, LNG, Float.NaN, Float.NaN, 1, VehicleType.MINI_TRUCK, false);
+
+        assertEquals(List.of(2L), ids(index.nearest(LAT, LNG, 1, 10, VehicleType.MINI_TRUCK)));
+
+        index.claim(2);
+        index.release(3);
+        assertEquals(List.of(3L), ids(index.nearest(LAT, LNG, 1, 10, VehicleType.MINI_TRUCK)));
+
+        // a ping without the flag keeps it
+        index.update(3, LAT, LNG, Float.NaN, Float.NaN, 2, null, null);
+        assertEquals(List.of(3L), ids(index.nearest(LAT, LNG, 1, 10, VehicleType.MINI_TRUCK)));
+    }
+
+    @Test
+    void shouldIgnoreLatePingsAndFollowMovesAcrossCells() {
+        assertTrue(index.update(1, LAT, LNG, Float.NaN, Float.NaN, 2000, null, null));
+        assertFalse(index.update(1, LAT + 1, LNG, Float.NaN, Float.NaN, 1000, null, null));
+        assertEquals(LAT, index.position(1).map(DriverPosition::lat).orElseThrow());
+
+        index.update(2, LAT, LNG, Float.NaN, Float.NaN, 1, null, null);
+        // several cells away; 2 stays behind
+        index.update(1, LAT + 0.05, LNG, Float.NaN, Float.NaN, 3000, null, null);
+
+        assertEquals(List.of(2L), ids(index.nearest(LAT, LNG, 1, 10, null)));
+        assertEquals(List.of(1L), ids(index.nearest(LAT + 0.05, LNG, 1, 10, null)));
+
+        assertTrue(index.remove(2));
+        assertTrue(index.nearest(LAT, LNG, 1, 10, null).isEmpty());
+        assertTrue(index.position(2).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void shouldLeaveOutDriversThatWentQuiet() {
+        DriverGeoIndex noMaxAge = new DriverGeoIndex(1.0, 0);
+        noMaxAge.update(1, LAT, LNG, Float.NaN, Float.NaN, 1, null, null);
+
+        long deadline = System.currentTimeMillis() + 1000;
+        while (!noMaxAge.nearest(LAT, LNG, 1, 10, null).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(noMaxAge.nearest(LAT, LNG, 1, 10, null).isEmpty());
+    }
+
+    @Test
+    void shouldEvictOfflineDriversUnlessTheyPingedSince() {
+        long before = System.currentTimeMillis() - 1;
+        index.update(1, LAT, LNG, Float.NaN, Float.NaN, 1, null, null);
+        long after = System.currentTimeMillis();
+
+        assertFalse(index.removeIfSilentSince(1, before));
+        assertTrue(index.position(1).isPresent());
+
+        index.onPresenceChanged(new DriverPresenceChanged(1, false, null, after));
+        assertFalse(index.position(1).isPresent());
+        assertTrue(index.nearest(LAT, LNG, 1, 10, null).isEmpty());
+    }
+
+    @Test
+    void shouldKeepADriverOnATripBusyAcrossEvictionAndPings() {
+        index.update(1, LAT, LNG, Float.NaN, Float.NaN, 1, null, null);
+        assertTrue(index.claim(1));
+        assertFalse(index.claim(1));
+
+        // silent long enough to be evicted, then back with the app saying it is free
+        index.removeIfSilentSince(1, System.currentTimeMillis());
+        index.update(1, LAT, LNG, Float.NaN, Float.NaN, 2, null, true);
+
+        assertFalse(index.isAvailable(1));
+        assertFalse(index.position(1).orElseThrow().available());
+        assertTrue(index.nearest(LAT, LNG, 1, 10, null).isEmpty());
+        assertFalse(index.claim(1));
+
+        index.release(1);
+        assertTrue(index.isAvailable(1));
+        assertEquals(List.of(1L), ids(index.nearest(LAT, LNG, 1, 10, null)));
+    }
+
+    @Test
+    void shouldKeepADriverMarkedOnATripBusyWhenItFirstPings() {
+        index.markOnTrip(1);
+        index.update(1, LAT, LNG, Float.NaN, Float.NaN, 1, null, true);
+
+        assertFalse(index.claim(1));
+        assertTrue(index.nearest(LAT, LNG, 1, 10, null).isEmpty());
+    }
+
+    @Test
+    void shouldMatchBruteForce() {
+        Random random = new Random(7);
+        List<double[]> drivers = new ArrayList<>();
+        for (int id = 0; id < 5000; id++) {
+            double lat = LAT + (random.nextDouble() - 0.5) * 0.4;
+            double lng = LNG + (random.nextDouble() - 0.5) * 0.4;
+            index.update(id, lat, lng, Float.NaN, Float.NaN, 1, null, null);
+            drivers.add(new double[] { id, lat, lng });
+        }
+
+        for (int q = 0; q < 50; q++) {
+            double lat = LAT + (random.nextDouble() - 0.5) * 0.4;
+            double lng = LNG + (random.nextDouble() - 0.5) * 0.4;
+            double cos = Math.cos(Math.toRadians(lat));
+            List<Long> expected = drivers.stream()
+                    .filter(d -> distanceKm(d, lat, lng, cos) <= 3)
+                    .sorted(Comparator.comparingDouble(d -> distanceKm(d, lat, lng, cos)))
+                    .limit(8)
+                    .map(d -> (long) d[0])
+                    .toList();
+
+            assertEquals(expected, ids(index.nearest(lat, lng, 3, 8, null)));
+        }
+    }
+
+    private static double distanceKm(double[] driver, double lat, double lng, double cos) {
+        double dLat = driver[1] - lat;
+        double dLng = (driver[2] - lng) * cos;
+        return 6371.0088 * Math.PI / 180 * Math.sqrt(dLat * dLat + dLng * dLng);
+    }
+
+    private static List<Long> ids(List<NearbyDriver> nearby) {
+        return nearby.stream().map(NearbyDriver::driverId).toList();
+    }
+}
@@ -0,0 +1,175 @@
+package com.porter_replica.backend.driver.location;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.porter_replica.backend.auth.jwt.JwtUtil;
+import com.porter_replica.backend.common.ErrorCode;
+import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.VehicleType;
+
+@SpringBootTest(properties = "driver-location.history.flush-interval-millis=50")
+@AutoConfigureMockMvc
+class DriverLocationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private DriverLocationPipeline pipeline;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String bearer(long userId, Role role) {
+        return "Bearer " + jwtUtil.generateToken(userId, role, UUID.randomUUID());
+    }
+
+    @Test
+    void shouldKeepNewestPositionAndWriteHistory() throws Exception {
+        String token = bearer(9001L, Role.DRIVER);
+
+        ping(token, """
+            {"lat": 12.97, "lng": 77.59, "heading": 90, "speed": 8.5, "recordedAt": 2000}
+            """);
+        // arrives late, older than what we have
+        ping(token, """
+            {"lat": 12.90, "lng": 77.50, "recordedAt": 1000}
+            """);
+
+        DriverPosition position = awaitPosition(9001L, 2000);
+        assertEquals(12.97, position.lat());
+        assertEquals(8.5f, position.speed());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Integer rows = 0;
+        while (rows < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            rows = jdbcTemplate.queryForObject(
+                    "select count(*) from driver_locations where driver_id = 9001", Integer.class);
+        }
+        assertEquals(2, rows);
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from driver_locations where driver_id = 9001 and heading is null", Integer.class));
+    }
+
+    @Test
+    void shouldOnlyAcceptDrivers() throws Exception {
+        mockMvc.perform(post("/api/drivers/location")
+                .header(HttpHeaders.AUTHORIZATION, bearer(9002L, Role.CUSTOMER))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lat\": 1, \"lng\": 2}"))
+            .andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/api/drivers/location")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lat\": 1, \"lng\": 2}"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void shouldFindAvailableDriversNearby() throws Exception {
+        String truck = "Bearer " + jwtUtil.generateToken(9004L, Role.DRIVER, VehicleType.TRUCK, UUID.randomUUID());
+        long now = System.currentTimeMillis();
+
+        ping(truck, """
+            {"lat": 28.6139, "lng": 77.2090, "recordedAt": %d}
+            """.formatted(now));
+        awaitPosition(9004L, now);
+
+        String customer = bearer(9005L, Role.CUSTOMER);
+        mockMvc.perform(get("/api/drivers/nearby?lat=28.62&lng=77.21&radiusKm=2&vehicleType=TRUCK")
+                .header(HttpHeaders.AUTHORIZATION, customer))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].driverId").value(9004))
+            .andExpect(jsonPath("$[0].vehicleType").value("TRUCK"));
+        mockMvc.perform(get("/api/drivers/nearby?lat=28.62&lng=77.21&radiusKm=2&vehicleType=TWO_WHEELER")
+                .header(HttpHeaders.AUTHORIZATION, customer))
+            .andExpect(jsonPath("$.length()").value(0));
+
+        ping(truck, """
+            {"lat": 28.6139, "lng": 77.2090, "recordedAt": %d, "available": false}
+            """.formatted(now + 1));
+        awaitPosition(9004L, now + 1);
+        mockMvc.perform(get("/api/drivers/nearby?lat=28.62&lng=77.21&radiusKm=2")
+                .header(HttpHeaders.AUTHORIZATION, customer))
+            .andExpect(jsonPath("$.length()").value(0));
+
+        mockMvc.perform(get("/api/drivers/nearby?lat=28.62&lng=77.21&radiusKm=500")
+                .header(HttpHeaders.AUTHORIZATION, customer))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectCoordinatesOutOfRange() throws Exception {
+        mockMvc.perform(post("/api/drivers/location")
+                .header(HttpHeaders.AUTHORIZATION, bearer(9003L, Role.DRIVER))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lat\": 91, \"lng\": 2}"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectPingsFromTheFuture() throws Exception {
+        String token = bearer(9006L, Role.DRIVER);
+        long slightlyAhead = System.currentTimeMillis() + 5_000;
+
+        // within the allowed skew
+        ping(token, """
+            {"lat": 12.97, "lng": 77.59, "recordedAt": %d}
+            """.formatted(slightlyAhead));
+        awaitPosition(9006L, slightlyAhead);
+
+        mockMvc.perform(post("/api/drivers/location")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"lat": 12.97, "lng": 77.59, "recordedAt": %d}
+                    """.formatted(System.currentTimeMillis() + 3_600_000)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value(ErrorCode.RECORDED_AT_IN_FUTURE.message()));
+        assertEquals(slightlyAhead, pipeline.latest(9006L).orElseThrow().recordedAtMillis());
+    }
+
+    private void ping(String token, String body) throws Exception {
+        mockMvc.perform(post("/api/drivers/location")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+            .andExpect(status().isAccepted());
+    }
+
+    private DriverPosition awaitPosition(long driverId, long recordedAt) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            DriverPosition position = pipeline.latest(driverId).orElse(null);
+            if (position != null && position.recordedAtMillis() == recordedAt) {
+                // give the late ping time to be (not) applied
+                Thread.sleep(50);
+                position = pipeline.latest(driverId).orElseThrow();
+                assertEquals(recordedAt, position.recordedAtMillis());
+                return position;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("position was never visible");
+    }
+}
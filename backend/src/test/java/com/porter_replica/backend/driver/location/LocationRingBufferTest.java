@@ -0,0 +1,69 @@
+package com.porter_replica.backend.driver.location;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class LocationRingBufferTest {
+
+    @Test
+    void shouldRejectWhenFullAndMakeRoomByDroppingOldest() {
+        LocationRingBuffer ring = new LocationRingBuffer(4);
+        for (long i = 1; i <= 4; i++) {
+            assertTrue(ring.offer(i, 0, 0, Float.NaN, Float.NaN, 0, i, i, i));
+        }
+        assertFalse(ring.offer(5, 0, 0, Float.NaN, Float.NaN, 0, 5, 5, 5));
+
+        assertTrue(ring.dropOldest());
+        assertTrue(ring.offer(5, 0, 0, Float.NaN, Float.NaN, 0, 5, 5, 5));
+
+        List<Long> drained = new ArrayList<>();
+        while (ring.poll((driverId, lat, lng, heading, speed, attributes, recordedAt, receivedAt, receivedNanos) -> drained.add(driverId))) {
+        }
+        assertEquals(List.of(2L, 3L, 4L, 5L), drained);
+    }
+
+    @Test
+    void shouldDeliverEveryPingOnceUnderConcurrentProducers() throws Exception {
+        LocationRingBuffer ring = new LocationRingBuffer(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        List<Future<?>> done = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            done.add(pool.submit(() -> {
+                for (long i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i, 1.0, 2.0, Float.NaN, Float.NaN, 0, 0, 0, 0)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+
+        boolean[] seen = new boolean[producers * perProducer];
+        long[] count = new long[1];
+        while (count[0] < seen.length) {
+            ring.poll((driverId, lat, lng, heading, speed, attributes, recordedAt, receivedAt, receivedNanos) -> {
+                assertFalse(seen[(int) driverId]);
+                seen[(int) driverId] = true;
+                count[0]++;
+            });
+        }
+        for (Future<?> future : done) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertEquals(0, ring.size());
+    }
+}
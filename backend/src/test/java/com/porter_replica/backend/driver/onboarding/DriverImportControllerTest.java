@@ -0,0 +1,163 @@
+package com.porter_replica.backend.driver.onboarding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.porter_replica.backend.user.UserRegistered;
+
+@SpringBootTest(properties = {
+        "driver-import.api-key=test-import-key",
+        "driver-import.batch-size=2",
+        "password-hashing.bcrypt-strength=4"
+})
+@AutoConfigureMockMvc
+class DriverImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldImportNdjsonAndReportRejectedRowsByLine() throws Exception {
+
+        String body = """
+            {"name":"Driver One","email":"d1@import.test","password":"secret-1"}
+            {"name":"Driver Two","phone":"+911000000002","password":"secret-2"}
+
+            {"name":"No Contact","password":"secret-3"}
+            not json
+            {"name":"Driver One Again","email":"d1@import.test","password":"secret-4"}
+            {"name":"Driver Three","email":"d3@import.test","phone":"+911000000003","password":"secret-5"}
+            """;
+
+        mockMvc.perform(post("/api/drivers/import")
+                .header(DriverImportController.KEY_HEADER, "test-import-key")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(3))
+            .andExpect(jsonPath("$.rejected").value(3))
+            .andExpect(jsonPath("$.errors[0].line").value(4))
+            .andExpect(jsonPath("$.errors[0].reason").value("Email or phone is required"))
+            .andExpect(jsonPath("$.errors[1].line").value(5))
+            .andExpect(jsonPath("$.errors[1].reason").value("Invalid JSON"))
+            // a repeat of a row from an earlier, already committed batch
+            .andExpect(jsonPath("$.errors[2].line").value(6))
+            .andExpect(jsonPath("$.errors[2].reason").value(DriverImportService.CONTACT_TAKEN))
+            .andExpect(jsonPath("$.errorsTruncated").value(false));
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"email":"d1@import.test","password":"secret-1"}
+                    """))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.accessToken").exists());
+    }
+
+    @Test
+    @Transactional
+    void shouldRecordARegistrationEventPerImportedDriver() throws Exception {
+
+        // three rows over two batches; the test transaction keeps the rows from the publishers and rolls back
+        String body = """
+            {"name":"Event One","email":"e1@import.test","password":"secret-1","vehicleType":"mini_truck"}
+            {"name":"Event Two","email":"e2@import.test","password":"secret-2"}
+            {"name":"Event Three","email":"e3@import.test","password":"secret-3"}
+            """;
+
+        mockMvc.perform(post("/api/drivers/import")
+                .header(DriverImportController.KEY_HEADER, "test-import-key")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(3));
+
+        List<Map<String, Object>> events = jdbcTemplate.queryForList(
+                "select u.id, e.payload from outbox_events e join users u on u.id = e.aggregate_id "
+                        + "where e.type = ? and u.email like 'e_@import.test' order by u.email", UserRegistered.TYPE);
+        assertEquals(3, events.size());
+        long first = ((Number) events.get(0).get("id")).longValue();
+        assertEquals("{\"userId\":" + first + ",\"role\":\"DRIVER\",\"vehicleType\":\"MINI_TRUCK\"}",
+                events.get(0).get("payload"));
+        long second = ((Number) events.get(1).get("id")).longValue();
+        assertEquals("{\"userId\":" + second + ",\"role\":\"DRIVER\",\"vehicleType\":null}",
+                events.get(1).get("payload"));
+    }
+
+    @Test
+    void shouldImportCsvWithQuotedFields() throws Exception {
+
+        String body = """
+            phone,password,name,email,vehicle_type
+            +912000000001,"pass,word","Fleet ""A"" Driver",csv1@import.test,mini_truck
+            +912000000001,other,Repeat In Batch,,
+            ,pw,"unterminated
+            +912000000002,pw,Bad Vehicle,,tractor
+            """;
+
+        mockMvc.perform(post("/api/drivers/import")
+                .header(DriverImportController.KEY_HEADER, "test-import-key")
+                .contentType("text/csv")
+                .content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.rejected").value(3))
+            .andExpect(jsonPath("$.errors[0].line").value(3))
+            .andExpect(jsonPath("$.errors[1].line").value(4))
+            .andExpect(jsonPath("$.errors[1].reason").value("Unterminated quoted field"))
+            .andExpect(jsonPath("$.errors[2].reason").value("Unknown vehicle type tractor"));
+
+        assertEquals("MINI_TRUCK", jdbcTemplate.queryForObject(
+                "select vehicle_type from users where email = 'csv1@import.test'", String.class));
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"email":"csv1@import.test","password":"pass,word"}
+                    """))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldRejectCsvWithoutRequiredColumns() throws Exception {
+
+        mockMvc.perform(post("/api/drivers/import")
+                .header(DriverImportController.KEY_HEADER, "test-import-key")
+                .contentType("text/csv")
+                .content("name,email\nNo Password,np@import.test\n"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectMissingOrWrongKey() throws Exception {
+
+        mockMvc.perform(post("/api/drivers/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"name\":\"X\",\"email\":\"x@import.test\",\"password\":\"p\"}\n"))
+            .andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/api/drivers/import")
+                .header(DriverImportController.KEY_HEADER, "wrong")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"name\":\"X\",\"email\":\"x@import.test\",\"password\":\"p\"}\n"))
+            .andExpect(status().isForbidden())
+            .andExpect(jsonPath("$.message").value("Import key is missing or invalid"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.porter_replica.backend.driver.presence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DriverPresenceTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+    private static final double BLR_LAT = 12.9716;
+    private static final double BLR_LNG = 77.5946;
+    private static final double BOM_LAT = 19.0760;
+    private static final double BOM_LNG = 72.8777;
+
+    private final List<DriverPresenceChanged> changes = new ArrayList<>();
+
+    @Test
+    void shouldGoOnlineWithAHeartbeatAndOfflineAfterTheTimeout() {
+        DriverPresence presence = presence(30, 100);
+        presence.heartbeat(1, BLR_LAT, BLR_LNG, T0);
+        presence.heartbeat(2, BLR_LAT + 0.01, BLR_LNG, T0);
+        presence.heartbeat(3, BOM_LAT, BOM_LNG, T0);
+        // somewhere between cities
+        presence.heartbeat(4, 15.0, 75.0, T0);
+
+        presence.advance(T0 + 1_000);
+        assertEquals(List.of(1L, 2L, 3L, 4L), changes.stream().map(DriverPresenceChanged::driverId).toList());
+        assertTrue(changes.stream().allMatch(DriverPresenceChanged::online));
+        assertEquals("mumbai", changes.get(2).city());
+        assertEquals(null, changes.get(3).city());
+        assertEquals(4, presence.onlineCount());
+        assertEquals(List.of(1L, 2L), sorted(presence.onlineIn("bengaluru")));
+        assertArrayEquals(new long[] { 3 }, presence.onlineIn("mumbai"));
+        changes.clear();
+
+        // 1 keeps beating and 3 drives into Bengaluru; 2 and 4 fall silent
+        presence.heartbeat(1, BLR_LAT, BLR_LNG, T0 + 20_000);
+        presence.heartbeat(3, BLR_LAT, BLR_LNG, T0 + 20_000);
+        presence.advance(T0 + 29_000);
+        assertTrue(changes.isEmpty());
+        presence.advance(T0 + 30_000);
+        assertEquals(List.of(2L, 4L), changes.stream().map(DriverPresenceChanged::driverId).sorted().toList());
+        assertTrue(changes.stream().noneMatch(DriverPresenceChanged::online));
+        assertEquals(List.of(1L, 3L), sorted(presence.onlineIn("bengaluru")));
+        assertEquals(0, presence.onlineCountIn("mumbai"));
+        assertFalse(presence.isOnline(2));
+        changes.clear();
+
+        presence.advance(T0 + 50_000);
+        assertEquals(List.of(1L, 3L), changes.stream().map(DriverPresenceChanged::driverId).sorted().toList());
+        assertEquals(0, presence.onlineCount());
+        assertEquals(T0 + 20_999, changes.get(0).lastSeenMillis());
+
+        assertThrows(IllegalArgumentException.class, () -> presence.onlineIn("atlantis"));
+    }
+
+    @Test
+    void shouldCascadeLongTimeoutsDownTheWheel() {
+        // two hours of one-second ticks: deadlines start on the third level
+        DriverPresence presence = presence(7_200, 100);
+        presence.heartbeat(1, BLR_LAT, BLR_LNG, T0 + 500);
+        presence.heartbeat(2, BLR_LAT, BLR_LNG, T0 + 500);
+        presence.heartbeat(2, BLR_LAT, BLR_LNG, T0 + 4_000_500);
+        presence.advance(T0 + 7_199_999);
+        changes.clear();
+
+        presence.advance(T0 + 7_200_000);
+        assertEquals(List.of(1L), changes.stream().map(DriverPresenceChanged::driverId).toList());
+        presence.advance(T0 + 11_199_999);
+        assertTrue(presence.isOnline(2));
+        presence.advance(T0 + 11_200_000);
+        assertFalse(presence.isOnline(2));
+    }
+
+    @Test
+    void shouldKeepPerDriverMemorySmallAndReuseSlots() {
+        int drivers = 100_000;
+        DriverPresence presence = presence(30, drivers);
+        for (int id = 0; id < drivers; id++) {
+            presence.heartbeat(id, BLR_LAT + (id % 100) * 0.001, BLR_LNG, T0);
+        }
+        long bytes = presence.memoryBytes();
+        assertTrue(bytes / drivers <= 40, bytes / drivers + " bytes per driver");
+
+        presence.advance(T0 + 30_000);
+        assertEquals(0, presence.onlineCount());
+        // a fresh fleet of the same size fits in the freed slots
+        for (int id = drivers; id < 2 * drivers; id++) {
+            presence.heartbeat(id, BLR_LAT, BLR_LNG, T0 + 31_000);
+        }
+        assertEquals(drivers, presence.onlineCountIn("bengaluru"));
+        assertEquals(bytes, presence.memoryBytes());
+    }
+
+    private DriverPresence presence(long timeoutSeconds, int expectedDrivers) {
+        Map<String, PresenceCities.Area> cities = new LinkedHashMap<>();
+        cities.put("bengaluru", new PresenceCities.Area(BLR_LAT, BLR_LNG, 35));
+        cities.put("mumbai", new PresenceCities.Area(BOM_LAT, BOM_LNG, 40));
+        return new DriverPresence(cities, timeoutSeconds, 1_000, expectedDrivers, T0,
+                event -> changes.add((DriverPresenceChanged) event), new SimpleMeterRegistry());
+    }
+
+    private static List<Long> sorted(long[] ids) {
+        return Arrays.stream(ids).sorted().boxed().toList();
+    }
+}
@@ -0,0 +1,170 @@
+package com.porter_replica.backend.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Drives the real application over HTTP: registration, login and an
+ * authenticated endpoint, at a configurable concurrency, against the embedded
+ * database from application-loadtest.yml. Fails when throughput or latency
+ * is worse than src/test/resources/loadtest/baselines.properties.
+ *
+ * Run with {@code mvn test -Pload-test}. Tunables (system properties):
+ * loadtest.concurrency (16), loadtest.requests (200 per scenario),
+ * loadtest.soak-seconds (0 = no soak phase). Add
+ * {@code -Dspring.threads.virtual.enabled=true} on a Java 21 runtime to
+ * compare against the virtual-thread serving mode.
+ */
+@Tag("load")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AuthLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 200);
+    private static final long SOAK_SECONDS = Long.getLong("loadtest.soak-seconds", 0);
+    private static final long SCENARIO_TIMEOUT_SECONDS = 300;
+
+    @LocalServerPort
+    private int port;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().build();
+
+    @Test
+    void authEndpointsShouldMeetBaselines() throws Exception {
+        Properties baselines = loadBaselines();
+        LoadDriver driver = new LoadDriver(client, CONCURRENCY);
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        List<LoadDriver.Result> results = new ArrayList<>();
+
+        // warm up JIT, connection pools and the password hashing pool
+        driver.run("warmup", CONCURRENCY * 2, SCENARIO_TIMEOUT_SECONDS,
+                i -> register("warmup-" + run + "-" + i));
+
+        results.add(driver.run("register", REQUESTS, SCENARIO_TIMEOUT_SECONDS,
+                i -> register("load-" + run + "-" + i)));
+
+        String[] issued = new String[REQUESTS];
+        results.add(driver.run("login", REQUESTS, SCENARIO_TIMEOUT_SECONDS,
+                i -> login("load-" + run + "-" + i),
+                (i, response) -> issued[i] = accessToken(response)));
+
+        // failed logins already count against the login scenario's error rate
+        String[] tokens = Arrays.stream(issued).filter(Objects::nonNull).toArray(String[]::new);
+        assertTrue(tokens.length > 0, "no login succeeded: " + results.get(results.size() - 1));
+
+        int authenticatedRequests = REQUESTS * 20;
+        results.add(driver.run("authenticated", authenticatedRequests, SCENARIO_TIMEOUT_SECONDS,
+                i -> authenticated(tokens[i % tokens.length])));
+
+        long soakUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(SOAK_SECONDS);
+        for (int round = 1; System.nanoTime() < soakUntil; round++) {
+            LoadDriver.Result soak = driver.run("authenticated", authenticatedRequests, SOAK_SECONDS,
+                    i -> authenticated(tokens[i % tokens.length]));
+            System.out.println("soak round " + round + ": " + soak);
+            results.add(soak);
+        }
+
+        writeReport(results);
+
+        List<org.junit.jupiter.api.function.Executable> checks = new ArrayList<>();
+        for (LoadDriver.Result result : results) {
+            checks.add(() -> assertWithinBaseline(result, baselines));
+        }
+        assertAll(checks);
+    }
+
+    private void assertWithinBaseline(LoadDriver.Result result, Properties baselines) {
+        String scenario = result.scenario();
+        double minThroughput = Double.parseDouble(baselines.getProperty(scenario + ".min-throughput"));
+        double maxP50 = Double.parseDouble(baselines.getProperty(scenario + ".max-p50-ms"));
+        double maxP99 = Double.parseDouble(baselines.getProperty(scenario + ".max-p99-ms"));
+        double maxErrorRate = Double.parseDouble(baselines.getProperty("max-error-rate"));
+
+        assertAll(scenario,
+                () -> assertTrue(result.errorRate() <= maxErrorRate, result + " exceeds error rate " + maxErrorRate),
+                () -> assertTrue(result.throughput() >= minThroughput, result + " below " + minThroughput + "/s"),
+                () -> assertTrue(result.percentileMillis(50) <= maxP50, result + " p50 above " + maxP50 + "ms"),
+                () -> assertTrue(result.percentileMillis(99) <= maxP99, result + " p99 above " + maxP99 + "ms"));
+    }
+
+    private HttpRequest register(String user) {
+        return post("/api/auth/register", """
+                {"name": "Load User", "email": "%s@load.test", "password": "password123", "role": "CUSTOMER"}
+                """.formatted(user));
+    }
+
+    private HttpRequest login(String user) {
+        return post("/api/auth/login", """
+                {"email": "%s@load.test", "password": "password123"}
+                """.formatted(user));
+    }
+
+    private HttpRequest authenticated(String token) {
+        return HttpRequest.newBuilder(uri("/api/auth/me"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private String accessToken(HttpResponse<String> response) {
+        return objectMapper.readTree(response.body()).get("accessToken").asText();
+    }
+
+    private static Properties loadBaselines() throws IOException {
+        Properties baselines = new Properties();
+        try (InputStream in = AuthLoadTest.class.getResourceAsStream("/loadtest/baselines.properties")) {
+            baselines.load(in);
+        }
+        return baselines;
+    }
+
+    private static void writeReport(List<LoadDriver.Result> results) throws IOException {
+        Path report = Path.of("target", "loadtest", "auth-load-report.txt");
+        Files.createDirectories(report.getParent());
+        try (Writer writer = Files.newBufferedWriter(report)) {
+            writer.write("concurrency=" + CONCURRENCY + " requests=" + REQUESTS
+                    + " virtualThreads=" + System.getProperty("spring.threads.virtual.enabled", "false") + "\n");
+            for (LoadDriver.Result result : results) {
+                writer.write(result + "\n");
+                System.out.println(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.porter_replica.backend.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Fires requests at a fixed concurrency and records per-request latency.
+ * Each worker is a closed loop: it sends the next request as soon as the
+ * previous response arrives.
+ */
+class LoadDriver {
+
+    private final HttpClient client;
+    private final int concurrency;
+
+    LoadDriver(HttpClient client, int concurrency) {
+        this.client = client;
+        this.concurrency = concurrency;
+    }
+
+    Result run(String scenario, int requests, long maxSeconds, IntFunction<HttpRequest> requestFor) throws InterruptedException {
+        return run(scenario, requests, maxSeconds, requestFor, (i, response) -> { });
+    }
+
+    /**
+     * Sends {@code requests} requests built by {@code requestFor(i)} and hands each
+     * successful response to {@code onResponse}; stops early after {@code maxSeconds}.
+     */
+    Result run(String scenario, int requests, long maxSeconds, IntFunction<HttpRequest> requestFor,
+            BiConsumer<Integer, HttpResponse<String>> onResponse) throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxSeconds);
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < requests && System.nanoTime() < deadline) {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(requestFor.apply(i), HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() / 100 != 2) {
+                            errors.incrementAndGet();
+                        } else {
+                            onResponse.accept(i, response);
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[completed.getAndIncrement()] = System.nanoTime() - sent;
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(maxSeconds + 60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        int done = completed.get();
+        long[] sorted = Arrays.copyOf(latencies, done);
+        Arrays.sort(sorted);
+        return new Result(scenario, done, errors.get(), elapsed, sorted);
+    }
+
+    record Result(String scenario, int requests, long errors, long elapsedNanos, long[] sortedLatencies) {
+
+        double throughput() {
+            return requests / (elapsedNanos / 1e9);
+        }
+
+        double errorRate() {
+            return requests == 0 ? 1.0 : (double) errors / requests;
+        }
+
+        double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-14s requests=%d errors=%d throughput=%.1f/s p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms",
+                    scenario, requests, errors, throughput(),
+                    percentileMillis(50), percentileMillis(95), percentileMillis(99), percentileMillis(100));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.porter_replica.backend.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.porter_replica.backend.auth.AuthService;
+import com.porter_replica.backend.auth.dto.RegisterRequest;
+import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.UserRegistered;
+import com.porter_replica.backend.user.VehicleType;
+
+@SpringBootTest(properties = {
+        "dispatch.window-millis=0",
+        "password-hashing.bcrypt-strength=4"
+})
+class OutboxPublisherTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private OutboxPublisher publisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldWriteTheRegistrationEventInTheSameTransaction() {
+        RegisterRequest request = new RegisterRequest();
+        request.setName("Outbox Driver");
+        request.setEmail("outbox-driver@test.com");
+        request.setPassword("password123");
+        request.setRole(Role.DRIVER);
+        request.setVehicleType(VehicleType.MINI_TRUCK);
+
+        // registered inside a transaction that is then rolled back: the event goes with the account
+        transactionTemplate.executeWithoutResult(status -> {
+            authService.register(request);
+            Map<String, Object> event = jdbcTemplate.queryForMap(
+                    "select e.aggregate_id, e.payload from outbox_events e join users u on u.id = e.aggregate_id "
+                            + "where e.type = ? and u.email = ?", UserRegistered.TYPE, "outbox-driver@test.com");
+            long userId = ((Number) event.get("aggregate_id")).longValue();
+            assertEquals("{\"userId\":" + userId + ",\"role\":\"DRIVER\",\"vehicleType\":\"MINI_TRUCK\"}",
+                    event.get("payload"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from users where email = ?", Integer.class,
+                "outbox-driver@test.com"));
+    }
+
+    @Test
+    void shouldBackOffAfterAFailedDelivery() throws Exception {
+        List<Integer> attempts = new CopyOnWriteArrayList<>();
+        publisher.subscribe("test.backoff", message -> {
+            attempts.add(message.attempts());
+            throw new IllegalStateException("down");
+        });
+
+        transactionTemplate.executeWithoutResult(status -> outbox.append("test.backoff", 4, List.of("backoff")));
+        await(() -> attempts("test.backoff") == 1);
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "select created_at, next_attempt_at from outbox_events where type = ?", "test.backoff");
+        long delay = ((Timestamp) row.get("next_attempt_at")).getTime() - ((Timestamp) row.get("created_at")).getTime();
+        assertTrue(delay >= publisher.backoffMillis(1), "next attempt only " + delay + " ms later");
+        // polls keep running, but the event is not claimed again while it backs off
+        Thread.sleep(300);
+        assertEquals(List.of(0), attempts);
+
+        assertEquals(2 * publisher.backoffMillis(1), publisher.backoffMillis(2));
+        assertEquals(publisher.backoffMillis(40), publisher.backoffMillis(41));
+        jdbcTemplate.update("delete from outbox_events where type = ?", "test.backoff");
+    }
+
+    @Test
+    void shouldRetryAFailingHandlerAndDropTheEventAfterMaxAttempts() throws Exception {
+        List<Integer> flakyAttempts = new CopyOnWriteArrayList<>();
+        publisher.subscribe("test.flaky", message -> {
+            flakyAttempts.add(message.attempts());
+            if (message.attempts() < 2) {
+                throw new IllegalStateException("not yet");
+            }
+        });
+        List<Integer> poisonAttempts = new CopyOnWriteArrayList<>();
+        publisher.subscribe("test.poison", message -> {
+            poisonAttempts.add(message.attempts());
+            throw new IllegalStateException("never");
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outbox.append("test.flaky", 1, List.of("flaky"));
+            outbox.append("test.poison", 2, List.of("poison"));
+        });
+
+        await(() -> {
+            fastForward("test.flaky", "test.poison");
+            return pending("test.flaky") == 0 && pending("test.poison") == 0;
+        });
+        assertEquals(List.of(0, 1, 2), flakyAttempts);
+        // one attempt per failed delivery, however many polls ran in between
+        assertEquals(IntStream.range(0, 20).boxed().toList(), poisonAttempts);
+    }
+
+    @Test
+    void shouldOnlyAppendInsideATransaction() {
+        assertThrows(IllegalTransactionStateException.class, () -> outbox.append("test.orphan", 3, List.of()));
+    }
+
+    private int attempts(String type) {
+        return jdbcTemplate.queryForObject("select attempts from outbox_events where type = ?", Integer.class, type);
+    }
+
+    // lets backed-off events be claimed again right away
+    private void fastForward(String... types) {
+        for (String type : types) {
+            jdbcTemplate.update("update outbox_events set next_attempt_at = created_at where type = ?", type);
+        }
+    }
+
+    private int pending(String type) {
+        return jdbcTemplate.queryForObject("select count(*) from outbox_events where type = ?", Integer.class, type);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,70 @@
+package com.porter_replica.backend.quote;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.porter_replica.backend.auth.jwt.JwtUtil;
+import com.porter_replica.backend.user.Role;
+
+@SpringBootTest(properties = {
+        "dispatch.window-millis=0",
+        "password-hashing.bcrypt-strength=4"
+})
+@AutoConfigureMockMvc
+class QuoteControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void shouldQuoteEveryVehicleTypeFromTheStraightLineWithoutARoutingGraph() throws Exception {
+        // 10 km apart; 13.5 km after the detour factor, 37 minutes at 22 km/h
+        mockMvc.perform(get("/api/quotes")
+                .param("pickupLat", "12.9716").param("pickupLng", "77.5946")
+                .param("dropLat", "13.0615").param("dropLng", "77.5946")
+                .header(HttpHeaders.AUTHORIZATION, bearer()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(4))
+            .andExpect(jsonPath("$[0].vehicleType").value("TWO_WHEELER"))
+            .andExpect(jsonPath("$[0].distanceKm").value(13.5))
+            .andExpect(jsonPath("$[0].durationMinutes").value(37))
+            .andExpect(jsonPath("$[0].fare").value(30 + 108 + 37))
+            .andExpect(jsonPath("$[0].surgeMultiplier").value(1.0))
+            .andExpect(jsonPath("$[0].roadRoute").value(false));
+    }
+
+    @Test
+    void shouldQuoteOneVehicleTypeAndRejectBadCoordinates() throws Exception {
+        mockMvc.perform(get("/api/quotes")
+                .param("pickupLat", "12.9716").param("pickupLng", "77.5946")
+                .param("dropLat", "13.0615").param("dropLng", "77.5946")
+                .param("vehicleType", "TRUCK")
+                .header(HttpHeaders.AUTHORIZATION, bearer()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].vehicleType").value("TRUCK"));
+
+        mockMvc.perform(get("/api/quotes")
+                .param("pickupLat", "95").param("pickupLng", "77.5946")
+                .param("dropLat", "13.0615").param("dropLng", "77.5946")
+                .header(HttpHeaders.AUTHORIZATION, bearer()))
+            .andExpect(status().isBadRequest());
+    }
+
+    private String bearer() {
+        return "Bearer " + jwtUtil.generateToken(901L, Role.CUSTOMER, UUID.randomUUID());
+    }
+}
@@ -0,0 +1,79 @@
+package com.porter_replica.backend.quote.surge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SurgeEngineTest {
+
+    // a bucket boundary, with 10 s buckets
+    private static final long T0 = 1_700_000_000_000L;
+    private static final double LAT = 12.9716;
+    private static final double LNG = 77.5946;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldSurgeWhereBookingsOutnumberIdleDrivers() {
+        SurgeEngine engine = engine(1.0, 100);
+        // one idle driver pinging five times in each of the six buckets counts as one driver, not thirty
+        for (int bucket = 0; bucket < 6; bucket++) {
+            for (int ping = 0; ping < 5; ping++) {
+                engine.recordIdle(1, LAT, LNG, T0 + bucket * 10_000L + ping * 1_000L);
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            engine.recordDemand(LAT, LNG, T0 + 55_000);
+        }
+        // below min-demand
+        engine.recordDemand(13.0827, 80.2707, T0 + 55_000);
+
+        engine.recompute(T0 + 59_000);
+
+        // 4 bookings per idle driver: 1 + 0.5 * (4 - 1)
+        assertEquals(2.5, engine.multiplier(LAT, LNG), 1e-6);
+        assertEquals(2.5, engine.multiplier(LAT - 0.0005, LNG + 0.005), 1e-6);
+        assertEquals(1.0, engine.multiplier(13.0827, 80.2707), 1e-6);
+        assertEquals(1.0, engine.multiplier(19.0760, 72.8777), 1e-6);
+    }
+
+    @Test
+    void shouldSmoothTowardsTheTargetAndForgetCellsOnceTheWindowPasses() {
+        SurgeEngine engine = engine(0.5, 100);
+        for (int i = 0; i < 10; i++) {
+            engine.recordDemand(LAT, LNG, T0);
+        }
+
+        engine.recompute(T0 + 1_000);
+        assertEquals(2.0, engine.multiplier(LAT, LNG), 1e-6);
+        engine.recompute(T0 + 2_000);
+        assertEquals(2.5, engine.multiplier(LAT, LNG), 1e-6);
+
+        // the bookings have left the 60 s window: back down, halving the distance each time
+        engine.recompute(T0 + 60_000);
+        assertEquals(1.75, engine.multiplier(LAT, LNG), 1e-6);
+        for (int i = 0; i < 10 && engine.multiplier(LAT, LNG) > 1; i++) {
+            engine.recompute(T0 + 61_000 + i);
+        }
+        assertEquals(1.0, engine.multiplier(LAT, LNG), 1e-6);
+        assertEquals(0, registry.get("surge.cells").gauge().value());
+    }
+
+    @Test
+    void shouldDropEventsForNewCellsPastMaxCells() {
+        SurgeEngine engine = engine(1.0, 1);
+        engine.recordDemand(LAT, LNG, T0);
+        engine.recordDemand(19.0760, 72.8777, T0);
+        engine.recordDemand(LAT, LNG, T0);
+
+        assertEquals(1, registry.get("surge.cells").gauge().value());
+        assertEquals(1, registry.get("surge.events.dropped").tag("kind", "demand").counter().count());
+    }
+
+    private SurgeEngine engine(double smoothing, int maxCells) {
+        // 2 km cells, 60 s window of 10 s buckets, threshold 1, sensitivity 0.5, at most 3x, min-demand 3
+        return new SurgeEngine(2, 60, 10, maxCells, 1.0, 0.5, 3.0, smoothing, 3, registry);
+    }
+}
@@ -0,0 +1,64 @@
+package com.porter_replica.backend.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class OsmReaderTest {
+
+    static final String EXTRACT = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <osm version="0.6">
+          <node id="1" lat="12.9700" lon="77.5900"/>
+          <node id="2" lat="12.9710" lon="77.5900"/>
+          <node id="3" lat="12.9720" lon="77.5900"/>
+          <node id="4" lat="12.9720" lon="77.5910"/>
+          <node id="5" lat="12.9730" lon="77.5910"/>
+          <node id="6" lat="12.9800" lon="77.6000"/>
+          <way id="10">
+            <nd ref="1"/><nd ref="2"/><nd ref="3"/>
+            <tag k="highway" v="residential"/>
+          </way>
+          <way id="11">
+            <nd ref="3"/><nd ref="4"/>
+            <tag k="highway" v="primary"/>
+            <tag k="oneway" v="yes"/>
+            <tag k="maxspeed" v="36"/>
+          </way>
+          <way id="12">
+            <nd ref="4"/><nd ref="5"/><nd ref="99"/>
+            <tag k="highway" v="footway"/>
+          </way>
+          <way id="13">
+            <nd ref="5"/><nd ref="6"/>
+            <tag k="highway" v="service"/>
+            <tag k="access" v="private"/>
+          </way>
+        </osm>
+        """;
+
+    @Test
+    void shouldKeepOnlyDrivableRoadsInTheirAllowedDirections() throws Exception {
+        RoadGraph graph = OsmReader.read(new ByteArrayInputStream(EXTRACT.getBytes(StandardCharsets.UTF_8)));
+
+        // footway and private service road left out, with the nodes only they use
+        assertEquals(4, graph.nodeCount());
+        // 1-2 and 2-3 both ways, 3-4 one way
+        assertEquals(5, graph.edgeCount());
+
+        int oneWay = -1;
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (graph.lng(graph.edgeTo(edge)) > 77.5905) {
+                oneWay = edge;
+            }
+            assertTrue(graph.lng(graph.edgeFrom(edge)) < 77.5905, "nothing leaves node 4");
+        }
+        // ~108 m at 36 km/h (10 m/s)
+        assertEquals(108, graph.edgeMeters(oneWay), 2);
+        assertEquals(10_800, graph.edgeMillis(oneWay), 300);
+    }
+}
@@ -0,0 +1,62 @@
+package com.porter_replica.backend.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RoutingEngineTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldBuildTheGraphOnceAndMapItAfterwards() throws Exception {
+        Path osm = directory.resolve("city.osm");
+        Path graphFile = directory.resolve("city.graph");
+        Files.writeString(osm, OsmReaderTest.EXTRACT, StandardCharsets.UTF_8);
+
+        RoutingEngine first = engine(osm, graphFile);
+        assertTrue(first.isAvailable());
+        assertTrue(Files.exists(graphFile));
+        Route route = first.route(12.9700, 77.5900, 12.9720, 77.5910).orElseThrow();
+        // 1 → 2 → 3 → 4: ~222 m of residential street and ~108 m of primary
+        assertEquals(330, route.meters(), 5);
+
+        FileTime built = Files.getLastModifiedTime(graphFile);
+        RoutingEngine second = engine(osm, graphFile);
+        assertEquals(built, Files.getLastModifiedTime(graphFile));
+        assertEquals(route, second.route(12.9700, 77.5900, 12.9720, 77.5910).orElseThrow());
+
+        // the primary is one-way
+        Route back = second.route(12.9720, 77.5910, 12.9700, 77.5900).orElse(null);
+        assertNull(back);
+        Route[] many = second.routes(12.9700, 77.5900, new double[] { 12.9710, 12.9720, 12.9800 },
+                new double[] { 77.5900, 77.5910, 77.6000 });
+        assertEquals(111, many[0].meters(), 3);
+        assertEquals(route, many[1]);
+        // nothing drivable within max-snap-meters
+        assertNull(many[2]);
+    }
+
+    @Test
+    void shouldBeUnavailableWithoutAGraph() throws Exception {
+        RoutingEngine engine = new RoutingEngine(new SimpleMeterRegistry(), "", "", 200, 1000, 200, 100);
+        assertFalse(engine.isAvailable());
+        assertTrue(engine.route(12.97, 77.59, 12.98, 77.60).isEmpty());
+    }
+
+    private static RoutingEngine engine(Path osm, Path graph) throws Exception {
+        return new RoutingEngine(new SimpleMeterRegistry(), osm.toString(), graph.toString(), 200, 500, 50, 1000);
+    }
+}
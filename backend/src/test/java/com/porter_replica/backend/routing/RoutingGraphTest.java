@@ -0,0 +1,173 @@
+package com.porter_replica.backend.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RoutingGraphTest {
+
+    private static final int SIDE = 25;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldMatchPlainDijkstraOnEveryPair() {
+        RoadGraph roads = city(new Random(7));
+        RoutingGraph graph = RoutingGraph.contract(roads, 50, 0, 0);
+        Random random = new Random(11);
+        for (int i = 0; i < 300; i++) {
+            int source = random.nextInt(roads.nodeCount());
+            int target = random.nextInt(roads.nodeCount());
+            assertSameRoute(dijkstra(roads, source)[target], graph.route(rank(graph, roads, source),
+                    rank(graph, roads, target)));
+        }
+    }
+
+    @Test
+    void shouldAnswerOneToManyLikePointToPoint() {
+        RoadGraph roads = city(new Random(3));
+        RoutingGraph graph = RoutingGraph.contract(roads, 50, 0, 0);
+        int source = 17;
+        long[][] expected = dijkstra(roads, source);
+        int[] targets = { 0, 17, 300, 624, -1, 451 };
+        int[] ranked = new int[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            ranked[i] = targets[i] < 0 ? -1 : rank(graph, roads, targets[i]);
+        }
+        Route[] routes = graph.routes(rank(graph, roads, source), ranked);
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] < 0) {
+                assertNull(routes[i]);
+            } else {
+                assertSameRoute(expected[targets[i]], routes[i]);
+            }
+        }
+    }
+
+    @Test
+    void shouldQueryTheSameAfterWritingAndMapping() throws Exception {
+        RoadGraph roads = city(new Random(5));
+        RoutingGraph built = RoutingGraph.contract(roads, 50, 1234, 5678);
+        Path file = directory.resolve("city.graph");
+        built.write(file);
+
+        RoutingGraph mapped = RoutingGraph.map(file);
+        assertEquals(built.nodeCount(), mapped.nodeCount());
+        assertEquals(built.edgeCount(), mapped.edgeCount());
+        assertEquals(true, mapped.builtFrom(1234, 5678));
+        for (int source = 0; source < roads.nodeCount(); source += 37) {
+            for (int target = 0; target < roads.nodeCount(); target += 53) {
+                assertEquals(built.route(source, target), mapped.route(source, target));
+            }
+        }
+        // the grid comes back too
+        int node = rank(built, roads, 312);
+        assertEquals(node, mapped.nearestNode(roads.lat(312) + 0.0001, roads.lng(312), 500));
+    }
+
+    @Test
+    void shouldSnapOnlyWithinTheLimit() {
+        RoadGraph roads = city(new Random(9));
+        RoutingGraph graph = RoutingGraph.contract(roads, 50, 0, 0);
+        int corner = rank(graph, roads, 0);
+        assertEquals(corner, graph.nearestNode(roads.lat(0) - 0.001, roads.lng(0) - 0.001, 500));
+        assertEquals(-1, graph.nearestNode(roads.lat(0) - 0.05, roads.lng(0), 1000));
+    }
+
+    // a SIDE x SIDE street grid ~300 m apart with random speeds; one street in five is one-way
+    private static RoadGraph city(Random random) {
+        RoadGraph roads = new RoadGraph();
+        for (int row = 0; row < SIDE; row++) {
+            for (int column = 0; column < SIDE; column++) {
+                roads.addNode(19.0 + row * 0.0027, 72.8 + column * 0.0029);
+            }
+        }
+        for (int row = 0; row < SIDE; row++) {
+            for (int column = 0; column < SIDE; column++) {
+                int node = row * SIDE + column;
+                if (column + 1 < SIDE) {
+                    street(roads, random, node, node + 1);
+                }
+                if (row + 1 < SIDE) {
+                    street(roads, random, node, node + SIDE);
+                }
+            }
+        }
+        return roads;
+    }
+
+    private static void street(RoadGraph roads, Random random, int a, int b) {
+        int meters = OsmReader.distanceMeters(roads.lat(a), roads.lng(a), roads.lat(b), roads.lng(b));
+        int millis = (int) (meters / (3 + random.nextDouble() * 20) * 1000);
+        int kind = random.nextInt(10);
+        if (kind != 0) {
+            roads.addEdge(a, b, millis, meters);
+        }
+        if (kind != 1) {
+            roads.addEdge(b, a, millis, meters);
+        }
+    }
+
+    private static int rank(RoutingGraph graph, RoadGraph roads, int node) {
+        return graph.nearestNode(roads.lat(node), roads.lng(node), 10);
+    }
+
+    private static void assertSameRoute(long[] expected, Route actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertNotNull(actual);
+        assertEquals(Math.round(expected[0] / 1000.0), actual.seconds());
+        assertEquals(expected[1], actual.meters());
+    }
+
+    // {millis, meters} of the fastest route to every node, null where unreachable
+    private static long[][] dijkstra(RoadGraph roads, int source) {
+        List<List<Integer>> out = new ArrayList<>();
+        for (int node = 0; node < roads.nodeCount(); node++) {
+            out.add(new ArrayList<>());
+        }
+        for (int edge = 0; edge < roads.edgeCount(); edge++) {
+            out.get(roads.edgeFrom(edge)).add(edge);
+        }
+        long[] millis = new long[roads.nodeCount()];
+        long[] meters = new long[roads.nodeCount()];
+        Arrays.fill(millis, Long.MAX_VALUE);
+        millis[source] = 0;
+        PriorityQueue<long[]> queue = new PriorityQueue<>((x, y) -> Long.compare(x[0], y[0]));
+        queue.add(new long[] { 0, source });
+        while (!queue.isEmpty()) {
+            long[] head = queue.poll();
+            int node = (int) head[1];
+            if (head[0] > millis[node]) {
+                continue;
+            }
+            for (int edge : out.get(node)) {
+                int next = roads.edgeTo(edge);
+                long reached = head[0] + roads.edgeMillis(edge);
+                if (reached < millis[next]) {
+                    millis[next] = reached;
+                    meters[next] = meters[node] + roads.edgeMeters(edge);
+                    queue.add(new long[] { reached, next });
+                }
+            }
+        }
+        long[][] result = new long[roads.nodeCount()][];
+        for (int node = 0; node < roads.nodeCount(); node++) {
+            result[node] = millis[node] == Long.MAX_VALUE ? null : new long[] { millis[node], meters[node] };
+        }
+        return result;
+    }
+}
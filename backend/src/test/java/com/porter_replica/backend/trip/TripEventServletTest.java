@@ -0,0 +1,144 @@
+package com.porter_replica.backend.trip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.porter_replica.backend.auth.jwt.JwtUtil;
+import com.porter_replica.backend.booking.BookingService;
+import com.porter_replica.backend.booking.dispatch.DispatchEngine;
+import com.porter_replica.backend.booking.dto.CreateBookingRequest;
+import com.porter_replica.backend.driver.geo.DriverGeoIndex;
+import com.porter_replica.backend.driver.location.DriverLocationPipeline;
+import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.VehicleType;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "dispatch.window-millis=0",
+        "password-hashing.bcrypt-strength=4"
+})
+class TripEventServletTest {
+
+    private static final double LAT = 21.1458;
+    private static final double LNG = 79.0882;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private DispatchEngine dispatchEngine;
+
+    @Autowired
+    private DriverGeoIndex geoIndex;
+
+    @Autowired
+    private DriverLocationPipeline locationPipeline;
+
+    @Autowired
+    private TripChannel channel;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void shouldStreamAssignmentAndDriverPositions() throws Exception {
+        long bookingId = bookingService.create(801, request()).id();
+        String token = jwtUtil.generateToken(801L, Role.CUSTOMER, UUID.randomUUID());
+
+        HttpResponse<Stream<String>> response = client.send(
+                HttpRequest.newBuilder(uri(bookingId, token)).GET().build(),
+                HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> response.body().forEach(lines::add));
+        reader.setDaemon(true);
+        reader.start();
+
+        // the snapshot comes first
+        assertTrue(awaitData(lines, "status").contains("\"SEARCHING\""));
+
+        long now = System.currentTimeMillis();
+        geoIndex.update(7301, LAT + 0.005, LNG, Float.NaN, Float.NaN, now, VehicleType.TWO_WHEELER, true);
+        dispatchEngine.dispatch(now);
+        String assigned = awaitData(lines, "status");
+        assertTrue(assigned.contains("\"ASSIGNED\""), assigned);
+        assertTrue(assigned.contains("\"driverId\":7301"), assigned);
+
+        locationPipeline.submit(7301, LAT + 0.004, LNG, 180f, Float.NaN, now + 1000, null, false);
+        String position = awaitData(lines, "position");
+        assertTrue(position.contains("\"driverId\":7301"), position);
+        assertTrue(position.contains("\"heading\":180.0"), position);
+        assertTrue(position.contains("\"speed\":null"), position);
+        assertTrue(channel.subscribers() > 0);
+    }
+
+    @Test
+    void shouldOnlyOpenStreamsForTheBookingsParties() throws Exception {
+        long bookingId = bookingService.create(802, request()).id();
+
+        assertEquals(401, status(uri(bookingId, null)));
+        assertEquals(401, status(uri(bookingId, "not-a-token")));
+        String stranger = jwtUtil.generateToken(803L, Role.CUSTOMER, UUID.randomUUID());
+        assertEquals(404, status(uri(bookingId, stranger)));
+    }
+
+    private URI uri(long bookingId, String token) {
+        return URI.create("http://localhost:" + port + "/api/trips/" + bookingId + "/events"
+                + (token == null ? "" : "?access_token=" + token));
+    }
+
+    private int status(URI uri) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    // the data line of the next frame of this type
+    private static String awaitData(BlockingQueue<String> lines, String event) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        boolean inEvent = false;
+        while (System.nanoTime() < deadline) {
+            String line = lines.poll(100, TimeUnit.MILLISECONDS);
+            if (line == null) {
+                continue;
+            }
+            if (line.startsWith("event: ")) {
+                inEvent = line.equals("event: " + event);
+            } else if (inEvent && line.startsWith("data: ")) {
+                return line.substring(6);
+            }
+        }
+        assertNotNull(null, "no " + event + " frame");
+        return null;
+    }
+
+    private static CreateBookingRequest request() {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setPickupLat(LAT);
+        request.setPickupLng(LNG);
+        request.setDropLat(LAT + 0.05);
+        request.setDropLng(LNG + 0.05);
+        request.setVehicleType(VehicleType.TWO_WHEELER);
+        return request;
+    }
+}
@@ -0,0 +1,108 @@
+package com.porter_replica.backend.trip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+class TripSubscriberTest {
+
+    @Test
+    void shouldSendOnlyTheNewestPositionToASlowReader() {
+        SocketStream out = new SocketStream();
+        TripSubscriber subscriber = new TripSubscriber(1, null, out, 4, Runnable::run, () -> { });
+        subscriber.offer(frame("status SEARCHING"));
+        subscriber.onWritePossible();
+        assertEquals("status SEARCHING", out.written());
+
+        // the client stops reading
+        out.ready = false;
+        assertFalse(subscriber.offerPosition(frame("position 1")));
+        assertTrue(subscriber.offerPosition(frame("position 2")));
+        assertTrue(subscriber.offerPosition(frame("position 3")));
+        subscriber.offer(frame("status ASSIGNED"));
+
+        out.ready = true;
+        subscriber.onWritePossible();
+        // state changes are never skipped, positions 1 and 2 are
+        assertEquals("status SEARCHINGstatus ASSIGNEDposition 3", out.written());
+        assertTrue(out.flushes > 0);
+    }
+
+    @Test
+    void shouldRefuseFramesOnceTheQueueIsFull() {
+        SocketStream out = new SocketStream();
+        AtomicInteger completed = new AtomicInteger();
+        TripSubscriber subscriber = new TripSubscriber(1, null, out, 2, Runnable::run, completed::incrementAndGet);
+        out.ready = false;
+        subscriber.onWritePossible();
+
+        assertTrue(subscriber.offer(frame("a")));
+        assertTrue(subscriber.offer(frame("b")));
+        assertFalse(subscriber.offer(frame("c")));
+
+        subscriber.close();
+        subscriber.close();
+        assertEquals(1, completed.get());
+        assertTrue(subscriber.isClosed());
+    }
+
+    @Test
+    void shouldEndTheStreamOnceDrained() {
+        SocketStream out = new SocketStream();
+        AtomicInteger completed = new AtomicInteger();
+        TripSubscriber subscriber = new TripSubscriber(1, null, out, 4, Runnable::run, completed::incrementAndGet);
+        subscriber.onWritePossible();
+        out.ready = false;
+        subscriber.offer(frame("status EXPIRED"));
+        subscriber.closeAfterDrain();
+        assertEquals(0, completed.get());
+
+        out.ready = true;
+        subscriber.onWritePossible();
+        assertEquals("status EXPIRED", out.written());
+        assertEquals(1, completed.get());
+    }
+
+    private static byte[] frame(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final class SocketStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        boolean ready = true;
+        int flushes;
+
+        String written() {
+            return bytes.toString(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+        @Override
+        public void write(int b) {
+            bytes.write(b);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
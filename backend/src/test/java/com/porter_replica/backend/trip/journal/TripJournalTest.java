@@ -0,0 +1,158 @@
+package com.porter_replica.backend.trip.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.porter_replica.backend.booking.BookingStatus;
+
+class TripJournalTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+    private static final int FOUR_RECORDS = 4 * TripJournal.RECORD_BYTES;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackWhatWasAppendedAfterReopening() throws IOException {
+        TripJournal journal = new TripJournal(directory, FOUR_RECORDS);
+        assertEquals(1, journal.append(11, 601, 0, BookingStatus.SEARCHING, T0));
+        assertEquals(2, journal.append(11, 0, 7201, BookingStatus.ASSIGNED, T0 + 1));
+        assertEquals(3, journal.append(11, 0, 0, BookingStatus.ARRIVED, T0 + 2));
+        journal.close();
+
+        TripJournal reopened = new TripJournal(directory, FOUR_RECORDS);
+        assertEquals(3, reopened.lastSequence());
+        List<String> records = records(reopened, 1, 3);
+        assertEquals(List.of("1 11 601 0 SEARCHING " + T0, "2 11 0 7201 ASSIGNED " + (T0 + 1),
+                "3 11 0 0 ARRIVED " + (T0 + 2)), records);
+        assertEquals(4, reopened.append(11, 0, 0, BookingStatus.PICKED_UP, T0 + 3));
+    }
+
+    @Test
+    void shouldRollSegmentsAndDeleteTheOnesBehindACheckpoint() throws IOException {
+        TripJournal journal = new TripJournal(directory, FOUR_RECORDS);
+        for (int i = 1; i <= 10; i++) {
+            journal.append(i, i, 0, BookingStatus.SEARCHING, T0);
+        }
+        journal.force();
+        assertEquals(3, journal.segmentCount());
+        assertEquals(List.of("7 7 7 0 SEARCHING " + T0), records(journal, 7, 7));
+
+        // segment 1-4 is fully behind 6, segment 5-8 is not
+        assertEquals(1, journal.deleteBefore(6));
+        assertEquals(2, journal.segmentCount());
+        // the tail is never deleted
+        assertEquals(1, journal.deleteBefore(100));
+        journal.close();
+
+        TripJournal reopened = new TripJournal(directory, FOUR_RECORDS);
+        assertEquals(10, reopened.lastSequence());
+        assertEquals(List.of("9 9 9 0 SEARCHING " + T0, "10 10 10 0 SEARCHING " + T0), records(reopened, 1, 10));
+    }
+
+    @Test
+    void shouldEndAtATornRecordAndForgetEverythingAfterIt() throws IOException {
+        TripJournal journal = new TripJournal(directory, FOUR_RECORDS);
+        for (int i = 1; i <= 6; i++) {
+            journal.append(i, i, 0, BookingStatus.SEARCHING, T0);
+        }
+        journal.close();
+
+        // flip a byte of record 2: records 3 and 4, and the segment after, must not come back
+        Path first = directory.resolve(String.format("%020d.journal", 1));
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0x7f }), TripJournal.RECORD_BYTES + 10);
+        }
+
+        TripJournal reopened = new TripJournal(directory, FOUR_RECORDS);
+        assertEquals(1, reopened.lastSequence());
+        assertEquals(1, reopened.segmentCount());
+        assertEquals(List.of("1 1 1 0 SEARCHING " + T0), records(reopened, 1, 6));
+        assertEquals(2, reopened.append(20, 20, 0, BookingStatus.SEARCHING, T0));
+        reopened.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void shouldDropUnforcedRecordsOnTruncate() throws IOException {
+        TripJournal journal = new TripJournal(directory, FOUR_RECORDS);
+        journal.append(1, 1, 0, BookingStatus.SEARCHING, T0);
+        journal.force();
+        journal.append(2, 2, 0, BookingStatus.SEARCHING, T0);
+        journal.append(3, 3, 0, BookingStatus.SEARCHING, T0);
+
+        journal.truncate(1);
+        assertEquals(1, journal.lastSequence());
+        assertEquals(2, journal.append(4, 4, 0, BookingStatus.SEARCHING, T0));
+        journal.close();
+
+        assertEquals(List.of("1 1 1 0 SEARCHING " + T0, "2 4 4 0 SEARCHING " + T0),
+                records(new TripJournal(directory, FOUR_RECORDS), 1, 10));
+    }
+
+    @Test
+    void shouldDropABatchThatRolledIntoANewSegmentOnTruncate() throws IOException {
+        TripJournal journal = new TripJournal(directory, FOUR_RECORDS);
+        for (int i = 1; i <= 3; i++) {
+            journal.append(i, i, 0, BookingStatus.SEARCHING, T0);
+        }
+        journal.force();
+
+        // the batch fills segment 1-4, which the roll forces, then fails before its own force
+        for (int i = 4; i <= 6; i++) {
+            journal.append(i, i, 0, BookingStatus.SEARCHING, T0);
+        }
+        assertEquals(2, journal.segmentCount());
+        journal.truncate(3);
+
+        assertEquals(3, journal.lastSequence());
+        assertEquals(1, journal.segmentCount());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals(4, journal.append(7, 7, 0, BookingStatus.SEARCHING, T0));
+        journal.close();
+
+        TripJournal reopened = new TripJournal(directory, FOUR_RECORDS);
+        assertEquals(4, reopened.lastSequence());
+        assertEquals(List.of("1 1 1 0 SEARCHING " + T0, "2 2 2 0 SEARCHING " + T0, "3 3 3 0 SEARCHING " + T0,
+                "4 7 7 0 SEARCHING " + T0), records(reopened, 1, 10));
+    }
+
+    @Test
+    void shouldNotReplayRecordsARollForcedBeforeATruncate() throws IOException {
+        TripJournal journal = new TripJournal(directory, FOUR_RECORDS);
+        for (int i = 1; i <= 6; i++) {
+            journal.append(i, i, 0, BookingStatus.SEARCHING, T0);
+        }
+        journal.truncate(3);
+        // as after a crash: no close, the reopened journal sees only what reached the files
+        TripJournal reopened = new TripJournal(directory, FOUR_RECORDS);
+
+        assertEquals(3, reopened.lastSequence());
+        assertEquals(1, reopened.segmentCount());
+    }
+
+    private static List<String> records(TripJournal journal, long from, long to) {
+        List<String> records = new ArrayList<>();
+        journal.read(from, Math.min(to, journal.lastSequence()),
+                (sequence, bookingId, customerId, driverId, status, atMillis) -> records.add(
+                        sequence + " " + bookingId + " " + customerId + " " + driverId + " " + status + " " + atMillis));
+        return records;
+    }
+}
@@ -0,0 +1,135 @@
+package com.porter_replica.backend.trip.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.porter_replica.backend.booking.BookingStatus;
+import com.porter_replica.backend.booking.BookingStatusChanged;
+import com.porter_replica.backend.common.DomainException;
+import com.porter_replica.backend.common.ErrorCode;
+import com.porter_replica.backend.driver.geo.DriverGeoIndex;
+import com.porter_replica.backend.user.VehicleType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TripStoreTest {
+
+    private static final long CUSTOMER = 601;
+    private static final long DRIVER = 7201;
+
+    @TempDir
+    Path directory;
+
+    private final List<Object> published = new ArrayList<>();
+    private final DriverGeoIndex geoIndex = new DriverGeoIndex(1.0, 0);
+    private final List<TripStore> stores = new ArrayList<>();
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        for (TripStore store : stores) {
+            store.destroy();
+        }
+    }
+
+    @Test
+    void shouldOnlyAllowTheTripsOwnStepsInOrder() throws Exception {
+        TripStore store = store(100);
+        assigned(store, 1);
+
+        DomainException outOfOrder = assertThrows(DomainException.class,
+                () -> store.transition(1, BookingStatus.DELIVERED, DRIVER));
+        assertSame(ErrorCode.INVALID_TRIP_TRANSITION, outOfOrder.getCode());
+        DomainException stranger = assertThrows(DomainException.class,
+                () -> store.transition(1, BookingStatus.ARRIVED, DRIVER + 1));
+        assertSame(ErrorCode.BOOKING_NOT_FOUND, stranger.getCode());
+        DomainException driverCancels = assertThrows(DomainException.class,
+                () -> store.transition(1, BookingStatus.CANCELLED, DRIVER));
+        assertSame(ErrorCode.BOOKING_NOT_FOUND, driverCancels.getCode());
+
+        assertEquals(BookingStatus.ARRIVED, store.transition(1, BookingStatus.ARRIVED, DRIVER).status());
+        assertEquals(BookingStatus.PICKED_UP, store.transition(1, BookingStatus.PICKED_UP, DRIVER).status());
+        // too late to cancel
+        assertThrows(DomainException.class, () -> store.transition(1, BookingStatus.CANCELLED, CUSTOMER));
+        assertEquals(BookingStatus.DELIVERED, store.transition(1, BookingStatus.DELIVERED, DRIVER).status());
+
+        assertTrue(geoIndex.isAvailable(DRIVER));
+        assertEquals(List.of(BookingStatus.ARRIVED, BookingStatus.PICKED_UP, BookingStatus.DELIVERED),
+                published.stream().map(event -> ((BookingStatusChanged) event).status()).toList());
+    }
+
+    @Test
+    void shouldFreeTheDriverOfAnAssignmentThatLostToACancel() throws Exception {
+        TripStore store = store(100);
+        store.requested(2, CUSTOMER);
+        assertEquals(BookingStatus.CANCELLED, store.transition(2, BookingStatus.CANCELLED, CUSTOMER).status());
+
+        geoIndex.update(DRIVER, 18.52, 73.85, Float.NaN, Float.NaN, 1, VehicleType.MINI_TRUCK, false);
+        store.onStatusChanged(BookingStatusChanged.assigned(2, DRIVER, 1.0));
+        // queued behind the assignment, so it is settled once this is
+        assertThrows(DomainException.class, () -> store.transition(2, BookingStatus.CANCELLED, CUSTOMER));
+
+        assertEquals(BookingStatus.CANCELLED, store.state(2).orElseThrow().status());
+        assertTrue(geoIndex.isAvailable(DRIVER));
+    }
+
+    @Test
+    void shouldRecoverFromSnapshotAndJournalAfterARestart() throws Exception {
+        TripStore store = store(3);
+        assigned(store, 1);
+        store.transition(1, BookingStatus.ARRIVED, DRIVER);
+        store.requested(2, CUSTOMER);
+        store.transition(2, BookingStatus.CANCELLED, CUSTOMER);
+        store.projected(store.committedSequence());
+        store.destroy();
+        stores.clear();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.anyMatch(path -> path.getFileName().toString().startsWith("snapshot-")));
+        }
+
+        TripStore restarted = store(3);
+        assertEquals(5, restarted.committedSequence());
+        assertEquals(5, restarted.projectedSequence());
+        TripState trip = restarted.state(1).orElseThrow();
+        assertEquals(new TripState(1, CUSTOMER, DRIVER, BookingStatus.ARRIVED, trip.updatedAtMillis()), trip);
+        assertEquals(BookingStatus.CANCELLED, restarted.state(2).orElseThrow().status());
+        assertFalse(restarted.state(3).isPresent());
+        // and carries on where it left off
+        assertEquals(BookingStatus.PICKED_UP, restarted.transition(1, BookingStatus.PICKED_UP, DRIVER).status());
+        assertEquals(6, restarted.committedSequence());
+    }
+
+    private void assigned(TripStore store, long bookingId) throws InterruptedException {
+        long before = store.committedSequence();
+        geoIndex.update(DRIVER, 18.52, 73.85, Float.NaN, Float.NaN, 1, VehicleType.MINI_TRUCK, false);
+        store.requested(bookingId, CUSTOMER);
+        store.onStatusChanged(BookingStatusChanged.assigned(bookingId, DRIVER, 1.0));
+        awaitCommitted(store, before + 2);
+    }
+
+    private static void awaitCommitted(TripStore store, long sequence) throws InterruptedException {
+        for (int i = 0; i < 200 && store.committedSequence() < sequence; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(sequence, store.committedSequence());
+    }
+
+    private TripStore store(long snapshotEveryEvents) throws Exception {
+        TripStore store = new TripStore(published::add, geoIndex, new SimpleMeterRegistry(), directory.toString(), false,
+                1, true, 1024, 64, snapshotEveryEvents, 600, 5000);
+        stores.add(store);
+        return store;
+    }
+}
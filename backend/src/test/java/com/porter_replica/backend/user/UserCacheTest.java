@@ -0,0 +1,94 @@
+package com.porter_replica.backend.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.porter_replica.backend.datasource.ReadReplicas;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserCacheTest {
+
+    private final Map<String, UserCredentials> rows = new ConcurrentHashMap<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    private volatile CountDownLatch queryGate = new CountDownLatch(0);
+
+    private final UserCache cache = new UserCache(repository(),
+            new ReadReplicas(null, List.of(), 0, new SimpleMeterRegistry()), 100, 60);
+
+    @Test
+    void shouldCollapseConcurrentMissesIntoOneQuery() throws Exception {
+        rows.put("a@cache.test", new UserCredentials(1L, "a@cache.test", "hash", Role.DRIVER, null));
+        queryGate = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<UserCredentials>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.credentialsByEmail("a@cache.test")));
+            }
+            // let every caller reach the cache before the one query returns
+            Thread.sleep(200);
+            queryGate.countDown();
+
+            for (Future<Optional<UserCredentials>> result : results) {
+                assertEquals(1L, result.get(5, TimeUnit.SECONDS).orElseThrow().id());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void shouldNotCacheUnknownUsers() {
+        assertTrue(cache.credentialsByEmail("later@cache.test").isEmpty());
+
+        rows.put("later@cache.test", new UserCredentials(2L, "later@cache.test", "hash", Role.CUSTOMER, null));
+
+        assertTrue(cache.credentialsByEmail("later@cache.test").isPresent());
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void shouldReloadAfterInvalidation() {
+        rows.put("b@cache.test", new UserCredentials(3L, "b@cache.test", "old", Role.DRIVER, null));
+        assertEquals("old", cache.credentialsByEmail("b@cache.test").orElseThrow().password());
+
+        rows.put("b@cache.test", new UserCredentials(3L, "b@cache.test", "new", Role.DRIVER, null));
+        assertEquals("old", cache.credentialsByEmail("b@cache.test").orElseThrow().password());
+
+        cache.invalidate(3L, "b@cache.test");
+        assertEquals("new", cache.credentialsByEmail("b@cache.test").orElseThrow().password());
+        assertEquals(2, queries.get());
+    }
+
+    // only the projection used by these tests is implemented
+    private UserRepository repository() {
+        return (UserRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { UserRepository.class },
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findCredentialsByEmail")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    queries.incrementAndGet();
+                    queryGate.await(5, TimeUnit.SECONDS);
+                    return Optional.ofNullable(rows.get((String) args[0]));
+                });
+    }
+}
@@ -0,0 +1,42 @@
+package com.porter_replica.benchmarks;
+
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of target/benchmarks.jar. Accepts the usual JMH command line;
+ * unless told otherwise it runs every selected benchmark twice, single
+ * threaded and with all cores contending, with the GC profiler attached so
+ * the allocation rate per operation ({@code gc.alloc.rate.norm}) is reported.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cli = new CommandLineOptions(args);
+
+		int[] threadModes = cli.getThreads().hasValue()
+				? new int[] { cli.getThreads().get() }
+				: new int[] { 1, Threads.MAX };
+
+		for (int threads : threadModes) {
+			String label = threads == Threads.MAX ? "contended" : threads + "-thread";
+
+			ChainedOptionsBuilder options = new OptionsBuilder()
+					.parent(cli)
+					.threads(threads)
+					.result("target/jmh-" + label + ".json")
+					.resultFormat(ResultFormatType.JSON);
+
+			if (cli.getProfilers().isEmpty()) {
+				options.addProfiler(GCProfiler.class);
+			}
+
+			new Runner(options.build()).run();
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.porter_replica.benchmarks.auth;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.Base64;
+
+import com.porter_replica.backend.auth.jwt.JwtKeyRing;
+import com.porter_replica.backend.auth.jwt.JwtUtil;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+final class BenchmarkKeys {
+
+	private BenchmarkKeys() {
+	}
+
+	/** A JwtUtil signing with {@code algorithm}: HS256 from the shared secret, or a fresh ES256 pair. */
+	static JwtUtil jwtUtil(String algorithm) {
+		if ("HS256".equals(algorithm)) {
+			return new JwtUtil(JwtUtilBenchmark.SECRET, JwtUtilBenchmark.EXPIRATION);
+		}
+
+		KeyPair pair = Keys.keyPairFor(SignatureAlgorithm.forName(algorithm));
+		Base64.Encoder base64 = Base64.getEncoder();
+		try {
+			Path file = Files.createTempFile("jwt-keys", ".properties");
+			file.toFile().deleteOnExit();
+			Files.writeString(file, String.join("\n",
+					"active=bench",
+					"keys.bench.alg=" + algorithm,
+					"keys.bench.public=" + base64.encodeToString(pair.getPublic().getEncoded()),
+					"keys.bench.private=" + base64.encodeToString(pair.getPrivate().getEncoded())));
+
+			JwtKeyRing keyRing = new JwtKeyRing(JwtUtilBenchmark.SECRET, file.toString(), 0, "");
+			return new JwtUtil(keyRing, JwtUtilBenchmark.EXPIRATION, JwtUtilBenchmark.EXPIRATION);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.porter_replica.benchmarks.auth;
+
+import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.User;
+
+final class BenchmarkUsers {
+
+	private BenchmarkUsers() {
+	}
+
+	static User user(long id, Role role) {
+		User user = new User();
+		user.setId(id);
+		user.setName("Benchmark User " + id);
+		user.setEmail("user" + id + "@benchmark.test");
+		user.setRole(role);
+		return user;
+	}
+}
@@ -0,0 +1,99 @@
+package com.porter_replica.benchmarks.auth;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.porter_replica.backend.auth.AuthMetrics;
+import com.porter_replica.backend.auth.jwt.JwtAuthenticationFilter;
+import com.porter_replica.backend.auth.jwt.JwtUtil;
+import com.porter_replica.backend.auth.jwt.TokenDenyList;
+import com.porter_replica.backend.auth.jwt.VerifiedTokenCache;
+import com.porter_replica.backend.user.Role;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/**
+ * One pass through {@link JwtAuthenticationFilter} for an authenticated request.
+ * "hit" replays tokens that are already in the verified-token cache (the
+ * polling case); "miss" cycles through more distinct tokens than the cache
+ * holds, so almost every request pays for a full signature check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+	private static final int DISTINCT_TOKENS = 4_096;
+
+	@State(Scope.Benchmark)
+	public static class Shared {
+
+		@Param({ "hit", "miss" })
+		public String cache;
+
+		JwtAuthenticationFilter filter;
+		String[] headers;
+
+		@Setup
+		public void setUp() {
+			JwtUtil jwtUtil = new JwtUtil(JwtUtilBenchmark.SECRET, JwtUtilBenchmark.EXPIRATION);
+			long cacheSize = "hit".equals(cache) ? DISTINCT_TOKENS * 2 : 16;
+			filter = new JwtAuthenticationFilter(new VerifiedTokenCache(jwtUtil, cacheSize),
+					new TokenDenyList(64, 1_000), new AuthMetrics(new SimpleMeterRegistry()));
+
+			headers = new String[DISTINCT_TOKENS];
+			for (int i = 0; i < DISTINCT_TOKENS; i++) {
+				Role role = i % 2 == 0 ? Role.CUSTOMER : Role.DRIVER;
+				headers[i] = "Bearer " + jwtUtil.generateToken(BenchmarkUsers.user(i + 1, role));
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class PerThread {
+
+		MockHttpServletRequest request;
+		MockHttpServletResponse response;
+		FilterChain chain;
+		int next;
+
+		@Setup
+		public void setUp(Blackhole blackhole) {
+			request = new MockHttpServletRequest("GET", "/api/auth/me");
+			response = new MockHttpServletResponse();
+			chain = (req, res) -> blackhole.consume(
+					SecurityContextHolder.getContext().getAuthentication());
+		}
+	}
+
+	@Benchmark
+	public void doFilterInternal(Shared shared, PerThread state) throws ServletException, IOException {
+		state.request.removeHeader("Authorization");
+		state.request.addHeader("Authorization", shared.headers[state.next++ & (DISTINCT_TOKENS - 1)]);
+		try {
+			shared.filter.doFilter(state.request, state.response, state.chain);
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.porter_replica.benchmarks.auth;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.porter_replica.backend.auth.jwt.JwtUtil;
+import com.porter_replica.backend.user.Role;
+import com.porter_replica.backend.user.User;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Cost of issuing and fully verifying (signature + claims) a token with
+ * {@link JwtUtil}, bypassing any cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+	static final String SECRET = "mXK7c0QF6Lz0oT7FZpXJ3nY1G+f9G7B2c7k5R9w2X4A=";
+	static final long EXPIRATION = 3_600_000;
+
+	@State(Scope.Benchmark)
+	public static class Issuer {
+
+		@Param({ "HS256", "ES256" })
+		public String algorithm;
+
+		JwtUtil jwtUtil;
+		User user;
+
+		@Setup
+		public void setUp() {
+			jwtUtil = BenchmarkKeys.jwtUtil(algorithm);
+			user = BenchmarkUsers.user(123_456L, Role.CUSTOMER);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Verifier {
+
+		/**
+		 * compact: the claims the backend issues today (~190 bytes).
+		 * extended: a ~1 KB token with the profile/scope claims a client app typically adds.
+		 * compact-es256: the compact token signed with an ES256 key from the key ring.
+		 */
+		@Param({ "compact", "extended", "compact-es256" })
+		public String tokenShape;
+
+		JwtUtil jwtUtil;
+		String token;
+
+		@Setup
+		public void setUp() {
+			jwtUtil = BenchmarkKeys.jwtUtil("compact-es256".equals(tokenShape) ? "ES256" : "HS256");
+			token = !"extended".equals(tokenShape)
+					? jwtUtil.generateToken(BenchmarkUsers.user(123_456L, Role.CUSTOMER))
+					: extendedToken();
+		}
+	}
+
+	@Benchmark
+	public String generateToken(Issuer issuer) {
+		return issuer.jwtUtil.generateToken(issuer.user);
+	}
+
+	@Benchmark
+	public Claims validateToken(Verifier verifier) {
+		return verifier.jwtUtil.validateToken(verifier.token);
+	}
+
+	static String extendedToken() {
+		SecretKey key = Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET));
+		return Jwts.builder()
+				.setSubject("123456")
+				.claim("role", Role.CUSTOMER.name())
+				.claim("name", "Benchmark Customer With A Fairly Long Display Name")
+				.claim("email", "benchmark.customer.with.long.address@example.com")
+				.claim("phone", "+919876543210")
+				.claim("scopes", List.of("booking:create", "booking:read", "booking:cancel",
+						"trip:track", "profile:read", "profile:write", "payment:read", "wallet:read"))
+				.claim("device", "android-14/porter-customer-app/5.12.3 (build 5123004)")
+				.claim("session", "8f14e45f-ceea-467f-a9a4-2b3f1c5d6e7f")
+				.claim("region", "IN-KA-BLR")
+				.setIssuer("porter-replica-auth")
+				.setAudience("porter-replica-api")
+				.setIssuedAt(new Date())
+				.setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
+				.signWith(key, SignatureAlgorithm.HS256)
+				.compact();
+	}
+}
@@ -0,0 +1,53 @@
+package com.porter_replica.benchmarks.auth;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.porter_replica.backend.auth.password.AdaptivePasswordEncoder;
+
+/**
+ * BCrypt {@code matches} through the encoder the backend uses, at the costs
+ * the startup calibration usually lands on. Run contended to see how many
+ * logins per second one node can absorb.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 4)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashingBenchmark {
+
+	@Param({ "10", "12" })
+	public int strength;
+
+	AdaptivePasswordEncoder encoder;
+	String stored;
+
+	@Setup
+	public void setUp() {
+		encoder = new AdaptivePasswordEncoder(AdaptivePasswordEncoder.BCRYPT, strength);
+		stored = encoder.encode("password123");
+	}
+
+	@Benchmark
+	public boolean matchesCorrectPassword() {
+		return encoder.matches("password123", stored);
+	}
+
+	@Benchmark
+	public boolean matchesWrongPassword() {
+		return encoder.matches("wrongpassword", stored);
+	}
+}
@@ -0,0 +1,84 @@
+package com.porter_replica.benchmarks.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.porter_replica.backend.common.DomainException;
+import com.porter_replica.backend.common.ErrorCode;
+import com.porter_replica.backend.common.ErrorResponse;
+import com.porter_replica.backend.common.GlobalExceptionHandler;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * The rejected-request path as credential stuffing exercises it: the service
+ * throws from {@code depth} frames down (roughly a servlet + Spring call
+ * stack), the exception reaches {@link GlobalExceptionHandler}, and the
+ * response body is produced as bytes.
+ * <ul>
+ * <li>{@code allocatingException}: the original path, a new
+ * IllegalArgumentException (stack trace captured at every frame) and an
+ * ErrorResponse serialized by Jackson</li>
+ * <li>{@code sharedStacklessException}: {@link ErrorCode#exception()} and the
+ * pre-serialized body</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorPathBenchmark {
+
+	@Param({ "64" })
+	public int depth;
+
+	GlobalExceptionHandler handler;
+	ObjectMapper objectMapper;
+
+	@Setup
+	public void setUp() {
+		handler = new GlobalExceptionHandler();
+		objectMapper = new ObjectMapper();
+	}
+
+	@Benchmark
+	public byte[] allocatingException() {
+		try {
+			throwFrom(depth, () -> new IllegalArgumentException("Invalid credentials"));
+			return null;
+		} catch (IllegalArgumentException ex) {
+			return objectMapper.writeValueAsBytes(new ErrorResponse(400, ex.getMessage()));
+		}
+	}
+
+	@Benchmark
+	public byte[] sharedStacklessException() {
+		try {
+			throwFrom(depth, ErrorCode.INVALID_CREDENTIALS::exception);
+			return null;
+		} catch (DomainException ex) {
+			return handler.handleDomain(ex).getBody();
+		}
+	}
+
+	private static void throwFrom(int depth, Supplier<RuntimeException> failure) {
+		if (depth == 0) {
+			throw failure.get();
+		}
+		throwFrom(depth - 1, failure);
+	}
+}
@@ -0,0 +1,118 @@
+package com.porter_replica.benchmarks.driver;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.porter_replica.backend.driver.geo.DriverGeoIndex;
+import com.porter_replica.backend.driver.geo.NearbyDriver;
+import com.porter_replica.backend.user.VehicleType;
+
+/**
+ * {@link DriverGeoIndex} holding a million drivers spread over five cities
+ * (about 15 km around each centre, 1 km cells):
+ * <ul>
+ * <li>{@code move}: one driver moves up to ~100 m; the contended run is every
+ * core moving drivers at once</li>
+ * <li>{@code nearest} / {@code nearestOfType}: the 10 nearest available
+ * drivers within 3 km of a random point, without and with a vehicle type</li>
+ * <li>{@code busyCity}: queries while another thread moves drivers</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DriverGeoIndexBenchmark {
+
+	static final int DRIVERS = 1_000_000;
+	static final double[][] CITIES = {
+			{ 12.9716, 77.5946 }, { 19.0760, 72.8777 }, { 28.6139, 77.2090 },
+			{ 13.0827, 80.2707 }, { 17.3850, 78.4867 } };
+	static final double SPREAD_DEGREES = 0.27;
+	static final double STEP_DEGREES = 0.001;
+	static final VehicleType[] TYPES = VehicleType.values();
+
+	// positions never expire mid-run
+	final DriverGeoIndex index = new DriverGeoIndex(1.0, TimeUnit.DAYS.toSeconds(1));
+	final double[] lat = new double[DRIVERS];
+	final double[] lng = new double[DRIVERS];
+
+	@Setup
+	public void populate() {
+		SplittableRandom random = new SplittableRandom(42);
+		for (int id = 0; id < DRIVERS; id++) {
+			double[] city = CITIES[id % CITIES.length];
+			lat[id] = city[0] + (random.nextDouble() - 0.5) * SPREAD_DEGREES;
+			lng[id] = city[1] + (random.nextDouble() - 0.5) * SPREAD_DEGREES;
+			index.update(id, lat[id], lng[id], Float.NaN, Float.NaN, 0L, TYPES[id % TYPES.length],
+					random.nextInt(10) != 0);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Caller {
+		final SplittableRandom random = new SplittableRandom();
+	}
+
+	@Benchmark
+	public boolean move(Caller caller) {
+		return moveOne(caller.random);
+	}
+
+	@Benchmark
+	public List<NearbyDriver> nearest(Caller caller) {
+		return query(caller.random, null);
+	}
+
+	@Benchmark
+	public List<NearbyDriver> nearestOfType(Caller caller) {
+		return query(caller.random, VehicleType.MINI_TRUCK);
+	}
+
+	@Benchmark
+	@Group("busyCity")
+	@GroupThreads(1)
+	public List<NearbyDriver> busyCityQuery(Caller caller) {
+		return query(caller.random, null);
+	}
+
+	@Benchmark
+	@Group("busyCity")
+	@GroupThreads(1)
+	public boolean busyCityMove(Caller caller) {
+		return moveOne(caller.random);
+	}
+
+	private boolean moveOne(SplittableRandom random) {
+		int id = random.nextInt(DRIVERS);
+		// the same recordedAt every time is never "older", so every move is applied
+		return index.update(id,
+				lat[id] + (random.nextDouble() - 0.5) * STEP_DEGREES,
+				lng[id] + (random.nextDouble() - 0.5) * STEP_DEGREES,
+				90f, 8f, 0L, null, null);
+	}
+
+	private List<NearbyDriver> query(SplittableRandom random, VehicleType vehicleType) {
+		double[] city = CITIES[random.nextInt(CITIES.length)];
+		return index.nearest(
+				city[0] + (random.nextDouble() - 0.5) * SPREAD_DEGREES,
+				city[1] + (random.nextDouble() - 0.5) * SPREAD_DEGREES,
+				3, 10, vehicleType);
+	}
+}
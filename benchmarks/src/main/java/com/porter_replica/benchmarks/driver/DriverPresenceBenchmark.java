@@ -0,0 +1,84 @@
+package com.porter_replica.benchmarks.driver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.porter_replica.backend.driver.presence.DriverPresence;
+import com.porter_replica.backend.driver.presence.PresenceCities;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link DriverPresence} tracking a million online drivers over five cities:
+ * <ul>
+ * <li>{@code heartbeat}: a heartbeat from an online driver</li>
+ * <li>{@code onlineInCity}: the ids of every driver online in one city
+ * (about 200,000)</li>
+ * </ul>
+ * The setup prints the tables' bytes per driver.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DriverPresenceBenchmark {
+
+	static final int DRIVERS = 1_000_000;
+	static final String[] NAMES = { "bengaluru", "mumbai", "delhi", "chennai", "hyderabad" };
+
+	final long start = System.currentTimeMillis();
+	final double[] lat = new double[DRIVERS];
+	final double[] lng = new double[DRIVERS];
+	DriverPresence presence;
+
+	@Setup
+	public void populate() {
+		Map<String, PresenceCities.Area> cities = new LinkedHashMap<>();
+		for (int i = 0; i < NAMES.length; i++) {
+			double[] city = DriverGeoIndexBenchmark.CITIES[i];
+			cities.put(NAMES[i], new PresenceCities.Area(city[0], city[1], 35));
+		}
+		// a timeout no run outlasts, and the wheel is never advanced
+		presence = new DriverPresence(cities, TimeUnit.DAYS.toSeconds(1), 1000, DRIVERS, start, event -> {
+		}, new SimpleMeterRegistry());
+		SplittableRandom random = new SplittableRandom(42);
+		for (int id = 0; id < DRIVERS; id++) {
+			double[] city = DriverGeoIndexBenchmark.CITIES[id % NAMES.length];
+			lat[id] = city[0] + (random.nextDouble() - 0.5) * DriverGeoIndexBenchmark.SPREAD_DEGREES;
+			lng[id] = city[1] + (random.nextDouble() - 0.5) * DriverGeoIndexBenchmark.SPREAD_DEGREES;
+			presence.heartbeat(id, lat[id], lng[id], start);
+		}
+		System.out.printf("%n%.1f bytes per driver%n", (double) presence.memoryBytes() / presence.onlineCount());
+	}
+
+	@State(Scope.Thread)
+	public static class Caller {
+		final SplittableRandom random = new SplittableRandom();
+	}
+
+	@Benchmark
+	public void heartbeat(Caller caller) {
+		int id = caller.random.nextInt(DRIVERS);
+		presence.heartbeat(id, lat[id], lng[id], start);
+	}
+
+	@Benchmark
+	public long[] onlineInCity(Caller caller) {
+		return presence.onlineIn(NAMES[caller.random.nextInt(NAMES.length)]);
+	}
+}
@@ -0,0 +1,58 @@
+package com.porter_replica.benchmarks.driver;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.porter_replica.backend.driver.location.LocationRingBuffer;
+
+/**
+ * One GPS ping in and out of the ingest buffer:
+ * <ul>
+ * <li>{@code ringBuffer}: {@link LocationRingBuffer}, primitive slots, CAS only</li>
+ * <li>{@code blockingQueue}: the obvious alternative, an ArrayBlockingQueue of
+ * ping objects (one lock, one allocation per ping)</li>
+ * </ul>
+ * The contended run has every thread both offering and polling.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocationRingBufferBenchmark {
+
+	record Ping(long driverId, double lat, double lng, float heading, float speed, int attributes,
+			long recordedAtMillis, long receivedAtMillis, long receivedNanos) {
+	}
+
+	final LocationRingBuffer ring = new LocationRingBuffer(65536);
+	final ArrayBlockingQueue<Ping> queue = new ArrayBlockingQueue<>(65536);
+
+	@Benchmark
+	public void ringBuffer(Blackhole blackhole) {
+		ring.offer(42L, 12.97, 77.59, 90f, 8.5f, 0, 1L, 2L, 3L);
+		ring.poll((driverId, lat, lng, heading, speed, attributes, recordedAt, receivedAt, receivedNanos) ->
+				blackhole.consume(driverId));
+	}
+
+	@Benchmark
+	public void blockingQueue(Blackhole blackhole) {
+		queue.offer(new Ping(42L, 12.97, 77.59, 90f, 8.5f, 0, 1L, 2L, 3L));
+		Ping ping = queue.poll();
+		if (ping != null) {
+			blackhole.consume(ping.driverId());
+		}
+	}
+}
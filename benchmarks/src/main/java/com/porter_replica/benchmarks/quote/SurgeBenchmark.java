@@ -0,0 +1,88 @@
+package com.porter_replica.benchmarks.quote;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.porter_replica.backend.quote.surge.SurgeEngine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link SurgeEngine} over five cities (about 30 km across each, 2 km cells),
+ * with bookings recorded in every cell and about a third of them surging:
+ * <ul>
+ * <li>{@code multiplier}: the quote-path read at a random pickup</li>
+ * <li>{@code recordDemand}: one booking counted; the contended run is every
+ * core booking at once, often into the same cells</li>
+ * <li>{@code recompute}: one pass over every cell and a new published table</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SurgeBenchmark {
+
+	static final double[][] CITIES = {
+			{ 12.9716, 77.5946 }, { 19.0760, 72.8777 }, { 28.6139, 77.2090 },
+			{ 13.0827, 80.2707 }, { 17.3850, 78.4867 } };
+	static final double SPREAD_DEGREES = 0.27;
+
+	// 2 km cells, 300 s window of 30 s buckets, threshold 1, sensitivity 0.5, at most 3x, no smoothing
+	final SurgeEngine engine = new SurgeEngine(2, 300, 30, 50_000, 1.0, 0.5, 3.0, 1.0, 5,
+			new SimpleMeterRegistry());
+	final long now = System.currentTimeMillis();
+
+	@Setup
+	public void populate() {
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 0; i < 200_000; i++) {
+			double[] city = CITIES[i % CITIES.length];
+			engine.recordDemand(city[0] + (random.nextDouble() - 0.5) * SPREAD_DEGREES,
+					city[1] + (random.nextDouble() - 0.5) * SPREAD_DEGREES, now);
+		}
+		for (int id = 0; id < 50_000; id++) {
+			double[] city = CITIES[id % CITIES.length];
+			engine.recordIdle(id, city[0] + (random.nextDouble() - 0.5) * SPREAD_DEGREES,
+					city[1] + (random.nextDouble() - 0.5) * SPREAD_DEGREES, now);
+		}
+		engine.recompute(now);
+	}
+
+	@State(Scope.Thread)
+	public static class Caller {
+		final SplittableRandom random = new SplittableRandom();
+	}
+
+	@Benchmark
+	public double multiplier(Caller caller) {
+		double[] city = CITIES[caller.random.nextInt(CITIES.length)];
+		return engine.multiplier(city[0] + (caller.random.nextDouble() - 0.5) * SPREAD_DEGREES,
+				city[1] + (caller.random.nextDouble() - 0.5) * SPREAD_DEGREES);
+	}
+
+	@Benchmark
+	public void recordDemand(Caller caller) {
+		double[] city = CITIES[caller.random.nextInt(CITIES.length)];
+		engine.recordDemand(city[0] + (caller.random.nextDouble() - 0.5) * SPREAD_DEGREES,
+				city[1] + (caller.random.nextDouble() - 0.5) * SPREAD_DEGREES, now);
+	}
+
+	@Benchmark
+	public void recompute() {
+		engine.recompute(now);
+	}
+}
@@ -0,0 +1,135 @@
+package com.porter_replica.benchmarks.routing;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.porter_replica.backend.routing.RoadGraph;
+import com.porter_replica.backend.routing.Route;
+import com.porter_replica.backend.routing.RoutingEngine;
+import com.porter_replica.backend.routing.RoutingGraph;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Contraction hierarchy queries on a synthetic 300 x 300 street grid (90,000
+ * junctions ~250 m apart, about 75 x 75 km, every tenth street an arterial
+ * at twice the speed):
+ * <ul>
+ * <li>{@code pointToPoint}: fastest route between two random junctions</li>
+ * <li>{@code oneToMany}: one origin to 20 random destinations</li>
+ * <li>{@code cachedQuote}: {@link RoutingEngine#route} by coordinates over
+ * 1,000 hot origin/destination pairs, so nearly every call is a cache hit</li>
+ * <li>{@code uncachedQuote}: the same with a fresh pair each call: snapping
+ * both points plus the search</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutingBenchmark {
+
+	static final int SIDE = 300;
+	static final double ORIGIN_LAT = 12.6;
+	static final double ORIGIN_LNG = 77.2;
+	static final double STEP_LAT = 0.00225;
+	static final double STEP_LNG = 0.0023;
+	static final int HOT_PAIRS = 1_000;
+
+	RoutingGraph graph;
+	RoutingEngine engine;
+	final double[][] hot = new double[HOT_PAIRS][];
+
+	@Setup
+	public void build() {
+		SplittableRandom random = new SplittableRandom(42);
+		RoadGraph roads = new RoadGraph();
+		for (int row = 0; row < SIDE; row++) {
+			for (int column = 0; column < SIDE; column++) {
+				roads.addNode(ORIGIN_LAT + row * STEP_LAT, ORIGIN_LNG + column * STEP_LNG);
+			}
+		}
+		for (int row = 0; row < SIDE; row++) {
+			for (int column = 0; column < SIDE; column++) {
+				int node = row * SIDE + column;
+				if (column + 1 < SIDE) {
+					street(roads, random, node, node + 1, row % 10 == 0);
+				}
+				if (row + 1 < SIDE) {
+					street(roads, random, node, node + SIDE, column % 10 == 0);
+				}
+			}
+		}
+		long start = System.nanoTime();
+		graph = RoutingGraph.contract(roads, 200, 0, 0);
+		System.out.printf("%ncontracted %d junctions in %d ms, %d edges with shortcuts%n", graph.nodeCount(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), graph.edgeCount());
+
+		engine = new RoutingEngine(graph, 500, 200, 100_000, new SimpleMeterRegistry());
+		for (int i = 0; i < HOT_PAIRS; i++) {
+			hot[i] = new double[] { lat(random), lng(random), lat(random), lng(random) };
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Caller {
+		final SplittableRandom random = new SplittableRandom();
+		final int[] targets = new int[20];
+	}
+
+	@Benchmark
+	public Route pointToPoint(Caller caller) {
+		return graph.route(caller.random.nextInt(SIDE * SIDE), caller.random.nextInt(SIDE * SIDE));
+	}
+
+	@Benchmark
+	public Route[] oneToMany(Caller caller) {
+		for (int i = 0; i < caller.targets.length; i++) {
+			caller.targets[i] = caller.random.nextInt(SIDE * SIDE);
+		}
+		return graph.routes(caller.random.nextInt(SIDE * SIDE), caller.targets);
+	}
+
+	@Benchmark
+	public Object cachedQuote(Caller caller) {
+		double[] pair = hot[caller.random.nextInt(HOT_PAIRS)];
+		return engine.route(pair[0], pair[1], pair[2], pair[3]);
+	}
+
+	@Benchmark
+	public Object uncachedQuote(Caller caller) {
+		SplittableRandom random = caller.random;
+		return engine.route(lat(random), lng(random), lat(random), lng(random));
+	}
+
+	private static double lat(SplittableRandom random) {
+		return ORIGIN_LAT + random.nextDouble() * (SIDE - 1) * STEP_LAT;
+	}
+
+	private static double lng(SplittableRandom random) {
+		return ORIGIN_LNG + random.nextDouble() * (SIDE - 1) * STEP_LNG;
+	}
+
+	private static void street(RoadGraph roads, SplittableRandom random, int a, int b, boolean arterial) {
+		double dLat = (roads.lat(a) - roads.lat(b)) * 111_195;
+		double dLng = (roads.lng(a) - roads.lng(b)) * 111_195 * Math.cos(Math.toRadians(roads.lat(a)));
+		int meters = (int) Math.round(Math.sqrt(dLat * dLat + dLng * dLng));
+		double kmh = (arterial ? 50 : 25) * (0.8 + random.nextDouble() * 0.4);
+		int millis = (int) (meters / (kmh / 3.6) * 1000);
+		roads.addEdge(a, b, millis, meters);
+		roads.addEdge(b, a, millis, meters);
+	}
+}
@@ -0,0 +1,146 @@
+package com.porter_replica.benchmarks.trip;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.porter_replica.backend.booking.BookingStatus;
+import com.porter_replica.backend.trip.journal.TripJournal;
+
+/**
+ * {@link TripJournal} on the local disk (the temporary directory):
+ * <ul>
+ * <li>{@code append}: one record into the mapped tail, not forced</li>
+ * <li>{@code groupCommit}: 64 records and one force, per record: what the
+ * trip store's writer does under load</li>
+ * <li>{@code forceEach}: one record and a force, per record: a batch of one</li>
+ * <li>{@code recover}: opening a journal of a million records and reading
+ * them all back, as a restart does after the latest snapshot</li>
+ * </ul>
+ * Each thread writes its own journal, and segments behind the tail are
+ * deleted as the run goes, so disk use stays at a few segments. The force
+ * numbers say more about the disk than about the code: on tmpfs they are
+ * close to {@code append}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TripJournalBenchmark {
+
+	static final int SEGMENT_BYTES = 16 << 20;
+	static final int GROUP = 64;
+	static final int RECOVERED_RECORDS = 1_000_000;
+
+	@State(Scope.Thread)
+	public static class Writer {
+		Path directory;
+		TripJournal journal;
+		long bookingId;
+
+		@Setup(Level.Iteration)
+		public void open() throws IOException {
+			directory = Files.createTempDirectory("trip-journal-bench");
+			journal = new TripJournal(directory, SEGMENT_BYTES);
+		}
+
+		@TearDown(Level.Iteration)
+		public void close() throws IOException {
+			journal.close();
+			delete(directory);
+		}
+
+		long append() {
+			long sequence = journal.append(++bookingId, 601, 7201, BookingStatus.ARRIVED, bookingId);
+			if ((sequence & 0xffff) == 0) {
+				journal.deleteBefore(sequence);
+			}
+			return sequence;
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Written {
+		Path directory;
+
+		@Setup
+		public void write() throws IOException {
+			directory = Files.createTempDirectory("trip-journal-bench");
+			TripJournal journal = new TripJournal(directory, 64 << 20);
+			for (int i = 1; i <= RECOVERED_RECORDS; i++) {
+				journal.append(i, i, 0, BookingStatus.SEARCHING, i);
+			}
+			journal.close();
+		}
+
+		@TearDown
+		public void delete() throws IOException {
+			TripJournalBenchmark.delete(directory);
+		}
+	}
+
+	@Benchmark
+	public long append(Writer writer) {
+		return writer.append();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(GROUP)
+	public long groupCommit(Writer writer) {
+		long sequence = 0;
+		for (int i = 0; i < GROUP; i++) {
+			sequence = writer.append();
+		}
+		writer.journal.force();
+		return sequence;
+	}
+
+	@Benchmark
+	public long forceEach(Writer writer) {
+		long sequence = writer.append();
+		writer.journal.force();
+		return sequence;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public long recover(Written written) throws IOException {
+		TripJournal journal = new TripJournal(written.directory, 64 << 20);
+		long[] sum = { 0 };
+		journal.read(1, journal.lastSequence(),
+				(sequence, bookingId, customerId, driverId, status, atMillis) -> sum[0] += bookingId);
+		return sum[0];
+	}
+
+	static void delete(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> {
+				try {
+					Files.delete(path);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+}
@@ -157,9 +157,13 @@ export const authService = {
       const response = await axios.post(`${API_BASE_URL}/auth/refresh`, {
         refreshToken,
       });
-      const { token } = response.data;
+      // the backend answers with accessToken; the old refresh token is now spent,
+      // so the rotated one has to replace it or the next refresh revokes the session
+      const token = response.data.accessToken || response.data.token;
+      const { refreshToken: rotatedRefreshToken } = response.data;
 
       tokenStorage.setToken(token);
+      if (rotatedRefreshToken) tokenStorage.setRefreshToken(rotatedRefreshToken);
       return {
         success: true,
         token,